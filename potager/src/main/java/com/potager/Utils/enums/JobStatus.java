@@ -0,0 +1,5 @@
+package com.potager.Utils.enums;
+
+public enum JobStatus {
+    QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED
+}
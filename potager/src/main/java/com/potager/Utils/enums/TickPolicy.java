@@ -0,0 +1,8 @@
+package com.potager.Utils.enums;
+
+public enum TickPolicy {
+    // Run every missed step, a bounded number per tick, until the clock has caught up
+    CATCH_UP,
+    // Run at most one tick's worth of steps and drop the rest
+    SKIP
+}
@@ -0,0 +1,5 @@
+package com.potager.Utils.enums;
+
+public enum WorldStorage {
+    HEAP, MAPPED
+}
@@ -13,14 +13,17 @@ import org.mapstruct.Mapping;
 public interface CustomMappings {
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "gardenId", ignore = true)
     @Mapping(target = "parcel", ignore = true)
     Plant toNewPlant(PlantDTO plantDTO);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "gardenId", ignore = true)
     @Mapping(target = "parcel", ignore = true)
     Insect toNewInsect(InsectDTO insectDTO);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "gardenId", ignore = true)
     @Mapping(target = "parcel", ignore = true)
     @Mapping(target = "programs", ignore = true)
     TreatmentDevice toNewTreatmentDevice(TreatmentDeviceDTO deviceDTO);
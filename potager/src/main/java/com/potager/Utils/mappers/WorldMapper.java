@@ -0,0 +1,137 @@
+package com.potager.Utils.mappers;
+
+import com.potager.dtos.InsectDTO;
+import com.potager.dtos.ParcelDTO;
+import com.potager.dtos.PlantDTO;
+import com.potager.dtos.TreatmentDeviceDTO;
+import com.potager.dtos.TreatmentProgramDTO;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.InsectStore;
+import com.potager.engine.ParcelStore;
+import com.potager.engine.PlantStore;
+import com.potager.engine.SlotStore;
+import com.potager.engine.WorldDevice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the same DTOs as {@link com.potager.Utils.mappers.interfaces.GardenMapper} straight from a
+ * {@link GardenWorld}, for gardens that are not read from the tables: past states and live updates.
+ */
+@Component
+public class WorldMapper {
+
+    public List<ParcelDTO> toParcelDTOs(GardenWorld world) {
+        Map<Integer, WorldDevice> devices = devicesByParcel(world);
+        List<ParcelDTO> result = new ArrayList<>(world.getParcels().size());
+        for (int ordinal = 0; ordinal < world.getParcels().size(); ordinal++) {
+            result.add(toParcelDTO(world, ordinal, devices.get(ordinal)));
+        }
+        return result;
+    }
+
+    public List<ParcelDTO> toParcelDTOs(GardenWorld world, int[] ordinals) {
+        Map<Integer, WorldDevice> devices = devicesByParcel(world);
+        List<ParcelDTO> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(toParcelDTO(world, ordinal, devices.get(ordinal)));
+        }
+        return result;
+    }
+
+    /**
+     * Parcels in [minX, maxX] x [minY, maxY], row by row; a null bound is open.
+     */
+    public List<ParcelDTO> toParcelDTOs(GardenWorld world, Integer minX, Integer maxX, Integer minY, Integer maxY) {
+        if (minX == null && maxX == null && minY == null && maxY == null) {
+            return toParcelDTOs(world);
+        }
+        ParcelStore parcels = world.getParcels();
+        Map<Integer, WorldDevice> devices = devicesByParcel(world);
+        List<ParcelDTO> result = new ArrayList<>();
+        int fromX = Math.max(minX != null ? minX : Integer.MIN_VALUE, parcels.getMinX());
+        int toX = Math.min(maxX != null ? maxX : Integer.MAX_VALUE, parcels.getMinX() + parcels.getWidth() - 1);
+        int fromY = Math.max(minY != null ? minY : Integer.MIN_VALUE, parcels.getMinY());
+        int toY = Math.min(maxY != null ? maxY : Integer.MAX_VALUE, parcels.getMinY() + parcels.getHeight() - 1);
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                int ordinal = parcels.at(x, y);
+                if (ordinal != ParcelStore.NONE) {
+                    result.add(toParcelDTO(world, ordinal, devices.get(ordinal)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private ParcelDTO toParcelDTO(GardenWorld world, int ordinal, WorldDevice device) {
+        ParcelStore parcels = world.getParcels();
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+        long parcelId = parcels.getId(ordinal);
+
+        List<PlantDTO> plantDTOs = new ArrayList<>(plants.count(ordinal));
+        for (int plant = plants.first(ordinal); plant != SlotStore.NONE; plant = plants.next(plant)) {
+            plantDTOs.add(PlantDTO.builder()
+                    // Plants colonized since the last flush have no row, hence no id, yet
+                    .id(plants.getId(plant) != PlantStore.NO_ID ? plants.getId(plant) : null)
+                    .species(plants.getSpecies(plant))
+                    .currentAge(plants.getCurrentAge(plant))
+                    .maturityAge(plants.getMaturityAge(plant))
+                    .isRunner(plants.isRunner(plant))
+                    .colonizationProbability(plants.hasColonizationProbability(plant) ? plants.getColonizationProbability(plant) : null)
+                    .parcelId(parcelId)
+                    .build());
+        }
+        List<InsectDTO> insectDTOs = new ArrayList<>(insects.count(ordinal));
+        for (int insect = insects.first(ordinal); insect != SlotStore.NONE; insect = insects.next(insect)) {
+            insectDTOs.add(InsectDTO.builder()
+                    .id(insects.getId(insect))
+                    .species(insects.getSpecies(insect))
+                    .sex(insects.getSex(insect))
+                    .healthIndex(insects.getHealthIndex(insect))
+                    .mobility(insects.getMobility(insect))
+                    .insecticideResistance(insects.getInsecticideResistance(insect))
+                    .stepsWithoutFood(insects.getStepsWithoutFood(insect))
+                    .parcelId(parcelId)
+                    .build());
+        }
+
+        return ParcelDTO.builder()
+                .id(parcelId)
+                .xCoordinate(parcels.getX(ordinal))
+                .yCoordinate(parcels.getY(ordinal))
+                .humidityLevel(parcels.getHumidityLevel(ordinal))
+                .plants(plantDTOs)
+                .insects(insectDTOs)
+                .treatmentDevice(device != null ? toDeviceDTO(device, parcelId) : null)
+                .build();
+    }
+
+    private TreatmentDeviceDTO toDeviceDTO(WorldDevice device, long parcelId) {
+        return TreatmentDeviceDTO.builder()
+                .id(device.getId())
+                .radius(device.getRadius())
+                .parcelId(parcelId)
+                .programs(device.getPrograms().stream()
+                        .map(program -> TreatmentProgramDTO.builder()
+                                .id(program.getId())
+                                .startTime(program.getStartTime())
+                                .duration(program.getDuration())
+                                .type(program.getType())
+                                .deviceId(device.getId())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    private Map<Integer, WorldDevice> devicesByParcel(GardenWorld world) {
+        Map<Integer, WorldDevice> devices = new HashMap<>();
+        world.getDevices().forEach(device -> devices.put(device.getParcel(), device));
+        return devices;
+    }
+}
@@ -17,22 +17,37 @@ public interface GardenMapper {
     @Mapping(target = "xCoordinate", expression = "java(parcel.getXCoordinate())")
     @Mapping(target = "yCoordinate", expression = "java(parcel.getYCoordinate())")
     ParcelDTO parcelToParcelDTO(Parcel parcel);
+    // The garden and the owning parcel of an entity come from the request's route, not its body
+    @Mapping(target = "gardenId", ignore = true)
+    @Mapping(target = "xCoordinate", expression = "java(parcelDTO.getXCoordinate())")
+    @Mapping(target = "yCoordinate", expression = "java(parcelDTO.getYCoordinate())")
     Parcel parcelDTOToParcel(ParcelDTO parcelDTO);
 
     // Plant mappings
+    @Mapping(target = "parcelId", source = "parcel.id")
     PlantDTO plantToPlantDTO(Plant plant);
+    @Mapping(target = "gardenId", ignore = true)
+    @Mapping(target = "parcel", ignore = true)
     Plant plantDTOToPlant(PlantDTO plantDTO);
 
     // Insect mappings
+    @Mapping(target = "parcelId", source = "parcel.id")
     InsectDTO insectToInsectDTO(Insect insect);
+    @Mapping(target = "gardenId", ignore = true)
+    @Mapping(target = "parcel", ignore = true)
     Insect insectDTOToInsect(InsectDTO insectDTO);
 
     // TreatmentDevice mappings
+    @Mapping(target = "parcelId", source = "parcel.id")
     TreatmentDeviceDTO treatmentDeviceToTreatmentDeviceDTO(TreatmentDevice device);
+    @Mapping(target = "gardenId", ignore = true)
+    @Mapping(target = "parcel", ignore = true)
     TreatmentDevice treatmentDeviceDTOToTreatmentDevice(TreatmentDeviceDTO deviceDTO);
 
     // TreatmentProgram mappings
+    @Mapping(target = "deviceId", source = "device.id")
     TreatmentProgramDTO treatmentProgramToTreatmentProgramDTO(TreatmentProgram program);
+    @Mapping(target = "device", ignore = true)
     TreatmentProgram treatmentProgramDTOToTreatmentProgram(TreatmentProgramDTO programDTO);
 
     // List mappings
@@ -54,18 +69,8 @@ public interface GardenMapper {
         }
     }
 
-    @AfterMapping
-    default void afterPlantMapping(Plant plant, @MappingTarget PlantDTO plantDTO) {
-        if (plant.getParcel() != null) {
-            plantDTO.setParcelId(plant.getParcel().getId());
-        }
-    }
-
     @AfterMapping
     default void afterTreatmentDeviceMapping(TreatmentDevice device, @MappingTarget TreatmentDeviceDTO deviceDTO) {
-        if (device.getParcel() != null) {
-            deviceDTO.setParcelId(device.getParcel().getId());
-        }
         if (device.getPrograms() != null) {
             deviceDTO.setPrograms(
                     device.getPrograms().stream()
@@ -0,0 +1,175 @@
+package com.potager.Utils.xml;
+
+import com.potager.Utils.enums.TreatmentType;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Walks a garden XML file with StAX, one element at a time, and hands each parcel, plant, insect,
+ * device and program to a {@link Handler} as it is read; nothing of the file is kept.
+ *
+ * Plants, insects and devices outside a Parcelle, and programs outside a Dispositif, are skipped.
+ * A second Dispositif on a parcel, a missing attribute or a malformed number is rejected with an
+ * IllegalArgumentException that gives the line.
+ */
+public final class GardenXmlReader {
+
+    private GardenXmlReader() {
+    }
+
+    public interface Handler {
+        void parcel(int x, int y);
+
+        void plant(String species, int maturityAge, boolean isRunner, Double colonizationProbability);
+
+        void insect(String species, String sex, double mobility, double insecticideResistance);
+
+        void device(int radius);
+
+        void program(int startTime, int duration, TreatmentType type);
+
+        void endParcel();
+
+        // After every element, with the number of elements read so far
+        default void elementRead(long elements) {
+        }
+    }
+
+    public static void read(InputStream xml, Handler handler) {
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory().createXMLStreamReader(xml);
+            read(reader, handler);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+    }
+
+    private static void read(XMLStreamReader reader, Handler handler) throws XMLStreamException {
+        boolean inParcel = false;
+        boolean inDevice = false;
+        boolean parcelHasDevice = false;
+        long elements = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                elements++;
+                switch (reader.getLocalName()) {
+                    case "Parcelle" -> {
+                        handler.parcel(intAttribute(reader, "Pos_x"), intAttribute(reader, "Pos_y"));
+                        inParcel = true;
+                        parcelHasDevice = false;
+                    }
+                    case "Plante", "Plante_Drageonnante" -> {
+                        if (inParcel) {
+                            boolean isRunner = reader.getLocalName().equals("Plante_Drageonnante");
+                            handler.plant(attribute(reader, "Espece"), intAttribute(reader, "Maturite_pied"), isRunner,
+                                    isRunner ? doubleAttribute(reader, "Proba_Colonisation") : null);
+                        }
+                    }
+                    case "Insecte" -> {
+                        if (inParcel) {
+                            handler.insect(attribute(reader, "Espece"), attribute(reader, "Sexe"),
+                                    doubleAttribute(reader, "Proba_mobilite"), doubleAttribute(reader, "Resistance_insecticide"));
+                        }
+                    }
+                    case "Dispositif" -> {
+                        if (inParcel) {
+                            if (parcelHasDevice) {
+                                throw new IllegalArgumentException("Parcel already has a treatment device, line " + line(reader));
+                            }
+                            handler.device(intAttribute(reader, "Rayon"));
+                            inDevice = true;
+                            parcelHasDevice = true;
+                        }
+                    }
+                    case "Programme" -> {
+                        if (inDevice) {
+                            handler.program(intAttribute(reader, "Debut"), intAttribute(reader, "Duree"),
+                                    treatmentType(attribute(reader, "Produit")));
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                handler.elementRead(elements);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "Parcelle" -> {
+                        if (inParcel) {
+                            handler.endParcel();
+                        }
+                        inParcel = false;
+                        inDevice = false;
+                    }
+                    case "Dispositif" -> inDevice = false;
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    public static TreatmentType treatmentType(String product) {
+        return switch (product) {
+            case "Eau" -> TreatmentType.WATER;
+            case "Engrais" -> TreatmentType.FERTILIZER;
+            case "Insecticide" -> TreatmentType.INSECTICIDE;
+            default -> throw new IllegalArgumentException("Unknown product type: " + product);
+        };
+    }
+
+    private static XMLInputFactory inputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Uploaded files never pull in anything else
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // Nothing was left to read from it
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing attribute " + name + " on " + reader.getLocalName() + ", line " + line(reader));
+        }
+        return value;
+    }
+
+    private static int intAttribute(XMLStreamReader reader, String name) {
+        String value = attribute(reader, name);
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Attribute " + name + " is not an integer: '" + value + "', line " + line(reader));
+        }
+    }
+
+    private static double doubleAttribute(XMLStreamReader reader, String name) {
+        String value = attribute(reader, name);
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Attribute " + name + " is not a number: '" + value + "', line " + line(reader));
+        }
+    }
+
+    private static int line(XMLStreamReader reader) {
+        return reader.getLocation().getLineNumber();
+    }
+}
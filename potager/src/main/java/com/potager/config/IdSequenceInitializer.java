@@ -0,0 +1,44 @@
+package com.potager.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves every id sequence past the ids already in its table. Tables created when ids were IDENTITY
+ * columns get their sequence from the schema update at 1; without this the first pooled block
+ * would hand out ids that are taken. A sequence already ahead is left alone.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class IdSequenceInitializer {
+
+    // Must match the allocationSize of the @SequenceGenerator on every entity
+    public static final int ALLOCATION_SIZE = 50;
+    private static final List<String> TABLES = List.of(
+            "parcels", "plants", "insects", "treatment_devices", "treatment_programs", "simulation_state");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequences() {
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+            // With pooled-lo, the next block starts at last_value + allocation size once the sequence has been called
+            List<Long> moved = jdbcTemplate.queryForList(
+                    "SELECT setval('" + sequence + "', t.max_id + 1, false) FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM " + table + ") t " +
+                            "WHERE t.max_id >= (SELECT CASE WHEN is_called THEN last_value + " + ALLOCATION_SIZE + " ELSE last_value END FROM " + sequence + ")",
+                    Long.class);
+            if (!moved.isEmpty()) {
+                log.info("Moved {} to {} past the existing ids of {}", sequence, moved.get(0), table);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.potager.config;
+
+import com.potager.engine.WorldStepper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class SimulationEngineConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool simulationPool(SimulationProperties properties) {
+        int threads = properties.getParallel().getThreads();
+        return new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Bean
+    public WorldStepper worldStepper(SimulationProperties properties, ForkJoinPool simulationPool) {
+        SimulationProperties.Parallel parallel = properties.getParallel();
+        return parallel.isEnabled()
+                ? new WorldStepper(simulationPool, parallel.getTileSize())
+                : new WorldStepper();
+    }
+}
@@ -0,0 +1,133 @@
+package com.potager.config;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.enums.TickPolicy;
+import com.potager.Utils.enums.WorldStorage;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "potager.simulation")
+public class SimulationProperties {
+
+    // DATABASE steps straight on the JPA entities, SQL with set-based statements, MEMORY on the in-memory world
+    private EngineMode engine = EngineMode.MEMORY;
+
+    // The in-memory world is written back after this many steps or this many millis, whichever comes first
+    private int flushInterval = 50;
+    private long flushPeriodMillis = 1000;
+
+    // HEAP keeps in-memory worlds in Java arrays, MAPPED in memory-mapped files under storageDirectory,
+    // one directory per garden, which outlive the process and are reopened on the next start
+    private WorldStorage storage = WorldStorage.HEAP;
+    private String storageDirectory = "data/worlds";
+
+    private Parallel parallel = new Parallel();
+    private FastForward fastForward = new FastForward();
+    private Ensemble ensemble = new Ensemble();
+    private Clock clock = new Clock();
+    private Journal journal = new Journal();
+    private Checkpoint checkpoint = new Checkpoint();
+    private History history = new History();
+    private Stream stream = new Stream();
+    private Viewport viewport = new Viewport();
+    private Imports imports = new Imports();
+
+    @Data
+    public static class Parallel {
+        // Tiles of tileSize x tileSize parcels are stepped concurrently on a ForkJoinPool of this many threads (0 = one per core)
+        private boolean enabled = true;
+        private int tileSize = 64;
+        private int threads = 0;
+    }
+
+    @Data
+    public static class FastForward {
+        // Steps committed per transaction while fast-forwarding
+        private int batchSize = 500;
+        // Fast-forwards of different gardens run side by side, up to this many at once
+        private int threads = 2;
+        // Finished jobs can be polled for this long, then are forgotten
+        private long jobTtlMillis = 60 * 60 * 1000;
+    }
+
+    @Data
+    public static class Ensemble {
+        // Upper bounds for a single Monte Carlo request
+        private int maxReplicas = 256;
+        private long maxReplicaSteps = 1_000_000;
+    }
+
+    @Data
+    public static class Clock {
+        // How often the clock wakes up, and how many due steps one wake-up may run
+        private long resolutionMillis = 5;
+        private int maxStepsPerTick = 100;
+        private TickPolicy policy = TickPolicy.CATCH_UP;
+        // Gardens are stepped on this many workers (0 = one per core), each for at most one slice at a time
+        private int workers = 0;
+        private long sliceMillis = 50;
+    }
+
+    @Data
+    public static class Journal {
+        // Each in-memory step is appended to data/journal/garden-<id>.journal, and pending steps are
+        // written and forced to disk every commitIntervalMillis; appenders only wait past maxPendingBytes
+        private boolean enabled = true;
+        private String directory = "data/journal";
+        private long commitIntervalMillis = 10;
+        private int maxPendingBytes = 4 * 1024 * 1024;
+        // Most steps one journal read may return
+        private int maxReadSteps = 1000;
+    }
+
+    @Data
+    public static class Checkpoint {
+        // Checkpoints go to data/checkpoints/garden-<id>/; one is taken every intervalSteps steps (0 = only on
+        // request) and the newest retain are kept
+        private String directory = "data/checkpoints";
+        private int intervalSteps = 1000;
+        private int retain = 5;
+    }
+
+    @Data
+    public static class History {
+        // Past states rebuilt from a checkpoint and the journal, and the checkpoints they start from, kept
+        // most recently used first while their worlds add up to at most cacheBytes (see Footprint.worldBytes)
+        private long cacheBytes = 256L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Stream {
+        // Each dashboard connection buffers up to queueSize updates; one that falls further behind gets a
+        // single snapshot instead. Updates are written by senderThreads threads, idle connections get a
+        // heartbeat every heartbeatMillis and are closed after timeoutMillis (browsers reconnect)
+        private int queueSize = 64;
+        private int senderThreads = 4;
+        private long heartbeatMillis = 15000;
+        private long timeoutMillis = 30 * 60 * 1000;
+    }
+
+    @Data
+    public static class Viewport {
+        // Parcels per page of a viewport query unless the client asks for fewer, and at most maxPageSize.
+        // Tile z/x/y covers tileSize << z parcels a side, up to maxZoom
+        private int pageSize = 500;
+        private int maxPageSize = 5000;
+        private int tileSize = 32;
+        private int maxZoom = 10;
+    }
+
+    @Data
+    public static class Imports {
+        // Garden files are spooled under spoolDirectory and loaded by threads workers; up to queueSize
+        // more wait their turn, further submissions are refused
+        private int threads = 1;
+        private int queueSize = 4;
+        private String spoolDirectory = "data/imports";
+        // Finished jobs can be polled for this long, then are forgotten
+        private long jobTtlMillis = 60 * 60 * 1000;
+    }
+}
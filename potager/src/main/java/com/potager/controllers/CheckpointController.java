@@ -0,0 +1,41 @@
+package com.potager.controllers;
+
+import com.potager.dtos.CheckpointDTO;
+import com.potager.services.CheckpointService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+
+@RestController
+@AllArgsConstructor
+@RequestMapping({"/api/checkpoints", "/api/gardens/{gardenId}/checkpoints"})
+public class CheckpointController extends GardenController {
+
+    private final CheckpointService checkpointService;
+
+    @GetMapping
+    public ResponseEntity<List<CheckpointDTO>> getCheckpoints() {
+        return ok(checkpointService.listCheckpoints(gardenId()));
+    }
+
+    @PostMapping
+    public ResponseEntity<CheckpointDTO> createCheckpoint() {
+        logger.info("Saving a checkpoint");
+        return created(checkpointService.createCheckpoint(gardenId()));
+    }
+
+    @PostMapping("/{step}/restore")
+    public ResponseEntity<CheckpointDTO> restoreCheckpoint(@PathVariable int step) {
+        logger.info("Restoring the checkpoint at step {}", step);
+        return ok(checkpointService.restoreCheckpoint(gardenId(), step));
+    }
+
+    @DeleteMapping("/{step}")
+    public ResponseEntity<Void> deleteCheckpoint(@PathVariable int step) {
+        checkpointService.deleteCheckpoint(gardenId(), step);
+        return noContent();
+    }
+}
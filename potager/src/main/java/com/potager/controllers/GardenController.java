@@ -1,20 +1,73 @@
 package com.potager.controllers;
 
 import com.potager.customExceptions.ErrorResponse;
+import com.potager.models.SimulationState;
+import com.potager.services.GardenVersionService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class GardenController {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
+    /**
+     * Garden the request is for: the {gardenId} of /api/gardens/{gardenId}/... routes, or the default
+     * garden for the original /api/... routes.
+     */
+    @SuppressWarnings("unchecked")
+    protected Long gardenId() {
+        Map<String, String> variables = (Map<String, String>) RequestContextHolder.currentRequestAttributes()
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        String gardenId = variables != null ? variables.get("gardenId") : null;
+        return gardenId != null ? Long.valueOf(gardenId) : SimulationState.DEFAULT_GARDEN_ID;
+    }
+
+    /**
+     * 304 when the client's If-None-Match still names the garden's current version, without building
+     * the body; otherwise the body, tagged with that version. The version is read first, so a change
+     * made while the body is built is caught by the next request.
+     */
+    protected <T> ResponseEntity<T> okIfModified(GardenVersionService versions, Supplier<T> body) {
+        String etag = versions.etag(gardenId());
+        String ifNoneMatch = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
+                .getRequest().getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            versions.recordHit();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        versions.recordMiss();
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body.get());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected <T> ResponseEntity<T> ok(T body) {
         return ResponseEntity.ok(body);
     }
@@ -33,6 +86,10 @@ public class GardenController {
         return ResponseEntity.status(HttpStatus.CREATED).body(body);
     }
 
+    protected <T> ResponseEntity<T> accepted(T body) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
     protected ResponseEntity<ErrorResponse> notFound(String message) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(new ErrorResponse(HttpStatus.NOT_FOUND.value(), message));
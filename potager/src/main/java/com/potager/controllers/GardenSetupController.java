@@ -2,10 +2,12 @@ package com.potager.controllers;
 
 import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.GardenPresetDTO;
+import com.potager.dtos.ImportJobDTO;
 import com.potager.dtos.InsectDTO;
+import com.potager.dtos.PresetLoadDTO;
+import com.potager.services.GardenImportService;
+import com.potager.services.GardenPresetService;
 import com.potager.services.InsectService;
-import com.potager.services.SimulationService;
-import com.potager.services.XmlGardenLoaderService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
@@ -16,77 +18,81 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 
 @RestController
-@RequestMapping("/api/garden-setup")
+@RequestMapping({"/api/garden-setup", "/api/gardens/{gardenId}/garden-setup"})
 @RequiredArgsConstructor
 public class GardenSetupController extends GardenController {
 
-    private final XmlGardenLoaderService xmlGardenLoaderService;
-    private final SimulationService simulationService;
+    private final GardenImportService gardenImportService;
+    private final GardenPresetService gardenPresetService;
 
+    /**
+     * Queues the import of the garden described by the request body; the returned job is polled at
+     * /imports/{jobId}.
+     */
     @PostMapping("/load-xml")
-    public ResponseEntity<?> loadGardenFromXml(@RequestBody String xmlContent) {
-        logger.info("Loading garden from XML");
+    public ResponseEntity<?> loadGardenFromXml(InputStream xmlContent) {
+        logger.info("Queueing garden import from XML");
         try {
-            simulationService.resetSimulation();
-
-            xmlGardenLoaderService.loadGardenFromXml(xmlContent);
-            return ok("Garden configuration loaded successfully");
-        } catch (RuntimeException e) {
-            logger.error("Failed to load garden from XML: {}", e.getMessage());
-            return badRequest("Invalid XML format: " + e.getMessage());
+            return accepted(gardenImportService.submit(gardenId(), "request body", xmlContent));
+        } catch (IOException e) {
+            logger.error("Failed to receive garden XML: {}", e.getMessage());
+            return badRequest("Failed to receive XML: " + e.getMessage());
         }
     }
 
     @PostMapping(value = "/upload-xml", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadGardenXmlFile(@RequestParam("file") MultipartFile file) {
         logger.info("Uploading garden XML file: {}", file.getOriginalFilename());
-        try {
-            if (file.isEmpty()) {
-                return badRequest("Uploaded file is empty");
-            }
+        if (file.isEmpty()) {
+            return badRequest("Uploaded file is empty");
+        }
 
-            if (!file.getOriginalFilename().toLowerCase().endsWith(".xml")) {
-                return badRequest("Only XML files are allowed");
-            }
+        if (!file.getOriginalFilename().toLowerCase().endsWith(".xml")) {
+            return badRequest("Only XML files are allowed");
+        }
 
-            String xmlContent = new String(file.getBytes(), StandardCharsets.UTF_8);
-            return loadGardenFromXml(xmlContent);
+        try (InputStream xmlContent = file.getInputStream()) {
+            return accepted(gardenImportService.submit(gardenId(), file.getOriginalFilename(), xmlContent));
         } catch (IOException e) {
             logger.error("File upload error: {}", e.getMessage());
             return badRequest("Failed to process uploaded file: " + e.getMessage());
         }
     }
 
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<ImportJobDTO> getImportStatus(@PathVariable String jobId) {
+        return ok(gardenImportService.getStatus(gardenId(), jobId));
+    }
+
+    @DeleteMapping("/imports/{jobId}")
+    public ResponseEntity<ImportJobDTO> cancelImport(@PathVariable String jobId) {
+        logger.info("Cancelling import {}", jobId);
+        return ok(gardenImportService.cancel(gardenId(), jobId));
+    }
+
     @GetMapping("/available-presets")
     public ResponseEntity<List<GardenPresetDTO>> getAvailablePresets() {
         logger.info("Fetching available garden presets");
-        return ok(List.of(
-                new GardenPresetDTO("Case 1", "Basic garden setup"),
-                new GardenPresetDTO("Case 2", "Garden with runner plants"),
-                new GardenPresetDTO("Case 3", "Insect evolution test"),
-                new GardenPresetDTO("Case 4", "Treatment devices test")
-        ));
+        return ok(gardenPresetService.getPresets());
     }
 
+    /**
+     * Replaces the garden with a fresh copy of the preset, from the templates read at startup.
+     */
     @PostMapping("/load-preset/{presetName}")
     public ResponseEntity<?> loadPreset(@PathVariable String presetName) {
         logger.info("Loading garden preset: {}", presetName);
         try {
-            String resourcePath = String.format("presets/Pootager_%s.xml", presetName.replace(" ", "_"));
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resourcePath);
-
-            if (inputStream == null) {
-                return notFound("Preset not found: " + presetName);
-            }
-
-            String xmlContent = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            return loadGardenFromXml(xmlContent);
-        } catch (IOException e) {
+            PresetLoadDTO loaded = gardenPresetService.loadPreset(gardenId(), presetName);
+            logger.info("Loaded preset {} in {} ms", presetName, String.format("%.1f", loaded.getElapsedMillis()));
+            return ok(loaded);
+        } catch (EntityNotFoundException e) {
+            return notFound(e.getMessage());
+        } catch (RuntimeException e) {
             logger.error("Failed to load preset: {}", e.getMessage());
             return badRequest("Failed to load preset: " + e.getMessage());
         }
@@ -0,0 +1,38 @@
+package com.potager.controllers;
+
+import com.potager.dtos.SimulationStateDTO;
+import com.potager.services.SimulationService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Gardens hosted by this node. A garden comes into existence with its simulation state, when it is
+ * created here; the routes under /api/gardens/{gardenId}/... answer 404 for a garden never created.
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/gardens")
+public class GardensController extends GardenController {
+
+    private final SimulationService simulationService;
+
+    @GetMapping
+    public ResponseEntity<List<SimulationStateDTO>> getGardens() {
+        logger.info("Fetching hosted gardens");
+        return ok(simulationService.getGardens());
+    }
+
+    // 201 with the new garden, or 200 with the existing one: creating a garden twice is harmless
+    @PostMapping("/{gardenId}")
+    public ResponseEntity<SimulationStateDTO> createGarden(@PathVariable Long gardenId) {
+        if (simulationService.gardenExists(gardenId)) {
+            logger.info("Garden {} already exists", gardenId);
+            return ok(simulationService.getSimulationStatus(gardenId));
+        }
+        logger.info("Creating garden {}", gardenId);
+        return created(simulationService.createGarden(gardenId));
+    }
+}
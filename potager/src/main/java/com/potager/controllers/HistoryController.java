@@ -0,0 +1,32 @@
+package com.potager.controllers;
+
+import com.potager.dtos.GardenHistoryDTO;
+import com.potager.dtos.ParcelDTO;
+import com.potager.services.GardenHistoryService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+
+@RestController
+@AllArgsConstructor
+@RequestMapping({"/api/history", "/api/gardens/{gardenId}/history"})
+public class HistoryController extends GardenController {
+
+    private final GardenHistoryService gardenHistoryService;
+
+    // The whole garden at a past step, or the parcels of a rectangle when bounds are given
+    @GetMapping("/{step}")
+    public ResponseEntity<GardenHistoryDTO> getGardenAt(@PathVariable int step,
+                                                        @RequestParam(required = false) Integer minX,
+                                                        @RequestParam(required = false) Integer maxX,
+                                                        @RequestParam(required = false) Integer minY,
+                                                        @RequestParam(required = false) Integer maxY) {
+        return ok(gardenHistoryService.getGardenAt(gardenId(), step, minX, maxX, minY, maxY));
+    }
+
+    @GetMapping("/{step}/parcels/{x}/{y}")
+    public ResponseEntity<ParcelDTO> getParcelAt(@PathVariable int step, @PathVariable int x, @PathVariable int y) {
+        return ok(gardenHistoryService.getParcelAt(gardenId(), step, x, y));
+    }
+}
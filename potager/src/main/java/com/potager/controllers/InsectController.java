@@ -2,6 +2,7 @@ package com.potager.controllers;
 
 import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.InsectDTO;
+import com.potager.services.GardenVersionService;
 import com.potager.services.InsectService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -12,16 +13,17 @@ import java.util.List;
 
 @RestController
 @AllArgsConstructor
-@RequestMapping("/api/insects")
+@RequestMapping({"/api/insects", "/api/gardens/{gardenId}/insects"})
 public class InsectController extends GardenController {
 
     private final InsectService insectService;
+    private final GardenVersionService gardenVersionService;
 
     @PostMapping
     public ResponseEntity<?> createInsect(@Valid @RequestBody InsectDTO insectDTO) {
         logger.info("Creating new insect of species: {}", insectDTO.getSpecies());
         try {
-            return created(insectService.createInsect(insectDTO));
+            return created(insectService.createInsect(gardenId(), insectDTO));
         } catch (EntityNotFoundException e) {
             logger.warn("Failed to create insect: {}", e.getMessage());
             return notFound(e.getMessage());
@@ -31,19 +33,19 @@ public class InsectController extends GardenController {
     @GetMapping("/parcel/{parcelId}")
     public ResponseEntity<List<InsectDTO>> getInsectsByParcel(@PathVariable Long parcelId) {
         logger.info("Fetching insects for parcel id: {}", parcelId);
-        return ok(insectService.getInsectsByParcel(parcelId));
+        return okIfModified(gardenVersionService, () -> insectService.getInsectsByParcel(gardenId(), parcelId));
     }
 
     @GetMapping("/healthy")
     public ResponseEntity<List<InsectDTO>> getHealthyInsects() {
         logger.info("Fetching all healthy insects");
-        return ok(insectService.getHealthyInsects());
+        return okIfModified(gardenVersionService, () -> insectService.getHealthyInsects(gardenId()));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> removeInsect(@PathVariable Long id) {
         logger.info("Removing insect with id: {}", id);
-        insectService.removeInsect(id);
+        insectService.removeInsect(gardenId(), id);
         return noContent();
     }
 }
@@ -3,38 +3,103 @@ package com.potager.controllers;
 import com.potager.Utils.mappers.interfaces.GardenMapper;
 import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.ParcelDTO;
+import com.potager.dtos.ParcelPageDTO;
+import com.potager.engine.GridFrame;
 import com.potager.models.Parcel;
 import com.potager.repositories.ParcelRepository;
+import com.potager.services.GardenVersionService;
+import com.potager.services.GridFrameService;
 import com.potager.services.ParcelService;
+import com.potager.services.ParcelViewportService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 @AllArgsConstructor
-@RequestMapping("/api/parcels")
+@RequestMapping({"/api/parcels", "/api/gardens/{gardenId}/parcels"})
 public class ParcelController extends GardenController {
 
     private final ParcelService parcelService;
     private final ParcelRepository parcelRepository;
     private final GardenMapper gardenMapper;
+    private final GridFrameService gridFrameService;
+    private final GardenVersionService gardenVersionService;
+    private final ParcelViewportService parcelViewportService;
 
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     @GetMapping
     public ResponseEntity<List<ParcelDTO>> getAllParcels() {
         logger.info("Fetching all parcels");
-        return ok(parcelService.getAllParcels());
+        return okIfModified(gardenVersionService, () -> parcelService.getAllParcels(gardenId()));
     }
+    /**
+     * The whole grid as one binary {@link GridFrame}, written straight to the response and gzipped
+     * when the client accepts it, unless compress is false.
+     */
+    @GetMapping(value = "/frame", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getGridFrame(
+            @RequestParam(defaultValue = "true") boolean compress,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        GridFrame frame = gridFrameService.getFrame(gardenId());
+        boolean gzip = compress && acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // The frame is built here, the response is written after the world has been released
+        return response.body(out -> gridFrameService.write(frame, out, gzip));
+    }
+
+    /**
+     * Parcels in [minX, maxX] x [minY, maxY], row by row, a page of at most limit at a time: the next
+     * page is asked for with the nextAfterX and nextAfterY of the previous one. Include lists what to
+     * load with each parcel, among plants, insects and devices.
+     */
+    @GetMapping("/viewport")
+    public ResponseEntity<ParcelPageDTO> getViewport(
+            @RequestParam int minX, @RequestParam int maxX, @RequestParam int minY, @RequestParam int maxY,
+            @RequestParam(required = false) Integer afterX, @RequestParam(required = false) Integer afterY,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) Set<String> include) {
+        logger.info("Fetching parcels in [{},{}] x [{},{}]", minX, maxX, minY, maxY);
+        return page(() -> parcelViewportService.getViewport(gardenId(), minX, maxX, minY, maxY,
+                afterX, afterY, limit, include));
+    }
+
+    /**
+     * Same as the viewport of tile (x, y) at zoom z, a square of tileSize << z parcels a side.
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<ParcelPageDTO> getTile(
+            @PathVariable int z, @PathVariable int x, @PathVariable int y,
+            @RequestParam(required = false) Integer afterX, @RequestParam(required = false) Integer afterY,
+            @RequestParam(required = false) Integer limit, @RequestParam(required = false) Set<String> include) {
+        logger.info("Fetching parcels of tile {}/{}/{}", z, x, y);
+        return page(() -> parcelViewportService.getTile(gardenId(), z, x, y, afterX, afterY, limit, include));
+    }
+
+    // Pages read from the tables follow their ETag; those read from an in-memory world cannot
+    private ResponseEntity<ParcelPageDTO> page(Supplier<ParcelPageDTO> page) {
+        return parcelViewportService.readsWorld() ? ok(page.get()) : okIfModified(gardenVersionService, page);
+    }
+
     @GetMapping("/raw")
     public ResponseEntity<List<Parcel>> getAllParcelsRaw() {
-        return ok(parcelRepository.findAll());
+        return ok(parcelRepository.findByGardenId(gardenId()));
     }
 
     @GetMapping("/test-mapping")
@@ -52,7 +117,7 @@ public class ParcelController extends GardenController {
     public ResponseEntity<?> getParcelById(@PathVariable Long id) {
         logger.info("Fetching parcel with id: {}", id);
         try {
-            return ok(parcelService.getParcelById(id));
+            return ok(parcelService.getParcelById(gardenId(), id));
         } catch (EntityNotFoundException e) {
             logger.warn("Parcel not found with id: {}", id);
             return notFound(e.getMessage());
@@ -64,7 +129,7 @@ public class ParcelController extends GardenController {
         logger.info("Creating new parcel at coordinates ({},{})",
                 parcelDTO.getXCoordinate(), parcelDTO.getYCoordinate());
         try {
-            return created(parcelService.createParcel(parcelDTO));
+            return created(parcelService.createParcel(gardenId(), parcelDTO));
         } catch (IllegalArgumentException e) {
             logger.warn("Failed to create parcel: {}", e.getMessage());
             return badRequest(e.getMessage());
@@ -74,7 +139,7 @@ public class ParcelController extends GardenController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteParcel(@PathVariable Long id) {
         logger.info("Deleting parcel with id: {}", id);
-        parcelService.deleteParcel(id);
+        parcelService.deleteParcel(gardenId(), id);
         return noContent();
     }
 
@@ -82,6 +147,6 @@ public class ParcelController extends GardenController {
     public ResponseEntity<List<ParcelDTO>> getDryParcels(
             @RequestParam(defaultValue = "30.0") double humidityThreshold) {
         logger.info("Fetching dry parcels with humidity below {}", humidityThreshold);
-        return ok(parcelService.getDryParcels(humidityThreshold));
+        return okIfModified(gardenVersionService, () -> parcelService.getDryParcels(gardenId(), humidityThreshold));
     }
 }
\ No newline at end of file
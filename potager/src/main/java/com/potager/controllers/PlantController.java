@@ -3,6 +3,7 @@ package com.potager.controllers;
 import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.ParcelDTO;
 import com.potager.dtos.PlantDTO;
+import com.potager.services.GardenVersionService;
 import com.potager.services.ParcelService;
 import com.potager.services.PlantService;
 import jakarta.validation.Valid;
@@ -15,16 +16,17 @@ import java.util.List;
 
 @RestController
 @AllArgsConstructor
-@RequestMapping("/api/plants")
+@RequestMapping({"/api/plants", "/api/gardens/{gardenId}/plants"})
 public class PlantController extends GardenController {
 
     private final PlantService plantService;
+    private final GardenVersionService gardenVersionService;
 
     @PostMapping
     public ResponseEntity<?> createPlant(@Valid @RequestBody PlantDTO plantDTO) {
         logger.info("Creating new plant of species: {}", plantDTO.getSpecies());
         try {
-            return created(plantService.createPlant(plantDTO));
+            return created(plantService.createPlant(gardenId(), plantDTO));
         } catch (EntityNotFoundException e) {
             logger.warn("Failed to create plant: {}", e.getMessage());
             return notFound(e.getMessage());
@@ -34,19 +36,19 @@ public class PlantController extends GardenController {
     @GetMapping("/parcel/{parcelId}")
     public ResponseEntity<List<PlantDTO>> getPlantsByParcel(@PathVariable Long parcelId) {
         logger.info("Fetching plants for parcel id: {}", parcelId);
-        return ok(plantService.getPlantsByParcel(parcelId));
+        return okIfModified(gardenVersionService, () -> plantService.getPlantsByParcel(gardenId(), parcelId));
     }
 
     @GetMapping("/mature")
     public ResponseEntity<List<PlantDTO>> getMaturePlants() {
         logger.info("Fetching all mature plants");
-        return ok(plantService.getMaturePlants());
+        return okIfModified(gardenVersionService, () -> plantService.getMaturePlants(gardenId()));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> harvestPlant(@PathVariable Long id) {
         logger.info("Harvesting plant with id: {}", id);
-        plantService.harvestPlant(id);
+        plantService.harvestPlant(gardenId(), id);
         return noContent();
     }
 }
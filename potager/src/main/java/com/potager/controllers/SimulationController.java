@@ -1,56 +1,109 @@
 package com.potager.controllers;
 
 import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.EnsembleRequestDTO;
+import com.potager.dtos.EnsembleResultDTO;
+import com.potager.dtos.FastForwardStatusDTO;
+import com.potager.dtos.SimulationClockDTO;
 import com.potager.dtos.InsectDTO;
+import com.potager.dtos.JournalStepDTO;
+import com.potager.dtos.MemoryFootprintDTO;
+import com.potager.dtos.WriteBackStatsDTO;
 import com.potager.dtos.SimulationStateDTO;
+import com.potager.services.EnsembleService;
+import com.potager.services.FastForwardService;
+import com.potager.services.GardenStreamService;
+import com.potager.services.GardenWorldService;
 import com.potager.services.InsectService;
+import com.potager.services.SimulationClock;
 import com.potager.services.SimulationService;
+import com.potager.services.StepJournalService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
 
 @RestController
 @AllArgsConstructor
-@RequestMapping("/api/simulation")
+@RequestMapping({"/api/simulation", "/api/gardens/{gardenId}/simulation"})
 public class SimulationController extends GardenController {
 
     private final SimulationService simulationService;
+    private final FastForwardService fastForwardService;
+    private final EnsembleService ensembleService;
+    private final SimulationClock simulationClock;
+    private final GardenWorldService gardenWorldService;
+    private final StepJournalService stepJournalService;
+    private final GardenStreamService gardenStreamService;
 
     @GetMapping("/status")
     public ResponseEntity<SimulationStateDTO> getSimulationStatus() {
         logger.info("Fetching simulation status");
-        return ok(simulationService.getSimulationStatus());
+        return ok(simulationService.getSimulationStatus(gardenId()));
+    }
+
+    /**
+     * Server-sent events with every step's changes, in place of polling the status and the parcels.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSimulation() {
+        logger.info("Opening simulation stream");
+        Long gardenId = gardenId();
+        return ok(gardenStreamService.subscribe(gardenId, simulationService.getSimulationStatus(gardenId)));
+    }
+
+    @GetMapping("/clock")
+    public ResponseEntity<SimulationClockDTO> getClockStatus() {
+        return ok(simulationClock.getStatus(gardenId()));
+    }
+
+    @GetMapping("/footprint")
+    public ResponseEntity<MemoryFootprintDTO> getMemoryFootprint() {
+        return ok(gardenWorldService.footprint(gardenId()));
+    }
+
+    @GetMapping("/writes")
+    public ResponseEntity<WriteBackStatsDTO> getLastWriteBack() {
+        return ok(gardenWorldService.getLastWriteBack(gardenId()));
+    }
+
+    // At most potager.simulation.journal.max-read-steps steps per request, the first of them past from without to
+    @GetMapping("/journal")
+    public ResponseEntity<List<JournalStepDTO>> getJournal(@RequestParam(defaultValue = "0") int from,
+                                                           @RequestParam(required = false) Integer to) {
+        return ok(stepJournalService.readSteps(gardenId(), from, to));
     }
 
     @PostMapping("/start")
     public ResponseEntity<Void> startSimulation() {
         logger.info("Starting simulation");
-        simulationService.startSimulation();
+        simulationService.startSimulation(gardenId());
         return ok();
     }
 
     @PostMapping("/pause")
     public ResponseEntity<Void> pauseSimulation() {
         logger.info("Pausing simulation");
-        simulationService.pauseSimulation();
+        simulationService.pauseSimulation(gardenId());
         return ok();
     }
 
     @PostMapping("/reset")
     public ResponseEntity<Void> resetSimulation() {
         logger.info("Resetting simulation");
-        simulationService.resetSimulation();
+        simulationService.resetSimulation(gardenId());
         return ok();
     }
 
     @PostMapping("/step")
     public ResponseEntity<Void> executeSingleStep() {
         logger.info("Executing single simulation step");
-        simulationService.executeSingleStep();
+        simulationService.executeSingleStep(gardenId());
         return ok();
     }
 
@@ -58,7 +111,39 @@ public class SimulationController extends GardenController {
     public ResponseEntity<Void> setSimulationSpeed(
             @RequestParam double speedMultiplier) {
         logger.info("Setting simulation speed to: {}", speedMultiplier);
-        simulationService.setSimulationSpeed(speedMultiplier);
+        simulationService.setSimulationSpeed(gardenId(), speedMultiplier);
+        return ok();
+    }
+
+    @PostMapping("/fast-forward")
+    public ResponseEntity<FastForwardStatusDTO> fastForward(
+            @RequestParam(required = false) Integer steps,
+            @RequestParam(required = false) Integer untilStep) {
+        logger.info("Fast-forwarding simulation: steps={}, untilStep={}", steps, untilStep);
+        return accepted(fastForwardService.fastForward(gardenId(), steps, untilStep));
+    }
+
+    @GetMapping("/fast-forward/{jobId}")
+    public ResponseEntity<FastForwardStatusDTO> getFastForwardStatus(@PathVariable String jobId) {
+        return ok(fastForwardService.getStatus(gardenId(), jobId));
+    }
+
+    @DeleteMapping("/fast-forward/{jobId}")
+    public ResponseEntity<FastForwardStatusDTO> cancelFastForward(@PathVariable String jobId) {
+        logger.info("Cancelling fast-forward {}", jobId);
+        return ok(fastForwardService.cancel(gardenId(), jobId));
+    }
+
+    @PostMapping("/ensemble")
+    public ResponseEntity<EnsembleResultDTO> runEnsemble(@Valid @RequestBody EnsembleRequestDTO request) {
+        logger.info("Running ensemble of {} replicas for {} steps", request.getReplicas(), request.getSteps());
+        return ok(ensembleService.runEnsemble(gardenId(), request));
+    }
+
+    @PutMapping("/seed")
+    public ResponseEntity<Void> setSimulationSeed(@RequestParam long seed) {
+        logger.info("Setting simulation seed to: {}", seed);
+        simulationService.setSimulationSeed(gardenId(), seed);
         return ok();
     }
 }
\ No newline at end of file
@@ -16,7 +16,7 @@ import java.util.List;
 
 @RestController
 @AllArgsConstructor
-@RequestMapping("/api/treatments")
+@RequestMapping({"/api/treatments", "/api/gardens/{gardenId}/treatments"})
 public class TreatmentController extends GardenController {
 
     private final TreatmentService treatmentService;
@@ -26,7 +26,7 @@ public class TreatmentController extends GardenController {
             @Valid @RequestBody TreatmentDeviceDTO deviceDTO) {
         logger.info("Creating new treatment device for parcel id: {}", deviceDTO.getParcelId());
         try {
-            return created(treatmentService.createTreatmentDevice(deviceDTO));
+            return created(treatmentService.createTreatmentDevice(gardenId(), deviceDTO));
         } catch (EntityNotFoundException e) {
             logger.warn("Failed to create treatment device: {}", e.getMessage());
             return notFound(e.getMessage());
@@ -41,7 +41,7 @@ public class TreatmentController extends GardenController {
             @Valid @RequestBody TreatmentProgramDTO programDTO) {
         logger.info("Creating new treatment program for device id: {}", programDTO.getDeviceId());
         try {
-            return created(treatmentService.createTreatmentProgram(programDTO));
+            return created(treatmentService.createTreatmentProgram(gardenId(), programDTO));
         } catch (EntityNotFoundException e) {
             logger.warn("Failed to create treatment program: {}", e.getMessage());
             return notFound(e.getMessage());
@@ -52,10 +52,22 @@ public class TreatmentController extends GardenController {
     public ResponseEntity<?> getDeviceByParcel(@PathVariable Long parcelId) {
         logger.info("Fetching treatment device for parcel id: {}", parcelId);
         try {
-            return ok(treatmentService.getDeviceByParcel(parcelId));
+            return ok(treatmentService.getDeviceByParcel(gardenId(), parcelId));
         } catch (EntityNotFoundException e) {
             logger.warn("Treatment device not found for parcel: {}", parcelId);
             return notFound(e.getMessage());
         }
     }
+
+    @DeleteMapping("/programs/{programId}")
+    public ResponseEntity<?> deleteTreatmentProgram(@PathVariable Long programId) {
+        logger.info("Deleting treatment program with id: {}", programId);
+        try {
+            treatmentService.deleteTreatmentProgram(gardenId(), programId);
+            return noContent();
+        } catch (EntityNotFoundException e) {
+            logger.warn("Treatment program not found: {}", programId);
+            return notFound(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckpointDTO {
+    private Long gardenId;
+    private Integer step;
+    private Long seed;
+    private Long createdAt;
+    private Long bytes;
+    // Only filled in when the checkpoint was just written or restored
+    private Integer parcels;
+    private Integer plants;
+    private Integer insects;
+    private Long millis;
+}
@@ -0,0 +1,19 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DistributionDTO {
+    private Double mean;
+    private Double min;
+    private Double p10;
+    private Double p50;
+    private Double p90;
+    private Double max;
+}
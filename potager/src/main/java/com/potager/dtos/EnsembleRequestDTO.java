@@ -0,0 +1,22 @@
+package com.potager.dtos;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EnsembleRequestDTO {
+    @NotNull @Min(1)
+    private Integer replicas;
+    @NotNull @Min(1)
+    private Integer steps;
+    // Preset name as in /api/garden-setup/available-presets; the loaded garden is used when absent
+    private String preset;
+    private Long seed;
+}
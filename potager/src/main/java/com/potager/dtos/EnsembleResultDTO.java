@@ -0,0 +1,21 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EnsembleResultDTO {
+    private Integer replicas;
+    private Integer startStep;
+    private Integer steps;
+    private Long baseSeed;
+    private Long elapsedMillis;
+    private List<EnsembleStepDTO> stepStatistics;
+}
@@ -0,0 +1,22 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EnsembleStepDTO {
+    private Integer step;
+    private Map<String, DistributionDTO> insectsBySpecies;
+    private DistributionDTO colonizedParcels;
+    private DistributionDTO meanHumidity;
+    // Mean share of parcels per 10% humidity bucket, from 0-10% to 90-100%
+    private List<Double> humidityHistogram;
+}
@@ -0,0 +1,23 @@
+package com.potager.dtos;
+
+import com.potager.Utils.enums.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FastForwardStatusDTO {
+    private String jobId;
+    private JobStatus status;
+    private Integer startStep;
+    private Integer targetStep;
+    private Integer currentStep;
+    private Integer completedSteps;
+    private Double stepsPerSecond;
+    private Long elapsedMillis;
+    private String message;
+}
@@ -0,0 +1,26 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GardenDeltaDTO {
+    private Long gardenId;
+    // Applies to the garden as it was at fromStep and brings it to step
+    private Integer fromStep;
+    private Integer step;
+    // Parcels that changed, in full; every other parcel only had its plants aged by plantsAged steps
+    // and its humidity multiplied by humidityDecay
+    private List<ParcelDTO> parcels;
+    private Integer plantsAged;
+    private Double humidityDecay;
+    // The garden is not stepped in memory: the parcels must be fetched again
+    private Boolean resync;
+}
@@ -0,0 +1,25 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GardenHistoryDTO {
+    private Long gardenId;
+    private Integer step;
+    // Step the garden is at now
+    private Integer currentStep;
+    // Checkpoint or cached state the step was rebuilt from, and the journaled steps replayed on top
+    private Integer baseStep;
+    private Integer replayedSteps;
+    private Boolean cached;
+    private Long millis;
+    private List<ParcelDTO> parcels;
+}
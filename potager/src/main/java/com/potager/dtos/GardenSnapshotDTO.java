@@ -0,0 +1,21 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GardenSnapshotDTO {
+    private Long gardenId;
+    private Integer step;
+    private SimulationStateDTO status;
+    // Every parcel, or null with resync when the garden is not stepped in memory
+    private List<ParcelDTO> parcels;
+    private Boolean resync;
+}
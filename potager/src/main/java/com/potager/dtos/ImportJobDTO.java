@@ -0,0 +1,32 @@
+package com.potager.dtos;
+
+import com.potager.Utils.enums.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJobDTO {
+    private String jobId;
+    private JobStatus status;
+    // File name of the upload, or what else the garden came from
+    private String source;
+    private Long bytesTotal;
+    private Long bytesRead;
+    private Long elementsParsed;
+    private Long rowsWritten;
+    private Double elementsPerSecond;
+    private Double rowsPerSecond;
+    private Long elapsedMillis;
+    // Filled once the import has completed
+    private Integer parcels;
+    private Integer plants;
+    private Integer insects;
+    private Integer devices;
+    private Integer programs;
+    private String message;
+}
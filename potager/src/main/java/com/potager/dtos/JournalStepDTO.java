@@ -0,0 +1,24 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JournalStepDTO {
+    private Integer step;
+    // STEP for a simulated step, BREAK where the garden was changed or reloaded outside the simulation
+    private String kind;
+    private Integer bytes;
+    private Integer plantsAdded;
+    private Integer insectsUpdated;
+    private Integer insectsMoved;
+    private Integer insectsDied;
+    private Integer treatmentsApplied;
+    private Integer humidityChanges;
+    private Integer parcelsFertilized;
+}
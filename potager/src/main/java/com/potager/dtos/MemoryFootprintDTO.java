@@ -0,0 +1,21 @@
+package com.potager.dtos;
+
+import com.potager.Utils.enums.WorldStorage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MemoryFootprintDTO {
+    private Long gardenId;
+    private WorldStorage storage;
+    private Integer plants;
+    private Integer insects;
+    private Long storeBytes;
+    private Long entityModelBytes;
+    private Double ratio;
+}
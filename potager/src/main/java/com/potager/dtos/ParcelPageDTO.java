@@ -0,0 +1,26 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ParcelPageDTO {
+    private Long gardenId;
+    // Window the page is from, inclusive
+    private Integer minX;
+    private Integer maxX;
+    private Integer minY;
+    private Integer maxY;
+    // Row by row, then by x; plants, insects and treatmentDevice are only filled when asked for
+    private List<ParcelDTO> parcels;
+    // Pass back as afterX and afterY for the next page; null on the last page
+    private Integer nextAfterX;
+    private Integer nextAfterY;
+}
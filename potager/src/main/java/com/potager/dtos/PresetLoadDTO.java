@@ -0,0 +1,21 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresetLoadDTO {
+    private String preset;
+    private Integer parcels;
+    private Integer plants;
+    private Integer insects;
+    private Integer devices;
+    private Integer programs;
+    // Time to replace the garden with the preset, tables and in-memory world included
+    private Double elapsedMillis;
+}
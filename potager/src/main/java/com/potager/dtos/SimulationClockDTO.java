@@ -0,0 +1,25 @@
+package com.potager.dtos;
+
+import com.potager.Utils.enums.TickPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimulationClockDTO {
+    private Long gardenId;
+    private Boolean running;
+    private Double speedMultiplier;
+    private TickPolicy policy;
+    private Double targetStepsPerSecond;
+    private Double achievedStepsPerSecond;
+    private Long lagSteps;
+    private Long executedSteps;
+    private Long skippedSteps;
+    private Long overruns;
+    private Long lastTickMillis;
+}
@@ -15,7 +15,9 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 public class SimulationStateDTO {
+    private Long gardenId;
     private Integer currentStep;
     private Boolean isRunning;
     private Double speedMultiplier;
+    private Long seed;
 }
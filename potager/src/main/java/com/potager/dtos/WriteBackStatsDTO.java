@@ -0,0 +1,27 @@
+package com.potager.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WriteBackStatsDTO {
+    private Long gardenId;
+    // Steps covered by the flush
+    private Integer steps;
+    private Integer parcelRows;
+    private Integer plantRows;
+    private Integer insectRows;
+    private Integer insertedPlants;
+    private Integer deletedInsects;
+    // The aging statement, whatever the garden size
+    private Integer bulkStatements;
+    // Rows it rewrote: every plant of the garden; decayed parcels are counted in parcelRows
+    private Integer bulkRows;
+    private Integer rowsWritten;
+    private Double rowsPerStep;
+}
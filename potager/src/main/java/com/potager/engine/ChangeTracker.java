@@ -0,0 +1,120 @@
+package com.potager.engine;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects which parcels the steps since the last {@link #drain()} touched, as the world's observer.
+ *
+ * A parcel is changed when a plant colonizes it, a treatment waters or fertilizes it, or one of its
+ * insects is updated, leaves, arrives or dies. The aging of every plant and the decay of every
+ * parcel's humidity happen everywhere at once, so they are summed up as two numbers instead of
+ * marking the whole grid.
+ *
+ * Insects are found through an id index built once from the world and kept up to date from the
+ * events, so tracking a step costs O(events).
+ */
+public class ChangeTracker implements WorldEvents {
+
+    private final GardenWorld world;
+    private final Map<Long, Integer> parcelOrdinals = new HashMap<>();
+    private final Map<Long, Integer> insectParcels = new HashMap<>();
+    private final BitSet changed = new BitSet();
+    private int fromStep;
+    private int plantsAged;
+    private double humidityDecay = 1.0;
+
+    public ChangeTracker(GardenWorld world) {
+        this.world = world;
+        this.fromStep = world.getCurrentStep();
+        ParcelStore parcels = world.getParcels();
+        InsectStore insects = world.getInsects();
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            parcelOrdinals.put(parcels.getId(ordinal), ordinal);
+            for (int insect = insects.first(ordinal); insect != SlotStore.NONE; insect = insects.next(insect)) {
+                insectParcels.put(insects.getId(insect), ordinal);
+            }
+        }
+    }
+
+    /**
+     * What changed between the step of the last drain, or of the world when tracking started, and the
+     * world's current step; tracking then starts over from there.
+     */
+    public Changes drain() {
+        Changes changes = new Changes(fromStep, world.getCurrentStep(), changed.stream().toArray(), plantsAged, humidityDecay);
+        changed.clear();
+        fromStep = world.getCurrentStep();
+        plantsAged = 0;
+        humidityDecay = 1.0;
+        return changes;
+    }
+
+    @Override
+    public void plantsAged(int steps) {
+        plantsAged += steps;
+    }
+
+    @Override
+    public void plantAdded(long key, long parcelId, long sourceKey) {
+        mark(parcelId);
+    }
+
+    @Override
+    public void insectUpdated(long id, int healthIndex, int stepsWithoutFood) {
+        markInsect(id);
+    }
+
+    @Override
+    public void insectMoved(long id, long parcelId) {
+        markInsect(id);
+        Integer ordinal = parcelOrdinals.get(parcelId);
+        if (ordinal != null) {
+            changed.set(ordinal);
+            insectParcels.put(id, ordinal);
+        }
+    }
+
+    @Override
+    public void insectDied(long id) {
+        markInsect(id);
+        insectParcels.remove(id);
+    }
+
+    @Override
+    public void humidityChanged(long parcelId, double humidityLevel) {
+        mark(parcelId);
+    }
+
+    @Override
+    public void plantsFertilized(long parcelId, int count) {
+        mark(parcelId);
+    }
+
+    @Override
+    public void humidityDecayed(double factor) {
+        humidityDecay *= factor;
+    }
+
+    private void mark(long parcelId) {
+        Integer ordinal = parcelOrdinals.get(parcelId);
+        if (ordinal != null) {
+            changed.set(ordinal);
+        }
+    }
+
+    private void markInsect(long id) {
+        Integer ordinal = insectParcels.get(id);
+        if (ordinal != null) {
+            changed.set(ordinal);
+        }
+    }
+
+    /**
+     * Parcels changed from one step to another, by ordinal. Every other parcel only had its plants
+     * aged by plantsAged steps and its humidity multiplied by humidityDecay.
+     */
+    public record Changes(int fromStep, int toStep, int[] parcels, int plantsAged, double humidityDecay) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.potager.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Squares of parcels reached by each device of a world, clipped to the parcel grid once when the world
+ * is built: devices never change during a world's life, a new device or radius reloads the world.
+ *
+ * A {@link Layer} stacks the squares of every program of one kind active on a step and applies them
+ * in a single pass, each parcel once with the number of squares covering it. Small layers walk their
+ * squares; once they cover more cells than the grid holds, they are summed in a 2D difference array
+ * instead, so a step costs O(parcels + devices) however much the squares overlap.
+ */
+public class CoverageMap {
+
+    private final ParcelStore parcels;
+    // Grid-relative and inclusive: fromX, fromY, toX, toY
+    private final Map<WorldDevice, int[]> squares = new IdentityHashMap<>();
+    private final Layer watered = new Layer();
+    private final Layer fertilized = new Layer();
+
+    public CoverageMap(ParcelStore parcels, List<WorldDevice> devices) {
+        this.parcels = parcels;
+        for (WorldDevice device : devices) {
+            squares.put(device, clip(device));
+        }
+    }
+
+    public Layer getWatered() {
+        return watered;
+    }
+
+    public Layer getFertilized() {
+        return fertilized;
+    }
+
+    public void forEachCovered(WorldDevice device, IntConsumer action) {
+        int[] square = square(device);
+        for (int y = square[1]; y <= square[3]; y++) {
+            for (int x = square[0]; x <= square[2]; x++) {
+                int parcel = cell(x, y);
+                if (parcel != ParcelStore.NONE) {
+                    action.accept(parcel);
+                }
+            }
+        }
+    }
+
+    // Number of devices reaching each parcel, into the parcels' coverage column
+    void computeCoverage() {
+        Layer all = new Layer();
+        squares.keySet().forEach(all::add);
+        for (int i = 0; i < parcels.size(); i++) {
+            parcels.setCoverage(i, 0);
+        }
+        all.apply((parcel, count) -> parcels.setCoverage(parcel, parcels.getCoverage(parcel) + count));
+    }
+
+    private int[] square(WorldDevice device) {
+        return squares.computeIfAbsent(device, this::clip);
+    }
+
+    // Empty when the device is outside the grid: from > to
+    private int[] clip(WorldDevice device) {
+        int x = parcels.getX(device.getParcel()) - parcels.getMinX();
+        int y = parcels.getY(device.getParcel()) - parcels.getMinY();
+        int radius = device.getRadius();
+        return new int[]{
+                Math.max(x - radius, 0),
+                Math.max(y - radius, 0),
+                Math.min(x + radius, parcels.getWidth() - 1),
+                Math.min(y + radius, parcels.getHeight() - 1)};
+    }
+
+    private int cell(int x, int y) {
+        return parcels.at(parcels.getMinX() + x, parcels.getMinY() + y);
+    }
+
+    public interface CoverageAction {
+        void accept(int parcel, int count);
+    }
+
+    /**
+     * Squares gathered for one step. Not thread safe; {@link #apply} empties the layer.
+     */
+    public class Layer {
+
+        private final List<int[]> added = new ArrayList<>();
+        private long area;
+        private int[] difference;
+
+        public void add(WorldDevice device) {
+            int[] square = square(device);
+            if (square[0] > square[2] || square[1] > square[3]) {
+                return;
+            }
+            added.add(square);
+            area += (long) (square[2] - square[0] + 1) * (square[3] - square[1] + 1);
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty();
+        }
+
+        /**
+         * Calls the action once per covered parcel with the number of squares covering it, or, for
+         * small layers, once per square covering it with a count of 1. Actions must be additive.
+         */
+        public void apply(CoverageAction action) {
+            int width = parcels.getWidth();
+            int height = parcels.getHeight();
+            if (area <= (long) width * height) {
+                for (int[] square : added) {
+                    for (int y = square[1]; y <= square[3]; y++) {
+                        for (int x = square[0]; x <= square[2]; x++) {
+                            int parcel = cell(x, y);
+                            if (parcel != ParcelStore.NONE) {
+                                action.accept(parcel, 1);
+                            }
+                        }
+                    }
+                }
+            } else {
+                sweep(action, width, height);
+            }
+            added.clear();
+            area = 0;
+        }
+
+        private void sweep(CoverageAction action, int width, int height) {
+            int stride = width + 1;
+            if (difference == null) {
+                difference = new int[stride * (height + 1)];
+            }
+            for (int[] square : added) {
+                difference[square[1] * stride + square[0]]++;
+                difference[square[1] * stride + square[2] + 1]--;
+                difference[(square[3] + 1) * stride + square[0]]--;
+                difference[(square[3] + 1) * stride + square[2] + 1]++;
+            }
+            // In-place 2D prefix sums: each cell ends up holding the number of squares covering it
+            for (int y = 0; y < height; y++) {
+                int row = 0;
+                for (int x = 0; x < width; x++) {
+                    row += difference[y * stride + x];
+                    int count = row + (y > 0 ? difference[(y - 1) * stride + x] : 0);
+                    difference[y * stride + x] = count;
+                }
+            }
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int count = difference[y * stride + x];
+                    if (count > 0) {
+                        int parcel = cell(x, y);
+                        if (parcel != ParcelStore.NONE) {
+                            action.accept(parcel, count);
+                        }
+                    }
+                }
+            }
+            Arrays.fill(difference, 0);
+        }
+    }
+}
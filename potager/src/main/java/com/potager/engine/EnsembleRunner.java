@@ -0,0 +1,118 @@
+package com.potager.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs independent copies of a world with different seeds, one replica per pool task. Each replica
+ * steps serially and only keeps a few counters per step, so K replicas cost K world copies plus
+ * K x steps samples.
+ */
+public class EnsembleRunner {
+
+    public static final int HUMIDITY_BUCKETS = 10;
+
+    private final ForkJoinPool pool;
+
+    public EnsembleRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public List<ReplicaTrace> run(GardenWorld template, int replicas, int steps, long baseSeed) {
+        // Replicas copy the template's insect store, species dictionary included
+        List<String> species = List.copyOf(template.getInsects().getSpeciesNames());
+
+        List<ForkJoinTask<ReplicaTrace>> tasks = new ArrayList<>(replicas);
+        for (int i = 0; i < replicas; i++) {
+            long seed = baseSeed + i;
+            tasks.add(pool.submit(() -> runReplica(template, steps, seed, species)));
+        }
+        List<ReplicaTrace> traces = new ArrayList<>(replicas);
+        tasks.forEach(task -> traces.add(task.join()));
+        return traces;
+    }
+
+    private ReplicaTrace runReplica(GardenWorld template, int steps, long seed, List<String> species) {
+        // The template is only read, so replicas can copy it concurrently
+        GardenWorld world = template.copy();
+        WorldStepper stepper = new WorldStepper();
+        RandomStreams random = new RandomStreams(seed);
+        ReplicaTrace trace = new ReplicaTrace(seed, species, steps);
+
+        int startStep = world.getCurrentStep();
+        for (int i = 0; i < steps; i++) {
+            stepper.step(world, startStep + i + 1, random);
+            sample(world, trace, i);
+        }
+        return trace;
+    }
+
+    private void sample(GardenWorld world, ReplicaTrace trace, int i) {
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+        int colonized = 0;
+        double humidity = 0;
+        ParcelStore parcels = world.getParcels();
+        for (int parcel = 0; parcel < parcels.size(); parcel++) {
+            if (!plants.isEmpty(parcel)) {
+                colonized++;
+            }
+            double level = parcels.getHumidityLevel(parcel);
+            humidity += level;
+            int bucket = (int) Math.min(HUMIDITY_BUCKETS - 1, Math.max(0, level / (100.0 / HUMIDITY_BUCKETS)));
+            trace.humidityHistogram[i][bucket]++;
+            for (int insect = insects.first(parcel); insect != SlotStore.NONE; insect = insects.next(insect)) {
+                trace.insectCounts[i][insects.getSpeciesIndex(insect)]++;
+            }
+        }
+        trace.colonizedParcels[i] = colonized;
+        trace.meanHumidity[i] = parcels.size() == 0 ? 0 : humidity / parcels.size();
+    }
+
+    /**
+     * Per-step counters of one replica; index i is the state after step startStep + i + 1.
+     */
+    public static class ReplicaTrace {
+        private final long seed;
+        private final List<String> species;
+        private final int[][] insectCounts;
+        private final int[] colonizedParcels;
+        private final double[] meanHumidity;
+        private final int[][] humidityHistogram;
+
+        private ReplicaTrace(long seed, List<String> species, int steps) {
+            this.seed = seed;
+            this.species = species;
+            this.insectCounts = new int[steps][species.size()];
+            this.colonizedParcels = new int[steps];
+            this.meanHumidity = new double[steps];
+            this.humidityHistogram = new int[steps][HUMIDITY_BUCKETS];
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public List<String> getSpecies() {
+            return species;
+        }
+
+        public int getInsectCount(int step, int species) {
+            return insectCounts[step][species];
+        }
+
+        public int getColonizedParcels(int step) {
+            return colonizedParcels[step];
+        }
+
+        public double getMeanHumidity(int step) {
+            return meanHumidity[step];
+        }
+
+        public int getHumidityBucket(int step, int bucket) {
+            return humidityHistogram[step][bucket];
+        }
+    }
+}
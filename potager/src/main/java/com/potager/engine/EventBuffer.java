@@ -0,0 +1,141 @@
+package com.potager.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * {@link WorldEvents} recorded as compact binary records: a one-byte tag followed by the event's
+ * fields, little-endian. A starving insect costs 13 bytes, a move 17. Buffers of parallel tiles are
+ * appended to the step's buffer in tile order, so the bytes of a step do not depend on the tiling.
+ */
+public class EventBuffer implements WorldEvents {
+
+    private static final byte PLANTS_AGED = 1;
+    private static final byte PLANT_ADDED = 2;
+    private static final byte INSECT_UPDATED = 3;
+    private static final byte INSECT_MOVED = 4;
+    private static final byte INSECT_DIED = 5;
+    private static final byte TREATMENT_APPLIED = 6;
+    private static final byte HUMIDITY_CHANGED = 7;
+    private static final byte PLANTS_FERTILIZED = 8;
+    private static final byte HUMIDITY_DECAYED = 9;
+
+    private ByteBuffer buffer;
+
+    public EventBuffer() {
+        this(256);
+    }
+
+    public EventBuffer(int capacity) {
+        this.buffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private EventBuffer(ByteBuffer records) {
+        this.buffer = records;
+    }
+
+    /**
+     * Read-only view over records written elsewhere, e.g. a journal frame.
+     */
+    public static EventBuffer wrap(byte[] records, int offset, int length) {
+        ByteBuffer view = ByteBuffer.wrap(records, offset, length).slice().order(ByteOrder.LITTLE_ENDIAN);
+        view.position(length);
+        return new EventBuffer(view);
+    }
+
+    @Override
+    public void plantsAged(int steps) {
+        ensure(5).put(PLANTS_AGED).putInt(steps);
+    }
+
+    @Override
+    public void plantAdded(long key, long parcelId, long sourceKey) {
+        ensure(25).put(PLANT_ADDED).putLong(key).putLong(parcelId).putLong(sourceKey);
+    }
+
+    @Override
+    public void insectUpdated(long id, int healthIndex, int stepsWithoutFood) {
+        ensure(13).put(INSECT_UPDATED).putLong(id).putShort((short) healthIndex).putShort((short) stepsWithoutFood);
+    }
+
+    @Override
+    public void insectMoved(long id, long parcelId) {
+        ensure(17).put(INSECT_MOVED).putLong(id).putLong(parcelId);
+    }
+
+    @Override
+    public void insectDied(long id) {
+        ensure(9).put(INSECT_DIED).putLong(id);
+    }
+
+    @Override
+    public void treatmentApplied(long programId) {
+        ensure(9).put(TREATMENT_APPLIED).putLong(programId);
+    }
+
+    @Override
+    public void humidityChanged(long parcelId, double humidityLevel) {
+        ensure(17).put(HUMIDITY_CHANGED).putLong(parcelId).putDouble(humidityLevel);
+    }
+
+    @Override
+    public void plantsFertilized(long parcelId, int count) {
+        ensure(13).put(PLANTS_FERTILIZED).putLong(parcelId).putInt(count);
+    }
+
+    @Override
+    public void humidityDecayed(double factor) {
+        ensure(9).put(HUMIDITY_DECAYED).putDouble(factor);
+    }
+
+    public void append(EventBuffer other) {
+        ensure(other.size()).put(other.buffer.array(), other.buffer.arrayOffset(), other.size());
+    }
+
+    public int size() {
+        return buffer.position();
+    }
+
+    public void clear() {
+        buffer.clear();
+    }
+
+    public void copyTo(ByteBuffer target) {
+        target.put(buffer.array(), buffer.arrayOffset(), size());
+    }
+
+    /**
+     * Calls the target once per recorded event, in recording order.
+     *
+     * @throws IllegalStateException on an unknown tag, i.e. corrupt records
+     */
+    public void replay(WorldEvents target) {
+        ByteBuffer records = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).flip();
+        while (records.hasRemaining()) {
+            byte tag = records.get();
+            switch (tag) {
+                case PLANTS_AGED -> target.plantsAged(records.getInt());
+                case PLANT_ADDED -> target.plantAdded(records.getLong(), records.getLong(), records.getLong());
+                case INSECT_UPDATED -> target.insectUpdated(records.getLong(), records.getShort(), records.getShort());
+                case INSECT_MOVED -> target.insectMoved(records.getLong(), records.getLong());
+                case INSECT_DIED -> target.insectDied(records.getLong());
+                case TREATMENT_APPLIED -> target.treatmentApplied(records.getLong());
+                case HUMIDITY_CHANGED -> target.humidityChanged(records.getLong(), records.getDouble());
+                case PLANTS_FERTILIZED -> target.plantsFertilized(records.getLong(), records.getInt());
+                case HUMIDITY_DECAYED -> target.humidityDecayed(records.getDouble());
+                default -> throw new IllegalStateException("Unknown event tag " + tag + " at " + (records.position() - 1));
+            }
+        }
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            buffer = ByteBuffer.wrap(Arrays.copyOfRange(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + capacity))
+                    .position(buffer.position())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,31 @@
+package com.potager.engine;
+
+/**
+ * Rough heap cost of plants and insects held as JPA entities, for comparison with the world stores.
+ * Sizes assume a 64-bit JVM with compressed oops and 8-byte alignment, and count the entity object,
+ * its boxed fields outside the small-value caches, its strings and the loaded-state array Hibernate
+ * keeps per managed entity. Good enough to compare the two models, not to size a heap.
+ */
+public final class Footprint {
+
+    // 48 object + Long id and two Doubles (48) + species and sex strings (96) + loaded state (56)
+    public static final int INSECT_ENTITY_BYTES = 248;
+    // 48 object + Long id, Integer age and Double probability (48) + species string (48) + loaded state (48)
+    public static final int PLANT_ENTITY_BYTES = 192;
+
+    private Footprint() {
+    }
+
+    public static long entityModelBytes(int plants, int insects) {
+        return (long) plants * PLANT_ENTITY_BYTES + (long) insects * INSECT_ENTITY_BYTES;
+    }
+
+    public static long storeBytes(GardenWorld world) {
+        return world.getPlants().footprintBytes() + world.getInsects().footprintBytes();
+    }
+
+    // The stores plus the parcels and their grid; devices are few and left out
+    public static long worldBytes(GardenWorld world) {
+        return storeBytes(world) + world.getParcels().footprintBytes();
+    }
+}
@@ -0,0 +1,307 @@
+package com.potager.engine;
+
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.engine.columns.ColumnFactory;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Whole garden at one step: the world (grid, plants, insects, devices, programs) and the simulation
+ * state that goes with it, in one versioned binary file.
+ *
+ * Layout, big-endian: header ({@code int magic | int version | long gardenId | int step | long seed |
+ * double speedMultiplier | long journalOffset | long createdAt | long lastSyntheticKey}), the string
+ * tables, then parcels, devices with their programs, plants and insects as counted runs of fixed
+ * fields, and a CRC32 of everything before it. Plants and insects are written parcel by parcel in list
+ * order, so a restored world iterates exactly like the saved one and steps to the same states.
+ *
+ * Writing goes through one reused buffer and reading maps the file, each checksummed in one pass,
+ * so both run at close to disk speed. Files are written next to their final name and moved into
+ * place, so a reader never sees half a checkpoint.
+ */
+@Getter
+@AllArgsConstructor
+public class GardenCheckpoint {
+
+    private static final int MAGIC = 0x504B4350;
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int HEADER_BYTES = 52;
+    private static final int PARCEL_BYTES = 24;
+    private static final int PLANT_BYTES = 39;
+    private static final int INSECT_BYTES = 35;
+
+    private final long gardenId;
+    private final int step;
+    private final long seed;
+    private final double speedMultiplier;
+    // Journal offset of the first step after this one, or -1 without a journal
+    private final long journalOffset;
+    private final long createdAt;
+    // Null when only the header was read
+    private final GardenWorld world;
+
+    public static void write(Path path, GardenCheckpoint checkpoint) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Output out = new Output(FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            writeWorld(out, checkpoint);
+            out.finish();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Rebuilds the saved world on the given columns.
+     */
+    public static GardenCheckpoint read(Path path, ColumnFactory columns) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt checkpoint " + path);
+            }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(in.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != in.getInt((int) size - 4)) {
+                throw new IOException("Corrupt checkpoint " + path);
+            }
+            return readWorld(in, columns);
+        }
+    }
+
+    public static GardenCheckpoint readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(HEADER_BYTES);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // Read the whole header
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("Not a garden checkpoint");
+            }
+            return readHeader(in.flip(), null);
+        }
+    }
+
+    private static void writeWorld(Output out, GardenCheckpoint checkpoint) throws IOException {
+        GardenWorld world = checkpoint.world;
+        ParcelStore parcels = world.getParcels();
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+
+        out.room(HEADER_BYTES + 8)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(checkpoint.gardenId)
+                .putInt(checkpoint.step)
+                .putLong(checkpoint.seed)
+                .putDouble(checkpoint.speedMultiplier)
+                .putLong(checkpoint.journalOffset)
+                .putLong(checkpoint.createdAt)
+                .putLong(world.getLastSyntheticKey());
+
+        out.strings(plants.getSpeciesNames());
+        out.strings(insects.getSpeciesNames());
+        out.strings(insects.getSexNames());
+
+        out.room(4).putInt(parcels.size());
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            out.room(PARCEL_BYTES)
+                    .putLong(parcels.getId(ordinal))
+                    .putInt(parcels.getX(ordinal))
+                    .putInt(parcels.getY(ordinal))
+                    .putDouble(parcels.getHumidityLevel(ordinal));
+        }
+
+        out.room(4).putInt(world.getDevices().size());
+        for (WorldDevice device : world.getDevices()) {
+            out.room(20)
+                    .putLong(device.getId())
+                    .putInt(device.getRadius())
+                    .putInt(device.getParcel())
+                    .putInt(device.getPrograms().size());
+            for (WorldProgram program : device.getPrograms()) {
+                out.room(17)
+                        .putLong(program.getId())
+                        .putInt(program.getStartTime())
+                        .putInt(program.getDuration())
+                        .put((byte) program.getType().ordinal());
+            }
+        }
+
+        out.room(4).putInt(plants.size());
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            for (int plant = plants.first(ordinal); plant != SlotStore.NONE; plant = plants.next(plant)) {
+                out.room(PLANT_BYTES)
+                        .putInt(ordinal)
+                        .putLong(plants.getId(plant))
+                        .putLong(plants.getKey(plant))
+                        .putShort((short) plants.getSpeciesIndex(plant))
+                        .putInt(plants.getCurrentAge(plant))
+                        .putInt(plants.getMaturityAge(plant))
+                        .put((byte) (plants.isRunner(plant) ? 1 : 0))
+                        .putDouble(plants.getColonizationProbability(plant));
+            }
+        }
+
+        out.room(4).putInt(insects.size());
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            for (int insect = insects.first(ordinal); insect != SlotStore.NONE; insect = insects.next(insect)) {
+                out.room(INSECT_BYTES)
+                        .putInt(ordinal)
+                        .putLong(insects.getId(insect))
+                        .putShort((short) insects.getSpeciesIndex(insect))
+                        .put((byte) insects.getSexIndex(insect))
+                        .putShort((short) insects.getHealthIndex(insect))
+                        .putDouble(insects.getMobility(insect))
+                        .putDouble(insects.getInsecticideResistance(insect))
+                        .putShort((short) insects.getStepsWithoutFood(insect));
+            }
+        }
+    }
+
+    private static GardenCheckpoint readHeader(ByteBuffer in, GardenWorld world) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a garden checkpoint");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version);
+        }
+        return new GardenCheckpoint(in.getLong(), in.getInt(), in.getLong(), in.getDouble(), in.getLong(), in.getLong(), world);
+    }
+
+    private static GardenCheckpoint readWorld(ByteBuffer in, ColumnFactory columns) throws IOException {
+        GardenCheckpoint header = readHeader(in, null);
+        long lastSyntheticKey = in.getLong();
+        List<String> plantSpecies = readStrings(in);
+        List<String> insectSpecies = readStrings(in);
+        List<String> sexes = readStrings(in);
+
+        ParcelStore parcels = new ParcelStore(columns);
+        int parcelCount = in.getInt();
+        for (int i = 0; i < parcelCount; i++) {
+            parcels.add(in.getLong(), in.getInt(), in.getInt(), in.getDouble());
+        }
+
+        TreatmentType[] types = TreatmentType.values();
+        int deviceCount = in.getInt();
+        List<WorldDevice> devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            WorldDevice device = new WorldDevice(in.getLong(), in.getInt(), in.getInt());
+            int programCount = in.getInt();
+            for (int k = 0; k < programCount; k++) {
+                device.getPrograms().add(new WorldProgram(in.getLong(), in.getInt(), in.getInt(), types[in.get()]));
+            }
+            devices.add(device);
+        }
+
+        GardenWorld world = new GardenWorld(parcels, devices);
+        PlantStore plants = world.getPlants();
+        int plantCount = in.getInt();
+        for (int i = 0; i < plantCount; i++) {
+            int parcel = in.getInt();
+            long id = in.getLong();
+            long key = in.getLong();
+            String species = plantSpecies.get(in.getShort());
+            int currentAge = in.getInt();
+            int maturityAge = in.getInt();
+            boolean runner = in.get() != 0;
+            double colonizationProbability = in.getDouble();
+            plants.add(parcel, id, key, species, currentAge, maturityAge, runner,
+                    Double.isNaN(colonizationProbability) ? null : colonizationProbability);
+        }
+
+        InsectStore insects = world.getInsects();
+        int insectCount = in.getInt();
+        for (int i = 0; i < insectCount; i++) {
+            int parcel = in.getInt();
+            long id = in.getLong();
+            String species = insectSpecies.get(in.getShort());
+            String sex = sexes.get(in.get());
+            insects.add(parcel, id, species, sex, in.getShort(), in.getDouble(), in.getDouble(), in.getShort());
+        }
+
+        world.setCurrentStep(header.step);
+        world.setLastSyntheticKey(lastSyntheticKey);
+        world.markLoaded();
+        return new GardenCheckpoint(header.gardenId, header.step, header.seed, header.speedMultiplier,
+                header.journalOffset, header.createdAt, world);
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = in.getShort();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[in.getShort()];
+            in.get(bytes);
+            values.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    // Buffered channel writer that checksums what it writes
+    private static final class Output implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // The buffer, with at least the given number of bytes free
+        ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+            return buffer;
+        }
+
+        void strings(List<String> values) throws IOException {
+            room(2).putShort((short) values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                room(2 + bytes.length).putShort((short) bytes.length).put(bytes);
+            }
+        }
+
+        // Appends the checksum and makes the file durable
+        void finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.potager.engine;
+
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.Utils.xml.GardenXmlReader;
+import com.potager.engine.columns.HeapColumnFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Garden as a file describes it, before anything has an id: read once, never changed, and turned
+ * into as many worlds as needed, each with ids of its own. Safe to share between threads.
+ *
+ * Entities are kept in the order ids are handed out: parcels and devices in file order, each
+ * device's programs after it, and on each parcel its insects in file order and its plants with the
+ * runners after the others.
+ */
+public final class GardenTemplate {
+
+    private static final double HUMIDITY_LEVEL = 50.0;
+    private static final int HEALTH_INDEX = 10;
+
+    private final List<ParcelEntry> parcels;
+    private final List<PlantEntry> plants;
+    private final List<InsectEntry> insects;
+    private final List<DeviceEntry> devices;
+    private final int programCount;
+
+    private GardenTemplate(List<ParcelEntry> parcels, List<PlantEntry> plants, List<InsectEntry> insects,
+                           List<DeviceEntry> devices) {
+        this.parcels = List.copyOf(parcels);
+        this.plants = List.copyOf(plants);
+        this.insects = List.copyOf(insects);
+        this.devices = List.copyOf(devices);
+        this.programCount = devices.stream().mapToInt(device -> device.programs().size()).sum();
+    }
+
+    public static GardenTemplate read(InputStream xml) {
+        Builder builder = new Builder();
+        GardenXmlReader.read(xml, builder);
+        return builder.build();
+    }
+
+    public int getParcelCount() {
+        return parcels.size();
+    }
+
+    public int getPlantCount() {
+        return plants.size();
+    }
+
+    public int getInsectCount() {
+        return insects.size();
+    }
+
+    public int getDeviceCount() {
+        return devices.size();
+    }
+
+    public int getProgramCount() {
+        return programCount;
+    }
+
+    /**
+     * World of the garden at step 0, ids numbered from 1 in order; they only serve as keys for the
+     * random streams, for worlds that never reach the tables.
+     */
+    public GardenWorld instantiate() {
+        return instantiate(counter(), counter(), counter(), counter(), counter());
+    }
+
+    /**
+     * World of the garden at step 0, each entity taking the next id of its kind.
+     */
+    public GardenWorld instantiate(LongSupplier parcelIds, LongSupplier plantIds, LongSupplier insectIds,
+                                   LongSupplier deviceIds, LongSupplier programIds) {
+        ParcelStore parcelStore = new ParcelStore(new HeapColumnFactory());
+        for (ParcelEntry parcel : parcels) {
+            parcelStore.add(parcelIds.getAsLong(), parcel.x(), parcel.y(), HUMIDITY_LEVEL);
+        }
+        List<WorldDevice> worldDevices = new ArrayList<>(devices.size());
+        for (DeviceEntry device : devices) {
+            WorldDevice worldDevice = new WorldDevice(deviceIds.getAsLong(), device.radius(), device.parcel());
+            for (ProgramEntry program : device.programs()) {
+                worldDevice.getPrograms().add(new WorldProgram(programIds.getAsLong(),
+                        program.startTime(), program.duration(), program.type()));
+            }
+            worldDevices.add(worldDevice);
+        }
+
+        // Plants and insects go into the world's stores, which are sized from the parcel store
+        GardenWorld world = new GardenWorld(parcelStore, worldDevices);
+        for (PlantEntry plant : plants) {
+            long id = plantIds.getAsLong();
+            world.getPlants().add(plant.parcel(), id, id, plant.species(), 0, plant.maturityAge(),
+                    plant.isRunner(), plant.colonizationProbability());
+        }
+        for (InsectEntry insect : insects) {
+            world.getInsects().add(insect.parcel(), insectIds.getAsLong(), insect.species(), insect.sex(),
+                    HEALTH_INDEX, insect.mobility(), insect.insecticideResistance(), 0);
+        }
+        return world;
+    }
+
+    private static LongSupplier counter() {
+        long[] next = {1};
+        return () -> next[0]++;
+    }
+
+    private record ParcelEntry(int x, int y) {
+    }
+
+    private record PlantEntry(int parcel, String species, int maturityAge, boolean isRunner, Double colonizationProbability) {
+    }
+
+    private record InsectEntry(int parcel, String species, String sex, double mobility, double insecticideResistance) {
+    }
+
+    private record DeviceEntry(int parcel, int radius, List<ProgramEntry> programs) {
+    }
+
+    private record ProgramEntry(int startTime, int duration, TreatmentType type) {
+    }
+
+    private static class Builder implements GardenXmlReader.Handler {
+
+        private final List<ParcelEntry> parcels = new ArrayList<>();
+        private final List<PlantEntry> plants = new ArrayList<>();
+        private final List<PlantEntry> runners = new ArrayList<>();
+        private final List<InsectEntry> insects = new ArrayList<>();
+        private final List<DeviceEntry> devices = new ArrayList<>();
+        private List<ProgramEntry> programs;
+
+        @Override
+        public void parcel(int x, int y) {
+            parcels.add(new ParcelEntry(x, y));
+        }
+
+        @Override
+        public void plant(String species, int maturityAge, boolean isRunner, Double colonizationProbability) {
+            (isRunner ? runners : plants).add(new PlantEntry(parcels.size() - 1, species, maturityAge, isRunner, colonizationProbability));
+        }
+
+        @Override
+        public void insect(String species, String sex, double mobility, double insecticideResistance) {
+            insects.add(new InsectEntry(parcels.size() - 1, species, sex, mobility, insecticideResistance));
+        }
+
+        @Override
+        public void device(int radius) {
+            programs = new ArrayList<>();
+            devices.add(new DeviceEntry(parcels.size() - 1, radius, programs));
+        }
+
+        @Override
+        public void program(int startTime, int duration, TreatmentType type) {
+            programs.add(new ProgramEntry(startTime, duration, type));
+        }
+
+        @Override
+        public void endParcel() {
+            plants.addAll(runners);
+            runners.clear();
+        }
+
+        private GardenTemplate build() {
+            List<DeviceEntry> frozen = devices.stream()
+                    .map(device -> new DeviceEntry(device.parcel(), device.radius(), List.copyOf(device.programs())))
+                    .toList();
+            return new GardenTemplate(parcels, plants, insects, frozen);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.ColumnFactory;
+import com.potager.engine.columns.ColumnFactory.LongColumn;
+import com.potager.engine.columns.HeapColumnFactory;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Whole garden held between flushes. Parcels, plants and insects live in struct-of-arrays stores
+ * indexed by parcel ordinal, on the columns of a {@link ColumnFactory}: on the heap by default, or in
+ * memory-mapped files for gardens larger than the heap. Entities loaded from the database keep their
+ * id, plants created by colonization get one on the next flush.
+ *
+ * The step, synthetic key sequence and everything the next flush owes the database are written
+ * through to a meta column, so a world on persistent columns reopens exactly as it was left.
+ */
+@Getter
+public class GardenWorld {
+
+    private static final int LOADED = 0;
+    private static final int CURRENT_STEP = 1;
+    private static final int LAST_SYNTHETIC_KEY = 2;
+    private static final int REMOVED_INSECTS = 3;
+    private static final int STEPS_SINCE_FLUSH = 4;
+
+    private final ColumnFactory columns;
+    private final ParcelStore parcels;
+    private final List<WorldDevice> devices;
+    private final CoverageMap coverage;
+    private final PlantStore plants;
+    private final InsectStore insects;
+    @Getter(AccessLevel.NONE)
+    private final LongColumn meta;
+    @Getter(AccessLevel.NONE)
+    private final LongColumn removedInsectIds;
+    @Getter(AccessLevel.NONE)
+    private final TreatmentCalendar<Treatment> treatments = new TreatmentCalendar<>();
+    private int removedInsects;
+    private List<WorldTile> tiles = List.of();
+    private int tileSize;
+
+    private int currentStep;
+    private int stepsSinceFlush;
+    private long lastFlushTime = System.currentTimeMillis();
+    private long lastSyntheticKey;
+    // Receives every step's events when set; copies never have one
+    @Setter
+    private StepJournal journal;
+    // Replayed every step's events when set, e.g. a ChangeTracker; copies never have one
+    @Setter
+    private WorldEvents observer;
+
+    /**
+     * Builds a world on the parcels' columns, or reopens it when those columns already hold one.
+     */
+    public GardenWorld(ParcelStore parcels, List<WorldDevice> devices) {
+        this(parcels, devices, null, null);
+    }
+
+    private GardenWorld(ParcelStore parcels, List<WorldDevice> devices, PlantStore plants, InsectStore insects) {
+        this.columns = parcels.getColumns();
+        this.parcels = parcels;
+        this.devices = devices;
+        if (!parcels.hasGrid()) {
+            parcels.buildGrid();
+        }
+        this.coverage = new CoverageMap(parcels, devices);
+        coverage.computeCoverage();
+        for (WorldDevice device : devices) {
+            for (WorldProgram program : device.getPrograms()) {
+                treatments.add(program.getId(), program.getStartTime(), program.getDuration(), new Treatment(device, program));
+            }
+        }
+        this.plants = plants != null ? plants : new PlantStore(columns, parcels.size(), 0);
+        this.insects = insects != null ? insects : new InsectStore(columns, parcels.size(), 0);
+        this.meta = columns.longs("world.meta", 5);
+        this.currentStep = (int) meta.get(CURRENT_STEP);
+        this.lastSyntheticKey = meta.get(LAST_SYNTHETIC_KEY);
+        this.removedInsects = (int) meta.get(REMOVED_INSECTS);
+        this.stepsSinceFlush = (int) meta.get(STEPS_SINCE_FLUSH);
+        this.removedInsectIds = columns.longs("world.removedInsects", Math.max(16, removedInsects));
+    }
+
+    /**
+     * Whether the columns hold a world that was completely loaded before the last shutdown.
+     */
+    public static boolean isLoaded(ColumnFactory columns) {
+        return columns.longs("world.meta", 6).get(LOADED) == 1;
+    }
+
+    // Called once every entity of a new world has been added
+    public void markLoaded() {
+        meta.set(LOADED, 1);
+    }
+
+    /**
+     * Splits the grid into tileSize x tileSize rectangles, ordered row by row. Parcels are walked row
+     * by row inside a tile, so walking the tiles in order is deterministic.
+     */
+    public List<WorldTile> getTiles(int tileSize) {
+        if (this.tileSize == tileSize && !tiles.isEmpty()) {
+            return tiles;
+        }
+        int width = parcels.getWidth();
+        int height = parcels.getHeight();
+        int tilesPerRow = Math.max(1, (width + tileSize - 1) / tileSize);
+        int tileRows = Math.max(1, (height + tileSize - 1) / tileSize);
+        List<WorldTile> result = new ArrayList<>(tilesPerRow * tileRows);
+        for (int row = 0; row < tileRows; row++) {
+            for (int column = 0; column < tilesPerRow; column++) {
+                int fromX = parcels.getMinX() + (int) Math.min(width, (long) column * tileSize);
+                int fromY = parcels.getMinY() + (int) Math.min(height, (long) row * tileSize);
+                int toX = parcels.getMinX() + (int) Math.min(width, (long) (column + 1) * tileSize);
+                int toY = parcels.getMinY() + (int) Math.min(height, (long) (row + 1) * tileSize);
+                result.add(new WorldTile(result.size(), fromX, fromY, toX, toY));
+            }
+        }
+        this.tiles = result;
+        this.tileSize = tileSize;
+        return result;
+    }
+
+    // Index of the tile owning the parcel, for the tiling last returned by getTiles
+    public int tileOf(int parcel) {
+        int tilesPerRow = Math.max(1, (parcels.getWidth() + tileSize - 1) / tileSize);
+        int column = (parcels.getX(parcel) - parcels.getMinX()) / tileSize;
+        int row = (parcels.getY(parcel) - parcels.getMinY()) / tileSize;
+        return row * tilesPerRow + column;
+    }
+
+    /**
+     * Deep copy of parcels, plants, insects and devices, always on the heap. Programs are immutable
+     * and shared.
+     */
+    public GardenWorld copy() {
+        ColumnFactory heap = new HeapColumnFactory();
+        List<WorldDevice> deviceCopies = new ArrayList<>(devices.size());
+        for (WorldDevice device : devices) {
+            WorldDevice copy = new WorldDevice(device.getId(), device.getRadius(), device.getParcel());
+            copy.getPrograms().addAll(device.getPrograms());
+            deviceCopies.add(copy);
+        }
+
+        GardenWorld world = new GardenWorld(parcels.copy(heap), deviceCopies, plants.copy(heap), insects.copy(heap));
+        world.setCurrentStep(currentStep);
+        world.setLastSyntheticKey(lastSyntheticKey);
+        return world;
+    }
+
+    public Collection<Treatment> activeTreatments(int step) {
+        return treatments.activeAt(step);
+    }
+
+    public int parcelAt(int x, int y) {
+        return parcels.at(x, y);
+    }
+
+    // See ParcelStore.adjacent; the buffer needs room for four ordinals
+    public int findAdjacentParcels(int parcel, int[] into) {
+        return parcels.adjacent(parcel, into);
+    }
+
+    public void forEachParcelInRadius(int center, int radius, IntConsumer action) {
+        parcels.forEachInRadius(center, radius, action);
+    }
+
+    public void setCurrentStep(int currentStep) {
+        this.currentStep = currentStep;
+        meta.set(CURRENT_STEP, currentStep);
+    }
+
+    // For a world rebuilt from a checkpoint: new plants must not reuse the keys of the saved ones
+    void setLastSyntheticKey(long lastSyntheticKey) {
+        this.lastSyntheticKey = lastSyntheticKey;
+        meta.set(LAST_SYNTHETIC_KEY, lastSyntheticKey);
+    }
+
+    public long nextSyntheticKey() {
+        meta.set(LAST_SYNTHETIC_KEY, --lastSyntheticKey);
+        return lastSyntheticKey;
+    }
+
+    /**
+     * Releases the slot of a dead insect, already unlinked from its parcel, and remembers its id so
+     * the next flush deletes the row.
+     */
+    public void insectRemoved(int slot) {
+        if (removedInsects == removedInsectIds.capacity()) {
+            removedInsectIds.resize(removedInsects + (removedInsects >> 1));
+        }
+        removedInsectIds.set(removedInsects++, insects.getId(slot));
+        meta.set(REMOVED_INSECTS, removedInsects);
+        insects.release(slot);
+    }
+
+    public List<Long> getRemovedInsectIds() {
+        List<Long> ids = new ArrayList<>(removedInsects);
+        for (int i = 0; i < removedInsects; i++) {
+            ids.add(removedInsectIds.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Counts a step towards the next flush. Every plant aged by one, which the flush writes back as one
+     * bulk statement, and every parcel's humidity decayed, which it writes back from the parcels.
+     */
+    public void stepCompleted(int step) {
+        setCurrentStep(step);
+        stepsSinceFlush++;
+        meta.set(STEPS_SINCE_FLUSH, stepsSinceFlush);
+    }
+
+    public boolean isDirty() {
+        return stepsSinceFlush > 0 || removedInsects > 0;
+    }
+
+    public void markFlushed() {
+        stepsSinceFlush = 0;
+        removedInsects = 0;
+        meta.set(REMOVED_INSECTS, 0);
+        meta.set(STEPS_SINCE_FLUSH, 0);
+        lastFlushTime = System.currentTimeMillis();
+    }
+
+    public record Treatment(WorldDevice device, WorldProgram program) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.potager.engine;
+
+import com.potager.Utils.enums.TreatmentType;
+import lombok.Getter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Whole garden grid at one step as packed columns, one cell per (x, y) of the garden bounds in
+ * row-major order, for clients that draw or analyse the grid rather than read single parcels.
+ *
+ * Layout, big-endian: header ({@code int magic | short version | long gardenId | int step | int minX |
+ * int minY | int width | int height}), the insect species table ({@code short count}, then
+ * {@code short length | UTF-8 bytes} each), then the columns, width x height values each:
+ * <ul>
+ *   <li>humidity, unsigned byte: the level times 2.5, rounded (0-250), or 255 where there is no parcel</li>
+ *   <li>plants, unsigned byte: plants on the parcel, 255 meaning 255 or more</li>
+ *   <li>devices, byte flags: {@link #DEVICE} when a treatment device stands on the parcel, plus
+ *   {@link #programFlag(TreatmentType)} for each type of program it runs</li>
+ *   <li>insects, one unsigned short column per species, in table order, saturating at 65535</li>
+ * </ul>
+ * Mostly empty gardens are mostly zeros, which compress well.
+ */
+@Getter
+public class GridFrame {
+
+    public static final int MAGIC = 0x50475244;
+    public static final short VERSION = 1;
+    public static final int NO_PARCEL = 0xFF;
+    public static final int DEVICE = 1;
+    private static final double HUMIDITY_SCALE = 2.5;
+    private static final int MAX_PLANTS = 0xFF;
+    private static final int MAX_INSECTS = 0xFFFF;
+
+    private final long gardenId;
+    private final int step;
+    private final int minX;
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final List<String> insectSpecies;
+    private final byte[] humidity;
+    private final byte[] plants;
+    private final byte[] devices;
+    private final short[][] insects;
+
+    public GridFrame(long gardenId, int step, int minX, int minY, int width, int height, List<String> insectSpecies) {
+        long cells = (long) width * height;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Grid of " + width + " x " + height + " is too large for one frame");
+        }
+        this.gardenId = gardenId;
+        this.step = step;
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.insectSpecies = insectSpecies;
+        this.humidity = new byte[(int) cells];
+        this.plants = new byte[(int) cells];
+        this.devices = new byte[(int) cells];
+        this.insects = new short[insectSpecies.size()][(int) cells];
+        Arrays.fill(humidity, (byte) NO_PARCEL);
+    }
+
+    /**
+     * Frame of the world as it stands; the caller holds the world still while it is read.
+     */
+    public static GridFrame of(long gardenId, GardenWorld world) {
+        ParcelStore parcels = world.getParcels();
+        PlantStore plantStore = world.getPlants();
+        InsectStore insectStore = world.getInsects();
+        GridFrame frame = new GridFrame(gardenId, world.getCurrentStep(), parcels.getMinX(), parcels.getMinY(),
+                parcels.getWidth(), parcels.getHeight(), List.copyOf(insectStore.getSpeciesNames()));
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            int cell = frame.cell(parcels.getX(ordinal), parcels.getY(ordinal));
+            frame.setHumidity(cell, parcels.getHumidityLevel(ordinal));
+            frame.addPlants(cell, plantStore.count(ordinal));
+            for (int insect = insectStore.first(ordinal); insect != SlotStore.NONE; insect = insectStore.next(insect)) {
+                frame.addInsects(cell, insectStore.getSpeciesIndex(insect), 1);
+            }
+        }
+        for (WorldDevice device : world.getDevices()) {
+            int cell = frame.cell(parcels.getX(device.getParcel()), parcels.getY(device.getParcel()));
+            frame.addDevice(cell, null);
+            device.getPrograms().forEach(program -> frame.addDevice(cell, program.getType()));
+        }
+        return frame;
+    }
+
+    public static int programFlag(TreatmentType type) {
+        return 2 << type.ordinal();
+    }
+
+    public int cell(int x, int y) {
+        return (y - minY) * width + (x - minX);
+    }
+
+    public void setHumidity(int cell, double humidityLevel) {
+        humidity[cell] = (byte) Math.round(Math.max(0, Math.min(100, humidityLevel)) * HUMIDITY_SCALE);
+    }
+
+    public void addPlants(int cell, int count) {
+        plants[cell] = (byte) Math.min(MAX_PLANTS, (plants[cell] & 0xFF) + count);
+    }
+
+    public void addInsects(int cell, int species, int count) {
+        insects[species][cell] = (short) Math.min(MAX_INSECTS, (insects[species][cell] & 0xFFFF) + count);
+    }
+
+    // A device on the parcel, running a program of the given type when there is one
+    public void addDevice(int cell, TreatmentType type) {
+        devices[cell] |= (byte) (DEVICE | (type != null ? programFlag(type) : 0));
+    }
+
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(gardenId);
+        out.writeInt(step);
+        out.writeInt(minX);
+        out.writeInt(minY);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeShort(insectSpecies.size());
+        for (String species : insectSpecies) {
+            byte[] bytes = species.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        out.write(humidity);
+        out.write(plants);
+        out.write(devices);
+        byte[] column = new byte[insects.length > 0 ? insects[0].length * 2 : 0];
+        for (short[] counts : insects) {
+            for (int cell = 0; cell < counts.length; cell++) {
+                column[2 * cell] = (byte) (counts[cell] >>> 8);
+                column[2 * cell + 1] = (byte) counts[cell];
+            }
+            out.write(column);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,283 @@
+package com.potager.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Dense (x, y) lookup backed by a flat row-major array offset by the garden bounds.
+ * Lookups are O(1); the array grows when a value is put outside the current bounds.
+ *
+ * Bounds past the index's maxCells, the largest grid the garden's world can be built on, are
+ * refused with an IllegalArgumentException. The array covers the whole bounding box, so its size
+ * follows the coordinates rather than the number of values: past {@link #MAX_DENSE_CELLS} the
+ * values move to a hash map keyed on (x, y), still O(1), whose size follows the values instead.
+ */
+public class GridIndex<T> {
+
+    // 4096 x 4096 references, 64 MiB with compressed oops; larger boxes are kept sparse
+    public static final int MAX_DENSE_CELLS = 1 << 24;
+
+    private final long maxCells;
+    private Object[] cells = new Object[0];
+    // Set once the bounds outgrow the dense array, which is then dropped
+    private Map<Long, T> sparse;
+    private int minX;
+    private int minY;
+    private int width;
+    private int height;
+    private int size;
+
+    public GridIndex() {
+        this(MAX_DENSE_CELLS);
+    }
+
+    public GridIndex(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    public static <T> GridIndex<T> of(Collection<T> values, ToIntFunction<T> x, ToIntFunction<T> y) {
+        GridIndex<T> index = new GridIndex<>();
+        if (values.isEmpty()) {
+            return index;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (T value : values) {
+            minX = Math.min(minX, x.applyAsInt(value));
+            minY = Math.min(minY, y.applyAsInt(value));
+            maxX = Math.max(maxX, x.applyAsInt(value));
+            maxY = Math.max(maxY, y.applyAsInt(value));
+        }
+        checkedArea(minX, minY, maxX, maxY, index.maxCells);
+        index.resize(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        values.forEach(value -> index.put(x.applyAsInt(value), y.applyAsInt(value), value));
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int x, int y) {
+        if (sparse != null) {
+            return sparse.get(key(x, y));
+        }
+        int cell = cellOf(x, y);
+        return cell < 0 ? null : (T) cells[cell];
+    }
+
+    public boolean contains(int x, int y) {
+        return get(x, y) != null;
+    }
+
+    /**
+     * Whether a value put at (x, y) would keep the bounds within the index's maxCells.
+     */
+    public boolean fits(int x, int y) {
+        if (width == 0) {
+            return true;
+        }
+        return area(Math.min(x, minX), Math.min(y, minY), Math.max(x, minX + width - 1), Math.max(y, minY + height - 1)) <= maxCells;
+    }
+
+    public long getMaxCells() {
+        return maxCells;
+    }
+
+    // Cells of the box from (minX, minY) to (maxX, maxY), computed without overflow
+    public static long area(int minX, int minY, int maxX, int maxY) {
+        return ((long) maxX - minX + 1) * ((long) maxY - minY + 1);
+    }
+
+    /**
+     * Cells of the box, or an IllegalArgumentException when it spans more than maxCells, at most
+     * Integer.MAX_VALUE.
+     */
+    public static int checkedArea(int minX, int minY, int maxX, int maxY, long maxCells) {
+        long area = area(minX, minY, maxX, maxY);
+        if (area > Math.min(maxCells, Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Garden from (" + minX + ", " + minY + ") to (" + maxX + ", " + maxY
+                    + ") spans " + area + " cells, more than the " + maxCells + " allowed");
+        }
+        return (int) area;
+    }
+
+    public void put(int x, int y, T value) {
+        ensureContains(x, y);
+        if (sparse != null) {
+            if (sparse.put(key(x, y), value) == null) {
+                size++;
+            }
+            return;
+        }
+        int cell = cellOf(x, y);
+        if (cells[cell] == null) {
+            size++;
+        }
+        cells[cell] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T remove(int x, int y) {
+        if (sparse != null) {
+            T removed = sparse.remove(key(x, y));
+            if (removed != null) {
+                size--;
+            }
+            return removed;
+        }
+        int cell = cellOf(x, y);
+        if (cell < 0 || cells[cell] == null) {
+            return null;
+        }
+        T removed = (T) cells[cell];
+        cells[cell] = null;
+        size--;
+        return removed;
+    }
+
+    // Same order as the original repository lookups: x+1, x-1, y+1, y-1
+    public List<T> findAdjacent(int x, int y) {
+        List<T> adjacent = new ArrayList<>(4);
+        addIfPresent(adjacent, x + 1, y);
+        addIfPresent(adjacent, x - 1, y);
+        addIfPresent(adjacent, x, y + 1);
+        addIfPresent(adjacent, x, y - 1);
+        return adjacent;
+    }
+
+    // Chebyshev distance, clipped to the grid bounds
+    public List<T> findInRadius(int x, int y, int radius) {
+        List<T> result = new ArrayList<>();
+        int fromX = Math.max(x - radius, minX), toX = Math.min(x + radius, minX + width - 1);
+        int fromY = Math.max(y - radius, minY), toY = Math.min(y + radius, minY + height - 1);
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                addIfPresent(result, cx, cy);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private void addIfPresent(List<T> values, int x, int y) {
+        T value = get(x, y);
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private int cellOf(int x, int y) {
+        int cx = x - minX;
+        int cy = y - minY;
+        if (cx < 0 || cy < 0 || cx >= width || cy >= height) {
+            return -1;
+        }
+        return cy * width + cx;
+    }
+
+    private void ensureContains(int x, int y) {
+        if (width == 0) {
+            resize(x, y, 1, 1);
+            return;
+        }
+        if (cellOf(x, y) >= 0) {
+            return;
+        }
+        int maxX = minX + width - 1;
+        int maxY = minY + height - 1;
+        int newMinX = Math.min(x, minX);
+        int newMinY = Math.min(y, minY);
+        int newMaxX = Math.max(x, maxX);
+        int newMaxY = Math.max(y, maxY);
+        long newArea = checkedArea(newMinX, newMinY, newMaxX, newMaxY, maxCells);
+        if (sparse != null || newArea > MAX_DENSE_CELLS) {
+            // Only the bounds are kept, for the radius scans to clip to
+            toSparse();
+            minX = newMinX;
+            minY = newMinY;
+            width = newMaxX - newMinX + 1;
+            height = newMaxY - newMinY + 1;
+            return;
+        }
+        // Grow with slack on the side being extended so a garden built parcel by parcel does not copy every time,
+        // unless the slack alone would go over the limit
+        int slackX = Math.max(1, width / 2);
+        int slackY = Math.max(1, height / 2);
+        int slackMinX = x < minX ? (int) Math.max(Integer.MIN_VALUE, Math.min(x, (long) minX - slackX)) : newMinX;
+        int slackMinY = y < minY ? (int) Math.max(Integer.MIN_VALUE, Math.min(y, (long) minY - slackY)) : newMinY;
+        int slackMaxX = x > maxX ? (int) Math.min(Integer.MAX_VALUE, Math.max(x, (long) maxX + slackX)) : newMaxX;
+        int slackMaxY = y > maxY ? (int) Math.min(Integer.MAX_VALUE, Math.max(y, (long) maxY + slackY)) : newMaxY;
+        if (area(slackMinX, slackMinY, slackMaxX, slackMaxY) <= MAX_DENSE_CELLS) {
+            resize(slackMinX, slackMinY, slackMaxX - slackMinX + 1, slackMaxY - slackMinY + 1);
+        } else {
+            resize(newMinX, newMinY, newMaxX - newMinX + 1, newMaxY - newMinY + 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void toSparse() {
+        if (sparse != null) {
+            return;
+        }
+        sparse = new HashMap<>(Math.max(16, size * 2));
+        for (int cy = 0; cy < height; cy++) {
+            for (int cx = 0; cx < width; cx++) {
+                Object value = cells[cy * width + cx];
+                if (value != null) {
+                    sparse.put(key(minX + cx, minY + cy), (T) value);
+                }
+            }
+        }
+        cells = new Object[0];
+    }
+
+    private void resize(int newMinX, int newMinY, int newWidth, int newHeight) {
+        if ((long) newWidth * newHeight > MAX_DENSE_CELLS) {
+            toSparse();
+            minX = newMinX;
+            minY = newMinY;
+            width = newWidth;
+            height = newHeight;
+            return;
+        }
+        Object[] newCells = new Object[newWidth * newHeight];
+        for (int cy = 0; cy < height; cy++) {
+            for (int cx = 0; cx < width; cx++) {
+                Object value = cells[cy * width + cx];
+                if (value != null) {
+                    newCells[(cy + minY - newMinY) * newWidth + (cx + minX - newMinX)] = value;
+                }
+            }
+        }
+        cells = newCells;
+        minX = newMinX;
+        minY = newMinY;
+        width = newWidth;
+        height = newHeight;
+    }
+}
@@ -0,0 +1,173 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.ColumnFactory;
+import com.potager.engine.columns.ColumnFactory.ByteColumn;
+import com.potager.engine.columns.ColumnFactory.Dictionary;
+import com.potager.engine.columns.ColumnFactory.DoubleColumn;
+import com.potager.engine.columns.ColumnFactory.IntColumn;
+import com.potager.engine.columns.ColumnFactory.LongColumn;
+import com.potager.engine.columns.ColumnFactory.ShortColumn;
+
+import java.util.List;
+
+/**
+ * Insects of a {@link GardenWorld} as primitive columns. Species and sex are interned into small
+ * dictionaries; health and hunger never leave 0..10, so they fit in shorts.
+ */
+public class InsectStore extends SlotStore {
+
+    // Dirty flags, one per column written back
+    public static final int HEALTH = 1;
+    public static final int HUNGER = 2;
+    public static final int PARCEL = 4;
+
+    private static final String PREFIX = "insect";
+
+    private final LongColumn id;
+    private final IntColumn species;
+    private final ByteColumn sex;
+    private final ShortColumn healthIndex;
+    private final DoubleColumn mobility;
+    private final DoubleColumn insecticideResistance;
+    private final ShortColumn stepsWithoutFood;
+    private final Dictionary speciesNames;
+    private final Dictionary sexNames;
+
+    public InsectStore(ColumnFactory columns, int parcels, int capacity) {
+        super(columns, PREFIX, parcels, capacity);
+        int size = capacity();
+        this.id = columns.longs(PREFIX + ".id", size);
+        this.species = columns.ints(PREFIX + ".species", size);
+        this.sex = columns.bytes(PREFIX + ".sex", size);
+        this.healthIndex = columns.shorts(PREFIX + ".healthIndex", size);
+        this.mobility = columns.doubles(PREFIX + ".mobility", size);
+        this.insecticideResistance = columns.doubles(PREFIX + ".insecticideResistance", size);
+        this.stepsWithoutFood = columns.shorts(PREFIX + ".stepsWithoutFood", size);
+        this.speciesNames = columns.dictionary(PREFIX + ".species");
+        this.sexNames = columns.dictionary(PREFIX + ".sex");
+    }
+
+    private InsectStore(InsectStore other, ColumnFactory columns) {
+        super(other, columns, PREFIX);
+        int size = capacity();
+        int used = highWater();
+        this.id = columns.longs(PREFIX + ".id", size);
+        this.species = columns.ints(PREFIX + ".species", size);
+        this.sex = columns.bytes(PREFIX + ".sex", size);
+        this.healthIndex = columns.shorts(PREFIX + ".healthIndex", size);
+        this.mobility = columns.doubles(PREFIX + ".mobility", size);
+        this.insecticideResistance = columns.doubles(PREFIX + ".insecticideResistance", size);
+        this.stepsWithoutFood = columns.shorts(PREFIX + ".stepsWithoutFood", size);
+        this.speciesNames = columns.dictionary(PREFIX + ".species");
+        this.sexNames = columns.dictionary(PREFIX + ".sex");
+        id.copyFrom(other.id, used);
+        species.copyFrom(other.species, used);
+        sex.copyFrom(other.sex, used);
+        healthIndex.copyFrom(other.healthIndex, used);
+        mobility.copyFrom(other.mobility, used);
+        insecticideResistance.copyFrom(other.insecticideResistance, used);
+        stepsWithoutFood.copyFrom(other.stepsWithoutFood, used);
+        other.speciesNames.values().forEach(speciesNames::intern);
+        other.sexNames.values().forEach(sexNames::intern);
+    }
+
+    public InsectStore copy(ColumnFactory columns) {
+        return new InsectStore(this, columns);
+    }
+
+    public int add(int parcel, long id, String species, String sex, int healthIndex, double mobility,
+                   double insecticideResistance, int stepsWithoutFood) {
+        int slot = allocate();
+        this.id.set(slot, id);
+        this.species.set(slot, speciesNames.intern(species));
+        this.sex.set(slot, (byte) sexNames.intern(sex));
+        this.healthIndex.set(slot, (short) healthIndex);
+        this.mobility.set(slot, mobility);
+        this.insecticideResistance.set(slot, insecticideResistance);
+        this.stepsWithoutFood.set(slot, (short) stepsWithoutFood);
+        append(parcel, slot);
+        return slot;
+    }
+
+    public long getId(int slot) {
+        return id.get(slot);
+    }
+
+    public int getSpeciesIndex(int slot) {
+        return species.get(slot);
+    }
+
+    public String getSpecies(int slot) {
+        return speciesNames.get(species.get(slot));
+    }
+
+    public String getSex(int slot) {
+        return sexNames.get(sex.get(slot));
+    }
+
+    public int getSexIndex(int slot) {
+        return sex.get(slot);
+    }
+
+    public int getHealthIndex(int slot) {
+        return healthIndex.get(slot);
+    }
+
+    public void setHealthIndex(int slot, int healthIndex) {
+        if (this.healthIndex.get(slot) != healthIndex) {
+            this.healthIndex.set(slot, (short) healthIndex);
+            markDirty(slot, HEALTH);
+        }
+    }
+
+    public double getMobility(int slot) {
+        return mobility.get(slot);
+    }
+
+    public double getInsecticideResistance(int slot) {
+        return insecticideResistance.get(slot);
+    }
+
+    public int getStepsWithoutFood(int slot) {
+        return stepsWithoutFood.get(slot);
+    }
+
+    public void setStepsWithoutFood(int slot, int stepsWithoutFood) {
+        if (this.stepsWithoutFood.get(slot) != stepsWithoutFood) {
+            this.stepsWithoutFood.set(slot, (short) stepsWithoutFood);
+            markDirty(slot, HUNGER);
+        }
+    }
+
+    /**
+     * Moves an insect, already unlinked from its parcel, to the end of another parcel's list.
+     */
+    public void move(int slot, int parcel) {
+        append(parcel, slot);
+        markDirty(slot, PARCEL);
+    }
+
+    public List<String> getSpeciesNames() {
+        return speciesNames.values();
+    }
+
+    public List<String> getSexNames() {
+        return sexNames.values();
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        id.resize(capacity);
+        species.resize(capacity);
+        sex.resize(capacity);
+        healthIndex.resize(capacity);
+        mobility.resize(capacity);
+        insecticideResistance.resize(capacity);
+        stepsWithoutFood.resize(capacity);
+    }
+
+    @Override
+    protected int bytesPerSlot() {
+        return 8 + 4 + 1 + 2 + 8 + 8 + 2;
+    }
+}
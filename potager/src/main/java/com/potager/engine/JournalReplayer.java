@@ -0,0 +1,147 @@
+package com.potager.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies journaled steps to a world, bringing it from one step to a later one without running the
+ * simulation: no random draws, no rule evaluation, only the recorded outcomes. The world ends up as
+ * if it had been stepped, dirty flags and what the next flush owes the database included.
+ *
+ * Entities are found through id and key indexes built once from the world, so a step costs
+ * O(events) plus one pass over the parcels for the uniform aging and decay.
+ */
+public class JournalReplayer implements WorldEvents {
+
+    private final GardenWorld world;
+    private final ParcelStore parcels;
+    private final PlantStore plants;
+    private final InsectStore insects;
+    private final Map<Long, Integer> parcelOrdinals = new HashMap<>();
+    private final Map<Long, Integer> plantSlots = new HashMap<>();
+    private final Map<Long, Integer> insectSlots = new HashMap<>();
+
+    public JournalReplayer(GardenWorld world) {
+        this.world = world;
+        this.parcels = world.getParcels();
+        this.plants = world.getPlants();
+        this.insects = world.getInsects();
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            parcelOrdinals.put(parcels.getId(ordinal), ordinal);
+            for (int plant = plants.first(ordinal); plant != SlotStore.NONE; plant = plants.next(plant)) {
+                plantSlots.put(plants.getKey(plant), plant);
+            }
+            for (int insect = insects.first(ordinal); insect != SlotStore.NONE; insect = insects.next(insect)) {
+                insectSlots.put(insects.getId(insect), insect);
+            }
+        }
+    }
+
+    public void replayStep(int step, EventBuffer events) {
+        events.replay(this);
+        world.stepCompleted(step);
+    }
+
+    @Override
+    public void plantsAged(int steps) {
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            for (int plant = plants.first(ordinal); plant != SlotStore.NONE; plant = plants.next(plant)) {
+                for (int i = 0; i < steps; i++) {
+                    plants.age(plant);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void plantAdded(long key, long parcelId, long sourceKey) {
+        int source = plant(sourceKey);
+        // Keeps the world's key sequence where the recorded step left it
+        world.nextSyntheticKey();
+        int slot = plants.add(
+                parcel(parcelId),
+                PlantStore.NO_ID,
+                key,
+                plants.getSpeciesIndex(source),
+                0,
+                plants.getMaturityAge(source),
+                true,
+                plants.getColonizationProbability(source));
+        plantSlots.put(key, slot);
+    }
+
+    @Override
+    public void insectUpdated(long id, int healthIndex, int stepsWithoutFood) {
+        int insect = insect(id);
+        insects.setHealthIndex(insect, healthIndex);
+        insects.setStepsWithoutFood(insect, stepsWithoutFood);
+    }
+
+    @Override
+    public void insectMoved(long id, long parcelId) {
+        int insect = insect(id);
+        unlink(insect);
+        insects.move(insect, parcel(parcelId));
+    }
+
+    @Override
+    public void insectDied(long id) {
+        int insect = insect(id);
+        unlink(insect);
+        world.insectRemoved(insect);
+        insectSlots.remove(id);
+    }
+
+    @Override
+    public void humidityChanged(long parcelId, double humidityLevel) {
+        parcels.setHumidityLevel(parcel(parcelId), humidityLevel);
+    }
+
+    @Override
+    public void plantsFertilized(long parcelId, int count) {
+        int parcel = parcel(parcelId);
+        for (int plant = plants.first(parcel); plant != SlotStore.NONE; plant = plants.next(plant)) {
+            plants.setCurrentAge(plant, plants.getCurrentAge(plant) + count);
+        }
+    }
+
+    @Override
+    public void humidityDecayed(double factor) {
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            parcels.decayHumidity(ordinal, factor);
+        }
+    }
+
+    private void unlink(int insect) {
+        int parcel = insects.parcelOf(insect);
+        int previous = SlotStore.NONE;
+        for (int slot = insects.first(parcel); slot != insect; slot = insects.next(slot)) {
+            previous = slot;
+        }
+        insects.unlink(parcel, previous, insect);
+    }
+
+    private int parcel(long id) {
+        Integer ordinal = parcelOrdinals.get(id);
+        if (ordinal == null) {
+            throw new IllegalStateException("Journal names unknown parcel " + id);
+        }
+        return ordinal;
+    }
+
+    private int plant(long key) {
+        Integer slot = plantSlots.get(key);
+        if (slot == null) {
+            throw new IllegalStateException("Journal names unknown plant " + key);
+        }
+        return slot;
+    }
+
+    private int insect(long id) {
+        Integer slot = insectSlots.get(id);
+        if (slot == null) {
+            throw new IllegalStateException("Journal names unknown insect " + id);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,271 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.ColumnFactory;
+import com.potager.engine.columns.ColumnFactory.ByteColumn;
+import com.potager.engine.columns.ColumnFactory.DoubleColumn;
+import com.potager.engine.columns.ColumnFactory.IntColumn;
+import com.potager.engine.columns.ColumnFactory.LongColumn;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Parcels of a {@link GardenWorld} as primitive columns, indexed by ordinal, plus a dense row-major
+ * grid of ordinals over the garden bounds for O(1) (x, y) lookups. Besides humidity, every parcel
+ * keeps the number of devices covering it and dirty flags for the next write-back.
+ *
+ * Parcels are added while the world is being built; {@link #buildGrid()} then freezes the layout.
+ * Like the entity stores, grid cells hold the ordinal plus one so unwritten cells read as empty.
+ */
+public class ParcelStore {
+
+    public static final int NONE = -1;
+
+    // Dirty flag: humidity changed by something other than the uniform decay
+    public static final int HUMIDITY = 1;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int SIZE = 0;
+    private static final int MIN_X = 1;
+    private static final int MIN_Y = 2;
+    private static final int WIDTH = 3;
+    private static final int HEIGHT = 4;
+
+    private final ColumnFactory columns;
+    private final LongColumn id;
+    private final IntColumn x;
+    private final IntColumn y;
+    private final DoubleColumn humidityLevel;
+    private final IntColumn coverage;
+    private final ByteColumn dirty;
+    private final IntColumn cells;
+    private final LongColumn meta;
+    private int size;
+    private int minX;
+    private int minY;
+    private int width;
+    private int height;
+
+    public ParcelStore(ColumnFactory columns) {
+        this.columns = columns;
+        this.meta = columns.longs("parcel.meta", 5);
+        this.size = (int) meta.get(SIZE);
+        this.minX = (int) meta.get(MIN_X);
+        this.minY = (int) meta.get(MIN_Y);
+        this.width = (int) meta.get(WIDTH);
+        this.height = (int) meta.get(HEIGHT);
+        int capacity = Math.max(MIN_CAPACITY, size);
+        this.id = columns.longs("parcel.id", capacity);
+        this.x = columns.ints("parcel.x", capacity);
+        this.y = columns.ints("parcel.y", capacity);
+        this.humidityLevel = columns.doubles("parcel.humidityLevel", capacity);
+        this.coverage = columns.ints("parcel.coverage", capacity);
+        this.dirty = columns.bytes("parcel.dirty", capacity);
+        this.cells = columns.ints("parcel.cells", width * height);
+    }
+
+    public ParcelStore copy(ColumnFactory target) {
+        ParcelStore copy = new ParcelStore(target);
+        copy.ensureCapacity(size);
+        copy.id.copyFrom(id, size);
+        copy.x.copyFrom(x, size);
+        copy.y.copyFrom(y, size);
+        copy.humidityLevel.copyFrom(humidityLevel, size);
+        copy.coverage.copyFrom(coverage, size);
+        copy.dirty.copyFrom(dirty, size);
+        copy.cells.resize(width * height);
+        copy.cells.copyFrom(cells, width * height);
+        copy.size = size;
+        copy.minX = minX;
+        copy.minY = minY;
+        copy.width = width;
+        copy.height = height;
+        copy.saveMeta();
+        return copy;
+    }
+
+    /**
+     * Appends a parcel and returns its ordinal.
+     */
+    public int add(long id, int x, int y, double humidityLevel) {
+        if (width > 0) {
+            throw new IllegalStateException("Parcels cannot be added once the grid is built");
+        }
+        ensureCapacity(size + 1);
+        int ordinal = size++;
+        this.id.set(ordinal, id);
+        this.x.set(ordinal, x);
+        this.y.set(ordinal, y);
+        this.humidityLevel.set(ordinal, humidityLevel);
+        saveMeta();
+        return ordinal;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Bytes of the columns: id, x, y, humidity, coverage and dirty per parcel, an int per grid cell
+    public long footprintBytes() {
+        return (long) id.capacity() * 29 + (long) width * height * 4;
+    }
+
+    public long getId(int ordinal) {
+        return id.get(ordinal);
+    }
+
+    public int getX(int ordinal) {
+        return x.get(ordinal);
+    }
+
+    public int getY(int ordinal) {
+        return y.get(ordinal);
+    }
+
+    public double getHumidityLevel(int ordinal) {
+        return humidityLevel.get(ordinal);
+    }
+
+    public void setHumidityLevel(int ordinal, double humidityLevel) {
+        if (this.humidityLevel.get(ordinal) != humidityLevel) {
+            this.humidityLevel.set(ordinal, humidityLevel);
+            dirty.set(ordinal, (byte) (dirty.get(ordinal) | HUMIDITY));
+        }
+    }
+
+    // Same decay for every parcel: the flush after a step writes every parcel, so it is not marked dirty
+    public void decayHumidity(int ordinal, double factor) {
+        humidityLevel.set(ordinal, humidityLevel.get(ordinal) * factor);
+    }
+
+    public int getDirtyFlags(int ordinal) {
+        return dirty.get(ordinal);
+    }
+
+    public void clearDirtyFlags(int ordinal) {
+        dirty.set(ordinal, (byte) 0);
+    }
+
+    public int getCoverage(int ordinal) {
+        return coverage.get(ordinal);
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public ColumnFactory getColumns() {
+        return columns;
+    }
+
+    public int at(int x, int y) {
+        int cx = x - minX;
+        int cy = y - minY;
+        if (cx < 0 || cy < 0 || cx >= width || cy >= height) {
+            return NONE;
+        }
+        return cells.get(cy * width + cx) - 1;
+    }
+
+    /**
+     * Writes the ordinals of the neighbours of a parcel into the buffer and returns how many there
+     * are. Same order as the original repository lookups: x+1, x-1, y+1, y-1.
+     */
+    public int adjacent(int ordinal, int[] into) {
+        int px = x.get(ordinal);
+        int py = y.get(ordinal);
+        int found = 0;
+        found = addIfPresent(into, found, px + 1, py);
+        found = addIfPresent(into, found, px - 1, py);
+        found = addIfPresent(into, found, px, py + 1);
+        found = addIfPresent(into, found, px, py - 1);
+        return found;
+    }
+
+    // Chebyshev distance, clipped to the grid bounds
+    public void forEachInRadius(int ordinal, int radius, IntConsumer action) {
+        int px = x.get(ordinal);
+        int py = y.get(ordinal);
+        int fromX = Math.max(px - radius, minX), toX = Math.min(px + radius, minX + width - 1);
+        int fromY = Math.max(py - radius, minY), toY = Math.min(py + radius, minY + height - 1);
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                int parcel = at(cx, cy);
+                if (parcel != NONE) {
+                    action.accept(parcel);
+                }
+            }
+        }
+    }
+
+    boolean hasGrid() {
+        return width > 0 || size == 0;
+    }
+
+    void buildGrid() {
+        int fromX = Integer.MAX_VALUE, fromY = Integer.MAX_VALUE;
+        int toX = Integer.MIN_VALUE, toY = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            fromX = Math.min(fromX, x.get(i));
+            fromY = Math.min(fromY, y.get(i));
+            toX = Math.max(toX, x.get(i));
+            toY = Math.max(toY, y.get(i));
+        }
+        // The cells cover the whole bounding box, so the columns bound how far apart parcels may be
+        int area = GridIndex.checkedArea(fromX, fromY, toX, toY, columns.maxGridCells());
+        minX = fromX;
+        minY = fromY;
+        width = toX - fromX + 1;
+        height = toY - fromY + 1;
+        cells.resize(area);
+        for (int i = 0; i < size; i++) {
+            cells.set((y.get(i) - minY) * width + (x.get(i) - minX), i + 1);
+        }
+        saveMeta();
+    }
+
+    // Number of devices whose radius reaches the parcel, see CoverageMap
+    void setCoverage(int ordinal, int devices) {
+        coverage.set(ordinal, devices);
+    }
+
+    private int addIfPresent(int[] into, int found, int x, int y) {
+        int parcel = at(x, y);
+        if (parcel != NONE) {
+            into[found++] = parcel;
+        }
+        return found;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= id.capacity()) {
+            return;
+        }
+        int grown = Math.max(capacity, id.capacity() + (id.capacity() >> 1));
+        id.resize(grown);
+        x.resize(grown);
+        y.resize(grown);
+        humidityLevel.resize(grown);
+        coverage.resize(grown);
+        dirty.resize(grown);
+    }
+
+    private void saveMeta() {
+        meta.set(SIZE, size);
+        meta.set(MIN_X, minX);
+        meta.set(MIN_Y, minY);
+        meta.set(WIDTH, width);
+        meta.set(HEIGHT, height);
+    }
+}
@@ -0,0 +1,164 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.ColumnFactory;
+import com.potager.engine.columns.ColumnFactory.ByteColumn;
+import com.potager.engine.columns.ColumnFactory.Dictionary;
+import com.potager.engine.columns.ColumnFactory.DoubleColumn;
+import com.potager.engine.columns.ColumnFactory.IntColumn;
+import com.potager.engine.columns.ColumnFactory.LongColumn;
+
+import java.util.List;
+
+/**
+ * Plants of a {@link GardenWorld} as primitive columns. Species names are interned into a small
+ * dictionary; a missing colonization probability is stored as NaN.
+ */
+public class PlantStore extends SlotStore {
+
+    // Id of a plant created by colonization and not written to the database yet
+    public static final long NO_ID = 0L;
+
+    // Dirty flag: age changed by something other than the uniform aging of every step
+    public static final int AGE = 1;
+
+    private static final String PREFIX = "plant";
+
+    private final LongColumn id;
+    // Stable for the lifetime of the world: the id for loaded plants, a negative sequence for colonized ones
+    private final LongColumn key;
+    private final IntColumn species;
+    private final IntColumn currentAge;
+    private final IntColumn maturityAge;
+    private final ByteColumn runner;
+    private final DoubleColumn colonizationProbability;
+    private final Dictionary speciesNames;
+
+    public PlantStore(ColumnFactory columns, int parcels, int capacity) {
+        super(columns, PREFIX, parcels, capacity);
+        int size = capacity();
+        this.id = columns.longs(PREFIX + ".id", size);
+        this.key = columns.longs(PREFIX + ".key", size);
+        this.species = columns.ints(PREFIX + ".species", size);
+        this.currentAge = columns.ints(PREFIX + ".currentAge", size);
+        this.maturityAge = columns.ints(PREFIX + ".maturityAge", size);
+        this.runner = columns.bytes(PREFIX + ".runner", size);
+        this.colonizationProbability = columns.doubles(PREFIX + ".colonizationProbability", size);
+        this.speciesNames = columns.dictionary(PREFIX + ".species");
+    }
+
+    private PlantStore(PlantStore other, ColumnFactory columns) {
+        super(other, columns, PREFIX);
+        int size = capacity();
+        int used = highWater();
+        this.id = columns.longs(PREFIX + ".id", size);
+        this.key = columns.longs(PREFIX + ".key", size);
+        this.species = columns.ints(PREFIX + ".species", size);
+        this.currentAge = columns.ints(PREFIX + ".currentAge", size);
+        this.maturityAge = columns.ints(PREFIX + ".maturityAge", size);
+        this.runner = columns.bytes(PREFIX + ".runner", size);
+        this.colonizationProbability = columns.doubles(PREFIX + ".colonizationProbability", size);
+        this.speciesNames = columns.dictionary(PREFIX + ".species");
+        id.copyFrom(other.id, used);
+        key.copyFrom(other.key, used);
+        species.copyFrom(other.species, used);
+        currentAge.copyFrom(other.currentAge, used);
+        maturityAge.copyFrom(other.maturityAge, used);
+        runner.copyFrom(other.runner, used);
+        colonizationProbability.copyFrom(other.colonizationProbability, used);
+        other.speciesNames.values().forEach(speciesNames::intern);
+    }
+
+    public PlantStore copy(ColumnFactory columns) {
+        return new PlantStore(this, columns);
+    }
+
+    public int add(int parcel, long id, long key, String species, int currentAge, int maturityAge,
+                   boolean runner, Double colonizationProbability) {
+        return add(parcel, id, key, speciesNames.intern(species), currentAge, maturityAge, runner,
+                colonizationProbability != null ? colonizationProbability : Double.NaN);
+    }
+
+    public int add(int parcel, long id, long key, int species, int currentAge, int maturityAge,
+                   boolean runner, double colonizationProbability) {
+        int slot = allocate();
+        this.id.set(slot, id);
+        this.key.set(slot, key);
+        this.species.set(slot, species);
+        this.currentAge.set(slot, currentAge);
+        this.maturityAge.set(slot, maturityAge);
+        this.runner.set(slot, (byte) (runner ? 1 : 0));
+        this.colonizationProbability.set(slot, colonizationProbability);
+        append(parcel, slot);
+        return slot;
+    }
+
+    public long getId(int slot) {
+        return id.get(slot);
+    }
+
+    public void setId(int slot, long id) {
+        this.id.set(slot, id);
+    }
+
+    public long getKey(int slot) {
+        return key.get(slot);
+    }
+
+    public int getSpeciesIndex(int slot) {
+        return species.get(slot);
+    }
+
+    public String getSpecies(int slot) {
+        return speciesNames.get(species.get(slot));
+    }
+
+    public int getCurrentAge(int slot) {
+        return currentAge.get(slot);
+    }
+
+    public void setCurrentAge(int slot, int currentAge) {
+        this.currentAge.set(slot, currentAge);
+        markDirty(slot, AGE);
+    }
+
+    // One step older; every plant ages each step, so this is written back in bulk and not marked
+    public void age(int slot) {
+        currentAge.set(slot, currentAge.get(slot) + 1);
+    }
+
+    public int getMaturityAge(int slot) {
+        return maturityAge.get(slot);
+    }
+
+    public boolean isRunner(int slot) {
+        return runner.get(slot) != 0;
+    }
+
+    public boolean hasColonizationProbability(int slot) {
+        return !Double.isNaN(colonizationProbability.get(slot));
+    }
+
+    public double getColonizationProbability(int slot) {
+        return colonizationProbability.get(slot);
+    }
+
+    public List<String> getSpeciesNames() {
+        return speciesNames.values();
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        id.resize(capacity);
+        key.resize(capacity);
+        species.resize(capacity);
+        currentAge.resize(capacity);
+        maturityAge.resize(capacity);
+        runner.resize(capacity);
+        colonizationProbability.resize(capacity);
+    }
+
+    @Override
+    protected int bytesPerSlot() {
+        return 8 + 8 + 4 + 4 + 4 + 1 + 8;
+    }
+}
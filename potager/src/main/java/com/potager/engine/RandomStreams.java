@@ -0,0 +1,59 @@
+package com.potager.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeded source of {@link SplittableRandom} streams. Each stream is derived from (seed, step, kind, key)
+ * alone, so an entity draws the same numbers whichever thread updates it and in whatever order,
+ * and no generator is shared between threads.
+ */
+public class RandomStreams {
+
+    public static final long PLANT = 1;
+    public static final long INSECT = 2;
+    public static final long INSECTICIDE = 3;
+    public static final long PARCEL = 4;
+    public static final long STEP = 5;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public SplittableRandom forStep(int step) {
+        return stream(step, STEP, 0);
+    }
+
+    public SplittableRandom forParcel(int step, int x, int y) {
+        return stream(step, PARCEL, ((long) x << 32) | (y & 0xffffffffL));
+    }
+
+    public SplittableRandom forEntity(int step, long kind, long key) {
+        return stream(step, kind, key);
+    }
+
+    // One stream per program so overlapping insecticide programs roll independently
+    public SplittableRandom forTreatment(int step, long programId, long key) {
+        return stream(step, INSECTICIDE + (programId << 3), key);
+    }
+
+    private SplittableRandom stream(int step, long kind, long key) {
+        long z = mix(seed + GOLDEN_GAMMA * kind);
+        z = mix(z + GOLDEN_GAMMA * step);
+        return new SplittableRandom(mix(z + key));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,210 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.ColumnFactory;
+import com.potager.engine.columns.ColumnFactory.ByteColumn;
+import com.potager.engine.columns.ColumnFactory.IntColumn;
+import com.potager.engine.columns.ColumnFactory.LongColumn;
+
+/**
+ * Slot bookkeeping shared by the struct-of-arrays entity stores. Every entity lives in a dense int
+ * slot; subclasses keep one primitive column per field, indexed by slot. The entities of a parcel
+ * form an intrusive list through {@code next}, in insertion order, and released slots are chained on
+ * a free-list through the same column so deaths never shift other slots.
+ *
+ * Links are stored plus one, so a column that has never been written reads as empty lists, and the
+ * counters are written through to a meta column: a store reopened on persistent columns carries on
+ * where it stopped.
+ *
+ * Every slot also carries a byte of dirty flags, one bit per field that changed since the last
+ * write-back; subclasses define the bits.
+ *
+ * Lists of different parcels can be changed concurrently; allocating and releasing slots cannot.
+ */
+public abstract class SlotStore {
+
+    public static final int NONE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int HIGH_WATER = 0;
+    private static final int FREE_HEAD = 1;
+    private static final int SIZE = 2;
+    private static final int CAPACITY = 3;
+
+    private final IntColumn parcel;
+    private final IntColumn next;
+    private final ByteColumn dirty;
+    private final IntColumn head;
+    private final IntColumn tail;
+    private final IntColumn count;
+    private final LongColumn meta;
+    private final int parcels;
+    private int capacity;
+    private int highWater;
+    private int freeHead;
+    private int size;
+
+    protected SlotStore(ColumnFactory columns, String prefix, int parcels, int capacity) {
+        this.parcels = parcels;
+        this.meta = columns.longs(prefix + ".meta", 4);
+        this.capacity = meta.get(CAPACITY) > 0 ? (int) meta.get(CAPACITY) : Math.max(MIN_CAPACITY, capacity);
+        this.highWater = (int) meta.get(HIGH_WATER);
+        this.freeHead = (int) meta.get(FREE_HEAD) - 1;
+        this.size = (int) meta.get(SIZE);
+        this.parcel = columns.ints(prefix + ".parcel", this.capacity);
+        this.next = columns.ints(prefix + ".next", this.capacity);
+        this.dirty = columns.bytes(prefix + ".dirty", this.capacity);
+        this.head = columns.ints(prefix + ".head", parcels);
+        this.tail = columns.ints(prefix + ".tail", parcels);
+        this.count = columns.ints(prefix + ".count", parcels);
+        saveCounters();
+    }
+
+    protected SlotStore(SlotStore other, ColumnFactory columns, String prefix) {
+        this(columns, prefix, other.parcels, other.capacity);
+        this.parcel.copyFrom(other.parcel, other.highWater);
+        this.next.copyFrom(other.next, other.highWater);
+        this.dirty.copyFrom(other.dirty, other.highWater);
+        this.head.copyFrom(other.head, other.parcels);
+        this.tail.copyFrom(other.tail, other.parcels);
+        this.count.copyFrom(other.count, other.parcels);
+        this.highWater = other.highWater;
+        this.freeHead = other.freeHead;
+        this.size = other.size;
+        saveCounters();
+    }
+
+    public int first(int parcel) {
+        return head.get(parcel) - 1;
+    }
+
+    public int next(int slot) {
+        return next.get(slot) - 1;
+    }
+
+    public int parcelOf(int slot) {
+        return parcel.get(slot);
+    }
+
+    public int count(int parcel) {
+        return count.get(parcel);
+    }
+
+    public boolean isEmpty(int parcel) {
+        return count.get(parcel) == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int parcelCount() {
+        return parcels;
+    }
+
+    public int getDirtyFlags(int slot) {
+        return dirty.get(slot);
+    }
+
+    public void clearDirtyFlags(int slot) {
+        dirty.set(slot, (byte) 0);
+    }
+
+    /**
+     * Adds a slot that is in no list to the end of the parcel's list.
+     */
+    public void append(int parcel, int slot) {
+        this.parcel.set(slot, parcel);
+        next.set(slot, 0);
+        int last = tail.get(parcel) - 1;
+        if (last == NONE) {
+            head.set(parcel, slot + 1);
+        } else {
+            next.set(last, slot + 1);
+        }
+        tail.set(parcel, slot + 1);
+        count.set(parcel, count.get(parcel) + 1);
+    }
+
+    /**
+     * Takes the slot out of the parcel's list; prev is the slot before it, or NONE for the head. The
+     * slot keeps its values and can be appended elsewhere or released.
+     */
+    public void unlink(int parcel, int prev, int slot) {
+        if (prev == NONE) {
+            head.set(parcel, next.get(slot));
+        } else {
+            next.set(prev, next.get(slot));
+        }
+        if (tail.get(parcel) - 1 == slot) {
+            tail.set(parcel, prev + 1);
+        }
+        next.set(slot, 0);
+        count.set(parcel, count.get(parcel) - 1);
+    }
+
+    /**
+     * Returns an unlinked slot to the free-list.
+     */
+    public void release(int slot) {
+        parcel.set(slot, NONE);
+        next.set(slot, freeHead + 1);
+        freeHead = slot;
+        size--;
+        saveCounters();
+    }
+
+    /**
+     * Approximate memory used by the store, on or off the heap: every column at its current capacity
+     * plus the per-parcel list heads.
+     */
+    public long footprintBytes() {
+        return (long) capacity * (bytesPerSlot() + 9) + (long) parcels * 12;
+    }
+
+    protected int allocate() {
+        int slot;
+        if (freeHead != NONE) {
+            slot = freeHead;
+            freeHead = next.get(slot) - 1;
+        } else {
+            if (highWater == capacity) {
+                capacity = capacity + (capacity >> 1);
+                parcel.resize(capacity);
+                next.resize(capacity);
+                dirty.resize(capacity);
+                grow(capacity);
+            }
+            slot = highWater++;
+        }
+        dirty.set(slot, (byte) 0);
+        size++;
+        saveCounters();
+        return slot;
+    }
+
+    protected void markDirty(int slot, int flag) {
+        dirty.set(slot, (byte) (dirty.get(slot) | flag));
+    }
+
+    // Slots below this one have been handed out at least once
+    protected int highWater() {
+        return highWater;
+    }
+
+    // Resizes every subclass column to the new capacity
+    protected abstract void grow(int capacity);
+
+    // Bytes of subclass columns per slot
+    protected abstract int bytesPerSlot();
+
+    private void saveCounters() {
+        meta.set(HIGH_WATER, highWater);
+        meta.set(FREE_HEAD, freeHead + 1);
+        meta.set(SIZE, size);
+        meta.set(CAPACITY, capacity);
+    }
+}
@@ -0,0 +1,303 @@
+package com.potager.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntPredicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of step deltas. After an 8-byte header, one frame per step, little-endian:
+ * {@code int length | byte kind | int step | records | int crc32}, where length counts the kind,
+ * step and records and the checksum covers the same bytes. Records are those of an {@link EventBuffer}.
+ * A BREAK frame marks a change made outside the simulation, which replay must not cross.
+ *
+ * Group commit: {@link #append} only copies the frame into a pending buffer, so a step never waits
+ * on the disk; {@link #commit}, called periodically, writes everything pending with one write and one
+ * force. A crash loses at most the steps since the last commit, and a frame torn half-way is detected
+ * by its length or checksum and cut off when the journal is next opened. The committer only blocks
+ * appenders when it falls more than maxPendingBytes behind.
+ */
+public class StepJournal implements Closeable {
+
+    public static final byte STEP = 1;
+    public static final byte BREAK = 2;
+
+    private static final int MAGIC = 0x4C4E4A50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    // length, kind, step and checksum
+    private static final int FRAME_OVERHEAD = 13;
+    // length, kind and step
+    private static final int FRAME_PREFIX = 9;
+    private static final IntPredicate ALL_STEPS = step -> true;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int maxPendingBytes;
+    private final Object appendLock = new Object();
+    private final Object commitLock = new Object();
+    private final CRC32 checksum = new CRC32();
+    private ByteBuffer pending;
+    private ByteBuffer writing;
+    private int lastAppendedStep;
+    // File size once everything appended so far is committed
+    private long appendedBytes;
+    private volatile int lastCommittedStep;
+
+    public StepJournal(Path path, int maxPendingBytes) throws IOException {
+        this.path = path;
+        this.maxPendingBytes = maxPendingBytes;
+        this.pending = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        this.writing = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                writeHeader();
+            } else {
+                int[] lastStep = {0};
+                checkHeader(channel);
+                long end = scan(channel, HEADER_BYTES, ALL_STEPS, (kind, step, events) -> {
+                    lastStep[0] = step;
+                    return true;
+                });
+                // Whatever follows the last complete frame was torn by a crash
+                channel.truncate(end);
+                this.lastAppendedStep = lastStep[0];
+                this.lastCommittedStep = lastStep[0];
+            }
+            channel.position(channel.size());
+            this.appendedBytes = channel.size();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads every complete frame of a journal file, in order. A torn tail is silently ignored.
+     */
+    public static void read(Path path, FrameVisitor visitor) throws IOException {
+        read(path, HEADER_BYTES, (kind, step, events) -> {
+            visitor.frame(kind, step, events);
+            return true;
+        });
+    }
+
+    /**
+     * Reads complete frames from the given offset, a frame boundary, until the reader returns false.
+     * Returns the offset just past the last frame read.
+     */
+    public static long read(Path path, long offset, FrameReader reader) throws IOException {
+        return read(path, offset, ALL_STEPS, reader);
+    }
+
+    /**
+     * Like {@link #read(Path, long, FrameReader)}, but frames whose step the filter rejects are
+     * stepped over on their length alone: their records are neither read nor checksummed.
+     */
+    public static long read(Path path, long offset, IntPredicate steps, FrameReader reader) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return offset;
+            }
+            checkHeader(channel);
+            return scan(channel, Math.max(offset, HEADER_BYTES), steps, reader);
+        }
+    }
+
+    public void append(int step, EventBuffer events) {
+        append(STEP, step, events);
+    }
+
+    public void appendBreak(int step) {
+        append(BREAK, step, new EventBuffer(0));
+    }
+
+    /**
+     * Writes and forces every frame appended so far. Returns the last step now durable.
+     */
+    public int commit() {
+        synchronized (commitLock) {
+            int step;
+            synchronized (appendLock) {
+                if (pending.position() == 0) {
+                    return lastCommittedStep;
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                step = lastAppendedStep;
+            }
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write step journal " + path, e);
+            } finally {
+                writing.clear();
+            }
+            lastCommittedStep = step;
+            return step;
+        }
+    }
+
+    /**
+     * Drops every frame, committed or not.
+     */
+    public void reset() {
+        synchronized (commitLock) {
+            synchronized (appendLock) {
+                pending.clear();
+                try {
+                    channel.truncate(HEADER_BYTES);
+                    channel.position(HEADER_BYTES);
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot reset step journal " + path, e);
+                }
+                lastAppendedStep = 0;
+                lastCommittedStep = 0;
+                appendedBytes = HEADER_BYTES;
+            }
+        }
+    }
+
+    /**
+     * Offset the next frame will be written at. A reader starting there sees exactly the frames
+     * appended from now on.
+     */
+    public long getAppendedBytes() {
+        synchronized (appendLock) {
+            return appendedBytes;
+        }
+    }
+
+    public int getLastCommittedStep() {
+        return lastCommittedStep;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long sizeBytes() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read step journal " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            commit();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close step journal " + path, e);
+        }
+    }
+
+    private void append(byte kind, int step, EventBuffer events) {
+        boolean behind;
+        synchronized (appendLock) {
+            int length = 5 + events.size();
+            ensure(length + 8);
+            int start = pending.position();
+            pending.putInt(length).put(kind).putInt(step);
+            events.copyTo(pending);
+            checksum.reset();
+            checksum.update(pending.array(), start + 4, length);
+            pending.putInt((int) checksum.getValue());
+            lastAppendedStep = step;
+            appendedBytes += length + 8;
+            behind = pending.position() >= maxPendingBytes;
+        }
+        if (behind) {
+            commit();
+        }
+    }
+
+    // Called with the append lock held
+    private void ensure(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC).putInt(VERSION).flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.force(false);
+    }
+
+    private static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " step journal");
+        }
+    }
+
+    // Reads the complete frames from position and returns the offset just past the last one read
+    private static long scan(FileChannel channel, long position, IntPredicate steps, FrameReader reader) throws IOException {
+        long size = channel.size();
+        ByteBuffer prefix = ByteBuffer.allocate(FRAME_PREFIX).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 checksum = new CRC32();
+        while (position + FRAME_OVERHEAD <= size) {
+            prefix.clear();
+            readFully(channel, prefix, position);
+            int length = prefix.getInt(0);
+            if (length < 5 || position + 4 + length + 4 > size) {
+                break;
+            }
+            if (!steps.test(prefix.getInt(5))) {
+                position += 4 + length + 4;
+                continue;
+            }
+            ByteBuffer frame = ByteBuffer.allocate(length + 4).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, frame, position + 4);
+            checksum.reset();
+            checksum.update(frame.array(), 0, length);
+            if ((int) checksum.getValue() != frame.getInt(length)) {
+                break;
+            }
+            position += 4 + length + 4;
+            if (!reader.frame(frame.get(0), frame.getInt(1), EventBuffer.wrap(frame.array(), 5, length - 5))) {
+                break;
+            }
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of step journal");
+            }
+        }
+    }
+
+    public interface FrameVisitor {
+        void frame(byte kind, int step, EventBuffer events);
+    }
+
+    public interface FrameReader {
+        // False stops the read after this frame
+        boolean frame(byte kind, int step, EventBuffer events);
+    }
+}
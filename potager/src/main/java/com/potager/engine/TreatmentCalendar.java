@@ -0,0 +1,107 @@
+package com.potager.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Treatment programs indexed by step. A program is active on steps [startTime, startTime + duration).
+ *
+ * Programs are kept in two event queues, by start and by end step, and the calendar remembers the
+ * active set of the last step it was asked for. Moving on to the next step only applies that step's
+ * start and end events, so a step costs O(active programs + events) however many programs are
+ * scheduled; any other jump (a reset, a restart) rebuilds the active set from the start queue.
+ * Programs can be added and removed at any time. Not thread safe.
+ */
+public class TreatmentCalendar<T> {
+
+    private final NavigableMap<Integer, List<Entry<T>>> starts = new TreeMap<>();
+    private final NavigableMap<Integer, List<Entry<T>>> ends = new TreeMap<>();
+    private final Map<Long, Entry<T>> entries = new HashMap<>();
+    private final Map<Long, T> active = new LinkedHashMap<>();
+    private boolean positioned;
+    private int step;
+
+    public void add(long id, int startTime, int duration, T value) {
+        remove(id);
+        if (duration <= 0) {
+            return;
+        }
+        Entry<T> entry = new Entry<>(id, startTime, startTime + duration, value);
+        entries.put(id, entry);
+        starts.computeIfAbsent(entry.start, s -> new ArrayList<>(1)).add(entry);
+        ends.computeIfAbsent(entry.end, s -> new ArrayList<>(1)).add(entry);
+        if (positioned && entry.isActive(step)) {
+            active.put(id, value);
+        }
+    }
+
+    public void remove(long id) {
+        Entry<T> entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        removeEvent(starts, entry.start, entry);
+        removeEvent(ends, entry.end, entry);
+        active.remove(id);
+    }
+
+    /**
+     * Programs active on the given step, as a read-only view that stays valid until the calendar
+     * is next changed or asked for another step.
+     */
+    public Collection<T> activeAt(int step) {
+        if (positioned && step == this.step + 1) {
+            applyEvents(step);
+        } else if (!positioned || step != this.step) {
+            reposition(step);
+        }
+        this.positioned = true;
+        this.step = step;
+        return Collections.unmodifiableCollection(active.values());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void applyEvents(int step) {
+        for (Entry<T> entry : ends.getOrDefault(step, List.of())) {
+            active.remove(entry.id);
+        }
+        for (Entry<T> entry : starts.getOrDefault(step, List.of())) {
+            active.put(entry.id, entry.value);
+        }
+    }
+
+    private void reposition(int step) {
+        active.clear();
+        for (List<Entry<T>> started : starts.headMap(step, true).values()) {
+            for (Entry<T> entry : started) {
+                if (entry.isActive(step)) {
+                    active.put(entry.id, entry.value);
+                }
+            }
+        }
+    }
+
+    private void removeEvent(NavigableMap<Integer, List<Entry<T>>> queue, int step, Entry<T> entry) {
+        List<Entry<T>> events = queue.get(step);
+        events.remove(entry);
+        if (events.isEmpty()) {
+            queue.remove(step);
+        }
+    }
+
+    private record Entry<T>(long id, int start, int end, T value) {
+        boolean isActive(int step) {
+            return step >= start && step < end;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.potager.engine;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class WorldDevice {
+    private final Long id;
+    private final int radius;
+    // Ordinal of the parcel the device stands on
+    private final int parcel;
+    private final List<WorldProgram> programs = new ArrayList<>();
+}
@@ -0,0 +1,46 @@
+package com.potager.engine;
+
+/**
+ * What a step changed, as reported by {@link WorldStepper} when the world has a {@link StepJournal} or an
+ * observer.
+ *
+ * Events come in the order they happened and replaying them in that order over the state before the
+ * step gives the state after it. Plants are named by key, since plants colonized since the last
+ * flush have no id yet; parcels and insects by id. Humidity values are taken before the step's decay.
+ */
+public interface WorldEvents {
+
+    WorldEvents NONE = new WorldEvents() {
+    };
+
+    // Every plant standing on a parcel gets this many steps older
+    default void plantsAged(int steps) {
+    }
+
+    // New runner on the parcel, copying the species, maturity and colonization of the source plant
+    default void plantAdded(long key, long parcelId, long sourceKey) {
+    }
+
+    default void insectUpdated(long id, int healthIndex, int stepsWithoutFood) {
+    }
+
+    default void insectMoved(long id, long parcelId) {
+    }
+
+    default void insectDied(long id) {
+    }
+
+    default void treatmentApplied(long programId) {
+    }
+
+    default void humidityChanged(long parcelId, double humidityLevel) {
+    }
+
+    // Every plant on the parcel gets this many steps older
+    default void plantsFertilized(long parcelId, int count) {
+    }
+
+    // Every parcel's humidity is multiplied by the factor
+    default void humidityDecayed(double factor) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.potager.engine;
+
+import com.potager.Utils.enums.TreatmentType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class WorldProgram {
+    private final Long id;
+    private final int startTime;
+    private final int duration;
+    private final TreatmentType type;
+}
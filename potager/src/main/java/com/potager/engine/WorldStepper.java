@@ -0,0 +1,316 @@
+package com.potager.engine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Same rules as the database step in SimulationService, applied to a {@link GardenWorld}.
+ *
+ * Plants, insects and humidity are updated tile by tile, on the pool when one is given. A tile task
+ * walks its rectangle of the parcel grid row by row and only writes to the parcels it owns, and to
+ * the store slots listed under them; colonization, deaths and insect moves into another tile are
+ * returned to the caller and applied in a single-threaded merge, in parcel ordinal order, since they
+ * allocate or release store slots.
+ *
+ * Every plant and insect draws from its own {@link RandomStreams} stream, so a given seed gives the
+ * same garden whether the step runs serially or in parallel, and whatever the tile size.
+ *
+ * When the world has a {@link StepJournal}, what the step changed is recorded as {@link WorldEvents}
+ * and appended to it at the end of the step. Tiles record into their own buffers, appended in tile
+ * order. A world observer gets the same events replayed once the step is complete. Without either the
+ * events go to {@link WorldEvents#NONE}.
+ */
+public class WorldStepper {
+
+    private static final int MAX_STEPS_WITHOUT_FOOD = 5;
+    private static final double HUMIDITY_DECAY = 0.98;
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+
+    public WorldStepper() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    public WorldStepper(ForkJoinPool pool, int tileSize) {
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    public void step(GardenWorld world, int currentStep, RandomStreams random) {
+        List<WorldTile> tiles = world.getTiles(tileSize);
+        StepJournal journal = world.getJournal();
+        WorldEvents observer = world.getObserver();
+        EventBuffer recorded = journal != null || observer != null ? new EventBuffer() : null;
+        WorldEvents events = recorded != null ? recorded : WorldEvents.NONE;
+
+        events.plantsAged(1);
+        List<List<Colonization>> colonizations = runTiles(tiles, tile -> updatePlants(world, tile, currentStep, random));
+        applyColonizations(world, colonizations, events);
+
+        EventBuffer[] tileEvents = recorded != null ? new EventBuffer[tiles.size()] : null;
+        List<InsectTileResult> insectResults = runTiles(tiles, tile -> updateInsects(world, tile, currentStep, random,
+                tileEvents != null ? (tileEvents[tile.getIndex()] = new EventBuffer()) : WorldEvents.NONE));
+        if (tileEvents != null) {
+            for (EventBuffer buffer : tileEvents) {
+                recorded.append(buffer);
+            }
+        }
+        applyInsectResults(world, insectResults, events);
+
+        activateTreatments(world, currentStep, random, events);
+
+        runTiles(tiles, tile -> updateEnvironmentalConditions(world, tile));
+        events.humidityDecayed(HUMIDITY_DECAY);
+        world.stepCompleted(currentStep);
+        if (journal != null) {
+            journal.append(currentStep, recorded);
+        }
+        if (observer != null) {
+            recorded.replay(observer);
+        }
+    }
+
+    private <R> List<R> runTiles(List<WorldTile> tiles, Function<WorldTile, R> task) {
+        List<R> results = new ArrayList<>(tiles.size());
+        if (pool == null || tiles.size() == 1) {
+            tiles.forEach(tile -> results.add(task.apply(tile)));
+            return results;
+        }
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(tiles.size());
+        tiles.forEach(tile -> tasks.add(pool.submit(() -> task.apply(tile))));
+        tasks.forEach(t -> results.add(t.join()));
+        return results;
+    }
+
+    private List<Colonization> updatePlants(GardenWorld world, WorldTile tile, int currentStep, RandomStreams random) {
+        // Colonized plants only join the garden in the merge, once every existing plant has been updated
+        PlantStore plants = world.getPlants();
+        List<Colonization> colonizations = new ArrayList<>();
+        int[] adjacent = new int[4];
+        forEachParcel(world, tile, parcel -> {
+            for (int plant = plants.first(parcel); plant != SlotStore.NONE; plant = plants.next(plant)) {
+                plants.age(plant);
+
+                if (plants.isRunner(plant) && plants.hasColonizationProbability(plant)) {
+                    tryColonizeAdjacentParcel(world, parcel, plant, colonizations, adjacent,
+                            random.forEntity(currentStep, RandomStreams.PLANT, plants.getKey(plant)));
+                }
+            }
+        });
+        return colonizations;
+    }
+
+    private void tryColonizeAdjacentParcel(GardenWorld world, int parcel, int plant, List<Colonization> colonizations,
+                                           int[] adjacent, SplittableRandom random) {
+        PlantStore plants = world.getPlants();
+        if (random.nextDouble() < plants.getColonizationProbability(plant)) {
+            int found = world.findAdjacentParcels(parcel, adjacent);
+            for (int i = 0; i < found; i++) {
+                if (plants.isEmpty(adjacent[i])) {
+                    colonizations.add(new Colonization(parcel, plant, adjacent[i]));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void applyColonizations(GardenWorld world, List<List<Colonization>> tileColonizations, WorldEvents events) {
+        PlantStore plants = world.getPlants();
+        ParcelStore parcels = world.getParcels();
+        List<Colonization> colonizations = new ArrayList<>();
+        tileColonizations.forEach(colonizations::addAll);
+        // Stable sort: plants of the same parcel keep their order, and get the same key, whatever the tiling
+        colonizations.sort(Comparator.comparingInt(Colonization::sourceOrdinal));
+        colonizations.forEach(c -> {
+            long key = world.nextSyntheticKey();
+            plants.add(
+                    c.target(),
+                    PlantStore.NO_ID,
+                    key,
+                    plants.getSpeciesIndex(c.source()),
+                    0,
+                    plants.getMaturityAge(c.source()),
+                    true,
+                    plants.getColonizationProbability(c.source()));
+            events.plantAdded(key, parcels.getId(c.target()), plants.getKey(c.source()));
+        });
+    }
+
+    private InsectTileResult updateInsects(GardenWorld world, WorldTile tile, int currentStep, RandomStreams random,
+                                           WorldEvents events) {
+        InsectStore insects = world.getInsects();
+        PlantStore plants = world.getPlants();
+        ParcelStore parcels = world.getParcels();
+        InsectTileResult result = new InsectTileResult();
+        List<InsectMove> localMoves = new ArrayList<>();
+        int[] adjacent = new int[4];
+
+        forEachParcel(world, tile, parcel -> {
+            boolean hasFood = !plants.isEmpty(parcel);
+            int previous = SlotStore.NONE;
+            int insect = insects.first(parcel);
+
+            while (insect != SlotStore.NONE) {
+                int next = insects.next(insect);
+                int healthBefore = insects.getHealthIndex(insect);
+                int hungerBefore = insects.getStepsWithoutFood(insect);
+
+                if (hasFood) {
+                    insects.setStepsWithoutFood(insect, 0);
+                } else {
+                    insects.setStepsWithoutFood(insect, insects.getStepsWithoutFood(insect) + 1);
+                    if (insects.getStepsWithoutFood(insect) >= MAX_STEPS_WITHOUT_FOOD) {
+                        insects.setHealthIndex(insect, 0);
+                    } else {
+                        insects.setHealthIndex(insect, Math.max(0, insects.getHealthIndex(insect) - 1));
+                    }
+                }
+                if (insects.getHealthIndex(insect) != healthBefore || insects.getStepsWithoutFood(insect) != hungerBefore) {
+                    events.insectUpdated(insects.getId(insect), insects.getHealthIndex(insect), insects.getStepsWithoutFood(insect));
+                }
+
+                if (insects.getHealthIndex(insect) <= 0) {
+                    insects.unlink(parcel, previous, insect);
+                    result.dead.add(insect);
+                    insect = next;
+                    continue;
+                }
+                SplittableRandom insectRandom = random.forEntity(currentStep, RandomStreams.INSECT, insects.getId(insect));
+                if (insectRandom.nextDouble() < insects.getMobility(insect)) {
+                    int found = world.findAdjacentParcels(parcel, adjacent);
+                    if (found > 0) {
+                        int target = adjacent[insectRandom.nextInt(found)];
+                        insects.unlink(parcel, previous, insect);
+                        InsectMove move = new InsectMove(insect, target);
+                        (world.tileOf(target) == tile.getIndex() ? localMoves : result.crossTileMoves).add(move);
+                        insect = next;
+                        continue;
+                    }
+                }
+                previous = insect;
+                insect = next;
+            }
+        });
+
+        // Applied after the whole tile so a moved insect is never updated twice in the same step
+        localMoves.forEach(move -> {
+            insects.move(move.insect(), move.target());
+            events.insectMoved(insects.getId(move.insect()), parcels.getId(move.target()));
+        });
+        return result;
+    }
+
+    private void applyInsectResults(GardenWorld world, List<InsectTileResult> results, WorldEvents events) {
+        InsectStore insects = world.getInsects();
+        ParcelStore parcels = world.getParcels();
+        for (InsectTileResult result : results) {
+            result.dead.forEach(insect -> {
+                events.insectDied(insects.getId(insect));
+                world.insectRemoved(insect);
+            });
+            result.crossTileMoves.forEach(move -> {
+                insects.move(move.insect(), move.target());
+                events.insectMoved(insects.getId(move.insect()), parcels.getId(move.target()));
+            });
+        }
+    }
+
+    private void activateTreatments(GardenWorld world, int currentStep, RandomStreams random, WorldEvents events) {
+        ParcelStore parcels = world.getParcels();
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+        CoverageMap coverage = world.getCoverage();
+        CoverageMap.Layer watered = coverage.getWatered();
+        CoverageMap.Layer fertilized = coverage.getFertilized();
+
+        for (GardenWorld.Treatment treatment : world.activeTreatments(currentStep)) {
+            WorldDevice device = treatment.device();
+            WorldProgram program = treatment.program();
+            events.treatmentApplied(program.getId());
+            switch (program.getType()) {
+                case WATER:
+                    watered.add(device);
+                    break;
+
+                case FERTILIZER:
+                    fertilized.add(device);
+                    break;
+
+                case INSECTICIDE:
+                    // One roll per program and insect, so programs are applied one by one
+                    coverage.forEachCovered(device, p -> {
+                        for (int insect = insects.first(p); insect != SlotStore.NONE; insect = insects.next(insect)) {
+                            double roll = random.forTreatment(currentStep, program.getId(), insects.getId(insect)).nextDouble();
+                            if (roll > insects.getInsecticideResistance(insect) && insects.getHealthIndex(insect) != 0) {
+                                insects.setHealthIndex(insect, 0); // Removed by the next insect update
+                                events.insectUpdated(insects.getId(insect), 0, insects.getStepsWithoutFood(insect));
+                            }
+                        }
+                    });
+                    break;
+            }
+        }
+
+        if (!watered.isEmpty()) {
+            watered.apply((p, count) -> {
+                // Capped after every watering, exactly as when they are applied one at a time
+                double humidity = parcels.getHumidityLevel(p);
+                for (int i = 0; i < count; i++) {
+                    humidity = Math.min(100, humidity + 20);
+                }
+                if (humidity != parcels.getHumidityLevel(p)) {
+                    parcels.setHumidityLevel(p, humidity);
+                    events.humidityChanged(parcels.getId(p), humidity);
+                }
+            });
+        }
+        if (!fertilized.isEmpty()) {
+            fertilized.apply((p, count) -> {
+                if (plants.isEmpty(p)) {
+                    return;
+                }
+                for (int plant = plants.first(p); plant != SlotStore.NONE; plant = plants.next(plant)) {
+                    plants.setCurrentAge(plant, plants.getCurrentAge(plant) + count);
+                }
+                events.plantsFertilized(parcels.getId(p), count);
+            });
+        }
+    }
+
+    private Void updateEnvironmentalConditions(GardenWorld world, WorldTile tile) {
+        ParcelStore parcels = world.getParcels();
+        forEachParcel(world, tile, p -> parcels.decayHumidity(p, HUMIDITY_DECAY));
+        return null;
+    }
+
+    private void forEachParcel(GardenWorld world, WorldTile tile, IntConsumer action) {
+        ParcelStore parcels = world.getParcels();
+        for (int y = tile.getFromY(); y < tile.getToY(); y++) {
+            for (int x = tile.getFromX(); x < tile.getToX(); x++) {
+                int parcel = parcels.at(x, y);
+                if (parcel != ParcelStore.NONE) {
+                    action.accept(parcel);
+                }
+            }
+        }
+    }
+
+    // Slots and parcel ordinals
+    private record Colonization(int sourceOrdinal, int source, int target) {
+    }
+
+    private record InsectMove(int insect, int target) {
+    }
+
+    private static class InsectTileResult {
+        private final List<Integer> dead = new ArrayList<>();
+        private final List<InsectMove> crossTileMoves = new ArrayList<>();
+    }
+}
@@ -0,0 +1,17 @@
+package com.potager.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Rectangle of grid cells, from inclusive to exclusive, owned by one task during a parallel step.
+ */
+@Getter
+@AllArgsConstructor
+public class WorldTile {
+    private final int index;
+    private final int fromX;
+    private final int fromY;
+    private final int toX;
+    private final int toY;
+}
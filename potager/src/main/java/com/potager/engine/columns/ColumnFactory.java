@@ -0,0 +1,115 @@
+package com.potager.engine.columns;
+
+import java.util.List;
+
+/**
+ * Creates the primitive columns the world stores keep their fields in. A column opened under a name
+ * that already exists in a persistent factory keeps its previous contents; a new column reads as
+ * zeros, which the stores treat as empty.
+ */
+public interface ColumnFactory {
+
+    IntColumn ints(String name, int capacity);
+
+    LongColumn longs(String name, int capacity);
+
+    DoubleColumn doubles(String name, int capacity);
+
+    ShortColumn shorts(String name, int capacity);
+
+    ByteColumn bytes(String name, int capacity);
+
+    Dictionary dictionary(String name);
+
+    // True when columns outlive the process
+    boolean isPersistent();
+
+    // Largest garden bounding box, in cells, a world on these columns can index densely
+    long maxGridCells();
+
+    // Makes everything written so far durable; a no-op on the heap
+    void sync();
+
+    void close();
+
+    // Closes the factory and drops every column it created
+    void delete();
+
+    interface Column {
+        int capacity();
+
+        // Grows the column to at least the given capacity, keeping its contents
+        void resize(int capacity);
+    }
+
+    interface IntColumn extends Column {
+        int get(int index);
+
+        void set(int index, int value);
+
+        default void copyFrom(IntColumn source, int length) {
+            for (int i = 0; i < length; i++) {
+                set(i, source.get(i));
+            }
+        }
+    }
+
+    interface LongColumn extends Column {
+        long get(int index);
+
+        void set(int index, long value);
+
+        default void copyFrom(LongColumn source, int length) {
+            for (int i = 0; i < length; i++) {
+                set(i, source.get(i));
+            }
+        }
+    }
+
+    interface DoubleColumn extends Column {
+        double get(int index);
+
+        void set(int index, double value);
+
+        default void copyFrom(DoubleColumn source, int length) {
+            for (int i = 0; i < length; i++) {
+                set(i, source.get(i));
+            }
+        }
+    }
+
+    interface ShortColumn extends Column {
+        short get(int index);
+
+        void set(int index, short value);
+
+        default void copyFrom(ShortColumn source, int length) {
+            for (int i = 0; i < length; i++) {
+                set(i, source.get(i));
+            }
+        }
+    }
+
+    interface ByteColumn extends Column {
+        byte get(int index);
+
+        void set(int index, byte value);
+
+        default void copyFrom(ByteColumn source, int length) {
+            for (int i = 0; i < length; i++) {
+                set(i, source.get(i));
+            }
+        }
+    }
+
+    /**
+     * Small string table, for species and sex names stored as indexes.
+     */
+    interface Dictionary {
+        int intern(String value);
+
+        String get(int index);
+
+        List<String> values();
+    }
+}
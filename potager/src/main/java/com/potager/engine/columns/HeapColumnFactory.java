@@ -0,0 +1,286 @@
+package com.potager.engine.columns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columns backed by plain Java arrays; the default storage of a world.
+ */
+public class HeapColumnFactory implements ColumnFactory {
+
+    // 4096 x 4096 int cells, 64 MiB of heap per world
+    public static final long MAX_GRID_CELLS = 1L << 24;
+
+    @Override
+    public IntColumn ints(String name, int capacity) {
+        return new HeapIntColumn(capacity);
+    }
+
+    @Override
+    public LongColumn longs(String name, int capacity) {
+        return new HeapLongColumn(capacity);
+    }
+
+    @Override
+    public DoubleColumn doubles(String name, int capacity) {
+        return new HeapDoubleColumn(capacity);
+    }
+
+    @Override
+    public ShortColumn shorts(String name, int capacity) {
+        return new HeapShortColumn(capacity);
+    }
+
+    @Override
+    public ByteColumn bytes(String name, int capacity) {
+        return new HeapByteColumn(capacity);
+    }
+
+    @Override
+    public Dictionary dictionary(String name) {
+        return new HeapDictionary();
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    @Override
+    public long maxGridCells() {
+        return MAX_GRID_CELLS;
+    }
+
+    @Override
+    public void sync() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void delete() {
+    }
+
+    private static class HeapIntColumn implements IntColumn {
+        private int[] values;
+
+        private HeapIntColumn(int capacity) {
+            values = new int[capacity];
+        }
+
+        @Override
+        public int get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, int value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @Override
+        public void copyFrom(IntColumn source, int length) {
+            if (source instanceof HeapIntColumn heap) {
+                System.arraycopy(heap.values, 0, values, 0, length);
+            } else {
+                IntColumn.super.copyFrom(source, length);
+            }
+        }
+    }
+
+    private static class HeapLongColumn implements LongColumn {
+        private long[] values;
+
+        private HeapLongColumn(int capacity) {
+            values = new long[capacity];
+        }
+
+        @Override
+        public long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, long value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @Override
+        public void copyFrom(LongColumn source, int length) {
+            if (source instanceof HeapLongColumn heap) {
+                System.arraycopy(heap.values, 0, values, 0, length);
+            } else {
+                LongColumn.super.copyFrom(source, length);
+            }
+        }
+    }
+
+    private static class HeapDoubleColumn implements DoubleColumn {
+        private double[] values;
+
+        private HeapDoubleColumn(int capacity) {
+            values = new double[capacity];
+        }
+
+        @Override
+        public double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, double value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @Override
+        public void copyFrom(DoubleColumn source, int length) {
+            if (source instanceof HeapDoubleColumn heap) {
+                System.arraycopy(heap.values, 0, values, 0, length);
+            } else {
+                DoubleColumn.super.copyFrom(source, length);
+            }
+        }
+    }
+
+    private static class HeapShortColumn implements ShortColumn {
+        private short[] values;
+
+        private HeapShortColumn(int capacity) {
+            values = new short[capacity];
+        }
+
+        @Override
+        public short get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, short value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @Override
+        public void copyFrom(ShortColumn source, int length) {
+            if (source instanceof HeapShortColumn heap) {
+                System.arraycopy(heap.values, 0, values, 0, length);
+            } else {
+                ShortColumn.super.copyFrom(source, length);
+            }
+        }
+    }
+
+    private static class HeapByteColumn implements ByteColumn {
+        private byte[] values;
+
+        private HeapByteColumn(int capacity) {
+            values = new byte[capacity];
+        }
+
+        @Override
+        public byte get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void set(int index, byte value) {
+            values[index] = value;
+        }
+
+        @Override
+        public int capacity() {
+            return values.length;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @Override
+        public void copyFrom(ByteColumn source, int length) {
+            if (source instanceof HeapByteColumn heap) {
+                System.arraycopy(heap.values, 0, values, 0, length);
+            } else {
+                ByteColumn.super.copyFrom(source, length);
+            }
+        }
+    }
+
+    private static class HeapDictionary implements Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        @Override
+        public synchronized int intern(String value) {
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        @Override
+        public synchronized String get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public synchronized List<String> values() {
+            return List.copyOf(values);
+        }
+    }
+}
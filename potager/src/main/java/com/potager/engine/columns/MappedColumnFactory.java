@@ -0,0 +1,317 @@
+package com.potager.engine.columns;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columns kept in memory-mapped files, one file per column under a directory. A world built on it
+ * can be larger than the heap, and survives a restart as is: the files are the state, so there is
+ * no save phase, only {@link #sync()} when the caller wants the pages on disk.
+ *
+ * Files are mapped in fixed-size chunks. That keeps every mapping under the 2 GiB limit of a
+ * ByteBuffer, and a growing column only maps its new chunks. Absolute reads and writes of distinct
+ * indexes are safe from several threads; resizing is not.
+ */
+public class MappedColumnFactory implements ColumnFactory {
+
+    private static final int CHUNK_SHIFT = 23;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_BYTES - 1;
+    // The largest int column, an 8 GiB sparse file of which only the touched chunks take disk
+    public static final long MAX_GRID_CELLS = Integer.MAX_VALUE;
+
+    private final Path directory;
+    private final List<MappedColumn> columns = new ArrayList<>();
+    private final Map<String, FileDictionary> dictionaries = new HashMap<>();
+
+    public MappedColumnFactory(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create world directory " + directory, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public IntColumn ints(String name, int capacity) {
+        return new MappedIntColumn(name, capacity);
+    }
+
+    @Override
+    public LongColumn longs(String name, int capacity) {
+        return new MappedLongColumn(name, capacity);
+    }
+
+    @Override
+    public DoubleColumn doubles(String name, int capacity) {
+        return new MappedDoubleColumn(name, capacity);
+    }
+
+    @Override
+    public ShortColumn shorts(String name, int capacity) {
+        return new MappedShortColumn(name, capacity);
+    }
+
+    @Override
+    public ByteColumn bytes(String name, int capacity) {
+        return new MappedByteColumn(name, capacity);
+    }
+
+    @Override
+    public synchronized Dictionary dictionary(String name) {
+        return dictionaries.computeIfAbsent(name, n -> new FileDictionary(directory.resolve(n + ".dict")));
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return true;
+    }
+
+    @Override
+    public long maxGridCells() {
+        return MAX_GRID_CELLS;
+    }
+
+    @Override
+    public synchronized void sync() {
+        columns.forEach(MappedColumn::force);
+    }
+
+    @Override
+    public synchronized void close() {
+        columns.forEach(MappedColumn::close);
+        columns.clear();
+        dictionaries.clear();
+    }
+
+    @Override
+    public synchronized void delete() {
+        close();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete world directory " + directory, e);
+        }
+    }
+
+    private abstract class MappedColumn implements Column {
+        private final FileChannel channel;
+        // log2 of the element width in bytes
+        private final int shift;
+        private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+        private int capacity;
+
+        private MappedColumn(String name, int shift, int capacity) {
+            this.shift = shift;
+            try {
+                this.channel = FileChannel.open(directory.resolve(name + ".col"),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                resize((int) Math.max(capacity, Math.min(Integer.MAX_VALUE, channel.size() >> shift)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open column " + name, e);
+            }
+            synchronized (MappedColumnFactory.this) {
+                columns.add(this);
+            }
+        }
+
+        @Override
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public void resize(int capacity) {
+            int chunkCount = (int) ((((long) capacity << shift) + CHUNK_MASK) >>> CHUNK_SHIFT);
+            if (chunkCount <= chunks.length) {
+                return;
+            }
+            MappedByteBuffer[] grown = Arrays.copyOf(chunks, chunkCount);
+            try {
+                for (int i = chunks.length; i < chunkCount; i++) {
+                    // Mapping past the end extends the file; untouched pages stay sparse
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * CHUNK_BYTES, CHUNK_BYTES);
+                    grown[i].order(ByteOrder.nativeOrder());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot grow column", e);
+            }
+            chunks = grown;
+            this.capacity = (int) Math.min(Integer.MAX_VALUE, ((long) chunkCount << CHUNK_SHIFT) >> shift);
+        }
+
+        protected ByteBuffer chunk(int index) {
+            return chunks[(int) (((long) index << shift) >>> CHUNK_SHIFT)];
+        }
+
+        protected int offset(int index) {
+            return (int) (((long) index << shift) & CHUNK_MASK);
+        }
+
+        private void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class MappedIntColumn extends MappedColumn implements IntColumn {
+        private MappedIntColumn(String name, int capacity) {
+            super(name, 2, capacity);
+        }
+
+        @Override
+        public int get(int index) {
+            return chunk(index).getInt(offset(index));
+        }
+
+        @Override
+        public void set(int index, int value) {
+            chunk(index).putInt(offset(index), value);
+        }
+    }
+
+    private class MappedLongColumn extends MappedColumn implements LongColumn {
+        private MappedLongColumn(String name, int capacity) {
+            super(name, 3, capacity);
+        }
+
+        @Override
+        public long get(int index) {
+            return chunk(index).getLong(offset(index));
+        }
+
+        @Override
+        public void set(int index, long value) {
+            chunk(index).putLong(offset(index), value);
+        }
+    }
+
+    private class MappedDoubleColumn extends MappedColumn implements DoubleColumn {
+        private MappedDoubleColumn(String name, int capacity) {
+            super(name, 3, capacity);
+        }
+
+        @Override
+        public double get(int index) {
+            return chunk(index).getDouble(offset(index));
+        }
+
+        @Override
+        public void set(int index, double value) {
+            chunk(index).putDouble(offset(index), value);
+        }
+    }
+
+    private class MappedShortColumn extends MappedColumn implements ShortColumn {
+        private MappedShortColumn(String name, int capacity) {
+            super(name, 1, capacity);
+        }
+
+        @Override
+        public short get(int index) {
+            return chunk(index).getShort(offset(index));
+        }
+
+        @Override
+        public void set(int index, short value) {
+            chunk(index).putShort(offset(index), value);
+        }
+    }
+
+    private class MappedByteColumn extends MappedColumn implements ByteColumn {
+        private MappedByteColumn(String name, int capacity) {
+            super(name, 0, capacity);
+        }
+
+        @Override
+        public byte get(int index) {
+            return chunk(index).get(offset(index));
+        }
+
+        @Override
+        public void set(int index, byte value) {
+            chunk(index).put(offset(index), value);
+        }
+    }
+
+    /**
+     * One value per line, appended as soon as it is interned.
+     */
+    private static class FileDictionary implements Dictionary {
+        private final Path file;
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private FileDictionary(Path file) {
+            this.file = file;
+            try {
+                if (Files.exists(file)) {
+                    for (String value : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                        indexes.put(value, values.size());
+                        values.add(value);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read dictionary " + file, e);
+            }
+        }
+
+        @Override
+        public synchronized int intern(String value) {
+            Integer index = indexes.get(value);
+            if (index != null) {
+                return index;
+            }
+            try {
+                Files.writeString(file, value + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write dictionary " + file, e);
+            }
+            indexes.put(value, values.size());
+            values.add(value);
+            return values.size() - 1;
+        }
+
+        @Override
+        public synchronized String get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public synchronized List<String> values() {
+            return List.copyOf(values);
+        }
+    }
+}
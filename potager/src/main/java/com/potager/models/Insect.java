@@ -7,22 +7,31 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 
 @Entity
-@Table(name = "insects")
+@DynamicUpdate
+@Table(name = "insects", indexes = @Index(name = "idx_insects_parcel", columnList = "parcel_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Insect {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insects_seq")
+    @SequenceGenerator(name = "insects_seq", sequenceName = "insects_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "garden_id", nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private Long gardenId = SimulationState.DEFAULT_GARDEN_ID;
+
     @Column(nullable = false)
     private String species;
 
@@ -31,6 +40,7 @@ public class Insect {
 
     @Column(nullable = false)
     @Min(0) @Max(10)
+    @Builder.Default
     private Integer healthIndex = 10;
 
     @Column(nullable = false)
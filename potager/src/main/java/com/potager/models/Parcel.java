@@ -3,21 +3,33 @@ package com.potager.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "parcels")
+@DynamicUpdate
+@Table(name = "parcels", indexes = {
+        // Row-major coordinate index: viewport queries seek each row of the window instead of scanning the garden
+        @Index(name = "idx_parcels_garden_row", columnList = "garden_id, ycoordinate, xcoordinate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Parcel {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parcels_seq")
+    @SequenceGenerator(name = "parcels_seq", sequenceName = "parcels_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "garden_id", nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private Long gardenId = SimulationState.DEFAULT_GARDEN_ID;
+
     @Column(name = "xcoordinate", nullable = false)
     @Getter
     @Setter
@@ -4,19 +4,28 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 @Entity
-@Table(name = "plants")
+@DynamicUpdate
+@Table(name = "plants", indexes = @Index(name = "idx_plants_parcel", columnList = "parcel_id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class Plant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plants_seq")
+    @SequenceGenerator(name = "plants_seq", sequenceName = "plants_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "garden_id", nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private Long gardenId = SimulationState.DEFAULT_GARDEN_ID;
+
     @Column(nullable = false)
     private String species;
 
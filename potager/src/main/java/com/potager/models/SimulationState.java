@@ -5,12 +5,17 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Builder;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 
+// Steps are advanced in place by the repository; a save only writes the columns it changed, so
+// setting the speed or the seed never puts back a step read before a slice committed
 @Entity
+@DynamicUpdate
 @Table(name = "simulation_state")
 @Getter
 @Setter
@@ -18,10 +23,19 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 public class SimulationState {
+    // Garden of the single-garden API routes and of rows created before gardens existed
+    public static final long DEFAULT_GARDEN_ID = 1L;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "simulation_state_seq")
+    @SequenceGenerator(name = "simulation_state_seq", sequenceName = "simulation_state_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "garden_id", nullable = false, unique = true)
+    @ColumnDefault("1")
+    @Builder.Default
+    private Long gardenId = DEFAULT_GARDEN_ID;
+
     @Column(nullable = false)
     @Builder.Default
     private Integer currentStep = 0;
@@ -33,4 +47,7 @@ public class SimulationState {
     @Column(nullable = false)
     @Builder.Default
     private Double speedMultiplier = 1.0;
+
+    @Column
+    private Long seed;
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Builder;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,9 +22,15 @@ import java.util.List;
 @ToString(exclude = "programs")
 public class TreatmentDevice {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "treatment_devices_seq")
+    @SequenceGenerator(name = "treatment_devices_seq", sequenceName = "treatment_devices_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "garden_id", nullable = false)
+    @ColumnDefault("1")
+    @Builder.Default
+    private Long gardenId = SimulationState.DEFAULT_GARDEN_ID;
+
     @Column(nullable = false)
     private Integer radius;
 
@@ -20,7 +20,8 @@ import java.util.List;
 public class TreatmentProgram {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "treatment_programs_seq")
+    @SequenceGenerator(name = "treatment_programs_seq", sequenceName = "treatment_programs_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -2,11 +2,14 @@ package com.potager.repositories;
 
 import com.potager.models.Insect;
 import com.potager.models.TreatmentDevice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +20,49 @@ public interface InsectRepository extends JpaRepository<Insect, Long> {
 
     List<Insect> findByParcelId(Long parcelId);
 
-    @Query("SELECT i FROM Insect i WHERE i.healthIndex > 5")
-    List<Insect> findHealthyInsects();
+    List<Insect> findByParcelIdAndGardenId(Long parcelId, Long gardenId);
 
-    @Query("SELECT i FROM Insect i WHERE i.stepsWithoutFood >= 3")
-    List<Insect> findHungryInsects();
+    List<Insect> findByParcelIdIn(Collection<Long> parcelIds);
+
+    List<Insect> findByGardenId(Long gardenId);
+
+    List<Insect> findByGardenId(Long gardenId, Sort sort);
+
+    Optional<Insect> findByIdAndGardenId(Long id, Long gardenId);
+
+    @Query("SELECT i FROM Insect i WHERE i.gardenId = :gardenId AND i.healthIndex > 5")
+    List<Insect> findHealthyInsects(@Param("gardenId") Long gardenId);
+
+    @Query("SELECT i FROM Insect i WHERE i.gardenId = :gardenId AND i.stepsWithoutFood >= 3")
+    List<Insect> findHungryInsects(@Param("gardenId") Long gardenId);
+
+    // Insects standing on a parcel with at least one plant have eaten this step
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Insect i SET i.stepsWithoutFood = 0 WHERE i.gardenId = :gardenId AND i.parcel IS NOT NULL " +
+            "AND EXISTS (SELECT pl.id FROM Plant pl WHERE pl.parcel = i.parcel)")
+    int feed(@Param("gardenId") Long gardenId);
+
+    // The others lose one health point, or all of it once they have gone maxSteps steps without food
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Insect i SET i.stepsWithoutFood = i.stepsWithoutFood + 1, " +
+            "i.healthIndex = CASE WHEN i.stepsWithoutFood + 1 >= :maxSteps THEN 0 WHEN i.healthIndex > 0 THEN i.healthIndex - 1 ELSE 0 END " +
+            "WHERE i.gardenId = :gardenId AND i.parcel IS NOT NULL " +
+            "AND NOT EXISTS (SELECT pl.id FROM Plant pl WHERE pl.parcel = i.parcel)")
+    int starve(@Param("gardenId") Long gardenId, @Param("maxSteps") int maxSteps);
+
+    // Living insects that may move: id, mobility and parcel coordinates
+    @Query("SELECT i.id, i.mobility, p.xCoordinate, p.yCoordinate FROM Insect i JOIN i.parcel p " +
+            "WHERE i.gardenId = :gardenId AND i.healthIndex > 0")
+    List<Object[]> findMobileInsects(@Param("gardenId") Long gardenId);
+
+    @Query("SELECT i.id, i.insecticideResistance FROM Insect i WHERE i.parcel.id IN :parcelIds")
+    List<Object[]> findResistances(@Param("parcelIds") Collection<Long> parcelIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Insect i SET i.healthIndex = 0 WHERE i.id IN :ids")
+    int kill(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Insect i WHERE i.gardenId = :gardenId AND i.healthIndex <= 0")
+    int deleteDead(@Param("gardenId") Long gardenId);
 }
\ No newline at end of file
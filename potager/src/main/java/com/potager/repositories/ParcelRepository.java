@@ -1,11 +1,15 @@
 package com.potager.repositories;
 
 import com.potager.models.Parcel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +22,36 @@ public interface ParcelRepository extends JpaRepository<Parcel, Long> {
     @Query("SELECT p FROM Parcel p WHERE p.xCoordinate = :x AND p.yCoordinate = :y")
     Optional<Parcel> findByxCoordinateAndyCoordinate(@Param("x") int x, @Param("y") int y);
 
-    @Query("SELECT p FROM Parcel p WHERE p.humidityLevel < :threshold")
-    List<Parcel> findDryParcels(@Param("threshold") double threshold);
+    @Query("SELECT p.id, p.xCoordinate, p.yCoordinate FROM Parcel p WHERE p.gardenId = :gardenId")
+    List<Object[]> findAllCoordinates(@Param("gardenId") Long gardenId);
+
+    List<Parcel> findByGardenId(Long gardenId);
+
+    List<Parcel> findByGardenId(Long gardenId, Sort sort);
+
+    Optional<Parcel> findByIdAndGardenId(Long id, Long gardenId);
+
+    // Parcels of the given rows within [minX, maxX], row by row; on firstRow, only from fromX on.
+    // Each row is a seek on the (garden_id, ycoordinate, xcoordinate) index
+    @Query("SELECT p FROM Parcel p WHERE p.gardenId = :gardenId AND p.yCoordinate IN :rows " +
+            "AND p.xCoordinate BETWEEN :minX AND :maxX " +
+            "AND (p.yCoordinate > :firstRow OR p.xCoordinate >= :fromX) " +
+            "ORDER BY p.yCoordinate, p.xCoordinate")
+    List<Parcel> findInRows(@Param("gardenId") Long gardenId, @Param("rows") Collection<Integer> rows,
+                            @Param("minX") int minX, @Param("maxX") int maxX,
+                            @Param("firstRow") int firstRow, @Param("fromX") int fromX, Pageable pageable);
+
+    @Query("SELECT p FROM Parcel p WHERE p.gardenId = :gardenId AND p.humidityLevel < :threshold")
+    List<Parcel> findDryParcels(@Param("gardenId") Long gardenId, @Param("threshold") double threshold);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Parcel p SET p.humidityLevel = p.humidityLevel * :factor WHERE p.gardenId = :gardenId")
+    int decayHumidity(@Param("gardenId") Long gardenId, @Param("factor") double factor);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Parcel p SET p.humidityLevel = CASE WHEN p.humidityLevel + :amount > 100 THEN 100.0 " +
+            "ELSE p.humidityLevel + :amount END WHERE p.id IN :parcelIds")
+    int water(@Param("parcelIds") Collection<Long> parcelIds, @Param("amount") double amount);
 
     @Query("SELECT p FROM Parcel p JOIN p.plants pl WHERE pl.currentAge >= pl.maturityAge")
     List<Parcel> findParcelsWithMaturePlants();
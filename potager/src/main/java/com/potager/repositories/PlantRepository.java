@@ -2,13 +2,17 @@ package com.potager.repositories;
 
 import com.potager.models.Plant;
 import com.potager.models.TreatmentDevice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface PlantRepository extends JpaRepository<Plant, Long> {
@@ -18,6 +22,33 @@ public interface PlantRepository extends JpaRepository<Plant, Long> {
     List<Plant> findByIsRunnerTrue();
     List<Plant> findByParcelId(Long parcelId);
 
-    @Query("SELECT p FROM Plant p WHERE p.currentAge >= p.maturityAge")
-    List<Plant> findMaturePlants();
+    List<Plant> findByParcelIdAndGardenId(Long parcelId, Long gardenId);
+
+    List<Plant> findByParcelIdIn(Collection<Long> parcelIds);
+
+    List<Plant> findByGardenId(Long gardenId);
+
+    List<Plant> findByGardenId(Long gardenId, Sort sort);
+
+    boolean existsByIdAndGardenId(Long id, Long gardenId);
+
+    // Every plant standing on a parcel, i.e. every plant a simulation step ages
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Plant p SET p.currentAge = p.currentAge + :steps WHERE p.gardenId = :gardenId AND p.parcel IS NOT NULL")
+    int ageAll(@Param("gardenId") Long gardenId, @Param("steps") int steps);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Plant p SET p.currentAge = p.currentAge + :steps WHERE p.parcel.id IN :parcelIds")
+    int ageOnParcels(@Param("parcelIds") Collection<Long> parcelIds, @Param("steps") int steps);
+
+    // Runners that may colonize: id, species, maturity age, colonization probability and parcel coordinates
+    @Query("SELECT p.id, p.species, p.maturityAge, p.colonizationProbability, pa.xCoordinate, pa.yCoordinate " +
+            "FROM Plant p JOIN p.parcel pa WHERE p.gardenId = :gardenId AND p.isRunner = true AND p.colonizationProbability IS NOT NULL")
+    List<Object[]> findColonizingPlants(@Param("gardenId") Long gardenId);
+
+    @Query("SELECT DISTINCT p.parcel.id FROM Plant p WHERE p.gardenId = :gardenId AND p.parcel IS NOT NULL")
+    Set<Long> findOccupiedParcelIds(@Param("gardenId") Long gardenId);
+
+    @Query("SELECT p FROM Plant p WHERE p.gardenId = :gardenId AND p.currentAge >= p.maturityAge")
+    List<Plant> findMaturePlants(@Param("gardenId") Long gardenId);
 }
@@ -2,8 +2,25 @@ package com.potager.repositories;
 
 import com.potager.models.SimulationState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface SimulationStateRepository extends JpaRepository<SimulationState, Long> {
+
+    Optional<SimulationState> findByGardenId(Long gardenId);
+
+    /**
+     * Moves the garden to the given step if it is still at the one before, and when onlyIfRunning
+     * is set still running. Returns 0 when a pause, a reset or another step got there first; only
+     * the step column is written, so nothing they wrote is overwritten.
+     */
+    @Modifying
+    @Query("UPDATE SimulationState s SET s.currentStep = :step WHERE s.gardenId = :gardenId "
+            + "AND s.currentStep = :step - 1 AND (s.isRunning = true OR :onlyIfRunning = false)")
+    int advanceStep(@Param("gardenId") Long gardenId, @Param("step") int step, @Param("onlyIfRunning") boolean onlyIfRunning);
 }
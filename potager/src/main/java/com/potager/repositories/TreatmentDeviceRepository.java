@@ -1,11 +1,13 @@
 package com.potager.repositories;
 
 import com.potager.models.TreatmentDevice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +21,15 @@ public interface TreatmentDeviceRepository extends JpaRepository<TreatmentDevice
     List<TreatmentDevice> findActiveDevices(@Param("currentStep") int currentStep);
 
     boolean existsByParcelId(Long parcelId);
+
+    List<TreatmentDevice> findByGardenId(Long gardenId);
+
+    List<TreatmentDevice> findByGardenId(Long gardenId, Sort sort);
+
+    Optional<TreatmentDevice> findByIdAndGardenId(Long id, Long gardenId);
+
+    Optional<TreatmentDevice> findByParcelIdAndGardenId(Long parcelId, Long gardenId);
+
+    @Query("SELECT DISTINCT td FROM TreatmentDevice td LEFT JOIN FETCH td.programs WHERE td.parcel.id IN :parcelIds")
+    List<TreatmentDevice> findWithProgramsByParcelIdIn(@Param("parcelIds") Collection<Long> parcelIds);
 }
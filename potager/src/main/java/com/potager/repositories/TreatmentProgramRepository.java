@@ -18,6 +18,14 @@ public interface TreatmentProgramRepository extends JpaRepository<TreatmentProgr
 
     List<TreatmentProgram> findByDeviceId(Long deviceId);
 
+    List<TreatmentProgram> findByDeviceIdAndDeviceGardenId(Long deviceId, Long gardenId);
+
+    boolean existsByIdAndDeviceGardenId(Long id, Long gardenId);
+
+    // Every program of the garden with the device and parcel it acts from, to build the treatment calendar
+    @Query("SELECT p FROM TreatmentProgram p JOIN FETCH p.device d JOIN FETCH d.parcel WHERE d.gardenId = :gardenId")
+    List<TreatmentProgram> findScheduledPrograms(@Param("gardenId") Long gardenId);
+
     @Query("SELECT p FROM TreatmentProgram p WHERE " +
             ":currentStep BETWEEN p.startTime AND p.startTime + p.duration")
     List<TreatmentProgram> findActivePrograms(@Param("currentStep") int currentStep);
@@ -0,0 +1,339 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.CheckpointDTO;
+import com.potager.dtos.SimulationStateDTO;
+import com.potager.engine.GardenCheckpoint;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.StepJournal;
+import com.potager.engine.columns.HeapColumnFactory;
+import com.potager.models.SimulationState;
+import com.potager.repositories.SimulationStateRepository;
+import com.potager.services.GardenWorldService.CapturedWorld;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Saves and restores whole gardens as {@link GardenCheckpoint} files, one per step under
+ * data/checkpoints/garden-<id>/. Saving captures the world between two steps and writes it in one
+ * pass; restoring replaces the garden's rows with JDBC batches and installs the restored world, so
+ * neither goes through the entities. The simulation state and random seed travel with the world,
+ * and a restored garden steps on exactly as the saved one did.
+ *
+ * Checkpoints taken every interval-steps are captured on the stepping thread and written on a
+ * background one, so stepping only pays for the copy.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class CheckpointService {
+
+    private final SimulationProperties simulationProperties;
+    private final SimulationStateRepository simulationStateRepository;
+    private final GardenWorldService gardenWorldService;
+    private final GardenBulkWriter gardenBulkWriter;
+    private final RandomStreamService randomStreamService;
+    private final SimulationClock simulationClock;
+    private final ParcelGridService parcelGridService;
+    private final TreatmentCalendarService treatmentCalendarService;
+    private final StepJournalService stepJournalService;
+    private final GardenHistoryService gardenHistoryService;
+    private final GardenStreamService gardenStreamService;
+    private final GardenJobRegistry gardenJobRegistry;
+
+    private final ExecutorService writer =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "checkpoint-writer"));
+
+    public CheckpointDTO createCheckpoint(Long gardenId) {
+        long start = System.nanoTime();
+        SimulationState state = getSimulationState(gardenId);
+        GardenCheckpoint checkpoint = capture(gardenId, state.getCurrentStep(), state.getSpeedMultiplier());
+        Path path = write(checkpoint);
+        return toDTO(checkpoint, path, start);
+    }
+
+    // Called after every step
+    public void checkpointIfDue(Long gardenId, int step, double speedMultiplier) {
+        int interval = simulationProperties.getCheckpoint().getIntervalSteps();
+        if (interval <= 0 || step % interval != 0) {
+            return;
+        }
+        GardenCheckpoint checkpoint = capture(gardenId, step, speedMultiplier);
+        writer.execute(() -> {
+            try {
+                write(checkpoint);
+            } catch (RuntimeException e) {
+                log.error("Checkpoint of garden {} at step {} failed: {}",
+                        checkpoint.getGardenId(), checkpoint.getStep(), e.getMessage(), e);
+            }
+        });
+    }
+
+    public List<CheckpointDTO> listCheckpoints(Long gardenId) {
+        List<CheckpointDTO> checkpoints = new ArrayList<>();
+        for (Path path : checkpointFiles(gardenId)) {
+            try {
+                GardenCheckpoint header = GardenCheckpoint.readHeader(path);
+                checkpoints.add(CheckpointDTO.builder()
+                        .gardenId(header.getGardenId())
+                        .step(header.getStep())
+                        .seed(header.getSeed())
+                        .createdAt(header.getCreatedAt())
+                        .bytes(Files.size(path))
+                        .build());
+            } catch (IOException e) {
+                log.warn("Skipping unreadable checkpoint {}: {}", path, e.getMessage());
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * The newest checkpoint taken at or before the given step, world included, or null when there is none.
+     */
+    public GardenCheckpoint findLatestCheckpoint(Long gardenId, int step) {
+        Path latest = null;
+        for (Path path : checkpointFiles(gardenId)) {
+            if (stepOf(path) <= step) {
+                latest = path;
+            }
+        }
+        return latest != null ? read(latest) : null;
+    }
+
+    /**
+     * Puts the garden back as it was at the given checkpoint: rows, simulation state, seed and the
+     * in-memory world. The simulation is left paused. Checkpoints after that step belong to a future
+     * that will no longer happen and are deleted.
+     *
+     * The restore claims the garden, so it is refused while a fast-forward or an import runs and no
+     * start or step gets in while it is under way. The simulation state is written first: a step
+     * already in flight then waits on its row and, once the restore commits, finds the step moved
+     * and gives up instead of running on the old world or saving over the restored step.
+     */
+    public CheckpointDTO restoreCheckpoint(Long gardenId, int step) {
+        long start = System.nanoTime();
+        Path path = checkpointPath(gardenId, step);
+        if (!Files.exists(path)) {
+            throw new EntityNotFoundException("No checkpoint of garden " + gardenId + " at step " + step);
+        }
+        String job = "restore to step " + step;
+        gardenJobRegistry.claim(gardenId, job);
+        try {
+            return restore(gardenId, path, start);
+        } finally {
+            // Anything let in before the commit still waits on the state row and the world's editor
+            gardenJobRegistry.release(gardenId, job);
+        }
+    }
+
+    private CheckpointDTO restore(Long gardenId, Path path, long start) {
+        simulationClock.pause(gardenId);
+        GardenCheckpoint checkpoint = read(path);
+        GardenWorld world = checkpoint.getWorld();
+
+        SimulationState state = getSimulationState(gardenId);
+        state.setCurrentStep(checkpoint.getStep());
+        state.setSeed(checkpoint.getSeed());
+        state.setSpeedMultiplier(checkpoint.getSpeedMultiplier());
+        state.setIsRunning(false);
+        simulationStateRepository.saveAndFlush(state);
+
+        gardenWorldService.invalidate(gardenId);
+        gardenBulkWriter.replaceGarden(gardenId, world);
+        parcelGridService.parcelsReplaced(gardenId);
+        // Only the MEMORY engine steps a kept world; a rollback drops it again
+        if (simulationProperties.getEngine() == EngineMode.MEMORY) {
+            gardenWorldService.install(gardenId, world);
+        }
+
+        // Nothing outside the tables changes before they do: a restore that rolls back keeps its
+        // journal, its later checkpoints and its dashboards. This runs before other threads may
+        // step the garden, which waits on the world's editor until the transaction completes.
+        afterCommit(() -> {
+            randomStreamService.reseed(gardenId, checkpoint.getSeed());
+            treatmentCalendarService.evict(gardenId);
+            // Journaled steps from here on follow the restored world: the checkpoint is rewritten to start there
+            stepJournalService.markBreak(gardenId, checkpoint.getStep());
+            StepJournal journal = stepJournalService.journalFor(gardenId);
+            discardAfter(gardenId, checkpoint.getStep());
+            write(new GardenCheckpoint(gardenId, checkpoint.getStep(), checkpoint.getSeed(),
+                    checkpoint.getSpeedMultiplier(), journal != null ? journal.getAppendedBytes() : -1,
+                    System.currentTimeMillis(), world));
+            // Dashboards start over from a snapshot of the restored world
+            gardenStreamService.publishStatus(SimulationStateDTO.builder()
+                    .gardenId(gardenId)
+                    .currentStep(checkpoint.getStep())
+                    .isRunning(false)
+                    .speedMultiplier(checkpoint.getSpeedMultiplier())
+                    .seed(checkpoint.getSeed())
+                    .build());
+            gardenStreamService.publishStep(gardenId, checkpoint.getStep());
+            log.info("Restored garden {} to step {} from {}", gardenId, checkpoint.getStep(), path);
+        });
+        return toDTO(checkpoint, path, start);
+    }
+
+    // Runs the work once the current transaction commits, or right away outside of one
+    private static void afterCommit(Runnable work) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            work.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                work.run();
+            }
+        });
+    }
+
+    /**
+     * Forgets everything saved about the garden after the given step, once it has been rewound there.
+     */
+    public void discardAfter(Long gardenId, int step) {
+        for (Path path : checkpointFiles(gardenId)) {
+            if (stepOf(path) > step) {
+                delete(path);
+            }
+        }
+        gardenHistoryService.evict(gardenId);
+    }
+
+    public void deleteCheckpoint(Long gardenId, int step) {
+        Path path = checkpointPath(gardenId, step);
+        if (!Files.exists(path)) {
+            throw new EntityNotFoundException("No checkpoint of garden " + gardenId + " at step " + step);
+        }
+        delete(path);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Lets a checkpoint being written finish
+        writer.shutdown();
+    }
+
+    private GardenCheckpoint capture(Long gardenId, int step, double speedMultiplier) {
+        CapturedWorld captured = gardenWorldService.capture(gardenId);
+        captured.world().setCurrentStep(step);
+        return new GardenCheckpoint(
+                gardenId,
+                step,
+                randomStreamService.getStreams(gardenId).getSeed(),
+                speedMultiplier,
+                captured.journalOffset(),
+                System.currentTimeMillis(),
+                captured.world());
+    }
+
+    private Path write(GardenCheckpoint checkpoint) {
+        Path path = checkpointPath(checkpoint.getGardenId(), checkpoint.getStep());
+        try {
+            Files.createDirectories(path.getParent());
+            GardenCheckpoint.write(path, checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + path, e);
+        }
+        prune(checkpoint.getGardenId());
+        return path;
+    }
+
+    private GardenCheckpoint read(Path path) {
+        try {
+            return GardenCheckpoint.read(path, new HeapColumnFactory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+    }
+
+    // Keeps the newest checkpoints of the garden
+    private void prune(Long gardenId) {
+        List<Path> files = checkpointFiles(gardenId);
+        int retain = Math.max(1, simulationProperties.getCheckpoint().getRetain());
+        for (int i = 0; i < files.size() - retain; i++) {
+            delete(files.get(i));
+        }
+    }
+
+    // Oldest first
+    private List<Path> checkpointFiles(Long gardenId) {
+        Path directory = checkpointDirectory(gardenId);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("step-\\d+\\.ckpt"))
+                    .sorted(Comparator.comparingInt(CheckpointService::stepOf))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list checkpoints in " + directory, e);
+        }
+    }
+
+    private Path checkpointDirectory(Long gardenId) {
+        return Path.of(simulationProperties.getCheckpoint().getDirectory(), "garden-" + gardenId);
+    }
+
+    private Path checkpointPath(Long gardenId, int step) {
+        return checkpointDirectory(gardenId).resolve("step-" + step + ".ckpt");
+    }
+
+    private static int stepOf(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring("step-".length(), name.length() - ".ckpt".length()));
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete checkpoint " + path, e);
+        }
+    }
+
+    private CheckpointDTO toDTO(GardenCheckpoint checkpoint, Path path, long start) {
+        GardenWorld world = checkpoint.getWorld();
+        long bytes;
+        try {
+            bytes = Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+        return CheckpointDTO.builder()
+                .gardenId(checkpoint.getGardenId())
+                .step(checkpoint.getStep())
+                .seed(checkpoint.getSeed())
+                .createdAt(checkpoint.getCreatedAt())
+                .bytes(bytes)
+                .parcels(world.getParcels().size())
+                .plants(world.getPlants().size())
+                .insects(world.getInsects().size())
+                .millis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+
+    private SimulationState getSimulationState(Long gardenId) {
+        return simulationStateRepository.findByGardenId(gardenId)
+                .orElseThrow(() -> new EntityNotFoundException("No simulation state for garden " + gardenId));
+    }
+}
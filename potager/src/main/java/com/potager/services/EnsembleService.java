@@ -0,0 +1,126 @@
+package com.potager.services;
+
+import com.potager.config.SimulationProperties;
+import com.potager.dtos.DistributionDTO;
+import com.potager.dtos.EnsembleRequestDTO;
+import com.potager.dtos.EnsembleResultDTO;
+import com.potager.dtos.EnsembleStepDTO;
+import com.potager.engine.EnsembleRunner;
+import com.potager.engine.EnsembleRunner.ReplicaTrace;
+import com.potager.engine.GardenWorld;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Monte Carlo runs: K copies of a loaded garden (or of a preset) stepped in parallel with
+ * different seeds, reduced to per-step distributions. Nothing is written to the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class EnsembleService {
+
+    private final GardenWorldService gardenWorldService;
+    private final GardenPresetService gardenPresetService;
+    private final SimulationProperties simulationProperties;
+    private final ForkJoinPool simulationPool;
+
+    public EnsembleResultDTO runEnsemble(Long gardenId, EnsembleRequestDTO request) {
+        SimulationProperties.Ensemble limits = simulationProperties.getEnsemble();
+        if (request.getReplicas() > limits.getMaxReplicas()) {
+            throw new IllegalArgumentException("At most " + limits.getMaxReplicas() + " replicas are allowed");
+        }
+        if ((long) request.getReplicas() * request.getSteps() > limits.getMaxReplicaSteps()) {
+            throw new IllegalArgumentException("replicas x steps must not exceed " + limits.getMaxReplicaSteps());
+        }
+
+        GardenWorld template = request.getPreset() != null
+                ? gardenPresetService.getTemplate(request.getPreset()).instantiate()
+                : gardenWorldService.snapshot(gardenId);
+        long baseSeed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+
+        long start = System.currentTimeMillis();
+        List<ReplicaTrace> traces = new EnsembleRunner(simulationPool)
+                .run(template, request.getReplicas(), request.getSteps(), baseSeed);
+
+        List<EnsembleStepDTO> stepStatistics = new ArrayList<>(request.getSteps());
+        for (int i = 0; i < request.getSteps(); i++) {
+            stepStatistics.add(aggregateStep(traces, i, template.getCurrentStep() + i + 1, template.getParcels().size()));
+        }
+
+        return EnsembleResultDTO.builder()
+                .replicas(request.getReplicas())
+                .startStep(template.getCurrentStep())
+                .steps(request.getSteps())
+                .baseSeed(baseSeed)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .stepStatistics(stepStatistics)
+                .build();
+    }
+
+    private EnsembleStepDTO aggregateStep(List<ReplicaTrace> traces, int i, int step, int parcelCount) {
+        int replicas = traces.size();
+        List<String> species = traces.get(0).getSpecies();
+
+        Map<String, DistributionDTO> insectsBySpecies = new LinkedHashMap<>();
+        for (int s = 0; s < species.size(); s++) {
+            double[] counts = new double[replicas];
+            for (int r = 0; r < replicas; r++) {
+                counts[r] = traces.get(r).getInsectCount(i, s);
+            }
+            insectsBySpecies.put(species.get(s), distribution(counts));
+        }
+
+        double[] colonized = new double[replicas];
+        double[] humidity = new double[replicas];
+        for (int r = 0; r < replicas; r++) {
+            colonized[r] = traces.get(r).getColonizedParcels(i);
+            humidity[r] = traces.get(r).getMeanHumidity(i);
+        }
+
+        List<Double> histogram = new ArrayList<>(EnsembleRunner.HUMIDITY_BUCKETS);
+        for (int b = 0; b < EnsembleRunner.HUMIDITY_BUCKETS; b++) {
+            long total = 0;
+            for (ReplicaTrace trace : traces) {
+                total += trace.getHumidityBucket(i, b);
+            }
+            histogram.add(parcelCount == 0 ? 0.0 : (double) total / ((long) replicas * parcelCount));
+        }
+
+        return EnsembleStepDTO.builder()
+                .step(step)
+                .insectsBySpecies(insectsBySpecies)
+                .colonizedParcels(distribution(colonized))
+                .meanHumidity(distribution(humidity))
+                .humidityHistogram(histogram)
+                .build();
+    }
+
+    private DistributionDTO distribution(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return DistributionDTO.builder()
+                .mean(Arrays.stream(sorted).average().orElse(0))
+                .min(sorted[0])
+                .p10(percentile(sorted, 0.10))
+                .p50(percentile(sorted, 0.50))
+                .p90(percentile(sorted, 0.90))
+                .max(sorted[sorted.length - 1])
+                .build();
+    }
+
+    // Linear interpolation between closest ranks
+    private double percentile(double[] sorted, double p) {
+        double rank = p * (sorted.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = (int) Math.ceil(rank);
+        return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+}
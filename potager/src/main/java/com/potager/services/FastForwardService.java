@@ -0,0 +1,216 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.JobStatus;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.FastForwardStatusDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs steps back to back on a background thread, without the speed pacing of the clock. Each batch
+ * of steps is one transaction; the job can be cancelled between batches. One job per garden at a
+ * time, on a small pool shared by all gardens. The job claims its garden in
+ * {@link GardenJobRegistry}, so starting or stepping it meanwhile is refused. The garden is paused
+ * before the job reads its start step, and goes back on the clock afterwards if it was running.
+ *
+ * Finished jobs can be polled for job-ttl-millis, then are forgotten.
+ */
+@Service
+@RequiredArgsConstructor
+public class FastForwardService {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final SimulationService simulationService;
+    private final GardenWorldService gardenWorldService;
+    private final GardenJobRegistry gardenJobRegistry;
+    private final SimulationProperties simulationProperties;
+
+    private final Map<String, FastForwardJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, FastForwardJob> activeJobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, simulationProperties.getFastForward().getThreads()),
+                r -> new Thread(r, "fast-forward-" + threadCount.incrementAndGet()));
+    }
+
+    public synchronized FastForwardStatusDTO fastForward(Long gardenId, Integer steps, Integer untilStep) {
+        evictFinishedJobs();
+        if (steps != null && steps <= 0) {
+            throw new IllegalArgumentException("Number of steps must be positive");
+        }
+        if (steps == null && untilStep == null) {
+            throw new IllegalArgumentException("Either steps or untilStep is required");
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        gardenJobRegistry.claim(gardenId, FastForwardJob.description(jobId));
+        boolean wasRunning = false;
+        boolean submitted = false;
+        try {
+            wasRunning = simulationService.getSimulationStatus(gardenId).getIsRunning();
+            // The clock must not step the garden while the fast-forward owns it, so the step read next is the
+            // one the first batch starts from
+            simulationService.pauseSimulation(gardenId);
+            int startStep = simulationService.getSimulationStatus(gardenId).getCurrentStep();
+            int targetStep;
+            if (steps != null) {
+                targetStep = startStep + steps;
+            } else if (untilStep <= startStep) {
+                throw new IllegalArgumentException("Target step must be after the current step " + startStep);
+            } else {
+                targetStep = untilStep;
+            }
+
+            FastForwardJob job = new FastForwardJob(jobId, gardenId, startStep, targetStep, wasRunning);
+            jobs.put(job.id, job);
+            activeJobs.put(gardenId, job);
+            executor.submit(() -> run(job));
+            submitted = true;
+            return job.toDTO();
+        } finally {
+            if (!submitted) {
+                jobs.remove(jobId);
+                activeJobs.remove(gardenId);
+                gardenJobRegistry.release(gardenId, FastForwardJob.description(jobId));
+                if (wasRunning) {
+                    restart(gardenId);
+                }
+            }
+        }
+    }
+
+    public FastForwardStatusDTO getStatus(Long gardenId, String jobId) {
+        evictFinishedJobs();
+        return findJob(gardenId, jobId).toDTO();
+    }
+
+    public FastForwardStatusDTO cancel(Long gardenId, String jobId) {
+        FastForwardJob job = findJob(gardenId, jobId);
+        job.cancelled = true;
+        return job.toDTO();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        activeJobs.values().forEach(job -> job.cancelled = true);
+        executor.shutdown();
+    }
+
+    private void run(FastForwardJob job) {
+        try {
+            int batchSize = Math.max(1, simulationProperties.getFastForward().getBatchSize());
+            while (!job.cancelled && job.currentStep < job.targetStep) {
+                int batch = Math.min(batchSize, job.targetStep - job.currentStep);
+                job.currentStep = simulationService.executeSteps(job.gardenId, batch);
+            }
+            // Batches only write back when the flush thresholds say so; the tables catch up once here
+            gardenWorldService.flush(job.gardenId);
+            job.status = job.cancelled ? JobStatus.CANCELLED : JobStatus.COMPLETED;
+        } catch (RuntimeException e) {
+            logger.error("Fast-forward {} failed at step {}: {}", job.id, job.currentStep, e.getMessage(), e);
+            job.status = JobStatus.FAILED;
+            job.message = e.getMessage();
+        } finally {
+            job.endTime = System.currentTimeMillis();
+            activeJobs.remove(job.gardenId);
+            gardenJobRegistry.release(job.gardenId, job.description());
+            if (job.wasRunning) {
+                restart(job.gardenId);
+            }
+        }
+        logger.info("Fast-forward {} {} at step {} ({} steps/s)",
+                job.id, job.status, job.currentStep, String.format("%.1f", job.stepsPerSecond()));
+    }
+
+    // Failing to restart leaves the garden paused; it is logged so the job still ends
+    private void restart(Long gardenId) {
+        try {
+            simulationService.startSimulation(gardenId);
+        } catch (RuntimeException e) {
+            logger.error("Garden {} could not be restarted after its fast-forward: {}", gardenId, e.getMessage(), e);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        long expiry = System.currentTimeMillis() - simulationProperties.getFastForward().getJobTtlMillis();
+        jobs.values().removeIf(job -> job.endTime > 0 && job.endTime < expiry);
+    }
+
+    private FastForwardJob findJob(Long gardenId, String jobId) {
+        FastForwardJob job = jobs.get(jobId);
+        if (job == null || !job.gardenId.equals(gardenId)) {
+            throw new EntityNotFoundException("Fast-forward job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private static class FastForwardJob {
+        private final String id;
+        private final Long gardenId;
+        private final int startStep;
+        private final int targetStep;
+        private final boolean wasRunning;
+        private final long startTime = System.currentTimeMillis();
+        private volatile int currentStep;
+        private volatile long endTime;
+        private volatile boolean cancelled;
+        private volatile JobStatus status = JobStatus.RUNNING;
+        private volatile String message;
+
+        private FastForwardJob(String id, Long gardenId, int startStep, int targetStep, boolean wasRunning) {
+            this.id = id;
+            this.gardenId = gardenId;
+            this.startStep = startStep;
+            this.targetStep = targetStep;
+            this.wasRunning = wasRunning;
+            this.currentStep = startStep;
+        }
+
+        private static String description(String id) {
+            return "fast-forward " + id;
+        }
+
+        private String description() {
+            return description(id);
+        }
+
+        private long elapsedMillis() {
+            return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        private double stepsPerSecond() {
+            long elapsed = elapsedMillis();
+            return elapsed > 0 ? (currentStep - startStep) * 1000.0 / elapsed : 0.0;
+        }
+
+        private FastForwardStatusDTO toDTO() {
+            return FastForwardStatusDTO.builder()
+                    .jobId(id)
+                    .status(status)
+                    .startStep(startStep)
+                    .targetStep(targetStep)
+                    .currentStep(currentStep)
+                    .completedSteps(currentStep - startStep)
+                    .stepsPerSecond(stepsPerSecond())
+                    .elapsedMillis(elapsedMillis())
+                    .message(message)
+                    .build();
+        }
+    }
+}
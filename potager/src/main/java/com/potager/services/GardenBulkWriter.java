@@ -0,0 +1,161 @@
+package com.potager.services;
+
+import com.potager.config.IdSequenceInitializer;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.InsectStore;
+import com.potager.engine.ParcelStore;
+import com.potager.engine.PlantStore;
+import com.potager.engine.SlotStore;
+import com.potager.engine.WorldDevice;
+import com.potager.engine.WorldProgram;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces every row of a garden with the content of an in-memory world, ids included, with plain
+ * JDBC batches: no entity is instantiated, and the driver rewrites each batch into multi-row
+ * INSERTs. The id sequences are moved past the written ids afterwards.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class GardenBulkWriter {
+
+    private static final int BATCH_ROWS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdSequenceInitializer idSequenceInitializer;
+    private final GardenVersionService gardenVersionService;
+
+    public void replaceGarden(Long gardenId, GardenWorld world) {
+        gardenVersionService.changed(gardenId);
+        deleteGarden(gardenId);
+
+        ParcelStore parcels = world.getParcels();
+        batch("INSERT INTO parcels (id, garden_id, xcoordinate, ycoordinate, humidity_level) VALUES (?, ?, ?, ?, ?)",
+                parcels.size(), (ps, ordinal) -> {
+                    ps.setLong(1, parcels.getId(ordinal));
+                    ps.setLong(2, gardenId);
+                    ps.setInt(3, parcels.getX(ordinal));
+                    ps.setInt(4, parcels.getY(ordinal));
+                    ps.setDouble(5, parcels.getHumidityLevel(ordinal));
+                });
+
+        List<WorldDevice> devices = world.getDevices();
+        batch("INSERT INTO treatment_devices (id, garden_id, radius, parcel_id) VALUES (?, ?, ?, ?)",
+                devices.size(), (ps, i) -> {
+                    WorldDevice device = devices.get(i);
+                    ps.setLong(1, device.getId());
+                    ps.setLong(2, gardenId);
+                    ps.setInt(3, device.getRadius());
+                    ps.setLong(4, parcels.getId(device.getParcel()));
+                });
+
+        List<WorldProgram> programs = new ArrayList<>();
+        List<Long> programDevices = new ArrayList<>();
+        devices.forEach(device -> device.getPrograms().forEach(program -> {
+            programs.add(program);
+            programDevices.add(device.getId());
+        }));
+        batch("INSERT INTO treatment_programs (id, start_time, duration, type, device_id) VALUES (?, ?, ?, ?, ?)",
+                programs.size(), (ps, i) -> {
+                    WorldProgram program = programs.get(i);
+                    ps.setLong(1, program.getId());
+                    ps.setInt(2, program.getStartTime());
+                    ps.setInt(3, program.getDuration());
+                    ps.setString(4, program.getType().name());
+                    ps.setLong(5, programDevices.get(i));
+                });
+
+        PlantStore plants = world.getPlants();
+        int[] plantSlots = slots(plants, parcels.size());
+        batch("INSERT INTO plants (id, garden_id, species, current_age, maturity_age, is_runner, colonization_probability, parcel_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                plantSlots.length, (ps, i) -> {
+                    int slot = plantSlots[i];
+                    ps.setLong(1, plants.getId(slot));
+                    ps.setLong(2, gardenId);
+                    ps.setString(3, plants.getSpecies(slot));
+                    ps.setInt(4, plants.getCurrentAge(slot));
+                    ps.setInt(5, plants.getMaturityAge(slot));
+                    ps.setBoolean(6, plants.isRunner(slot));
+                    if (plants.hasColonizationProbability(slot)) {
+                        ps.setDouble(7, plants.getColonizationProbability(slot));
+                    } else {
+                        ps.setNull(7, Types.DOUBLE);
+                    }
+                    ps.setLong(8, parcels.getId(plants.parcelOf(slot)));
+                });
+
+        InsectStore insects = world.getInsects();
+        int[] insectSlots = slots(insects, parcels.size());
+        batch("INSERT INTO insects (id, garden_id, species, sex, health_index, mobility, insecticide_resistance, steps_without_food, parcel_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                insectSlots.length, (ps, i) -> {
+                    int slot = insectSlots[i];
+                    ps.setLong(1, insects.getId(slot));
+                    ps.setLong(2, gardenId);
+                    ps.setString(3, insects.getSpecies(slot));
+                    ps.setString(4, insects.getSex(slot));
+                    ps.setInt(5, insects.getHealthIndex(slot));
+                    ps.setDouble(6, insects.getMobility(slot));
+                    ps.setDouble(7, insects.getInsecticideResistance(slot));
+                    ps.setInt(8, insects.getStepsWithoutFood(slot));
+                    ps.setLong(9, parcels.getId(insects.parcelOf(slot)));
+                });
+
+        idSequenceInitializer.alignSequences();
+    }
+
+    // Children first, so no foreign key is ever left dangling
+    private void deleteGarden(Long gardenId) {
+        jdbcTemplate.update("DELETE FROM treatment_programs WHERE device_id IN (SELECT id FROM treatment_devices WHERE garden_id = ?)", gardenId);
+        jdbcTemplate.update("DELETE FROM treatment_devices WHERE garden_id = ?", gardenId);
+        jdbcTemplate.update("DELETE FROM insects WHERE garden_id = ?", gardenId);
+        jdbcTemplate.update("DELETE FROM plants WHERE garden_id = ?", gardenId);
+        jdbcTemplate.update("DELETE FROM parcels WHERE garden_id = ?", gardenId);
+    }
+
+    // Occupied slots, parcel by parcel in list order
+    private int[] slots(SlotStore store, int parcelCount) {
+        int[] slots = new int[store.size()];
+        int count = 0;
+        for (int parcel = 0; parcel < parcelCount; parcel++) {
+            for (int slot = store.first(parcel); slot != SlotStore.NONE; slot = store.next(slot)) {
+                slots[count++] = slot;
+            }
+        }
+        return slots;
+    }
+
+    private void batch(String sql, int rows, RowSetter setter) {
+        for (int from = 0; from < rows; from += BATCH_ROWS) {
+            int offset = from;
+            int size = Math.min(BATCH_ROWS, rows - from);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setter.setValues(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    private interface RowSetter {
+        void setValues(PreparedStatement ps, int row) throws SQLException;
+    }
+}
@@ -0,0 +1,228 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.mappers.WorldMapper;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.GardenHistoryDTO;
+import com.potager.dtos.ParcelDTO;
+import com.potager.engine.Footprint;
+import com.potager.engine.GardenCheckpoint;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.JournalReplayer;
+import com.potager.engine.StepJournal;
+import com.potager.models.SimulationState;
+import com.potager.repositories.SimulationStateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds a garden as it was at a past step: the newest checkpoint at or before that step, with the
+ * journaled steps since then replayed on top. Replay only applies recorded outcomes, so it runs far
+ * faster than the simulation itself, and it refuses to cross a BREAK, where the garden was changed
+ * outside the simulation.
+ *
+ * Rebuilt states and loaded checkpoints are kept in an LRU cache, and a request starts from the
+ * closest cached state before it when that is nearer than any checkpoint, so scrubbing back and forth
+ * only replays the steps in between. Every entry is a whole world, so the cache is bounded by the
+ * bytes of its worlds rather than by their count; a world larger than the whole budget is served
+ * without being kept. Restoring a checkpoint or resetting the simulation rewrites the past and
+ * empties the cache.
+ */
+@Service
+@RequiredArgsConstructor
+public class GardenHistoryService {
+
+    private final SimulationProperties simulationProperties;
+    private final SimulationStateRepository simulationStateRepository;
+    private final GardenWorldService gardenWorldService;
+    private final StepJournalService stepJournalService;
+    private final WorldMapper worldMapper;
+    // Provider: CheckpointService evicts this cache when it restores
+    private final ObjectProvider<CheckpointService> checkpointService;
+
+    private final Map<CacheKey, PastState> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // Footprint of the cached worlds, guarded by the cache
+    private long cachedBytes;
+
+    /**
+     * The garden at the given step, limited to the parcels in [minX, maxX] x [minY, maxY] when bounds
+     * are given.
+     */
+    public GardenHistoryDTO getGardenAt(Long gardenId, int step, Integer minX, Integer maxX, Integer minY, Integer maxY) {
+        long start = System.nanoTime();
+        int currentStep = getCurrentStep(gardenId);
+        if (step < 0 || step > currentStep) {
+            throw new IllegalArgumentException("Step " + step + " is not between 0 and the current step " + currentStep);
+        }
+        Rebuilt rebuilt = rebuild(gardenId, step, currentStep);
+        return GardenHistoryDTO.builder()
+                .gardenId(gardenId)
+                .step(step)
+                .currentStep(currentStep)
+                .baseStep(rebuilt.baseStep)
+                .replayedSteps(step - rebuilt.baseStep)
+                .cached(rebuilt.baseStep == step && rebuilt.fromCache)
+                .millis((System.nanoTime() - start) / 1_000_000)
+                .parcels(worldMapper.toParcelDTOs(rebuilt.world, minX, maxX, minY, maxY))
+                .build();
+    }
+
+    public ParcelDTO getParcelAt(Long gardenId, int step, int x, int y) {
+        GardenHistoryDTO garden = getGardenAt(gardenId, step, x, x, y, y);
+        if (garden.getParcels().isEmpty()) {
+            throw new EntityNotFoundException("No parcel at (" + x + ", " + y + ") on step " + step);
+        }
+        return garden.getParcels().get(0);
+    }
+
+    public void evict(Long gardenId) {
+        synchronized (cache) {
+            Iterator<Map.Entry<CacheKey, PastState>> entries = cache.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<CacheKey, PastState> entry = entries.next();
+                if (entry.getKey().gardenId().equals(gardenId)) {
+                    cachedBytes -= entry.getValue().bytes();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private Rebuilt rebuild(Long gardenId, int step, int currentStep) {
+        PastState base = closestCached(gardenId, step);
+        boolean fromCache = base != null;
+        if (base == null || base.world.getCurrentStep() < step) {
+            PastState checkpoint = loadCheckpoint(gardenId, step);
+            if (checkpoint != null && (base == null || checkpoint.world.getCurrentStep() > base.world.getCurrentStep())) {
+                base = checkpoint;
+                fromCache = false;
+                remember(gardenId, checkpoint);
+            }
+        }
+        if (base == null && step == currentStep && simulationProperties.getEngine() == EngineMode.MEMORY) {
+            // Nothing saved yet, but the present is in memory
+            GardenWorld present = gardenWorldService.snapshot(gardenId);
+            if (present.getCurrentStep() == step) {
+                return new Rebuilt(present, step, false);
+            }
+        }
+        if (base == null) {
+            throw new EntityNotFoundException("No checkpoint of garden " + gardenId + " at or before step " + step);
+        }
+        int baseStep = base.world.getCurrentStep();
+        if (baseStep == step) {
+            return new Rebuilt(base.world, step, fromCache);
+        }
+
+        PastState replayed = replay(gardenId, base, step);
+        remember(gardenId, replayed);
+        return new Rebuilt(replayed.world, baseStep, fromCache);
+    }
+
+    private PastState replay(Long gardenId, PastState base, int step) {
+        StepJournal journal = stepJournalService.journalFor(gardenId);
+        if (journal == null || base.nextOffset < 0) {
+            throw new IllegalStateException("Step " + step + " of garden " + gardenId + " was not journaled");
+        }
+        if (journal.getLastCommittedStep() < step) {
+            journal.commit();
+        }
+
+        GardenWorld world = base.world.copy();
+        JournalReplayer replayer = new JournalReplayer(world);
+        int[] reached = {world.getCurrentStep()};
+        String[] stop = {null};
+        long nextOffset;
+        try {
+            nextOffset = StepJournal.read(journal.getPath(), base.nextOffset, (kind, frameStep, events) -> {
+                if (kind == StepJournal.BREAK) {
+                    stop[0] = "the garden was changed outside the simulation at step " + frameStep;
+                    return false;
+                }
+                if (frameStep != reached[0] + 1) {
+                    stop[0] = "the journal jumps from step " + reached[0] + " to " + frameStep;
+                    return false;
+                }
+                replayer.replayStep(frameStep, events);
+                reached[0] = frameStep;
+                return frameStep < step;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the step journal of garden " + gardenId, e);
+        }
+        if (reached[0] != step) {
+            throw new IllegalStateException("Step " + step + " of garden " + gardenId + " cannot be rebuilt from step "
+                    + base.world.getCurrentStep() + ": " + (stop[0] != null ? stop[0] : "the journal ends at step " + reached[0]));
+        }
+        return new PastState(world, nextOffset);
+    }
+
+    private PastState loadCheckpoint(Long gardenId, int step) {
+        GardenCheckpoint checkpoint = checkpointService.getObject().findLatestCheckpoint(gardenId, step);
+        return checkpoint != null ? new PastState(checkpoint.getWorld(), checkpoint.getJournalOffset()) : null;
+    }
+
+    // Newest cached state at or before the step
+    private PastState closestCached(Long gardenId, int step) {
+        synchronized (cache) {
+            PastState closest = null;
+            for (Map.Entry<CacheKey, PastState> entry : cache.entrySet()) {
+                int cachedStep = entry.getKey().step();
+                if (entry.getKey().gardenId().equals(gardenId) && cachedStep <= step
+                        && (closest == null || cachedStep > closest.world.getCurrentStep())) {
+                    closest = entry.getValue();
+                }
+            }
+            if (closest != null) {
+                // Marks it as used
+                cache.get(new CacheKey(gardenId, closest.world.getCurrentStep()));
+            }
+            return closest;
+        }
+    }
+
+    private void remember(Long gardenId, PastState state) {
+        long budget = simulationProperties.getHistory().getCacheBytes();
+        if (state.bytes() > budget) {
+            return;
+        }
+        synchronized (cache) {
+            PastState previous = cache.put(new CacheKey(gardenId, state.world.getCurrentStep()), state);
+            cachedBytes += state.bytes() - (previous != null ? previous.bytes() : 0);
+            // Least recently used first; the new state is last and fits on its own, so it stays
+            Iterator<PastState> eldest = cache.values().iterator();
+            while (cachedBytes > budget) {
+                cachedBytes -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    private int getCurrentStep(Long gardenId) {
+        return simulationStateRepository.findByGardenId(gardenId)
+                .map(SimulationState::getCurrentStep)
+                .orElseThrow(() -> new EntityNotFoundException("No simulation state for garden " + gardenId));
+    }
+
+    private record CacheKey(Long gardenId, int step) {
+    }
+
+    // A past world, never stepped once cached, the journal offset of the step after it and its footprint
+    private record PastState(GardenWorld world, long nextOffset, long bytes) {
+
+        PastState(GardenWorld world, long nextOffset) {
+            this(world, nextOffset, Footprint.worldBytes(world));
+        }
+    }
+
+    private record Rebuilt(GardenWorld world, int baseStep, boolean fromCache) {
+    }
+}
@@ -0,0 +1,296 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.JobStatus;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.ImportJobDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads garden files in the background. A submitted file is first spooled to disk, so the request
+ * can end, then streamed into the garden by {@link XmlGardenStreamLoader} on a small bounded pool;
+ * submissions beyond its queue are refused. One import per garden at a time.
+ *
+ * The garden's clock is paused while its import runs, and the job claims the garden in
+ * {@link GardenJobRegistry} from submission to the end, so starting, stepping or fast-forwarding it
+ * meanwhile is refused. A completed import resets the simulation to step 0, as loading a garden
+ * always has; a failed or cancelled one is rolled back and the clock resumed if it was running.
+ * Finished jobs can be polled for job-ttl-millis, then are forgotten.
+ */
+@Service
+@RequiredArgsConstructor
+public class GardenImportService {
+
+    private static final int READ_BUFFER = 1 << 16;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final XmlGardenStreamLoader xmlGardenStreamLoader;
+    private final SimulationService simulationService;
+    private final GardenJobRegistry gardenJobRegistry;
+    private final SimulationProperties simulationProperties;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, ImportJob> activeJobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        SimulationProperties.Imports imports = simulationProperties.getImports();
+        int threads = Math.max(1, imports.getThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, imports.getQueueSize())),
+                r -> new Thread(r, "garden-import-" + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * Spools the file and queues its import; the returned job tells how it goes.
+     */
+    public ImportJobDTO submit(Long gardenId, String source, InputStream xml) throws IOException {
+        evictFinishedJobs();
+        // An unknown garden is refused here, not on the worker where nothing would report it
+        simulationService.getSimulationStatus(gardenId);
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), gardenId, source);
+        gardenJobRegistry.claim(gardenId, job.description());
+        activeJobs.put(gardenId, job);
+        try {
+            Path directory = Files.createDirectories(Path.of(simulationProperties.getImports().getSpoolDirectory()));
+            job.file = Files.createTempFile(directory, "garden-" + gardenId + "-", ".xml");
+            job.bytesTotal = Files.copy(xml, job.file, StandardCopyOption.REPLACE_EXISTING);
+            jobs.put(job.id, job);
+            executor.execute(() -> run(job));
+        } catch (IOException | RuntimeException e) {
+            activeJobs.remove(gardenId, job);
+            gardenJobRegistry.release(gardenId, job.description());
+            jobs.remove(job.id);
+            deleteSpool(job);
+            if (e instanceof RejectedExecutionException) {
+                throw new IllegalStateException("Too many imports waiting, try again later");
+            }
+            throw e;
+        }
+        logger.info("Import {} of {} ({} bytes) queued for garden {}", job.id, source, job.bytesTotal, gardenId);
+        return job.toDTO();
+    }
+
+    public ImportJobDTO getStatus(Long gardenId, String jobId) {
+        evictFinishedJobs();
+        return findJob(gardenId, jobId).toDTO();
+    }
+
+    /**
+     * Stops the import at its next element; whatever it wrote is rolled back.
+     */
+    public ImportJobDTO cancel(Long gardenId, String jobId) {
+        ImportJob job = findJob(gardenId, jobId);
+        job.cancelled = true;
+        return job.toDTO();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        activeJobs.values().forEach(job -> job.cancelled = true);
+        executor.shutdown();
+    }
+
+    private void run(ImportJob job) {
+        if (job.cancelled) {
+            job.status = JobStatus.CANCELLED;
+            finish(job);
+            return;
+        }
+        job.startTime = System.currentTimeMillis();
+        job.status = JobStatus.RUNNING;
+        boolean wasRunning = false;
+        boolean loaded = false;
+        try {
+            wasRunning = simulationService.getSimulationStatus(job.gardenId).getIsRunning();
+            // The clock must not step the garden while its rows are being replaced
+            simulationService.pauseSimulation(job.gardenId);
+            // Rows and the reset to step 0 commit together, or neither does
+            try (InputStream in = new CountingInputStream(new BufferedInputStream(Files.newInputStream(job.file), READ_BUFFER), job)) {
+                job.loaded = xmlGardenStreamLoader.load(job.gardenId, in, job);
+            }
+            loaded = true;
+            job.status = JobStatus.COMPLETED;
+        } catch (CancellationException e) {
+            job.status = JobStatus.CANCELLED;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Import {} failed after {} elements: {}", job.id, job.elements, e.getMessage(), e);
+            job.status = JobStatus.FAILED;
+            job.message = e.getMessage();
+        } finally {
+            // The garden is released first, or the restart would be refused
+            finish(job);
+            if (!loaded && wasRunning) {
+                restart(job);
+            }
+        }
+        logger.info("Import {} {} after {} elements, {} rows ({} rows/s)",
+                job.id, job.status, job.elements, job.rows, String.format("%.0f", job.rowsPerSecond()));
+    }
+
+    // The job is over either way: a garden that cannot be restarted is only logged
+    private void restart(ImportJob job) {
+        try {
+            simulationService.startSimulation(job.gardenId);
+        } catch (RuntimeException e) {
+            logger.error("Could not restart garden {} after import {}: {}", job.gardenId, job.id, e.getMessage(), e);
+        }
+    }
+
+    private void finish(ImportJob job) {
+        job.endTime = System.currentTimeMillis();
+        activeJobs.remove(job.gardenId, job);
+        gardenJobRegistry.release(job.gardenId, job.description());
+        deleteSpool(job);
+    }
+
+    private void evictFinishedJobs() {
+        long expiry = System.currentTimeMillis() - simulationProperties.getImports().getJobTtlMillis();
+        jobs.values().removeIf(job -> job.endTime > 0 && job.endTime < expiry);
+    }
+
+    private void deleteSpool(ImportJob job) {
+        if (job.file != null) {
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException e) {
+                logger.warn("Could not delete spooled import {}: {}", job.file, e.getMessage());
+            }
+        }
+    }
+
+    private ImportJob findJob(Long gardenId, String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null || !job.gardenId.equals(gardenId)) {
+            throw new EntityNotFoundException("Import job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private static class ImportJob implements XmlGardenStreamLoader.Progress {
+        private final String id;
+        private final Long gardenId;
+        private final String source;
+        private Path file;
+        private long bytesTotal;
+        private volatile long bytesRead;
+        private volatile long elements;
+        private volatile long rows;
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile boolean cancelled;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile XmlGardenStreamLoader.Loaded loaded;
+        private volatile String message;
+
+        private ImportJob(String id, Long gardenId, String source) {
+            this.id = id;
+            this.gardenId = gardenId;
+            this.source = source;
+        }
+
+        private String description() {
+            return "import " + id;
+        }
+
+        @Override
+        public void update(long elements, long rows) {
+            this.elements = elements;
+            this.rows = rows;
+            if (cancelled) {
+                throw new CancellationException("Import cancelled");
+            }
+        }
+
+        private long elapsedMillis() {
+            if (startTime == 0) {
+                return 0;
+            }
+            return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        private double perSecond(long count) {
+            long elapsed = elapsedMillis();
+            return elapsed > 0 ? count * 1000.0 / elapsed : 0.0;
+        }
+
+        private double rowsPerSecond() {
+            return perSecond(rows);
+        }
+
+        private ImportJobDTO toDTO() {
+            XmlGardenStreamLoader.Loaded result = loaded;
+            return ImportJobDTO.builder()
+                    .jobId(id)
+                    .status(status)
+                    .source(source)
+                    .bytesTotal(bytesTotal)
+                    .bytesRead(bytesRead)
+                    .elementsParsed(elements)
+                    .rowsWritten(rows)
+                    .elementsPerSecond(perSecond(elements))
+                    .rowsPerSecond(rowsPerSecond())
+                    .elapsedMillis(elapsedMillis())
+                    .parcels(result != null ? result.parcels() : null)
+                    .plants(result != null ? result.plants() : null)
+                    .insects(result != null ? result.insects() : null)
+                    .devices(result != null ? result.devices() : null)
+                    .programs(result != null ? result.programs() : null)
+                    .message(message)
+                    .build();
+        }
+    }
+
+    // Bytes of the spooled file the parser has consumed so far
+    private static class CountingInputStream extends FilterInputStream {
+        private final ImportJob job;
+
+        private CountingInputStream(InputStream in, ImportJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                job.bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                job.bytesRead += count;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.potager.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which background job, if any, owns each garden. A fast-forward, an import, a checkpoint restore
+ * or a preset load claims its garden for as long as it runs, and commands that would step or
+ * restart the garden meanwhile are refused with an IllegalStateException instead of racing it.
+ */
+@Service
+public class GardenJobRegistry {
+
+    private final Map<Long, String> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Claims the garden for the job, described as it should appear in errors, or throws if another
+     * job holds it.
+     */
+    public void claim(Long gardenId, String job) {
+        String owner = owners.putIfAbsent(gardenId, job);
+        if (owner != null) {
+            throw busy(gardenId, owner);
+        }
+    }
+
+    public void release(Long gardenId, String job) {
+        owners.remove(gardenId, job);
+    }
+
+    public void checkIdle(Long gardenId) {
+        String owner = owners.get(gardenId);
+        if (owner != null) {
+            throw busy(gardenId, owner);
+        }
+    }
+
+    private static IllegalStateException busy(Long gardenId, String owner) {
+        return new IllegalStateException("Garden " + gardenId + " is busy with " + owner);
+    }
+}
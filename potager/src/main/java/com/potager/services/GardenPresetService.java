@@ -0,0 +1,164 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.GardenPresetDTO;
+import com.potager.dtos.PresetLoadDTO;
+import com.potager.engine.GardenTemplate;
+import com.potager.engine.GardenWorld;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bundled presets, each read once at startup into a {@link GardenTemplate}. Loading a preset
+ * replaces the garden's rows with a fresh instance of its template, written in bulk by
+ * {@link GardenBulkWriter}, and under the MEMORY engine installs that same world: nothing is read
+ * from the classpath, parsed or reloaded from the tables. Loads are timed under potager.preset.load,
+ * tagged with the preset.
+ */
+@Slf4j
+@Service
+@Transactional
+public class GardenPresetService {
+
+    private static final List<GardenPresetDTO> PRESETS = List.of(
+            new GardenPresetDTO("Case 1", "Basic garden setup"),
+            new GardenPresetDTO("Case 2", "Garden with runner plants"),
+            new GardenPresetDTO("Case 3", "Insect evolution test"),
+            new GardenPresetDTO("Case 4", "Treatment devices test"));
+
+    private final GardenBulkWriter gardenBulkWriter;
+    private final GardenWorldService gardenWorldService;
+    private final SimulationService simulationService;
+    private final ParcelGridService parcelGridService;
+    private final TreatmentCalendarService treatmentCalendarService;
+    private final GardenStreamService gardenStreamService;
+    private final GardenJobRegistry gardenJobRegistry;
+    private final SimulationProperties simulationProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Filled once at startup, only read afterwards
+    private final Map<String, GardenTemplate> templates = new HashMap<>();
+    private final Map<String, Timer> loadTimers = new HashMap<>();
+
+    public GardenPresetService(GardenBulkWriter gardenBulkWriter,
+                               GardenWorldService gardenWorldService,
+                               SimulationService simulationService,
+                               ParcelGridService parcelGridService,
+                               TreatmentCalendarService treatmentCalendarService,
+                               GardenStreamService gardenStreamService,
+                               GardenJobRegistry gardenJobRegistry,
+                               SimulationProperties simulationProperties,
+                               JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry) {
+        this.gardenBulkWriter = gardenBulkWriter;
+        this.gardenWorldService = gardenWorldService;
+        this.simulationService = simulationService;
+        this.parcelGridService = parcelGridService;
+        this.treatmentCalendarService = treatmentCalendarService;
+        this.gardenStreamService = gardenStreamService;
+        this.gardenJobRegistry = gardenJobRegistry;
+        this.simulationProperties = simulationProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void readTemplates() {
+        long start = System.nanoTime();
+        for (GardenPresetDTO preset : PRESETS) {
+            String resourcePath = String.format("presets/Pootager_%s.xml", preset.getName().replace(" ", "_"));
+            try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resourcePath)) {
+                if (inputStream == null) {
+                    log.warn("Preset {} not found at {}", preset.getName(), resourcePath);
+                    continue;
+                }
+                templates.put(preset.getName(), GardenTemplate.read(new BufferedInputStream(inputStream)));
+                loadTimers.put(preset.getName(), Timer.builder("potager.preset.load")
+                        .tag("preset", preset.getName())
+                        .register(meterRegistry));
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Failed to read preset {}: {}", preset.getName(), e.getMessage());
+            }
+        }
+        log.info("Read {} garden presets in {} ms", templates.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public List<GardenPresetDTO> getPresets() {
+        return PRESETS;
+    }
+
+    public GardenTemplate getTemplate(String presetName) {
+        GardenTemplate template = templates.get(presetName);
+        if (template == null) {
+            throw new EntityNotFoundException("Preset not found: " + presetName);
+        }
+        return template;
+    }
+
+    /**
+     * Replaces everything in the garden with the preset, and resets its simulation to step 0. The
+     * load claims the garden, so it is refused while an import, a fast-forward or a restore runs,
+     * and none of them can start until it is done.
+     */
+    public PresetLoadDTO loadPreset(Long gardenId, String presetName) {
+        GardenTemplate template = getTemplate(presetName);
+        String job = "preset " + presetName;
+        gardenJobRegistry.claim(gardenId, job);
+        try {
+            return load(gardenId, presetName, template);
+        } finally {
+            // Anything let in before the commit still waits on the world's editor
+            gardenJobRegistry.release(gardenId, job);
+        }
+    }
+
+    private PresetLoadDTO load(Long gardenId, String presetName, GardenTemplate template) {
+        long start = System.nanoTime();
+        simulationService.resetSimulation(gardenId);
+        gardenWorldService.invalidate(gardenId);
+
+        GardenWorld world = template.instantiate(
+                new SequenceIdBlocks(jdbcTemplate, "parcels_seq"),
+                new SequenceIdBlocks(jdbcTemplate, "plants_seq"),
+                new SequenceIdBlocks(jdbcTemplate, "insects_seq"),
+                new SequenceIdBlocks(jdbcTemplate, "treatment_devices_seq"),
+                new SequenceIdBlocks(jdbcTemplate, "treatment_programs_seq"));
+        gardenBulkWriter.replaceGarden(gardenId, world);
+        parcelGridService.parcelsReplaced(gardenId);
+        treatmentCalendarService.evict(gardenId);
+        // Only the MEMORY engine steps a kept world: the others read the rows just written
+        if (simulationProperties.getEngine() == EngineMode.MEMORY) {
+            gardenWorldService.install(gardenId, world);
+        }
+        // Dashboards start over from a snapshot of the new garden
+        gardenStreamService.publishStep(gardenId, 0);
+
+        long elapsed = System.nanoTime() - start;
+        loadTimers.get(presetName).record(elapsed, TimeUnit.NANOSECONDS);
+        return PresetLoadDTO.builder()
+                .preset(presetName)
+                .parcels(template.getParcelCount())
+                .plants(template.getPlantCount())
+                .insects(template.getInsectCount())
+                .devices(template.getDeviceCount())
+                .programs(template.getProgramCount())
+                .elapsedMillis(elapsed / 1_000_000.0)
+                .build();
+    }
+}
@@ -0,0 +1,425 @@
+package com.potager.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.mappers.WorldMapper;
+import com.potager.config.SimulationProperties;
+import com.potager.dtos.GardenDeltaDTO;
+import com.potager.dtos.GardenSnapshotDTO;
+import com.potager.dtos.SimulationStateDTO;
+import com.potager.engine.ChangeTracker;
+import com.potager.engine.GardenWorld;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes each garden's steps to its dashboards as server-sent events, instead of letting every
+ * dashboard poll the whole grid. After a step, the parcels the world's {@link ChangeTracker} saw
+ * change are read from the in-memory world, serialized once and queued for every connection, so the
+ * tables are never read whatever the number of viewers.
+ *
+ * Each connection has a bounded queue, drained by a small shared pool of sender threads. A connection
+ * whose queue overflows has it emptied and gets one snapshot of the whole garden in place of the
+ * updates it missed. New connections start with a snapshot too; a snapshot is built once and shared
+ * by every connection that needs it until the garden steps again. Gardens not run by the MEMORY
+ * engine have no world to read: their updates only carry the step, with resync set.
+ *
+ * The stepping thread only records the step reached: updates are read and serialized on the sender
+ * pool, several steps coalescing into one update when it falls behind. Only the changed parcels are
+ * read under the world's lock; a snapshot is taken from a copy of the world, built after the lock is
+ * released, so a slow dashboard never holds up the simulation.
+ *
+ * Events: "snapshot" ({@link GardenSnapshotDTO}), "delta" ({@link GardenDeltaDTO}) and "status"
+ * ({@link SimulationStateDTO}), plus a comment every heartbeat-millis.
+ */
+@Slf4j
+@Service
+public class GardenStreamService {
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String DELTA = "delta";
+    private static final String STATUS = "status";
+    private static final Frame HEARTBEAT = new Frame(null, null);
+
+    private final SimulationProperties simulationProperties;
+    private final SimulationProperties.Stream properties;
+    private final GardenWorldService gardenWorldService;
+    private final WorldMapper worldMapper;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, GardenFeed> feeds = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "garden-stream-heartbeat"));
+    private final Counter overflowCounter;
+    private final Counter snapshotCounter;
+
+    public GardenStreamService(SimulationProperties simulationProperties,
+                               GardenWorldService gardenWorldService,
+                               WorldMapper worldMapper,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.simulationProperties = simulationProperties;
+        this.properties = simulationProperties.getStream();
+        this.gardenWorldService = gardenWorldService;
+        this.worldMapper = worldMapper;
+        this.objectMapper = objectMapper;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()),
+                r -> new Thread(r, "garden-stream-" + threadCount.incrementAndGet()));
+        if (properties.getHeartbeatMillis() > 0) {
+            heartbeat.scheduleWithFixedDelay(this::sendHeartbeats,
+                    properties.getHeartbeatMillis(), properties.getHeartbeatMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        this.overflowCounter = meterRegistry.counter("potager.stream.overflows");
+        this.snapshotCounter = meterRegistry.counter("potager.stream.snapshots");
+        Gauge.builder("potager.stream.connections", this::connections).register(meterRegistry);
+    }
+
+    /**
+     * Opens a connection to the garden's updates. Its first event is a snapshot, built off the
+     * request thread.
+     */
+    public SseEmitter subscribe(Long gardenId, SimulationStateDTO status) {
+        GardenFeed feed = feeds.computeIfAbsent(gardenId, GardenFeed::new);
+        feed.status = status;
+        feed.step = status.getCurrentStep();
+
+        SseEmitter emitter = new SseEmitter(properties.getTimeoutMillis());
+        StreamClient client = new StreamClient(feed, emitter);
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError(e -> client.close());
+        feed.clients.add(client);
+        schedulePublish(feed);
+        return emitter;
+    }
+
+    // Called after every run of steps, with the step reached, on the stepping thread
+    public void publishStep(Long gardenId, int step) {
+        GardenFeed feed = feeds.get(gardenId);
+        if (feed == null || feed.clients.isEmpty()) {
+            return;
+        }
+        feed.step = step;
+        schedulePublish(feed);
+    }
+
+    // Called whenever the simulation is started, paused, reset or changes speed
+    public void publishStatus(SimulationStateDTO status) {
+        GardenFeed feed = feeds.get(status.getGardenId());
+        if (feed == null) {
+            return;
+        }
+        synchronized (feed) {
+            feed.status = status;
+            feed.snapshot = null;
+            if (!feed.clients.isEmpty()) {
+                Frame frame = frame(STATUS, status);
+                feed.clients.forEach(client -> client.offer(frame));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        feeds.values().forEach(feed -> feed.clients.forEach(StreamClient::close));
+    }
+
+    // At most one update per garden waits for a sender: later steps are picked up by it
+    private void schedulePublish(GardenFeed feed) {
+        if (!feed.publishPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                feed.publishPending.set(false);
+                publish(feed);
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            feed.publishPending.set(false);
+        }
+    }
+
+    /**
+     * Sends every connection of the garden what changed since the last update, or a snapshot to those
+     * that need one. Updates are read and queued under the feed's lock, so every connection receives
+     * them in the order the world went through them.
+     */
+    private void publish(GardenFeed feed) {
+        try {
+            synchronized (feed) {
+                if (feed.clients.isEmpty()) {
+                    return;
+                }
+                boolean snapshotWanted = feed.clients.stream().anyMatch(client -> client.needsSnapshot);
+                Update update = simulationProperties.getEngine() == EngineMode.MEMORY
+                        ? gardenWorldService.read(feed.gardenId, world -> readWorld(feed, world, snapshotWanted))
+                        : announceStep(feed, snapshotWanted);
+
+                Frame delta = update.delta() != null ? frame(DELTA, update.delta()) : null;
+                if (delta != null || update.reset()) {
+                    feed.snapshot = null;
+                }
+                if (update.snapshot() != null) {
+                    feed.snapshot = frame(SNAPSHOT, update.snapshot().get());
+                    snapshotCounter.increment();
+                }
+                for (StreamClient client : feed.clients) {
+                    if ((client.needsSnapshot || update.reset()) && feed.snapshot != null) {
+                        client.restart(feed.snapshot);
+                    } else if (delta != null && !client.needsSnapshot) {
+                        client.offer(delta);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // A failed update must not fail the step; connections catch up with the next one
+            log.error("Streaming garden {} failed: {}", feed.gardenId, e.getMessage(), e);
+        }
+    }
+
+    // Under the world's lock
+    private Update readWorld(GardenFeed feed, GardenWorld world, boolean snapshotWanted) {
+        if (!(world.getObserver() instanceof ChangeTracker tracker)) {
+            // A world newly loaded or reloaded, changes are tracked from here on
+            world.setObserver(new ChangeTracker(world));
+            return new Update(null, snapshot(feed, world.copy()), true);
+        }
+        ChangeTracker.Changes changes = tracker.drain();
+        GardenDeltaDTO delta = null;
+        if (changes.toStep() != changes.fromStep() || changes.parcels().length > 0) {
+            delta = GardenDeltaDTO.builder()
+                    .gardenId(feed.gardenId)
+                    .fromStep(changes.fromStep())
+                    .step(changes.toStep())
+                    .parcels(worldMapper.toParcelDTOs(world, changes.parcels()))
+                    .plantsAged(changes.plantsAged())
+                    .humidityDecay(changes.humidityDecay())
+                    .resync(false)
+                    .build();
+        }
+        boolean snapshotCurrent = delta == null && feed.snapshot != null;
+        return new Update(delta, snapshotWanted && !snapshotCurrent ? snapshot(feed, world.copy()) : null, false);
+    }
+
+    // Built when the update is sent, from a copy taken under the world's lock
+    private Supplier<GardenSnapshotDTO> snapshot(GardenFeed feed, GardenWorld world) {
+        return () -> GardenSnapshotDTO.builder()
+                .gardenId(feed.gardenId)
+                .step(world.getCurrentStep())
+                .status(feed.status)
+                .parcels(worldMapper.toParcelDTOs(world))
+                .resync(false)
+                .build();
+    }
+
+    // Gardens stepped on the tables: only the step is known
+    private Update announceStep(GardenFeed feed, boolean snapshotWanted) {
+        int step = feed.step;
+        GardenDeltaDTO delta = null;
+        if (step != feed.announcedStep) {
+            delta = GardenDeltaDTO.builder()
+                    .gardenId(feed.gardenId)
+                    .fromStep(feed.announcedStep)
+                    .step(step)
+                    .resync(true)
+                    .build();
+            feed.announcedStep = step;
+        }
+        Supplier<GardenSnapshotDTO> snapshot = null;
+        if (snapshotWanted && (delta != null || feed.snapshot == null)) {
+            SimulationStateDTO status = feed.status;
+            snapshot = () -> GardenSnapshotDTO.builder()
+                    .gardenId(feed.gardenId)
+                    .step(step)
+                    .status(status)
+                    .resync(true)
+                    .build();
+        }
+        return new Update(delta, snapshot, false);
+    }
+
+    // Once nobody watches, the world stops tracking changes; the next viewer starts from a snapshot
+    private void detach(GardenFeed feed) {
+        synchronized (feed) {
+            feed.snapshot = null;
+            if (feed.clients.isEmpty() && simulationProperties.getEngine() == EngineMode.MEMORY
+                    && gardenWorldService.isLoaded(feed.gardenId)) {
+                gardenWorldService.read(feed.gardenId, world -> {
+                    world.setObserver(null);
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        feeds.values().forEach(feed -> feed.clients.forEach(StreamClient::heartbeat));
+    }
+
+    private int connections() {
+        return feeds.values().stream().mapToInt(feed -> feed.clients.size()).sum();
+    }
+
+    private Frame frame(String name, Object payload) {
+        try {
+            return new Frame(name, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Cannot serialize " + name + " event", e);
+        }
+    }
+
+    // An event serialized once for every connection
+    private record Frame(String name, String json) {
+    }
+
+    private record Update(GardenDeltaDTO delta, Supplier<GardenSnapshotDTO> snapshot, boolean reset) {
+    }
+
+    private static class GardenFeed {
+        private final Long gardenId;
+        private final Set<StreamClient> clients = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean publishPending = new AtomicBoolean();
+        private volatile SimulationStateDTO status;
+        // Step reached by the simulation, and the last one announced for gardens not stepped in memory
+        private volatile int step;
+        private int announcedStep = -1;
+        // Last snapshot sent, current until the garden changes again
+        private Frame snapshot;
+
+        private GardenFeed(Long gardenId) {
+            this.gardenId = gardenId;
+        }
+    }
+
+    /**
+     * One dashboard connection. Frames are queued by the publishing thread and written by at most one
+     * sender thread at a time, a bounded burst per turn so busy connections share the pool.
+     */
+    private final class StreamClient implements Runnable {
+
+        private final GardenFeed feed;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean needsSnapshot = true;
+        private volatile boolean closed;
+
+        private StreamClient(GardenFeed feed, SseEmitter emitter) {
+            this.feed = feed;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueSize()));
+        }
+
+        void offer(Frame frame) {
+            if (!queue.offer(frame)) {
+                // Too far behind: what is queued is dropped for one snapshot
+                needsSnapshot = true;
+                queue.clear();
+                overflowCounter.increment();
+            }
+            schedule();
+        }
+
+        // Drops whatever is queued, the snapshot supersedes it
+        void restart(Frame snapshot) {
+            queue.clear();
+            needsSnapshot = false;
+            queue.offer(snapshot);
+            schedule();
+        }
+
+        void heartbeat() {
+            // Only needed when the connection is idle, a full queue is not
+            if (queue.offer(HEARTBEAT)) {
+                schedule();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            feed.clients.remove(this);
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // Already completed
+            }
+            if (feed.clients.isEmpty()) {
+                senders.execute(() -> detach(feed));
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Frame frame;
+                for (int sent = 0; !closed && sent < queueCapacity() && (frame = queue.poll()) != null; sent++) {
+                    send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The browser went away
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (closed) {
+                return;
+            }
+            if (!queue.isEmpty()) {
+                schedule();
+            } else if (needsSnapshot) {
+                publish(feed);
+            }
+        }
+
+        private void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        private void send(Frame frame) throws IOException {
+            if (frame == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event().name(frame.name()).data(frame.json()));
+            }
+        }
+
+        private int queueCapacity() {
+            return Math.max(1, properties.getQueueSize());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.potager.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of what each garden's tables hold, as ETags for conditional GETs: the step the tables were
+ * last written at, plus a counter of every other change. A read whose ETag still matches can be
+ * answered 304 without a query.
+ *
+ * The step moves when a DATABASE or SQL step runs, or when the MEMORY engine flushes its world, so
+ * in-memory steps that have not reached the tables yet do not invalidate anything. Changes made
+ * through the API bump the counter when they start and again once their transaction completes:
+ * a read in between may see either state, and the one after the commit is never answered from it.
+ *
+ * Versions only live in memory; the ETag carries the start time of the process so that none issued
+ * before a restart matches after it.
+ */
+@Service
+public class GardenVersionService {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, GardenVersion> versions = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public GardenVersionService(MeterRegistry meterRegistry) {
+        this.hitCounter = meterRegistry.counter("potager.etag.hits");
+        this.missCounter = meterRegistry.counter("potager.etag.misses");
+    }
+
+    public String etag(Long gardenId) {
+        GardenVersion version = version(gardenId);
+        return "\"" + epoch + "-" + gardenId + "-" + version.step + "-" + version.changes.get() + "\"";
+    }
+
+    // The garden's tables now hold the given step
+    public void stepWritten(Long gardenId, int step) {
+        version(gardenId).step = step;
+        changed(gardenId);
+    }
+
+    // Called by whatever changes the garden's rows outside a step
+    public void changed(Long gardenId) {
+        GardenVersion version = version(gardenId);
+        version.changes.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.changes.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public void recordHit() {
+        hitCounter.increment();
+    }
+
+    public void recordMiss() {
+        missCounter.increment();
+    }
+
+    private GardenVersion version(Long gardenId) {
+        return versions.computeIfAbsent(gardenId, id -> new GardenVersion());
+    }
+
+    private static class GardenVersion {
+        private volatile int step = -1;
+        private final AtomicLong changes = new AtomicLong();
+    }
+}
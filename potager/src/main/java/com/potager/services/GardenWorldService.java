@@ -0,0 +1,448 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.enums.WorldStorage;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
+import com.potager.dtos.MemoryFootprintDTO;
+import com.potager.dtos.WriteBackStatsDTO;
+import com.potager.engine.*;
+import com.potager.engine.columns.ColumnFactory;
+import com.potager.engine.columns.HeapColumnFactory;
+import com.potager.engine.columns.MappedColumnFactory;
+import com.potager.models.*;
+import com.potager.repositories.*;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the in-memory gardens used by the MEMORY engine. Each world is loaded once, stepped without
+ * touching the database and written back by {@link #flush(Long)}, which only writes what changed. Services that change a garden
+ * through the API call {@link #invalidate(Long)} first so the next step reloads from the tables, and
+ * so that cached reads of the garden are revalidated. Until their transaction completes the garden
+ * belongs to them: other threads wait to load, step or flush it rather than see the tables half-changed.
+ *
+ * Every garden has its own lock: stepping or flushing one garden never waits on another.
+ *
+ * With MAPPED storage a world lives in memory-mapped files under the storage directory instead of
+ * the heap. The files are the state: a restart reopens them where the last step left them, unflushed
+ * steps included, and only a world that was never completely loaded is rebuilt from the tables.
+ *
+ * Loaded worlds append each step to the garden's {@link StepJournal}; copies from {@link #snapshot}
+ * are never journaled.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class GardenWorldService {
+
+    // How long anything else waits for a garden's change to commit before giving up
+    private static final long EDIT_WAIT_MILLIS = 10_000;
+
+    private final ParcelRepository parcelRepository;
+    private final PlantRepository plantRepository;
+    private final InsectRepository insectRepository;
+    private final TreatmentDeviceRepository treatmentDeviceRepository;
+    private final SimulationProperties simulationProperties;
+    private final WorldStepper worldStepper;
+    private final RandomStreamService randomStreamService;
+    private final WorldWriteBackService worldWriteBackService;
+    private final StepJournalService stepJournalService;
+    private final GardenVersionService gardenVersionService;
+
+    private final Map<Long, WorldSlot> worlds = new ConcurrentHashMap<>();
+
+    public GardenWorld getWorld(Long gardenId) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            awaitEditor(gardenId, slot);
+            if (slot.world == null) {
+                slot.world = loadWorld(gardenId);
+                slot.world.setJournal(stepJournalService.journalFor(gardenId));
+            }
+            return slot.world;
+        }
+    }
+
+    // Private copy of the current world, safe to step outside the lock
+    public GardenWorld snapshot(Long gardenId) {
+        if (!keepsWorlds()) {
+            return loadFromTables(gardenId);
+        }
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return getWorld(gardenId).copy();
+        }
+    }
+
+    /**
+     * Runs the reader on the garden's world under its lock, between two steps, without copying it.
+     * The reader must not keep the world.
+     */
+    public <T> T read(Long gardenId, Function<GardenWorld, T> reader) {
+        if (!keepsWorlds()) {
+            return reader.apply(loadFromTables(gardenId));
+        }
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return reader.apply(getWorld(gardenId));
+        }
+    }
+
+    /**
+     * Copy of the garden as it stands between two steps, with everything before it written to the
+     * tables, and the journal offset of the next step.
+     */
+    public CapturedWorld capture(Long gardenId) {
+        if (!keepsWorlds()) {
+            return new CapturedWorld(loadFromTables(gardenId), -1);
+        }
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            GardenWorld garden = getWorld(gardenId);
+            flush(gardenId);
+            StepJournal journal = garden.getJournal();
+            return new CapturedWorld(garden.copy(), journal != null ? journal.getAppendedBytes() : -1);
+        }
+    }
+
+    /**
+     * Replaces the garden's world with one rebuilt elsewhere, whose rows are already in the tables.
+     * Mapped storage reloads from the tables instead, onto fresh files.
+     */
+    public void install(Long gardenId, GardenWorld world) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            awaitEditor(gardenId, slot);
+            if (slot.world != null) {
+                slot.world.getColumns().delete();
+                slot.world = null;
+            }
+            if (simulationProperties.getStorage() == WorldStorage.MAPPED) {
+                columnsFor(gardenId).delete();
+                return;
+            }
+            world.markFlushed();
+            world.setJournal(stepJournalService.journalFor(gardenId));
+            slot.world = world;
+        }
+    }
+
+    public boolean isLoaded(Long gardenId) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return slot.world != null;
+        }
+    }
+
+    /**
+     * Memory used by the garden's plant and insect stores, on or off the heap, next to the estimated cost of the same
+     * entities as JPA objects.
+     */
+    public MemoryFootprintDTO footprint(Long gardenId) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            GardenWorld garden = keepsWorlds() ? getWorld(gardenId) : loadFromTables(gardenId);
+            int plants = garden.getPlants().size();
+            int insects = garden.getInsects().size();
+            long storeBytes = Footprint.storeBytes(garden);
+            long entityModelBytes = Footprint.entityModelBytes(plants, insects);
+            return MemoryFootprintDTO.builder()
+                    .gardenId(gardenId)
+                    .storage(simulationProperties.getStorage())
+                    .plants(plants)
+                    .insects(insects)
+                    .storeBytes(storeBytes)
+                    .entityModelBytes(entityModelBytes)
+                    .ratio(storeBytes > 0 ? (double) entityModelBytes / storeBytes : 0.0)
+                    .build();
+        }
+    }
+
+    /**
+     * What the garden's last flush wrote, rows per step included.
+     */
+    public WriteBackStatsDTO getLastWriteBack(Long gardenId) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            if (slot.lastWriteBack == null) {
+                throw new EntityNotFoundException("Garden " + gardenId + " has not been flushed yet");
+            }
+            return slot.lastWriteBack;
+        }
+    }
+
+    public void executeStep(Long gardenId, int currentStep) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            GardenWorld garden = getWorld(gardenId);
+            // The world and its journal move on now, the step's row only when the transaction commits
+            releaseOnCompletion(gardenId, slot);
+            worldStepper.step(garden, currentStep, randomStreamService.getStreams(gardenId));
+
+            if (garden.getStepsSinceFlush() >= simulationProperties.getFlushInterval()
+                    || System.currentTimeMillis() - garden.getLastFlushTime() >= simulationProperties.getFlushPeriodMillis()) {
+                flush(gardenId);
+            }
+        }
+    }
+
+    /**
+     * Writes the world back and drops it, ahead of a change to the garden's tables. Until the
+     * caller's transaction completes, other threads wait to load, step or flush the garden, so no
+     * world is built from the tables as they were before the change and no flush writes over it. A
+     * world the caller loads or installs itself meanwhile is dropped again if the transaction rolls back.
+     */
+    public void invalidate(Long gardenId) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            awaitEditor(gardenId, slot);
+            flush(gardenId);
+            gardenVersionService.changed(gardenId);
+            discard(gardenId, slot);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                slot.editor = Thread.currentThread();
+                releaseOnCompletion(gardenId, slot);
+            }
+        }
+    }
+
+    public void flush(Long gardenId) {
+        WorldSlot slot = slot(gardenId);
+        synchronized (slot) {
+            awaitEditor(gardenId, slot);
+            if (slot.world != null && slot.world.isDirty()) {
+                // A world marked flushed by a write that rolls back would never write those steps again
+                releaseOnCompletion(gardenId, slot);
+                slot.lastWriteBack = worldWriteBackService.writeBack(gardenId, slot.world);
+                slot.world.markFlushed();
+                gardenVersionService.stepWritten(gardenId, slot.world.getCurrentStep());
+            }
+        }
+    }
+
+    /**
+     * Makes mapped worlds durable before the JVM exits. Nothing is written to the tables here: the
+     * next start reopens the files and the next flush catches the tables up.
+     */
+    @PreDestroy
+    public void close() {
+        worlds.forEach((gardenId, slot) -> {
+            synchronized (slot) {
+                if (slot.world != null) {
+                    slot.world.getColumns().sync();
+                    slot.world.getColumns().close();
+                    slot.world = null;
+                }
+            }
+        });
+    }
+
+    private WorldSlot slot(Long gardenId) {
+        return worlds.computeIfAbsent(gardenId, id -> new WorldSlot());
+    }
+
+    // Called with the slot lock held: waits for another thread's change to the garden to complete
+    private void awaitEditor(Long gardenId, WorldSlot slot) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EDIT_WAIT_MILLIS);
+        while (slot.editor != null && slot.editor != Thread.currentThread()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                throw new IllegalStateException("Garden " + gardenId + " is being changed, try again");
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(slot, left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for garden " + gardenId);
+            }
+        }
+    }
+
+    // Called with the slot lock held. Nothing is written: the world is forgotten as it stands
+    private void discard(Long gardenId, WorldSlot slot) {
+        if (slot.world != null) {
+            // The files on disk no longer match the tables and must not be reopened
+            slot.world.getColumns().delete();
+            // and the journaled steps no longer lead to the reloaded world
+            stepJournalService.markBreak(gardenId, slot.world.getCurrentStep());
+        }
+        slot.world = null;
+    }
+
+    /**
+     * Once the current transaction completes, hands the garden back to other threads if this one
+     * was changing it, and drops the world if the transaction rolled back: the world may hold what
+     * the tables no longer do. Registered once per transaction and garden.
+     */
+    private void releaseOnCompletion(Long gardenId, WorldSlot slot) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(slot)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(slot, gardenId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(slot);
+                synchronized (slot) {
+                    if (status != STATUS_COMMITTED) {
+                        discard(gardenId, slot);
+                        gardenVersionService.changed(gardenId);
+                    }
+                    if (slot.editor == Thread.currentThread()) {
+                        slot.editor = null;
+                        slot.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Only the MEMORY engine steps the worlds kept here. The other engines step the tables, so a
+     * kept world would never move again: their reads load a fresh heap world each time instead.
+     */
+    private boolean keepsWorlds() {
+        return simulationProperties.getEngine() == EngineMode.MEMORY;
+    }
+
+    private GardenWorld loadFromTables(Long gardenId) {
+        return loadWorld(gardenId, new HeapColumnFactory());
+    }
+
+    private GardenWorld loadWorld(Long gardenId) {
+        ColumnFactory columns = columnsFor(gardenId);
+        if (columns.isPersistent()) {
+            if (GardenWorld.isLoaded(columns)) {
+                return reopenWorld(gardenId, columns);
+            }
+            // A new garden, or a load interrupted half-way: start from empty files
+            columns.delete();
+            columns = columnsFor(gardenId);
+        }
+        return loadWorld(gardenId, columns);
+    }
+
+    private GardenWorld loadWorld(Long gardenId, ColumnFactory columns) {
+        ParcelStore parcelStore = new ParcelStore(columns);
+        Map<Long, Integer> ordinals = new HashMap<>();
+        parcelRepository.findByGardenId(gardenId, Sort.by("id")).forEach(parcel -> ordinals.put(parcel.getId(),
+                parcelStore.add(parcel.getId(), parcel.getXCoordinate(), parcel.getYCoordinate(), parcel.getHumidityLevel())));
+
+        GardenWorld world = new GardenWorld(parcelStore,
+                toWorldDevices(treatmentDeviceRepository.findByGardenId(gardenId, Sort.by("id")), ordinals));
+
+        plantRepository.findByGardenId(gardenId, Sort.by("id")).forEach(plant -> {
+            Integer parcel = plant.getParcel() != null ? ordinals.get(plant.getParcel().getId()) : null;
+            if (parcel != null) {
+                world.getPlants().add(
+                        parcel,
+                        plant.getId(),
+                        plant.getId(),
+                        plant.getSpecies(),
+                        plant.getCurrentAge(),
+                        plant.getMaturityAge(),
+                        plant.getIsRunner(),
+                        plant.getColonizationProbability());
+            }
+        });
+
+        insectRepository.findByGardenId(gardenId, Sort.by("id")).forEach(insect -> {
+            Integer parcel = insect.getParcel() != null ? ordinals.get(insect.getParcel().getId()) : null;
+            if (parcel != null) {
+                world.getInsects().add(
+                        parcel,
+                        insect.getId(),
+                        insect.getSpecies(),
+                        insect.getSex(),
+                        insect.getHealthIndex(),
+                        insect.getMobility(),
+                        insect.getInsecticideResistance(),
+                        insect.getStepsWithoutFood());
+            }
+        });
+
+        world.markLoaded();
+        return world;
+    }
+
+    /**
+     * Reopens a world left on disk. Only devices and programs come from the tables; the parcels they
+     * stand on are found with one pass over the parcel id column.
+     */
+    private GardenWorld reopenWorld(Long gardenId, ColumnFactory columns) {
+        ParcelStore parcelStore = new ParcelStore(columns);
+        List<TreatmentDevice> devices = treatmentDeviceRepository.findByGardenId(gardenId, Sort.by("id"));
+        Set<Long> deviceParcels = devices.stream()
+                .filter(device -> device.getParcel() != null)
+                .map(device -> device.getParcel().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Integer> ordinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < parcelStore.size(); ordinal++) {
+            if (deviceParcels.contains(parcelStore.getId(ordinal))) {
+                ordinals.put(parcelStore.getId(ordinal), ordinal);
+            }
+        }
+
+        GardenWorld world = new GardenWorld(parcelStore, toWorldDevices(devices, ordinals));
+        log.info("Reopened garden {} from {} at step {}", gardenId, storageDirectory(gardenId), world.getCurrentStep());
+        return world;
+    }
+
+    private List<WorldDevice> toWorldDevices(List<TreatmentDevice> devices, Map<Long, Integer> ordinals) {
+        List<WorldDevice> worldDevices = new ArrayList<>();
+        devices.forEach(device -> {
+            Integer parcel = device.getParcel() != null ? ordinals.get(device.getParcel().getId()) : null;
+            if (parcel == null) {
+                return;
+            }
+            WorldDevice worldDevice = new WorldDevice(device.getId(), device.getRadius(), parcel);
+            device.getPrograms().forEach(program -> worldDevice.getPrograms().add(new WorldProgram(
+                    program.getId(),
+                    program.getStartTime(),
+                    program.getDuration(),
+                    program.getType())));
+            worldDevices.add(worldDevice);
+        });
+        return worldDevices;
+    }
+
+    private ColumnFactory columnsFor(Long gardenId) {
+        if (simulationProperties.getStorage() == WorldStorage.MAPPED) {
+            return new MappedColumnFactory(storageDirectory(gardenId));
+        }
+        return new HeapColumnFactory();
+    }
+
+    private Path storageDirectory(Long gardenId) {
+        return Path.of(simulationProperties.getStorageDirectory(), "garden-" + gardenId);
+    }
+
+    public record CapturedWorld(GardenWorld world, long journalOffset) {
+    }
+
+    private static class WorldSlot {
+        private GardenWorld world;
+        private WriteBackStatsDTO lastWriteBack;
+        // Thread whose transaction is changing the garden's tables, if any
+        private Thread editor;
+    }
+}
@@ -0,0 +1,99 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.config.SimulationProperties;
+import com.potager.engine.GridFrame;
+import com.potager.models.SimulationState;
+import com.potager.repositories.SimulationStateRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds {@link GridFrame}s of a garden. Gardens run by the MEMORY engine are read from their world
+ * between two steps; the others with a few aggregate queries that count plants and insects per cell
+ * in the database, so no entity is loaded either way.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class GridFrameService {
+
+    private static final int GZIP_BUFFER = 1 << 16;
+
+    private final SimulationProperties simulationProperties;
+    private final GardenWorldService gardenWorldService;
+    private final SimulationStateRepository simulationStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public GridFrame getFrame(Long gardenId) {
+        if (simulationProperties.getEngine() == EngineMode.MEMORY) {
+            return gardenWorldService.read(gardenId, world -> GridFrame.of(gardenId, world));
+        }
+        return queryFrame(gardenId);
+    }
+
+    public void write(GridFrame frame, OutputStream out, boolean gzip) throws IOException {
+        if (!gzip) {
+            frame.writeTo(out);
+            return;
+        }
+        GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER);
+        frame.writeTo(compressed);
+        compressed.finish();
+    }
+
+    private GridFrame queryFrame(Long gardenId) {
+        int step = simulationStateRepository.findByGardenId(gardenId)
+                .map(SimulationState::getCurrentStep)
+                .orElse(0);
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(xcoordinate) AS min_x, MAX(xcoordinate) AS max_x, MIN(ycoordinate) AS min_y, MAX(ycoordinate) AS max_y " +
+                        "FROM parcels WHERE garden_id = ?", gardenId);
+        if (bounds.get("min_x") == null) {
+            return new GridFrame(gardenId, step, 0, 0, 0, 0, List.of());
+        }
+        int minX = ((Number) bounds.get("min_x")).intValue();
+        int minY = ((Number) bounds.get("min_y")).intValue();
+        int width = ((Number) bounds.get("max_x")).intValue() - minX + 1;
+        int height = ((Number) bounds.get("max_y")).intValue() - minY + 1;
+
+        List<String> species = jdbcTemplate.queryForList(
+                "SELECT DISTINCT species FROM insects WHERE garden_id = ? ORDER BY species", String.class, gardenId);
+        Map<String, Integer> speciesIndex = new HashMap<>();
+        species.forEach(name -> speciesIndex.put(name, speciesIndex.size()));
+        GridFrame frame = new GridFrame(gardenId, step, minX, minY, width, height, species);
+
+        jdbcTemplate.query("SELECT xcoordinate, ycoordinate, humidity_level FROM parcels WHERE garden_id = ?",
+                rs -> {
+                    frame.setHumidity(frame.cell(rs.getInt(1), rs.getInt(2)), rs.getDouble(3));
+                }, gardenId);
+        jdbcTemplate.query("SELECT p.xcoordinate, p.ycoordinate, COUNT(*) FROM plants pl " +
+                        "JOIN parcels p ON p.id = pl.parcel_id WHERE pl.garden_id = ? GROUP BY p.xcoordinate, p.ycoordinate",
+                rs -> {
+                    frame.addPlants(frame.cell(rs.getInt(1), rs.getInt(2)), rs.getInt(3));
+                }, gardenId);
+        jdbcTemplate.query("SELECT p.xcoordinate, p.ycoordinate, i.species, COUNT(*) FROM insects i " +
+                        "JOIN parcels p ON p.id = i.parcel_id WHERE i.garden_id = ? GROUP BY p.xcoordinate, p.ycoordinate, i.species",
+                rs -> {
+                    frame.addInsects(frame.cell(rs.getInt(1), rs.getInt(2)), speciesIndex.get(rs.getString(3)), rs.getInt(4));
+                }, gardenId);
+        jdbcTemplate.query("SELECT p.xcoordinate, p.ycoordinate, tp.type FROM treatment_devices d " +
+                        "JOIN parcels p ON p.id = d.parcel_id LEFT JOIN treatment_programs tp ON tp.device_id = d.id " +
+                        "WHERE d.garden_id = ?",
+                rs -> {
+                    String type = rs.getString(3);
+                    frame.addDevice(frame.cell(rs.getInt(1), rs.getInt(2)), type != null ? TreatmentType.valueOf(type) : null);
+                }, gardenId);
+        return frame;
+    }
+}
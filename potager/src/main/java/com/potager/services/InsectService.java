@@ -4,6 +4,7 @@ import com.potager.Utils.mappers.interfaces.GardenMapper;
 import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.InsectDTO;
 import com.potager.dtos.ParcelDTO;
+import com.potager.engine.RandomStreams;
 import com.potager.models.*;
 import com.potager.repositories.*;
 import jakarta.transaction.Transactional;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
 
 
@@ -25,12 +27,16 @@ public class InsectService {
     private final InsectRepository insectRepository;
     private final ParcelRepository parcelRepository;
     private final GardenMapper gardenMapper;
+    private final GardenWorldService gardenWorldService;
+    private final RandomStreamService randomStreamService;
 
-    public InsectDTO createInsect(InsectDTO insectDTO) {
-        Parcel parcel = parcelRepository.findById(insectDTO.getParcelId())
+    public InsectDTO createInsect(Long gardenId, InsectDTO insectDTO) {
+        gardenWorldService.invalidate(gardenId);
+        Parcel parcel = parcelRepository.findByIdAndGardenId(insectDTO.getParcelId(), gardenId)
                 .orElseThrow(() -> new EntityNotFoundException("Parcel not found with id: " + insectDTO.getParcelId()));
 
         Insect insect = new Insect();
+        insect.setGardenId(gardenId);
         insect.setSpecies(insectDTO.getSpecies());
         insect.setSex(insectDTO.getSex());
         insect.setHealthIndex(insectDTO.getHealthIndex() != null ? insectDTO.getHealthIndex() : 10);
@@ -43,50 +49,53 @@ public class InsectService {
         return gardenMapper.insectToInsectDTO(savedInsect);
     }
 
-    public List<InsectDTO> getInsectsByParcel(Long parcelId) {
-        return insectRepository.findByParcelId(parcelId).stream()
+    public List<InsectDTO> getInsectsByParcel(Long gardenId, Long parcelId) {
+        return insectRepository.findByParcelIdAndGardenId(parcelId, gardenId).stream()
                 .map(gardenMapper::insectToInsectDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<InsectDTO> getHealthyInsects() {
-        return insectRepository.findHealthyInsects().stream()
+    public List<InsectDTO> getHealthyInsects(Long gardenId) {
+        return insectRepository.findHealthyInsects(gardenId).stream()
                 .map(gardenMapper::insectToInsectDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<InsectDTO> getHungryInsects() {
-        return insectRepository.findHungryInsects().stream()
+    public List<InsectDTO> getHungryInsects(Long gardenId) {
+        return insectRepository.findHungryInsects(gardenId).stream()
                 .map(gardenMapper::insectToInsectDTO)
                 .collect(Collectors.toList());
     }
 
-    public void removeInsect(Long insectId) {
-        if (!insectRepository.existsById(insectId)) {
-            throw new EntityNotFoundException("Insect not found with id: " + insectId);
-        }
-        insectRepository.deleteById(insectId);
+    public void removeInsect(Long gardenId, Long insectId) {
+        gardenWorldService.invalidate(gardenId);
+        Insect insect = insectRepository.findByIdAndGardenId(insectId, gardenId)
+                .orElseThrow(() -> new EntityNotFoundException("Insect not found with id: " + insectId));
+        insectRepository.delete(insect);
     }
 
-    public void moveInsectToParcel(Long insectId, Long parcelId) {
-        Insect insect = insectRepository.findById(insectId)
+    public void moveInsectToParcel(Long gardenId, Long insectId, Long parcelId) {
+        gardenWorldService.invalidate(gardenId);
+        Insect insect = insectRepository.findByIdAndGardenId(insectId, gardenId)
                 .orElseThrow(() -> new EntityNotFoundException("Insect not found with id: " + insectId));
 
-        Parcel targetParcel = parcelRepository.findById(parcelId)
+        Parcel targetParcel = parcelRepository.findByIdAndGardenId(parcelId, gardenId)
                 .orElseThrow(() -> new EntityNotFoundException("Parcel not found with id: " + parcelId));
 
         insect.setParcel(targetParcel);
         insectRepository.save(insect);
     }
 
-    public void applyInsecticideEffect(Long parcelId, double effectiveness) {
-        List<Insect> insects = insectRepository.findByParcelId(parcelId);
+    public void applyInsecticideEffect(Long gardenId, Long parcelId, double effectiveness) {
+        gardenWorldService.invalidate(gardenId);
+        List<Insect> insects = insectRepository.findByParcelIdAndGardenId(parcelId, gardenId);
 
         insects.forEach(insect -> {
-            if (Math.random() > insect.getInsecticideResistance()) {
+            SplittableRandom random = randomStreamService.forCurrentStep(gardenId, RandomStreams.INSECTICIDE, insect.getId());
+            if (random.nextDouble() > insect.getInsecticideResistance()) {
                 insect.setHealthIndex(0);
             } else {
-                int damage = (int) (Math.random() * effectiveness * 5);
+                int damage = (int) (random.nextDouble() * effectiveness * 5);
                 insect.setHealthIndex(Math.max(0, insect.getHealthIndex() - damage));
             }
         });
@@ -0,0 +1,173 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.enums.WorldStorage;
+import com.potager.config.SimulationProperties;
+import com.potager.engine.GridIndex;
+import com.potager.engine.columns.HeapColumnFactory;
+import com.potager.engine.columns.MappedColumnFactory;
+import com.potager.models.Parcel;
+import com.potager.repositories.ParcelRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Coordinate index of parcel ids, one per garden, built from the table the first time it is needed
+ * and kept in sync by ParcelService. Replaces the per-neighbour findByxCoordinateAndyCoordinate
+ * queries. Each garden's index has its own lock, so rebuilding a large garden never blocks another.
+ *
+ * Changes made in a transaction reach the index once it commits, so other threads never see a
+ * parcel that is not in the table yet, and a rollback leaves nothing behind.
+ */
+@Service
+@RequiredArgsConstructor
+public class ParcelGridService {
+
+    private final ParcelRepository parcelRepository;
+    private final SimulationProperties simulationProperties;
+
+    private final Map<Long, GridSlot> grids = new ConcurrentHashMap<>();
+
+    /**
+     * A new index of the garden's parcels as the table holds them, for the caller alone.
+     */
+    public GridIndex<Long> readIndex(Long gardenId) {
+        GridIndex<Long> index = new GridIndex<>(maxGridCells());
+        for (Object[] row : parcelRepository.findAllCoordinates(gardenId)) {
+            index.put((Integer) row[1], (Integer) row[2], (Long) row[0]);
+        }
+        return index;
+    }
+
+    /**
+     * Makes the index the garden's once the transaction commits; it must hold every parcel the
+     * table will then hold.
+     */
+    public void install(Long gardenId, GridIndex<Long> index) {
+        afterCommit(() -> {
+            GridSlot slot = slot(gardenId);
+            synchronized (slot) {
+                slot.grid = index;
+            }
+        });
+    }
+
+    /**
+     * The garden's parcels were rewritten wholesale: once the transaction commits its index is
+     * dropped, and rebuilt from the table the next time it is needed.
+     */
+    public void parcelsReplaced(Long gardenId) {
+        afterCommit(() -> {
+            GridSlot slot = slot(gardenId);
+            synchronized (slot) {
+                slot.grid = null;
+            }
+        });
+    }
+
+    public boolean contains(Long gardenId, int x, int y) {
+        GridSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return grid(gardenId, slot).contains(x, y);
+        }
+    }
+
+    /**
+     * Largest bounding box, in cells, a garden's world can be built on: memory-mapped worlds of the
+     * MEMORY engine go up to the largest int column, every other world is a heap one.
+     */
+    public long maxGridCells() {
+        if (simulationProperties.getEngine() == EngineMode.MEMORY && simulationProperties.getStorage() == WorldStorage.MAPPED) {
+            return MappedColumnFactory.MAX_GRID_CELLS;
+        }
+        return HeapColumnFactory.MAX_GRID_CELLS;
+    }
+
+    /**
+     * Whether a parcel at (x, y) keeps the garden's bounding box within {@link #maxGridCells()}.
+     */
+    public boolean fits(Long gardenId, int x, int y) {
+        GridSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return grid(gardenId, slot).fits(x, y);
+        }
+    }
+
+    public Long findParcelId(Long gardenId, int x, int y) {
+        GridSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return grid(gardenId, slot).get(x, y);
+        }
+    }
+
+    public List<Long> findAdjacentParcelIds(Long gardenId, int x, int y) {
+        GridSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return grid(gardenId, slot).findAdjacent(x, y);
+        }
+    }
+
+    public List<Long> findParcelIdsInRadius(Long gardenId, int x, int y, int radius) {
+        GridSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return grid(gardenId, slot).findInRadius(x, y, radius);
+        }
+    }
+
+    public void parcelCreated(Parcel parcel) {
+        afterCommit(() -> update(parcel.getGardenId(),
+                grid -> grid.put(parcel.getXCoordinate(), parcel.getYCoordinate(), parcel.getId())));
+    }
+
+    public void parcelDeleted(Parcel parcel) {
+        afterCommit(() -> update(parcel.getGardenId(),
+                grid -> grid.remove(parcel.getXCoordinate(), parcel.getYCoordinate())));
+    }
+
+    // An index not built yet will read the change from the table
+    private void update(Long gardenId, Consumer<GridIndex<Long>> change) {
+        GridSlot slot = slot(gardenId);
+        synchronized (slot) {
+            if (slot.grid != null) {
+                change.accept(slot.grid);
+            }
+        }
+    }
+
+    // Runs the change once the current transaction commits, or right away outside of one
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private GridSlot slot(Long gardenId) {
+        return grids.computeIfAbsent(gardenId, id -> new GridSlot());
+    }
+
+    // Called with the slot lock held
+    private GridIndex<Long> grid(Long gardenId, GridSlot slot) {
+        if (slot.grid == null) {
+            slot.grid = readIndex(gardenId);
+        }
+        return slot.grid;
+    }
+
+    private static class GridSlot {
+        private GridIndex<Long> grid;
+    }
+}
@@ -23,40 +23,64 @@ public class ParcelService {
 
     private final ParcelRepository parcelRepository;
     private final GardenMapper gardenMapper;
+    private final GardenWorldService gardenWorldService;
+    private final TreatmentCalendarService treatmentCalendarService;
+    private final ParcelGridService parcelGridService;
 
-    public List<ParcelDTO> getAllParcels() {
-        return parcelRepository.findAll().stream()
+    public List<ParcelDTO> getAllParcels(Long gardenId) {
+        return parcelRepository.findByGardenId(gardenId).stream()
                 .map(gardenMapper::parcelToParcelDTO)
                 .collect(Collectors.toList());
     }
 
-    public ParcelDTO getParcelById(Long id) {
-        return parcelRepository.findById(id)
+    public ParcelDTO getParcelById(Long gardenId, Long id) {
+        return parcelRepository.findByIdAndGardenId(id, gardenId)
                 .map(gardenMapper::parcelToParcelDTO)
                 .orElseThrow(() -> new EntityNotFoundException("Parcel not found"));
     }
 
-    public ParcelDTO createParcel(ParcelDTO parcelDTO) {
-        if (parcelRepository.existsByxCoordinateAndyCoordinate(
-                parcelDTO.getXCoordinate(), parcelDTO.getYCoordinate())) {
+    public ParcelDTO createParcel(Long gardenId, ParcelDTO parcelDTO) {
+        if (parcelDTO.getXCoordinate() == null || parcelDTO.getYCoordinate() == null) {
+            throw new IllegalArgumentException("Parcel coordinates are required");
+        }
+        gardenWorldService.invalidate(gardenId);
+        if (parcelGridService.contains(gardenId, parcelDTO.getXCoordinate(), parcelDTO.getYCoordinate())) {
             throw new IllegalArgumentException("Parcel at these coordinates already exists");
         }
+        if (!parcelGridService.fits(gardenId, parcelDTO.getXCoordinate(), parcelDTO.getYCoordinate())) {
+            throw new IllegalArgumentException("Parcel at (" + parcelDTO.getXCoordinate() + ", " + parcelDTO.getYCoordinate()
+                    + ") would stretch the garden past " + parcelGridService.maxGridCells() + " cells");
+        }
 
         Parcel parcel = new Parcel();
+        parcel.setGardenId(gardenId);
         parcel.setXCoordinate(parcelDTO.getXCoordinate());
         parcel.setYCoordinate(parcelDTO.getYCoordinate());
         parcel.setHumidityLevel(parcelDTO.getHumidityLevel() != null ?
                 parcelDTO.getHumidityLevel() : 50.0);
 
-        return gardenMapper.parcelToParcelDTO(parcelRepository.save(parcel));
+        Parcel savedParcel = parcelRepository.save(parcel);
+        parcelGridService.parcelCreated(savedParcel);
+        treatmentCalendarService.parcelsChanged(gardenId);
+        return gardenMapper.parcelToParcelDTO(savedParcel);
     }
 
-    public void deleteParcel(Long id) {
-        parcelRepository.deleteById(id);
+    public void deleteParcel(Long gardenId, Long id) {
+        gardenWorldService.invalidate(gardenId);
+        parcelRepository.findByIdAndGardenId(id, gardenId).ifPresent(parcel -> {
+            parcelGridService.parcelDeleted(parcel);
+            if (parcel.getTreatmentDevice() != null) {
+                // The device and its programs go with the parcel
+                treatmentCalendarService.evict(gardenId);
+            } else {
+                treatmentCalendarService.parcelsChanged(gardenId);
+            }
+            parcelRepository.delete(parcel);
+        });
     }
 
-    public List<ParcelDTO> getDryParcels(double humidityThreshold) {
-        return parcelRepository.findDryParcels(humidityThreshold).stream()
+    public List<ParcelDTO> getDryParcels(Long gardenId, double humidityThreshold) {
+        return parcelRepository.findDryParcels(gardenId, humidityThreshold).stream()
                 .map(gardenMapper::parcelToParcelDTO)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,259 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.mappers.WorldMapper;
+import com.potager.Utils.mappers.interfaces.GardenMapper;
+import com.potager.config.SimulationProperties;
+import com.potager.dtos.InsectDTO;
+import com.potager.dtos.ParcelDTO;
+import com.potager.dtos.ParcelPageDTO;
+import com.potager.dtos.PlantDTO;
+import com.potager.dtos.TreatmentDeviceDTO;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.ParcelStore;
+import com.potager.models.Parcel;
+import com.potager.repositories.InsectRepository;
+import com.potager.repositories.ParcelRepository;
+import com.potager.repositories.PlantRepository;
+import com.potager.repositories.TreatmentDeviceRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Parcels of a window of the garden, a page at a time, for clients that show part of a large garden.
+ *
+ * Pages run row by row, then by x, and continue after the (x, y) cursor of the previous one. Gardens
+ * run by the MEMORY engine are read from their world cell by cell; the others from the tables, one
+ * index seek per row of the window and at most one row per parcel of the page, so a page costs what
+ * the window holds whatever the size of the garden. Plants, insects and treatment devices are only
+ * loaded when asked for, with one query each for the whole page.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ParcelViewportService {
+
+    public static final String PLANTS = "plants";
+    public static final String INSECTS = "insects";
+    public static final String DEVICES = "devices";
+
+    private final SimulationProperties simulationProperties;
+    private final GardenWorldService gardenWorldService;
+    private final WorldMapper worldMapper;
+    private final GardenMapper gardenMapper;
+    private final ParcelRepository parcelRepository;
+    private final PlantRepository plantRepository;
+    private final InsectRepository insectRepository;
+    private final TreatmentDeviceRepository treatmentDeviceRepository;
+
+    /**
+     * Whether pages are read from the in-memory world, which runs ahead of the tables and so of
+     * {@link GardenVersionService}: such pages cannot be answered from an ETag.
+     */
+    public boolean readsWorld() {
+        return simulationProperties.getEngine() == EngineMode.MEMORY;
+    }
+
+    /**
+     * Parcels in [minX, maxX] x [minY, maxY] after the cursor (afterX, afterY), if any, up to limit.
+     * Include names what to load with each parcel: plants, insects and/or devices.
+     */
+    public ParcelPageDTO getViewport(Long gardenId, int minX, int maxX, int minY, int maxY,
+                                     Integer afterX, Integer afterY, Integer limit, Set<String> include) {
+        if (minX > maxX || minY > maxY) {
+            throw new IllegalArgumentException("Empty viewport: minX must not exceed maxX, nor minY maxY");
+        }
+        if ((afterX == null) != (afterY == null)) {
+            throw new IllegalArgumentException("afterX and afterY go together");
+        }
+        int pageSize = pageSize(limit);
+        Includes includes = Includes.parse(include);
+        ParcelPageDTO page = ParcelPageDTO.builder()
+                .gardenId(gardenId)
+                .minX(minX)
+                .maxX(maxX)
+                .minY(minY)
+                .maxY(maxY)
+                .parcels(List.of())
+                .build();
+
+        // Scan from row firstRow, from fromX on that row and from minX on the next ones
+        int firstRow = minY;
+        int fromX = minX;
+        if (afterY != null && afterY >= minY) {
+            if (afterY > maxY || (afterY == maxY && afterX >= maxX)) {
+                return page;
+            }
+            firstRow = afterX >= maxX ? afterY + 1 : afterY;
+            fromX = afterX >= maxX ? minX : Math.max(minX, afterX + 1);
+        }
+
+        if (readsWorld()) {
+            int row = firstRow;
+            int from = fromX;
+            return gardenWorldService.read(gardenId, world -> readWorld(world, page, row, from, pageSize, includes));
+        }
+        return readTables(gardenId, page, firstRow, fromX, pageSize, includes);
+    }
+
+    /**
+     * Tile (x, y) at zoom z: a square of tileSize << z parcels a side, tile (0, 0) starting at (0, 0).
+     */
+    public ParcelPageDTO getTile(Long gardenId, int z, int x, int y,
+                                 Integer afterX, Integer afterY, Integer limit, Set<String> include) {
+        SimulationProperties.Viewport viewport = simulationProperties.getViewport();
+        if (z < 0 || z > viewport.getMaxZoom()) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + viewport.getMaxZoom());
+        }
+        long side = (long) viewport.getTileSize() << z;
+        long minX = x * side;
+        long minY = y * side;
+        long maxX = minX + side - 1;
+        long maxY = minY + side - 1;
+        if (minX < Integer.MIN_VALUE || minY < Integer.MIN_VALUE || maxX > Integer.MAX_VALUE || maxY > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " is out of range");
+        }
+        return getViewport(gardenId, (int) minX, (int) maxX, (int) minY, (int) maxY, afterX, afterY, limit, include);
+    }
+
+    private ParcelPageDTO readWorld(GardenWorld world, ParcelPageDTO page, int firstRow, int fromX,
+                                    int pageSize, Includes includes) {
+        ParcelStore parcels = world.getParcels();
+        // Only the part of the window the garden covers is scanned
+        long lastX = Math.min(page.getMaxX(), (long) parcels.getMinX() + parcels.getWidth() - 1);
+        long lastY = Math.min(page.getMaxY(), (long) parcels.getMinY() + parcels.getHeight() - 1);
+        int[] ordinals = new int[pageSize + 1];
+        int count = 0;
+        for (long y = Math.max(firstRow, parcels.getMinY()); y <= lastY && count <= pageSize; y++) {
+            long startX = Math.max(y == firstRow ? fromX : page.getMinX(), parcels.getMinX());
+            for (long x = startX; x <= lastX && count <= pageSize; x++) {
+                int ordinal = parcels.at((int) x, (int) y);
+                if (ordinal != ParcelStore.NONE) {
+                    ordinals[count++] = ordinal;
+                }
+            }
+        }
+        List<ParcelDTO> result = worldMapper.toParcelDTOs(world, Arrays.copyOf(ordinals, Math.min(count, pageSize)));
+        result.forEach(includes::strip);
+        page.setParcels(result);
+        if (count > pageSize) {
+            int last = ordinals[pageSize - 1];
+            page.setNextAfterX(parcels.getX(last));
+            page.setNextAfterY(parcels.getY(last));
+        }
+        return page;
+    }
+
+    private ParcelPageDTO readTables(Long gardenId, ParcelPageDTO page, int firstRow, int fromX,
+                                     int pageSize, Includes includes) {
+        // A page spans at most pageSize rows, so a sparse window never costs more than a full page
+        int lastRow = (int) Math.min(page.getMaxY(), (long) firstRow + pageSize - 1);
+        List<Integer> rows = new ArrayList<>(lastRow - firstRow + 1);
+        for (int row = firstRow; row <= lastRow && row >= firstRow; row++) {
+            rows.add(row);
+        }
+        List<Parcel> parcels = parcelRepository.findInRows(gardenId, rows, page.getMinX(), page.getMaxX(),
+                firstRow, fromX, PageRequest.ofSize(pageSize + 1));
+
+        if (parcels.size() > pageSize) {
+            parcels = parcels.subList(0, pageSize);
+            Parcel last = parcels.get(pageSize - 1);
+            page.setNextAfterX(last.getXCoordinate());
+            page.setNextAfterY(last.getYCoordinate());
+        } else if (lastRow < page.getMaxY()) {
+            // Every parcel of these rows is on the page; the next one starts on the row after
+            page.setNextAfterX(page.getMaxX());
+            page.setNextAfterY(lastRow);
+        }
+        page.setParcels(toParcelDTOs(parcels, includes));
+        return page;
+    }
+
+    private List<ParcelDTO> toParcelDTOs(List<Parcel> parcels, Includes includes) {
+        List<Long> ids = parcels.stream().map(Parcel::getId).toList();
+        Map<Long, List<PlantDTO>> plants = includes.plants() && !ids.isEmpty()
+                ? plantRepository.findByParcelIdIn(ids).stream()
+                    .collect(Collectors.groupingBy(plant -> plant.getParcel().getId(),
+                            Collectors.mapping(gardenMapper::plantToPlantDTO, Collectors.toList())))
+                : Map.of();
+        Map<Long, List<InsectDTO>> insects = new HashMap<>();
+        if (includes.insects() && !ids.isEmpty()) {
+            insectRepository.findByParcelIdIn(ids).forEach(insect -> {
+                InsectDTO dto = gardenMapper.insectToInsectDTO(insect);
+                dto.setParcelId(insect.getParcel().getId());
+                insects.computeIfAbsent(dto.getParcelId(), id -> new ArrayList<>()).add(dto);
+            });
+        }
+        Map<Long, TreatmentDeviceDTO> devices = includes.devices() && !ids.isEmpty()
+                ? treatmentDeviceRepository.findWithProgramsByParcelIdIn(ids).stream()
+                    .collect(Collectors.toMap(device -> device.getParcel().getId(),
+                            gardenMapper::treatmentDeviceToTreatmentDeviceDTO))
+                : Map.of();
+
+        return parcels.stream()
+                .map(parcel -> ParcelDTO.builder()
+                        .id(parcel.getId())
+                        .xCoordinate(parcel.getXCoordinate())
+                        .yCoordinate(parcel.getYCoordinate())
+                        .humidityLevel(parcel.getHumidityLevel())
+                        .plants(includes.plants() ? plants.getOrDefault(parcel.getId(), List.of()) : null)
+                        .insects(includes.insects() ? insects.getOrDefault(parcel.getId(), List.of()) : null)
+                        .treatmentDevice(devices.get(parcel.getId()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private int pageSize(Integer limit) {
+        SimulationProperties.Viewport viewport = simulationProperties.getViewport();
+        if (limit == null) {
+            return Math.min(viewport.getPageSize(), viewport.getMaxPageSize());
+        }
+        if (limit < 1 || limit > viewport.getMaxPageSize()) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + viewport.getMaxPageSize());
+        }
+        return limit;
+    }
+
+    private record Includes(boolean plants, boolean insects, boolean devices) {
+
+        static Includes parse(Set<String> include) {
+            if (include == null) {
+                return new Includes(false, false, false);
+            }
+            Set<String> names = include.stream()
+                    .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                    .filter(name -> !name.isEmpty())
+                    .collect(Collectors.toSet());
+            for (String name : names) {
+                if (!name.equals(PLANTS) && !name.equals(INSECTS) && !name.equals(DEVICES)) {
+                    throw new IllegalArgumentException("Unknown include '" + name + "', expected plants, insects or devices");
+                }
+            }
+            return new Includes(names.contains(PLANTS), names.contains(INSECTS), names.contains(DEVICES));
+        }
+
+        // Drops from a parcel read from the world whatever was not asked for
+        void strip(ParcelDTO parcel) {
+            if (!plants) {
+                parcel.setPlants(null);
+            }
+            if (!insects) {
+                parcel.setInsects(null);
+            }
+            if (!devices) {
+                parcel.setTreatmentDevice(null);
+            }
+        }
+    }
+}
@@ -27,12 +27,15 @@ public class PlantService {
     private final PlantRepository plantRepository;
     private final ParcelRepository parcelRepository;
     private final GardenMapper gardenMapper;
+    private final GardenWorldService gardenWorldService;
 
-    public PlantDTO createPlant(PlantDTO plantDTO) {
-        Parcel parcel = parcelRepository.findById(plantDTO.getParcelId())
+    public PlantDTO createPlant(Long gardenId, PlantDTO plantDTO) {
+        gardenWorldService.invalidate(gardenId);
+        Parcel parcel = parcelRepository.findByIdAndGardenId(plantDTO.getParcelId(), gardenId)
                 .orElseThrow(() -> new EntityNotFoundException("Parcel not found"));
 
         Plant plant = new Plant();
+        plant.setGardenId(gardenId);
         plant.setSpecies(plantDTO.getSpecies());
         plant.setMaturityAge(plantDTO.getMaturityAge());
         plant.setIsRunner(plantDTO.getIsRunner() != null ? plantDTO.getIsRunner() : false);
@@ -42,19 +45,22 @@ public class PlantService {
         return gardenMapper.plantToPlantDTO(plantRepository.save(plant));
     }
 
-    public List<PlantDTO> getPlantsByParcel(Long parcelId) {
-        return plantRepository.findByParcelId(parcelId).stream()
+    public List<PlantDTO> getPlantsByParcel(Long gardenId, Long parcelId) {
+        return plantRepository.findByParcelIdAndGardenId(parcelId, gardenId).stream()
                 .map(gardenMapper::plantToPlantDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<PlantDTO> getMaturePlants() {
-        return plantRepository.findMaturePlants().stream()
+    public List<PlantDTO> getMaturePlants(Long gardenId) {
+        return plantRepository.findMaturePlants(gardenId).stream()
                 .map(gardenMapper::plantToPlantDTO)
                 .collect(Collectors.toList());
     }
 
-    public void harvestPlant(Long plantId) {
-        plantRepository.deleteById(plantId);
+    public void harvestPlant(Long gardenId, Long plantId) {
+        gardenWorldService.invalidate(gardenId);
+        if (plantRepository.existsByIdAndGardenId(plantId, gardenId)) {
+            plantRepository.deleteById(plantId);
+        }
     }
 }
\ No newline at end of file
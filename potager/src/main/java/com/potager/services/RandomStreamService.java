@@ -0,0 +1,73 @@
+package com.potager.services;
+
+import com.potager.engine.RandomStreams;
+import com.potager.models.SimulationState;
+import com.potager.repositories.SimulationStateRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hands out the seeded {@link RandomStreams} of each garden. The seed lives on the garden's
+ * SimulationState so a run can be reproduced after a restart; a state without one is given a random
+ * seed on first use.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class RandomStreamService {
+
+    private final SimulationStateRepository simulationStateRepository;
+
+    private final Map<Long, RandomStreams> streams = new ConcurrentHashMap<>();
+
+    public RandomStreams getStreams(Long gardenId) {
+        return streams.computeIfAbsent(gardenId, this::loadStreams);
+    }
+
+    public SplittableRandom forEntity(Long gardenId, int step, long kind, long key) {
+        return getStreams(gardenId).forEntity(step, kind, key);
+    }
+
+    public SplittableRandom forTreatment(Long gardenId, int step, long programId, long key) {
+        return getStreams(gardenId).forTreatment(step, programId, key);
+    }
+
+    // For effects applied outside a step: keyed on the step the garden is currently at
+    public SplittableRandom forCurrentStep(Long gardenId, long kind, long key) {
+        int step = simulationStateRepository.findByGardenId(gardenId)
+                .map(SimulationState::getCurrentStep)
+                .orElse(0);
+        return forEntity(gardenId, step, kind, key);
+    }
+
+    public RandomStreams reseed(Long gardenId, long seed) {
+        RandomStreams reseeded = new RandomStreams(seed);
+        streams.put(gardenId, reseeded);
+        return reseeded;
+    }
+
+    public RandomStreams reload(Long gardenId) {
+        RandomStreams reloaded = loadStreams(gardenId);
+        streams.put(gardenId, reloaded);
+        return reloaded;
+    }
+
+    private RandomStreams loadStreams(Long gardenId) {
+        Long seed = simulationStateRepository.findByGardenId(gardenId)
+                .map(state -> {
+                    if (state.getSeed() == null) {
+                        state.setSeed(ThreadLocalRandom.current().nextLong());
+                        simulationStateRepository.save(state);
+                    }
+                    return state.getSeed();
+                })
+                .orElseGet(() -> ThreadLocalRandom.current().nextLong());
+        return new RandomStreams(seed);
+    }
+}
@@ -0,0 +1,329 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.TickPolicy;
+import com.potager.config.SimulationProperties;
+import com.potager.dtos.SimulationClockDTO;
+import com.potager.dtos.SimulationStateDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the running gardens. A single thread wakes up every resolution-millis, works out how many
+ * steps are due for each garden at its speed and hands the garden a slice on a bounded worker pool;
+ * a 1000x speed gives about a thousand steps per second instead of one.
+ *
+ * A garden has at most one slice in flight, and a slice is capped at slice-millis of work using the
+ * garden's measured step time. Waiting gardens queue in order on the pool, so a heavy garden only
+ * ever holds one worker for one slice before the others get their turn.
+ *
+ * Running and speed are kept here, in memory; SimulationService only persists them when they change.
+ * Slices never write the world back themselves, GardenWorldService's flush interval and period
+ * decide; the clock only flushes the gardens it drives when it shuts down.
+ */
+@Service
+public class SimulationClock {
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ObjectProvider<SimulationService> simulationService;
+    private final GardenWorldService gardenWorldService;
+    private final SimulationProperties simulationProperties;
+
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "simulation-clock"));
+    private final ThreadPoolExecutor workers;
+    private final Map<Long, GardenClock> clocks = new ConcurrentHashMap<>();
+    private final Counter executedCounter;
+    private final Counter skippedCounter;
+    private final Counter overrunCounter;
+
+    public SimulationClock(ObjectProvider<SimulationService> simulationService,
+                           GardenWorldService gardenWorldService,
+                           SimulationProperties simulationProperties,
+                           MeterRegistry meterRegistry) {
+        this.simulationService = simulationService;
+        this.gardenWorldService = gardenWorldService;
+        this.simulationProperties = simulationProperties;
+
+        int threads = simulationProperties.getClock().getWorkers() > 0
+                ? simulationProperties.getClock().getWorkers()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "simulation-worker-" + threadCount.incrementAndGet()));
+
+        this.executedCounter = meterRegistry.counter("potager.simulation.clock.steps");
+        this.skippedCounter = meterRegistry.counter("potager.simulation.clock.skipped");
+        this.overrunCounter = meterRegistry.counter("potager.simulation.clock.overruns");
+        Gauge.builder("potager.simulation.clock.lag", this::totalLag).register(meterRegistry);
+        Gauge.builder("potager.simulation.clock.steps-per-second", this::totalStepsPerSecond).register(meterRegistry);
+        Gauge.builder("potager.simulation.clock.running-gardens", this::runningGardens).register(meterRegistry);
+        Gauge.builder("potager.simulation.clock.queued-slices", () -> workers.getQueue().size()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startTicking() {
+        for (SimulationStateDTO state : simulationService.getObject().getGardens()) {
+            if (state.getIsRunning()) {
+                start(state.getGardenId(), state.getSpeedMultiplier());
+            } else {
+                setSpeed(state.getGardenId(), state.getSpeedMultiplier());
+            }
+        }
+        long resolution = Math.max(1, simulationProperties.getClock().getResolutionMillis());
+        timer.scheduleAtFixedRate(this::tick, resolution, resolution, TimeUnit.MILLISECONDS);
+    }
+
+    public void start(Long gardenId, double speedMultiplier) {
+        GardenClock clock = clock(gardenId);
+        synchronized (clock) {
+            clock.speedMultiplier = speedMultiplier;
+            if (!clock.running) {
+                clock.reanchor();
+                clock.running = true;
+            }
+        }
+    }
+
+    /**
+     * Stops handing out slices to the garden and waits for the one in flight, if any, to commit:
+     * once this returns nothing steps the garden until it is started again.
+     */
+    public void pause(Long gardenId) {
+        GardenClock clock = clock(gardenId);
+        synchronized (clock) {
+            clock.running = false;
+            clock.lagSteps = 0;
+            while (clock.inFlight) {
+                try {
+                    clock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public void setSpeed(Long gardenId, double speedMultiplier) {
+        GardenClock clock = clock(gardenId);
+        synchronized (clock) {
+            clock.speedMultiplier = speedMultiplier;
+            clock.reanchor();
+        }
+    }
+
+    public boolean isRunning(Long gardenId) {
+        GardenClock clock = clocks.get(gardenId);
+        return clock != null && clock.running;
+    }
+
+    public SimulationClockDTO getStatus(Long gardenId) {
+        GardenClock clock = clock(gardenId);
+        return SimulationClockDTO.builder()
+                .gardenId(gardenId)
+                .running(clock.running)
+                .speedMultiplier(clock.speedMultiplier)
+                .policy(simulationProperties.getClock().getPolicy())
+                .targetStepsPerSecond(clock.running ? clock.speedMultiplier : 0.0)
+                .achievedStepsPerSecond(clock.achievedStepsPerSecond)
+                .lagSteps(clock.lagSteps)
+                .executedSteps(clock.executedSteps)
+                .skippedSteps(clock.skippedSteps)
+                .overruns(clock.overruns)
+                .lastTickMillis(clock.lastSliceMillis)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdown();
+        try {
+            // Slices already handed out finish before their gardens are written back
+            if (!workers.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Simulation slices still running after {} s, flushing anyway", SHUTDOWN_WAIT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Long gardenId : clocks.keySet()) {
+            try {
+                gardenWorldService.flush(gardenId);
+            } catch (RuntimeException e) {
+                logger.error("Flushing garden {} on shutdown failed: {}", gardenId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            for (Map.Entry<Long, GardenClock> entry : clocks.entrySet()) {
+                GardenClock clock = entry.getValue();
+                int steps = claimDueSteps(clock, now);
+                if (steps > 0) {
+                    workers.execute(() -> runSlice(entry.getKey(), clock, steps));
+                }
+                clock.updateAchievedRate(now);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task, so log and keep ticking
+            logger.error("Simulation tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private int claimDueSteps(GardenClock clock, long now) {
+        synchronized (clock) {
+            if (!clock.running || clock.inFlight) {
+                return 0;
+            }
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / clock.speedMultiplier);
+            long due = (now - clock.anchorNanos) / Math.max(1, intervalNanos) - clock.stepsSinceAnchor;
+            if (due <= 0) {
+                clock.lagSteps = 0;
+                return 0;
+            }
+
+            int steps = (int) Math.min(due, sliceQuota(clock));
+            if (simulationProperties.getClock().getPolicy() == TickPolicy.SKIP && due > steps) {
+                skippedCounter.increment(due - steps);
+                clock.skippedSteps += due - steps;
+                clock.stepsSinceAnchor += due - steps;
+                clock.lagSteps = 0;
+            } else {
+                clock.lagSteps = due - steps;
+            }
+            clock.stepsSinceAnchor += steps;
+            clock.inFlight = true;
+            return steps;
+        }
+    }
+
+    // Steps that fit in one slice at the garden's measured cost, never more than max-steps-per-tick
+    private int sliceQuota(GardenClock clock) {
+        int maxSteps = Math.max(1, simulationProperties.getClock().getMaxStepsPerTick());
+        if (clock.stepNanos <= 0) {
+            return maxSteps;
+        }
+        long sliceNanos = TimeUnit.MILLISECONDS.toNanos(simulationProperties.getClock().getSliceMillis());
+        return (int) Math.max(1, Math.min(maxSteps, sliceNanos / clock.stepNanos));
+    }
+
+    private void runSlice(Long gardenId, GardenClock clock, int steps) {
+        long started = System.nanoTime();
+        int executed = 0;
+        try {
+            executed = simulationService.getObject().executeRunningSteps(gardenId, steps);
+            executedCounter.increment(executed);
+        } catch (RuntimeException e) {
+            logger.error("Simulation slice of garden {} failed: {}", gardenId, e.getMessage(), e);
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            boolean overrun = elapsed > TimeUnit.MILLISECONDS.toNanos(simulationProperties.getClock().getSliceMillis());
+            if (overrun) {
+                overrunCounter.increment();
+            }
+            synchronized (clock) {
+                // Claimed steps the slice did not run, because the garden paused or the slice failed: due
+                // again under CATCH_UP, skipped under SKIP, never counted as run
+                int shortfall = steps - executed;
+                if (shortfall > 0) {
+                    if (simulationProperties.getClock().getPolicy() == TickPolicy.SKIP) {
+                        skippedCounter.increment(shortfall);
+                        clock.skippedSteps += shortfall;
+                    } else {
+                        clock.stepsSinceAnchor -= shortfall;
+                    }
+                }
+                clock.sliceCompleted(executed, elapsed, overrun);
+                // Wakes a pause waiting for this slice
+                clock.notifyAll();
+            }
+        }
+    }
+
+    private GardenClock clock(Long gardenId) {
+        return clocks.computeIfAbsent(gardenId, id -> new GardenClock());
+    }
+
+    private double totalLag() {
+        return clocks.values().stream().mapToLong(c -> c.lagSteps).sum();
+    }
+
+    private double totalStepsPerSecond() {
+        return clocks.values().stream().mapToDouble(c -> c.achievedStepsPerSecond).sum();
+    }
+
+    private double runningGardens() {
+        return clocks.values().stream().filter(c -> c.running).count();
+    }
+
+    private static class GardenClock {
+        private volatile boolean running;
+        private volatile double speedMultiplier = 1.0;
+        private boolean inFlight;
+
+        private long anchorNanos;
+        private long stepsSinceAnchor;
+        // Moving average of the cost of one step, used to size the slices
+        private long stepNanos;
+
+        private volatile long lagSteps;
+        private volatile long executedSteps;
+        private volatile long skippedSteps;
+        private volatile long overruns;
+        private volatile long lastSliceMillis;
+        private volatile double achievedStepsPerSecond;
+        private long windowStartNanos = System.nanoTime();
+        private long windowSteps;
+
+        private void reanchor() {
+            anchorNanos = System.nanoTime();
+            stepsSinceAnchor = 0;
+            lagSteps = 0;
+        }
+
+        private void sliceCompleted(int steps, long elapsedNanos, boolean overrun) {
+            inFlight = false;
+            if (steps > 0) {
+                long perStep = elapsedNanos / steps;
+                stepNanos = stepNanos == 0 ? perStep : (stepNanos * 3 + perStep) / 4;
+            }
+            executedSteps += steps;
+            windowSteps += steps;
+            lastSliceMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            if (overrun) {
+                overruns++;
+            }
+        }
+
+        private synchronized void updateAchievedRate(long now) {
+            long elapsed = now - windowStartNanos;
+            if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+                achievedStepsPerSecond = windowSteps * 1e9 / elapsed;
+                windowSteps = 0;
+                windowStartNanos = now;
+            }
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.potager.services;
 
+import com.potager.Utils.enums.EngineMode;
+import com.potager.config.SimulationProperties;
+import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.SimulationStateDTO;
+import com.potager.engine.RandomStreams;
 import com.potager.models.*;
 import com.potager.repositories.*;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,117 +25,233 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SimulationService {
 
+    private static final double HUMIDITY_DECAY = 0.98;
+
     private final ParcelRepository parcelRepository;
     private final PlantRepository plantRepository;
     private final InsectRepository insectRepository;
     private final TreatmentService treatmentService;
     private final SimulationStateRepository simulationStateRepository;
-
-    private long lastExecutionTime = 0;
-
-    private boolean shouldExecuteStep() {
-        double multiplier = getCurrentSpeedMultiplier();
-        long now = System.currentTimeMillis();
-        long interval = Math.round(1000 / multiplier);
-        if (now - lastExecutionTime >= interval) {
-            lastExecutionTime = now;
-            return true;
-        }
-        return false;
+    private final GardenWorldService gardenWorldService;
+    private final SimulationProperties simulationProperties;
+    private final ParcelGridService parcelGridService;
+    private final RandomStreamService randomStreamService;
+    private final SimulationClock simulationClock;
+    private final SqlStepService sqlStepService;
+    private final StepJournalService stepJournalService;
+    private final CheckpointService checkpointService;
+    private final GardenStreamService gardenStreamService;
+    private final GardenVersionService gardenVersionService;
+    private final GardenJobRegistry gardenJobRegistry;
+
+
+    public List<SimulationStateDTO> getGardens() {
+        return simulationStateRepository.findAll().stream()
+                .sorted(Comparator.comparing(SimulationState::getGardenId))
+                .map(this::toDTO)
+                .collect(Collectors.toList());
     }
 
-    @Scheduled(fixedRate = 1000)
-    public void runSimulation() {
-        if (shouldExecuteStep()) {
-            SimulationState state = getSimulationState();
-            if (state.getIsRunning()) {
-                executeSimulationStep(state);
-            }
-        }
+    public SimulationStateDTO getSimulationStatus(Long gardenId) {
+        return toDTO(getSimulationState(gardenId));
     }
 
+    public boolean gardenExists(Long gardenId) {
+        return simulationStateRepository.findByGardenId(gardenId).isPresent();
+    }
 
-    public SimulationStateDTO getSimulationStatus() {
-        SimulationState state = getSimulationState();
-        return SimulationStateDTO.builder()
-                .currentStep(state.getCurrentStep())
-                .isRunning(state.getIsRunning())
-                .speedMultiplier(state.getSpeedMultiplier())
-                .build();
+    /**
+     * Creates the garden's simulation state. Refused if the garden already exists: the unique
+     * garden_id catches a concurrent creation the check misses.
+     */
+    public SimulationStateDTO createGarden(Long gardenId) {
+        if (gardenExists(gardenId)) {
+            throw new IllegalStateException("Garden " + gardenId + " already exists");
+        }
+        return toDTO(newSimulationState(gardenId));
     }
 
-    public void startSimulation() {
-        SimulationState state = getSimulationState();
+    public void startSimulation(Long gardenId) {
+        gardenJobRegistry.checkIdle(gardenId);
+        SimulationState state = getSimulationState(gardenId);
         state.setIsRunning(true);
         simulationStateRepository.save(state);
+        simulationClock.start(gardenId, state.getSpeedMultiplier());
+        gardenStreamService.publishStatus(toDTO(state));
     }
 
-    public void pauseSimulation() {
-        SimulationState state = getSimulationState();
+    public void pauseSimulation(Long gardenId) {
+        // Returns once the garden's slice in flight, if any, has committed
+        simulationClock.pause(gardenId);
+        SimulationState state = getSimulationState(gardenId);
         state.setIsRunning(false);
         simulationStateRepository.save(state);
+        gardenWorldService.flush(gardenId);
+        gardenStreamService.publishStatus(toDTO(state));
     }
 
-    public void resetSimulation() {
-        SimulationState state = getSimulationState();
+    public void resetSimulation(Long gardenId) {
+        simulationClock.pause(gardenId);
+        SimulationState state = getSimulationState(gardenId);
         state.setCurrentStep(0);
         state.setIsRunning(false);
         simulationStateRepository.save(state);
+        stepJournalService.markBreak(gardenId, 0);
+        checkpointService.discardAfter(gardenId, 0);
+        gardenStreamService.publishStatus(toDTO(state));
+    }
+
+    public void executeSingleStep(Long gardenId) {
+        gardenJobRegistry.checkIdle(gardenId);
+        SimulationState state = getSimulationState(gardenId);
+        int step = state.getCurrentStep() + 1;
+        if (!executeSimulationStep(state, step, false)) {
+            throw new IllegalStateException("Garden " + gardenId + " was stepped or reset meanwhile, try again");
+        }
+        gardenStreamService.publishStep(gardenId, step);
+    }
+
+    /**
+     * Runs the given number of steps in one transaction, without pacing. Returns the step reached.
+     * The world is written back when GardenWorldService's flush interval or period comes due, not
+     * at the end of every run: callers that need the tables caught up flush themselves.
+     */
+    public int executeSteps(Long gardenId, int steps) {
+        SimulationState state = getSimulationState(gardenId);
+        int step = state.getCurrentStep();
+        for (int i = 0; i < steps; i++) {
+            if (!executeSimulationStep(state, step + 1, false)) {
+                throw new IllegalStateException("Garden " + gardenId + " was stepped or reset meanwhile, at step " + step);
+            }
+            step++;
+        }
+        // One update per run: a fast run coalesces its steps into it
+        gardenStreamService.publishStep(gardenId, step);
+        return step;
     }
 
-    public void executeSingleStep() {
-        executeSimulationStep(getSimulationState());
+    /**
+     * The clock's slice: like {@link #executeSteps}, but stops quietly at the first step that finds
+     * the garden paused or reset since the slice was handed out. Returns how many steps were run.
+     */
+    public int executeRunningSteps(Long gardenId, int steps) {
+        SimulationState state = getSimulationState(gardenId);
+        int start = state.getCurrentStep();
+        int step = start;
+        while (step - start < steps && executeSimulationStep(state, step + 1, true)) {
+            step++;
+        }
+        if (step > start) {
+            gardenStreamService.publishStep(gardenId, step);
+        }
+        return step - start;
     }
 
-    public void setSimulationSpeed(double speedMultiplier) {
+    public void setSimulationSpeed(Long gardenId, double speedMultiplier) {
         if (speedMultiplier <= 0) {
             throw new IllegalArgumentException("Speed multiplier must be positive");
         }
-        SimulationState state = getSimulationState();
+        SimulationState state = getSimulationState(gardenId);
         state.setSpeedMultiplier(speedMultiplier);
         simulationStateRepository.save(state);
+        simulationClock.setSpeed(gardenId, speedMultiplier);
+        gardenStreamService.publishStatus(toDTO(state));
     }
 
-    public double getCurrentSpeedMultiplier() {
-        return getSimulationState().getSpeedMultiplier();
+    public void setSimulationSeed(Long gardenId, long seed) {
+        SimulationState state = getSimulationState(gardenId);
+        state.setSeed(seed);
+        simulationStateRepository.save(state);
+        randomStreamService.reseed(gardenId, seed);
     }
 
-    private SimulationState getSimulationState() {
-        // Get or create the single simulation state record
-        return simulationStateRepository.findById(1L)
-                .orElseGet(() -> simulationStateRepository.save(
-                        SimulationState.builder()
-                                .id(1L)
-                                .currentStep(0)
-                                .isRunning(false)
-                                .speedMultiplier(1.0)
-                                .build()));
+    public double getCurrentSpeedMultiplier(Long gardenId) {
+        return getSimulationState(gardenId).getSpeedMultiplier();
     }
 
-    private void executeSimulationStep(SimulationState state) {
-        state.setCurrentStep(state.getCurrentStep() + 1);
-        simulationStateRepository.save(state);
+    private SimulationStateDTO toDTO(SimulationState state) {
+        return SimulationStateDTO.builder()
+                .gardenId(state.getGardenId())
+                .currentStep(state.getCurrentStep())
+                .isRunning(state.getIsRunning())
+                .speedMultiplier(state.getSpeedMultiplier())
+                .seed(state.getSeed())
+                .build();
+    }
 
-        updatePlants();
-        updateInsects();
-        treatmentService.activateTreatments(state.getCurrentStep());
-        updateEnvironmentalConditions();
+    private SimulationState getSimulationState(Long gardenId) {
+        // Other gardens are created through POST /api/gardens/{gardenId}; the default garden of
+        // the single-garden routes still comes into existence on first use
+        return simulationStateRepository.findByGardenId(gardenId)
+                .or(() -> Optional.of(gardenId)
+                        .filter(id -> id == SimulationState.DEFAULT_GARDEN_ID)
+                        .map(this::newSimulationState))
+                .orElseThrow(() -> new EntityNotFoundException("No garden " + gardenId));
     }
 
-    private void updatePlants() {
-        List<Plant> plants = plantRepository.findAll();
-        plants.forEach(plant -> {
-            plant.setCurrentAge(plant.getCurrentAge() + 1);
+    private SimulationState newSimulationState(Long gardenId) {
+        return simulationStateRepository.save(
+                SimulationState.builder()
+                        .gardenId(gardenId)
+                        .currentStep(0)
+                        .isRunning(false)
+                        .speedMultiplier(1.0)
+                        .seed(randomStreamService.getStreams(gardenId).getSeed())
+                        .build());
+    }
+
+    /**
+     * Runs the given step if the garden is still at the one before it, and when onlyIfRunning is
+     * set still running; returns false without running it otherwise. The state is only read: the
+     * step is advanced in place, so a pause or reset committed meanwhile is never written over.
+     */
+    private boolean executeSimulationStep(SimulationState state, int step, boolean onlyIfRunning) {
+        Long gardenId = state.getGardenId();
+        if (simulationStateRepository.advanceStep(gardenId, step, onlyIfRunning) == 0) {
+            return false;
+        }
+
+        if (simulationProperties.getEngine() == EngineMode.MEMORY) {
+            gardenWorldService.executeStep(gardenId, step);
+        } else if (simulationProperties.getEngine() == EngineMode.SQL) {
+            sqlStepService.executeStep(gardenId, step);
+            gardenVersionService.stepWritten(gardenId, step);
+        } else {
+            executeDatabaseStep(gardenId, step);
+            gardenVersionService.stepWritten(gardenId, step);
+        }
+        checkpointService.checkpointIfDue(gardenId, step, state.getSpeedMultiplier());
+        return true;
+    }
 
+    private void executeDatabaseStep(Long gardenId, int currentStep) {
+        // Every plant ages by one: a single statement rather than a write per plant
+        plantRepository.ageAll(gardenId, 1);
+
+        // One query for every parcel of the garden, neighbours are then resolved through the grid index
+        Map<Long, Parcel> parcelsById = parcelRepository.findByGardenId(gardenId).stream()
+                .collect(Collectors.toMap(Parcel::getId, Function.identity()));
+
+        updatePlants(gardenId, parcelsById, currentStep);
+        updateInsects(gardenId, parcelsById, currentStep);
+        treatmentService.activateTreatments(gardenId, currentStep);
+        // Same decay for every parcel, after watering as before
+        parcelRepository.decayHumidity(gardenId, HUMIDITY_DECAY);
+    }
+
+    private void updatePlants(Long gardenId, Map<Long, Parcel> parcelsById, int currentStep) {
+        // Aged in bulk already, only colonization is left; new plants are saved as they are created
+        List<Plant> plants = plantRepository.findByGardenId(gardenId);
+        plants.forEach(plant -> {
             if (plant.getIsRunner() && plant.getColonizationProbability() != null) {
-                tryColonizeAdjacentParcel(plant);
+                tryColonizeAdjacentParcel(plant, parcelsById,
+                        randomStreamService.forEntity(gardenId, currentStep, RandomStreams.PLANT, plant.getId()));
             }
         });
-        plantRepository.saveAll(plants);
     }
 
-    private void updateInsects() {
-        List<Insect> insects = insectRepository.findAll();
+    private void updateInsects(Long gardenId, Map<Long, Parcel> parcelsById, int currentStep) {
+        List<Insect> insects = insectRepository.findByGardenId(gardenId);
 
         insects.forEach(insect -> {
             Parcel parcel = insect.getParcel();
@@ -145,8 +268,9 @@ public class SimulationService {
                 }
             }
 
-            if (Math.random() < insect.getMobility()) {
-                moveInsectToAdjacentParcel(insect);
+            SplittableRandom random = randomStreamService.forEntity(gardenId, currentStep, RandomStreams.INSECT, insect.getId());
+            if (random.nextDouble() < insect.getMobility()) {
+                moveInsectToAdjacentParcel(insect, parcelsById, random);
             }
         });
 
@@ -155,31 +279,21 @@ public class SimulationService {
                 .collect(Collectors.toList());
 
         insectRepository.deleteAll(deadInsects);
-
-        List<Insect> aliveInsects = insects.stream()
-                .filter(i -> i.getHealthIndex() > 0)
-                .collect(Collectors.toList());
-
-        insectRepository.saveAll(aliveInsects);
-    }
-
-
-    private void updateEnvironmentalConditions() {
-        List<Parcel> parcels = parcelRepository.findAll();
-        parcels.forEach(p -> p.setHumidityLevel(p.getHumidityLevel() * 0.98));
-        parcelRepository.saveAll(parcels);
+        // Living insects are managed entities: dirty checking writes the changed ones, and with
+        // @DynamicUpdate only their changed columns
     }
 
-    private void tryColonizeAdjacentParcel(Plant plant) {
-        if (Math.random() < plant.getColonizationProbability()) {
+    private void tryColonizeAdjacentParcel(Plant plant, Map<Long, Parcel> parcelsById, SplittableRandom random) {
+        if (random.nextDouble() < plant.getColonizationProbability()) {
             Parcel currentParcel = plant.getParcel();
-            List<Parcel> adjacentParcels = findAdjacentParcels(currentParcel);
+            List<Parcel> adjacentParcels = findAdjacentParcels(currentParcel, parcelsById);
 
             adjacentParcels.stream()
                     .filter(p -> p.getPlants().isEmpty())
                     .findFirst()
                     .ifPresent(targetParcel -> {
                         Plant newPlant = new Plant();
+                        newPlant.setGardenId(plant.getGardenId());
                         newPlant.setSpecies(plant.getSpecies());
                         newPlant.setMaturityAge(plant.getMaturityAge());
                         newPlant.setIsRunner(true);
@@ -190,29 +304,20 @@ public class SimulationService {
         }
     }
 
-    private void moveInsectToAdjacentParcel(Insect insect) {
+    private void moveInsectToAdjacentParcel(Insect insect, Map<Long, Parcel> parcelsById, SplittableRandom random) {
         Parcel currentParcel = insect.getParcel();
-        List<Parcel> adjacentParcels = findAdjacentParcels(currentParcel);
+        List<Parcel> adjacentParcels = findAdjacentParcels(currentParcel, parcelsById);
 
         if (!adjacentParcels.isEmpty()) {
-            Parcel targetParcel = adjacentParcels.get(
-                    (int) (Math.random() * adjacentParcels.size()));
+            Parcel targetParcel = adjacentParcels.get(random.nextInt(adjacentParcels.size()));
             insect.setParcel(targetParcel);
         }
     }
 
-    private List<Parcel> findAdjacentParcels(Parcel parcel) {
-        int x = parcel.getXCoordinate();
-        int y = parcel.getYCoordinate();
-
-        return Arrays.asList(
-                        parcelRepository.findByxCoordinateAndyCoordinate(x+1, y),
-                        parcelRepository.findByxCoordinateAndyCoordinate(x-1, y),
-                        parcelRepository.findByxCoordinateAndyCoordinate(x, y+1),
-                        parcelRepository.findByxCoordinateAndyCoordinate(x, y-1)
-                ).stream()
-                .filter(Optional::isPresent)
-                .map(Optional::get)
+    private List<Parcel> findAdjacentParcels(Parcel parcel, Map<Long, Parcel> parcelsById) {
+        return parcelGridService.findAdjacentParcelIds(parcel.getGardenId(), parcel.getXCoordinate(), parcel.getYCoordinate()).stream()
+                .map(parcelsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
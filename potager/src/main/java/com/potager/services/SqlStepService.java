@@ -0,0 +1,142 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.engine.RandomStreams;
+import com.potager.models.Plant;
+import com.potager.repositories.InsectRepository;
+import com.potager.repositories.ParcelRepository;
+import com.potager.repositories.PlantRepository;
+import com.potager.services.TreatmentCalendarService.ScheduledTreatment;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Runs a simulation step as set-based statements, the {@code sql} engine.
+ *
+ * Aging, humidity decay, hunger, watering and fertilizing are column arithmetic and run as one
+ * bulk UPDATE each, whatever the size of the garden. Only the random draws (colonization, moves and
+ * insecticide rolls) read rows, and then only the columns they need rather than whole entities.
+ * Same rules and random streams as the DATABASE step of SimulationService.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class SqlStepService {
+
+    private static final int MAX_STEPS_WITHOUT_FOOD = 5;
+    private static final double HUMIDITY_DECAY = 0.98;
+    private static final double WATERING = 20;
+
+    private final ParcelRepository parcelRepository;
+    private final PlantRepository plantRepository;
+    private final InsectRepository insectRepository;
+    private final TreatmentCalendarService treatmentCalendarService;
+    private final ParcelGridService parcelGridService;
+    private final RandomStreamService randomStreamService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void executeStep(Long gardenId, int currentStep) {
+        plantRepository.ageAll(gardenId, 1);
+        colonize(gardenId, currentStep);
+
+        // Colonized plants already feed the insects of their parcel, as in the in-memory engine
+        insectRepository.feed(gardenId);
+        insectRepository.starve(gardenId, MAX_STEPS_WITHOUT_FOOD);
+        moveInsects(gardenId, currentStep);
+        insectRepository.deleteDead(gardenId);
+
+        activateTreatments(gardenId, currentStep);
+        parcelRepository.decayHumidity(gardenId, HUMIDITY_DECAY);
+    }
+
+    private void colonize(Long gardenId, int currentStep) {
+        // Parcels free at the start of the step: a parcel may be colonized by several runners at once
+        Set<Long> occupied = plantRepository.findOccupiedParcelIds(gardenId);
+        List<Plant> newPlants = new ArrayList<>();
+
+        for (Object[] row : plantRepository.findColonizingPlants(gardenId)) {
+            double probability = (Double) row[3];
+            SplittableRandom random = randomStreamService.forEntity(gardenId, currentStep, RandomStreams.PLANT, (Long) row[0]);
+            if (random.nextDouble() >= probability) {
+                continue;
+            }
+            parcelGridService.findAdjacentParcelIds(gardenId, (Integer) row[4], (Integer) row[5]).stream()
+                    .filter(id -> !occupied.contains(id))
+                    .findFirst()
+                    .ifPresent(target -> {
+                        Plant plant = new Plant();
+                        plant.setGardenId(gardenId);
+                        plant.setSpecies((String) row[1]);
+                        plant.setMaturityAge((Integer) row[2]);
+                        plant.setIsRunner(true);
+                        plant.setColonizationProbability(probability);
+                        plant.setParcel(parcelRepository.getReferenceById(target));
+                        newPlants.add(plant);
+                    });
+        }
+        plantRepository.saveAll(newPlants);
+    }
+
+    private void moveInsects(Long gardenId, int currentStep) {
+        List<Object[]> moves = new ArrayList<>();
+        for (Object[] row : insectRepository.findMobileInsects(gardenId)) {
+            Long id = (Long) row[0];
+            SplittableRandom random = randomStreamService.forEntity(gardenId, currentStep, RandomStreams.INSECT, id);
+            if (random.nextDouble() < (Double) row[1]) {
+                List<Long> adjacent = parcelGridService.findAdjacentParcelIds(gardenId, (Integer) row[2], (Integer) row[3]);
+                if (!adjacent.isEmpty()) {
+                    moves.add(new Object[]{adjacent.get(random.nextInt(adjacent.size())), id});
+                }
+            }
+        }
+        if (!moves.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE insects SET parcel_id = ? WHERE id = ?", moves);
+        }
+    }
+
+    private void activateTreatments(Long gardenId, int currentStep) {
+        List<ScheduledTreatment> active = treatmentCalendarService.findActive(gardenId, currentStep);
+        if (active.isEmpty()) {
+            return;
+        }
+        // Parcels reached by the same number of programs share one statement
+        groupByCount(treatmentCalendarService.countCoverage(gardenId, active, TreatmentType.WATER))
+                .forEach((count, parcelIds) -> parcelRepository.water(parcelIds, WATERING * count));
+        groupByCount(treatmentCalendarService.countCoverage(gardenId, active, TreatmentType.FERTILIZER))
+                .forEach((count, parcelIds) -> plantRepository.ageOnParcels(parcelIds, count));
+
+        List<Long> killed = new ArrayList<>();
+        for (ScheduledTreatment treatment : active) {
+            List<Long> parcelIds = treatmentCalendarService.findCoveredParcelIds(gardenId, treatment);
+            if (treatment.type() != TreatmentType.INSECTICIDE || parcelIds.isEmpty()) {
+                continue;
+            }
+            for (Object[] row : insectRepository.findResistances(parcelIds)) {
+                Long id = (Long) row[0];
+                double roll = randomStreamService.forTreatment(gardenId, currentStep, treatment.programId(), id).nextDouble();
+                if (roll > (Double) row[1]) {
+                    killed.add(id);
+                }
+            }
+        }
+        // Deleted with the dead insects of the next step, as in the other engines
+        if (!killed.isEmpty()) {
+            insectRepository.kill(killed);
+        }
+    }
+
+    private Map<Integer, List<Long>> groupByCount(Map<Long, Integer> counts) {
+        Map<Integer, List<Long>> groups = new HashMap<>();
+        counts.forEach((id, count) -> groups.computeIfAbsent(count, c -> new ArrayList<>()).add(id));
+        return groups;
+    }
+}
@@ -0,0 +1,180 @@
+package com.potager.services;
+
+import com.potager.config.SimulationProperties;
+import com.potager.dtos.JournalStepDTO;
+import com.potager.engine.EventBuffer;
+import com.potager.engine.StepJournal;
+import com.potager.engine.WorldEvents;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link StepJournal} per garden under the journal directory, shared by every load of the garden's
+ * world. A single committer thread group-commits all of them every commit-interval-millis, so a step
+ * only pays for copying its events and a garden loses at most that interval of steps in a crash.
+ *
+ * A BREAK frame is written wherever the world is changed or reloaded outside the simulation, so replay
+ * never runs a journaled step on a world it was not recorded against.
+ */
+@Slf4j
+@Service
+public class StepJournalService {
+
+    private final SimulationProperties.Journal properties;
+    private final Map<Long, StepJournal> journals = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService committer =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "step-journal"));
+
+    public StepJournalService(SimulationProperties simulationProperties) {
+        this.properties = simulationProperties.getJournal();
+        if (properties.isEnabled()) {
+            committer.scheduleWithFixedDelay(this::commitAll,
+                    properties.getCommitIntervalMillis(), properties.getCommitIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The garden's journal, opened on first use, or null when journaling is disabled.
+     */
+    public StepJournal journalFor(Long gardenId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        return journals.computeIfAbsent(gardenId, this::open);
+    }
+
+    public void markBreak(Long gardenId, int step) {
+        StepJournal journal = journalFor(gardenId);
+        if (journal != null) {
+            journal.appendBreak(step);
+        }
+    }
+
+    /**
+     * Committed frames with a step in [from, to], oldest first, each summarised by event counts. The
+     * range spans at most max-read-steps steps, and is the first max-read-steps from {@code from} when
+     * {@code to} is null. Frames outside it are skipped without reading their events, and the read
+     * stops once max-read-steps frames are collected: after a reset the same steps recur.
+     */
+    public List<JournalStepDTO> readSteps(Long gardenId, int from, Integer to) {
+        int maxSteps = properties.getMaxReadSteps();
+        int last = to != null ? to : (int) Math.min((long) from + maxSteps - 1, Integer.MAX_VALUE);
+        if (last < from) {
+            throw new IllegalArgumentException("Journal range ends before it starts: " + from + ".." + last);
+        }
+        if ((long) last - from >= maxSteps) {
+            throw new IllegalArgumentException("Journal range " + from + ".." + last + " spans more than " + maxSteps + " steps");
+        }
+        StepJournal journal = journalFor(gardenId);
+        if (journal == null) {
+            return List.of();
+        }
+        List<JournalStepDTO> steps = new ArrayList<>();
+        try {
+            StepJournal.read(journal.getPath(), 0, step -> step >= from && step <= last, (kind, step, events) -> {
+                steps.add(summarise(kind, step, events));
+                return steps.size() < maxSteps;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read step journal of garden " + gardenId, e);
+        }
+        return steps;
+    }
+
+    public Path journalPath(Long gardenId) {
+        return Path.of(properties.getDirectory(), "garden-" + gardenId + ".journal");
+    }
+
+    @PreDestroy
+    public void close() {
+        committer.shutdownNow();
+        journals.values().forEach(StepJournal::close);
+        journals.clear();
+    }
+
+    private StepJournal open(Long gardenId) {
+        Path path = journalPath(gardenId);
+        try {
+            Files.createDirectories(path.getParent());
+            return new StepJournal(path, properties.getMaxPendingBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open step journal " + path, e);
+        }
+    }
+
+    private void commitAll() {
+        journals.forEach((gardenId, journal) -> {
+            try {
+                journal.commit();
+            } catch (RuntimeException e) {
+                // An exception would cancel the scheduled task, so log and retry on the next round
+                log.error("Step journal commit failed for garden {}: {}", gardenId, e.getMessage(), e);
+            }
+        });
+    }
+
+    private static JournalStepDTO summarise(byte kind, int step, EventBuffer events) {
+        int[] counts = new int[7];
+        events.replay(new WorldEvents() {
+            @Override
+            public void plantAdded(long key, long parcelId, long sourceKey) {
+                counts[0]++;
+            }
+
+            @Override
+            public void insectUpdated(long id, int healthIndex, int stepsWithoutFood) {
+                counts[1]++;
+            }
+
+            @Override
+            public void insectMoved(long id, long parcelId) {
+                counts[2]++;
+            }
+
+            @Override
+            public void insectDied(long id) {
+                counts[3]++;
+            }
+
+            @Override
+            public void treatmentApplied(long programId) {
+                counts[4]++;
+            }
+
+            @Override
+            public void humidityChanged(long parcelId, double humidityLevel) {
+                counts[5]++;
+            }
+
+            @Override
+            public void plantsFertilized(long parcelId, int count) {
+                counts[6]++;
+            }
+        });
+        return JournalStepDTO.builder()
+                .step(step)
+                .kind(kind == StepJournal.BREAK ? "BREAK" : "STEP")
+                .bytes(events.size())
+                .plantsAdded(counts[0])
+                .insectsUpdated(counts[1])
+                .insectsMoved(counts[2])
+                .insectsDied(counts[3])
+                .treatmentsApplied(counts[4])
+                .humidityChanges(counts[5])
+                .parcelsFertilized(counts[6])
+                .build();
+    }
+}
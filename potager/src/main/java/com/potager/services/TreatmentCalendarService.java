@@ -0,0 +1,134 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.engine.TreatmentCalendar;
+import com.potager.models.Parcel;
+import com.potager.models.TreatmentProgram;
+import com.potager.repositories.TreatmentProgramRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Treatment programs of each garden indexed by step, so a step only visits the programs active on it
+ * instead of every device and program. Built from the table the first time a garden needs it and
+ * kept in sync by TreatmentService as programs are created and deleted; changes that remove devices
+ * wholesale evict the garden's calendar instead. Same per-garden locking as ParcelGridService.
+ *
+ * Also caches the parcels each device covers, looked up in the grid once per device rather than
+ * once per active program and step, until a parcel is created or deleted.
+ */
+@Service
+@RequiredArgsConstructor
+public class TreatmentCalendarService {
+
+    private final TreatmentProgramRepository treatmentProgramRepository;
+    private final ParcelGridService parcelGridService;
+
+    private final Map<Long, CalendarSlot> calendars = new ConcurrentHashMap<>();
+
+    public List<ScheduledTreatment> findActive(Long gardenId, int step) {
+        CalendarSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return new ArrayList<>(calendar(gardenId, slot).activeAt(step));
+        }
+    }
+
+    public List<Long> findCoveredParcelIds(Long gardenId, ScheduledTreatment treatment) {
+        CalendarSlot slot = slot(gardenId);
+        synchronized (slot) {
+            return slot.coverage.computeIfAbsent(treatment.deviceId(), id -> parcelGridService.findParcelIdsInRadius(
+                    gardenId, treatment.x(), treatment.y(), treatment.radius()));
+        }
+    }
+
+    /**
+     * Number of the given programs of one type covering each parcel, so overlapping programs are
+     * applied in one go.
+     */
+    public Map<Long, Integer> countCoverage(Long gardenId, List<ScheduledTreatment> treatments, TreatmentType type) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (ScheduledTreatment treatment : treatments) {
+            if (treatment.type() == type) {
+                findCoveredParcelIds(gardenId, treatment).forEach(id -> counts.merge(id, 1, Integer::sum));
+            }
+        }
+        return counts;
+    }
+
+    public void parcelsChanged(Long gardenId) {
+        CalendarSlot slot = slot(gardenId);
+        synchronized (slot) {
+            slot.coverage.clear();
+        }
+    }
+
+    public void programCreated(Long gardenId, TreatmentProgram program) {
+        CalendarSlot slot = slot(gardenId);
+        synchronized (slot) {
+            // Not built yet: the program is read with the others when it is
+            if (slot.calendar != null) {
+                add(slot.calendar, program);
+            }
+        }
+    }
+
+    public void programDeleted(Long gardenId, Long programId) {
+        CalendarSlot slot = slot(gardenId);
+        synchronized (slot) {
+            if (slot.calendar != null) {
+                slot.calendar.remove(programId);
+            }
+        }
+    }
+
+    public void evict(Long gardenId) {
+        CalendarSlot slot = slot(gardenId);
+        synchronized (slot) {
+            slot.calendar = null;
+            slot.coverage.clear();
+        }
+    }
+
+    private CalendarSlot slot(Long gardenId) {
+        return calendars.computeIfAbsent(gardenId, id -> new CalendarSlot());
+    }
+
+    // Called with the slot lock held
+    private TreatmentCalendar<ScheduledTreatment> calendar(Long gardenId, CalendarSlot slot) {
+        if (slot.calendar == null) {
+            TreatmentCalendar<ScheduledTreatment> calendar = new TreatmentCalendar<>();
+            treatmentProgramRepository.findScheduledPrograms(gardenId).forEach(program -> add(calendar, program));
+            slot.calendar = calendar;
+        }
+        return slot.calendar;
+    }
+
+    private void add(TreatmentCalendar<ScheduledTreatment> calendar, TreatmentProgram program) {
+        Parcel parcel = program.getDevice().getParcel();
+        calendar.add(program.getId(), program.getStartTime(), program.getDuration(), new ScheduledTreatment(
+                program.getId(),
+                program.getType(),
+                program.getDevice().getId(),
+                parcel.getXCoordinate(),
+                parcel.getYCoordinate(),
+                program.getDevice().getRadius()));
+    }
+
+    /**
+     * What a step needs to apply a program, copied out of the entities so it outlives the session.
+     */
+    public record ScheduledTreatment(Long programId, TreatmentType type, Long deviceId, int x, int y, int radius) {
+    }
+
+    private static class CalendarSlot {
+        private TreatmentCalendar<ScheduledTreatment> calendar;
+        // Parcel ids in radius, by device id
+        private final Map<Long, List<Long>> coverage = new HashMap<>();
+    }
+}
@@ -1,20 +1,26 @@
 package com.potager.services;
 
 import com.potager.Utils.mappers.interfaces.GardenMapper;
+import com.potager.Utils.enums.TreatmentType;
 import com.potager.customExceptions.EntityNotFoundException;
 import com.potager.dtos.ParcelDTO;
 import com.potager.dtos.TreatmentDeviceDTO;
 import com.potager.dtos.TreatmentProgramDTO;
 import com.potager.models.*;
 import com.potager.repositories.*;
+import com.potager.services.TreatmentCalendarService.ScheduledTreatment;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -27,9 +33,13 @@ public class TreatmentService {
     private final TreatmentProgramRepository treatmentProgramRepository;
     private final ParcelRepository parcelRepository;
     private final GardenMapper gardenMapper;
+    private final GardenWorldService gardenWorldService;
+    private final RandomStreamService randomStreamService;
+    private final TreatmentCalendarService treatmentCalendarService;
 
-    public TreatmentDeviceDTO createTreatmentDevice(TreatmentDeviceDTO deviceDTO) {
-        Parcel parcel = parcelRepository.findById(deviceDTO.getParcelId())
+    public TreatmentDeviceDTO createTreatmentDevice(Long gardenId, TreatmentDeviceDTO deviceDTO) {
+        gardenWorldService.invalidate(gardenId);
+        Parcel parcel = parcelRepository.findByIdAndGardenId(deviceDTO.getParcelId(), gardenId)
                 .orElseThrow(() -> new EntityNotFoundException("Parcel not found with id: " + deviceDTO.getParcelId()));
 
         if (treatmentDeviceRepository.existsByParcelId(deviceDTO.getParcelId())) {
@@ -37,6 +47,7 @@ public class TreatmentService {
         }
 
         TreatmentDevice device = new TreatmentDevice();
+        device.setGardenId(gardenId);
         device.setRadius(deviceDTO.getRadius());
         device.setParcel(parcel);
 
@@ -44,8 +55,9 @@ public class TreatmentService {
         return gardenMapper.treatmentDeviceToTreatmentDeviceDTO(savedDevice);
     }
 
-    public TreatmentProgramDTO createTreatmentProgram(TreatmentProgramDTO programDTO) {
-        TreatmentDevice device = treatmentDeviceRepository.findById(programDTO.getDeviceId())
+    public TreatmentProgramDTO createTreatmentProgram(Long gardenId, TreatmentProgramDTO programDTO) {
+        gardenWorldService.invalidate(gardenId);
+        TreatmentDevice device = treatmentDeviceRepository.findByIdAndGardenId(programDTO.getDeviceId(), gardenId)
                 .orElseThrow(() -> new EntityNotFoundException("Treatment device not found with id: " + programDTO.getDeviceId()));
 
         TreatmentProgram program = new TreatmentProgram();
@@ -55,81 +67,71 @@ public class TreatmentService {
         program.setDevice(device);
 
         TreatmentProgram savedProgram = treatmentProgramRepository.save(program);
+        treatmentCalendarService.programCreated(gardenId, savedProgram);
         return gardenMapper.treatmentProgramToTreatmentProgramDTO(savedProgram);
     }
 
-    public TreatmentDeviceDTO getDeviceByParcel(Long parcelId) {
-        return treatmentDeviceRepository.findByParcelId(parcelId)
+    public TreatmentDeviceDTO getDeviceByParcel(Long gardenId, Long parcelId) {
+        return treatmentDeviceRepository.findByParcelIdAndGardenId(parcelId, gardenId)
                 .map(gardenMapper::treatmentDeviceToTreatmentDeviceDTO)
                 .orElseThrow(() -> new EntityNotFoundException("No treatment device found for parcel id: " + parcelId));
     }
 
-    public List<TreatmentProgramDTO> getProgramsByDevice(Long deviceId) {
-        return treatmentProgramRepository.findByDeviceId(deviceId).stream()
+    public List<TreatmentProgramDTO> getProgramsByDevice(Long gardenId, Long deviceId) {
+        return treatmentProgramRepository.findByDeviceIdAndDeviceGardenId(deviceId, gardenId).stream()
                 .map(gardenMapper::treatmentProgramToTreatmentProgramDTO)
                 .collect(Collectors.toList());
     }
 
-    public void activateTreatment(Long deviceId, int currentStep) {
-        TreatmentDevice device = treatmentDeviceRepository.findById(deviceId)
-                .orElseThrow(() -> new EntityNotFoundException("Treatment device not found with id: " + deviceId));
-
-        device.getPrograms().stream()
-                .filter(program -> isProgramActive(program, currentStep))
-                .forEach(program -> {
-                    List<Parcel> affectedParcels = getParcelsInRadius(device.getParcel(), device.getRadius());
-
-                    switch (program.getType()) {
-                        case WATER:
-                            affectedParcels.forEach(p -> p.setHumidityLevel(Math.min(100, p.getHumidityLevel() + 20)));
-                            parcelRepository.saveAll(affectedParcels);
-                            break;
-
-                        case FERTILIZER:
-                            affectedParcels.forEach(p ->
-                                    p.getPlants().forEach(plant ->
-                                            plant.setCurrentAge(plant.getCurrentAge() + 1)));
-                            break;
-
-                        case INSECTICIDE:
-                            affectedParcels.forEach(p ->
-                                    p.getInsects().forEach(insect -> {
-                                        if (Math.random() > insect.getInsecticideResistance()) {
-                                            insect.setHealthIndex(0); // Kill insect
-                                        }
-                                    }));
-                            break;
-                    }
-                });
-    }
-
-    private boolean isProgramActive(TreatmentProgram program, int currentStep) {
-        return currentStep >= program.getStartTime() &&
-                currentStep < program.getStartTime() + program.getDuration();
-    }
-
-    private List<Parcel> getParcelsInRadius(Parcel center, int radius) {
-        int centerX = center.getXCoordinate();
-        int centerY = center.getYCoordinate();
-
-        return parcelRepository.findAll().stream()
-                .filter(p -> {
-                    int dx = Math.abs(p.getXCoordinate() - centerX);
-                    int dy = Math.abs(p.getYCoordinate() - centerY);
-                    return dx <= radius && dy <= radius;
-                })
-                .collect(Collectors.toList());
-    }
-
-    public void deleteTreatmentProgram(Long programId) {
-        if (!treatmentProgramRepository.existsById(programId)) {
+    public void deleteTreatmentProgram(Long gardenId, Long programId) {
+        gardenWorldService.invalidate(gardenId);
+        if (!treatmentProgramRepository.existsByIdAndDeviceGardenId(programId, gardenId)) {
             throw new EntityNotFoundException("Treatment program not found with id: " + programId);
         }
 
         treatmentProgramRepository.deleteById(programId);
+        treatmentCalendarService.programDeleted(gardenId, programId);
     }
-    public void activateTreatments(int currentStep) {
-        List<TreatmentDevice> devices = treatmentDeviceRepository.findAll();
-        devices.forEach(device -> activateTreatment(device.getId(), currentStep));
+
+    /**
+     * Applies the programs active on this step, from the garden's treatment calendar. Every parcel
+     * they reach is loaded in one query, and overlapping waterings and fertilizations are applied to
+     * each parcel in one go.
+     */
+    public void activateTreatments(Long gardenId, int currentStep) {
+        List<ScheduledTreatment> active = treatmentCalendarService.findActive(gardenId, currentStep);
+        if (active.isEmpty()) {
+            return;
+        }
+        Set<Long> affectedIds = new HashSet<>();
+        active.forEach(treatment -> affectedIds.addAll(treatmentCalendarService.findCoveredParcelIds(gardenId, treatment)));
+        Map<Long, Parcel> parcels = parcelRepository.findAllById(affectedIds).stream()
+                .collect(Collectors.toMap(Parcel::getId, Function.identity()));
+
+        treatmentCalendarService.countCoverage(gardenId, active, TreatmentType.WATER).forEach((id, count) -> {
+            Parcel parcel = parcels.get(id);
+            double humidity = parcel.getHumidityLevel();
+            for (int i = 0; i < count; i++) {
+                humidity = Math.min(100, humidity + 20);
+            }
+            parcel.setHumidityLevel(humidity);
+        });
+
+        treatmentCalendarService.countCoverage(gardenId, active, TreatmentType.FERTILIZER).forEach((id, count) ->
+                parcels.get(id).getPlants().forEach(plant ->
+                        plant.setCurrentAge(plant.getCurrentAge() + count)));
+
+        // One roll per program and insect, so insecticides are applied program by program
+        active.stream()
+                .filter(treatment -> treatment.type() == TreatmentType.INSECTICIDE)
+                .forEach(treatment -> treatmentCalendarService.findCoveredParcelIds(gardenId, treatment).forEach(id ->
+                        parcels.get(id).getInsects().forEach(insect -> {
+                            double roll = randomStreamService
+                                    .forTreatment(gardenId, currentStep, treatment.programId(), insect.getId())
+                                    .nextDouble();
+                            if (roll > insect.getInsecticideResistance()) {
+                                insect.setHealthIndex(0); // Kill insect
+                            }
+                        })));
     }
 }
@@ -0,0 +1,179 @@
+package com.potager.services;
+
+import com.potager.dtos.WriteBackStatsDTO;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.InsectStore;
+import com.potager.engine.ParcelStore;
+import com.potager.engine.PlantStore;
+import com.potager.engine.SlotStore;
+import com.potager.models.Plant;
+import com.potager.repositories.InsectRepository;
+import com.potager.repositories.ParcelRepository;
+import com.potager.repositories.PlantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Writes an in-memory world back to the tables, touching only what changed since the previous flush.
+ *
+ * Plants all get one year older per step, which is one bulk statement. Everything else comes from
+ * the stores' dirty flags and goes out as JDBC batches that set only the changed columns of the
+ * changed rows. The humidity decay also reaches every parcel, but each parcel's humidity is written
+ * from the world rather than as one bulk multiplication: the world decays step by step, and the
+ * product of the decays rounds differently, so the tables would drift from the world. Both still
+ * rewrite every plant and parcel row, once per flush rather than per step, and are counted in the
+ * rows written with the rest.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class WorldWriteBackService {
+
+    private static final String[] PARCEL_COLUMNS = {"humidity_level"};
+    private static final String[] PLANT_COLUMNS = {"current_age"};
+    // Same order as the InsectStore dirty flag bits
+    private static final String[] INSECT_COLUMNS = {"health_index", "steps_without_food", "parcel_id"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ParcelRepository parcelRepository;
+    private final PlantRepository plantRepository;
+    private final InsectRepository insectRepository;
+    private final MeterRegistry meterRegistry;
+
+    public WriteBackStatsDTO writeBack(Long gardenId, GardenWorld world) {
+        ParcelStore parcels = world.getParcels();
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+        int steps = world.getStepsSinceFlush();
+
+        // Bulk first: rows listed below then overwrite the uniform change with their exact value
+        int bulkStatements = 0;
+        int agedPlants = 0;
+        if (steps > 0) {
+            agedPlants = plantRepository.ageAll(gardenId, steps);
+            bulkStatements = 1;
+        }
+        // After a step every parcel decayed, dirty or not
+        int decayed = steps > 0 ? ParcelStore.HUMIDITY : 0;
+
+        Map<Integer, List<Object[]>> parcelRows = new HashMap<>();
+        Map<Integer, List<Object[]>> plantRows = new HashMap<>();
+        Map<Integer, List<Object[]>> insectRows = new HashMap<>();
+        List<Integer> newPlantSlots = new ArrayList<>();
+        List<Plant> newPlants = new ArrayList<>();
+
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            int parcelFlags = parcels.getDirtyFlags(ordinal) | decayed;
+            if (parcelFlags != 0) {
+                addRow(parcelRows, parcelFlags, parcels.getId(ordinal), parcels.getHumidityLevel(ordinal));
+                parcels.clearDirtyFlags(ordinal);
+            }
+
+            for (int slot = plants.first(ordinal); slot != SlotStore.NONE; slot = plants.next(slot)) {
+                if (plants.getId(slot) == PlantStore.NO_ID) {
+                    newPlantSlots.add(slot);
+                    newPlants.add(toNewPlant(gardenId, plants, slot, parcels.getId(ordinal)));
+                } else if (plants.getDirtyFlags(slot) != 0) {
+                    addRow(plantRows, plants.getDirtyFlags(slot), plants.getId(slot), plants.getCurrentAge(slot));
+                }
+                plants.clearDirtyFlags(slot);
+            }
+
+            for (int slot = insects.first(ordinal); slot != SlotStore.NONE; slot = insects.next(slot)) {
+                int flags = insects.getDirtyFlags(slot);
+                if (flags != 0) {
+                    addRow(insectRows, flags, insects.getId(slot),
+                            insects.getHealthIndex(slot), insects.getStepsWithoutFood(slot), parcels.getId(ordinal));
+                    insects.clearDirtyFlags(slot);
+                }
+            }
+        }
+
+        int parcelCount = updateChangedColumns("parcels", PARCEL_COLUMNS, parcelRows);
+        int plantCount = updateChangedColumns("plants", PLANT_COLUMNS, plantRows);
+        int insectCount = updateChangedColumns("insects", INSECT_COLUMNS, insectRows);
+
+        List<Plant> savedPlants = plantRepository.saveAll(newPlants);
+        for (int i = 0; i < savedPlants.size(); i++) {
+            plants.setId(newPlantSlots.get(i), savedPlants.get(i).getId());
+        }
+        List<Long> removedInsectIds = world.getRemovedInsectIds();
+        if (!removedInsectIds.isEmpty()) {
+            insectRepository.deleteAllByIdInBatch(removedInsectIds);
+        }
+
+        int bulkRows = agedPlants;
+        int rowsWritten = bulkRows + parcelCount + plantCount + insectCount + savedPlants.size() + removedInsectIds.size();
+        meterRegistry.counter("potager.simulation.writeback.rows", "table", "parcels").increment(parcelCount);
+        meterRegistry.counter("potager.simulation.writeback.rows", "table", "plants").increment(agedPlants + plantCount + savedPlants.size());
+        meterRegistry.counter("potager.simulation.writeback.rows", "table", "insects").increment(insectCount + removedInsectIds.size());
+        double rowsPerStep = steps > 0 ? (double) rowsWritten / steps : rowsWritten;
+        meterRegistry.summary("potager.simulation.writeback.rows-per-step").record(rowsPerStep);
+
+        return WriteBackStatsDTO.builder()
+                .gardenId(gardenId)
+                .steps(steps)
+                .parcelRows(parcelCount)
+                .plantRows(plantCount)
+                .insectRows(insectCount)
+                .insertedPlants(savedPlants.size())
+                .deletedInsects(removedInsectIds.size())
+                .bulkStatements(bulkStatements)
+                .bulkRows(bulkRows)
+                .rowsWritten(rowsWritten)
+                .rowsPerStep(rowsPerStep)
+                .build();
+    }
+
+    /**
+     * Queues a row under its dirty flags. values holds every column, in flag bit order; only the
+     * flagged ones are kept, followed by the id for the WHERE clause.
+     */
+    private void addRow(Map<Integer, List<Object[]>> rows, int flags, long id, Object... values) {
+        List<Object> args = new ArrayList<>(values.length + 1);
+        for (int bit = 0; bit < values.length; bit++) {
+            if ((flags & (1 << bit)) != 0) {
+                args.add(values[bit]);
+            }
+        }
+        args.add(id);
+        rows.computeIfAbsent(flags, f -> new ArrayList<>()).add(args.toArray());
+    }
+
+    // One batch per combination of changed columns
+    private int updateChangedColumns(String table, String[] columns, Map<Integer, List<Object[]>> rowsByFlags) {
+        int rows = 0;
+        for (Map.Entry<Integer, List<Object[]>> entry : rowsByFlags.entrySet()) {
+            StringJoiner set = new StringJoiner(", ");
+            for (int bit = 0; bit < columns.length; bit++) {
+                if ((entry.getKey() & (1 << bit)) != 0) {
+                    set.add(columns[bit] + " = ?");
+                }
+            }
+            jdbcTemplate.batchUpdate("UPDATE " + table + " SET " + set + " WHERE id = ?", entry.getValue());
+            rows += entry.getValue().size();
+        }
+        return rows;
+    }
+
+    private Plant toNewPlant(Long gardenId, PlantStore plants, int slot, long parcelId) {
+        Plant plant = new Plant();
+        plant.setGardenId(gardenId);
+        plant.setSpecies(plants.getSpecies(slot));
+        plant.setCurrentAge(plants.getCurrentAge(slot));
+        plant.setMaturityAge(plants.getMaturityAge(slot));
+        plant.setIsRunner(plants.isRunner(slot));
+        plant.setColonizationProbability(plants.hasColonizationProbability(slot) ? plants.getColonizationProbability(slot) : null);
+        plant.setParcel(parcelRepository.getReferenceById(parcelId));
+        return plant;
+    }
+}
@@ -0,0 +1,243 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.Utils.xml.GardenXmlReader;
+import com.potager.engine.GridIndex;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the content of a garden XML file to a garden, read by {@link GardenXmlReader} straight from
+ * the stream, so memory does not grow with the file. Rows are buffered and written with plain JDBC
+ * batches, parents before children, which the driver rewrites into multi-row INSERTs; the whole
+ * file goes in one transaction, and a file that fails half way leaves the garden as it was. Loading
+ * resets the garden's simulation to step 0 in that same transaction, so the rows and the step are
+ * committed or rolled back together.
+ *
+ * Ids are taken from the entity sequences by {@link SequenceIdBlocks}.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class XmlGardenStreamLoader {
+
+    private static final int BATCH_ROWS = 5000;
+    private static final long NONE = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GardenWorldService gardenWorldService;
+    private final ParcelGridService parcelGridService;
+    private final TreatmentCalendarService treatmentCalendarService;
+    private final SimulationService simulationService;
+
+    public Loaded load(Long gardenId, InputStream xml) {
+        return load(gardenId, xml, Progress.NONE);
+    }
+
+    public Loaded load(Long gardenId, InputStream xml, Progress progress) {
+        long start = System.nanoTime();
+        gardenWorldService.invalidate(gardenId);
+        // The file's parcels are checked against a private copy of the index, shared only once they are committed
+        GridIndex<Long> grid = parcelGridService.readIndex(gardenId);
+
+        GardenImport garden = new GardenImport(gardenId, grid, progress);
+        GardenXmlReader.read(xml, garden);
+        garden.flush();
+        parcelGridService.install(gardenId, grid);
+        treatmentCalendarService.evict(gardenId);
+        // The world stays invalidated until this commits, so nothing reads it between rows and step
+        simulationService.resetSimulation(gardenId);
+
+        return new Loaded(garden.parcelCount, garden.plantCount, garden.insectCount, garden.deviceCount,
+                garden.programCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public record Loaded(int parcels, int plants, int insects, int devices, int programs, long millis) {
+    }
+
+    /**
+     * Told how far the load is after every element read and every batch written. Throwing from it
+     * stops the load, which is then rolled back.
+     */
+    public interface Progress {
+        Progress NONE = (elements, rows) -> {
+        };
+
+        void update(long elements, long rows);
+    }
+
+    /**
+     * One file being read: the parcel and device the reader is in, and the rows not written yet.
+     */
+    private class GardenImport implements GardenXmlReader.Handler {
+
+        private final Long gardenId;
+        private final GridIndex<Long> grid;
+        private final Progress progress;
+        private final SequenceIdBlocks parcelIds = new SequenceIdBlocks(jdbcTemplate, "parcels_seq");
+        private final SequenceIdBlocks plantIds = new SequenceIdBlocks(jdbcTemplate, "plants_seq");
+        private final SequenceIdBlocks insectIds = new SequenceIdBlocks(jdbcTemplate, "insects_seq");
+        private final SequenceIdBlocks deviceIds = new SequenceIdBlocks(jdbcTemplate, "treatment_devices_seq");
+        private final SequenceIdBlocks programIds = new SequenceIdBlocks(jdbcTemplate, "treatment_programs_seq");
+
+        private final List<ParcelRow> parcels = new ArrayList<>();
+        private final List<PlantRow> plants = new ArrayList<>();
+        private final List<InsectRow> insects = new ArrayList<>();
+        private final List<DeviceRow> devices = new ArrayList<>();
+        private final List<ProgramRow> programs = new ArrayList<>();
+
+        private long parcel = NONE;
+        private long device = NONE;
+        private int parcelCount, plantCount, insectCount, deviceCount, programCount;
+        private long elements;
+        private long rows;
+
+        GardenImport(Long gardenId, GridIndex<Long> grid, Progress progress) {
+            this.gardenId = gardenId;
+            this.grid = grid;
+            this.progress = progress;
+        }
+
+        @Override
+        public void parcel(int x, int y) {
+            if (grid.contains(x, y)) {
+                throw new IllegalArgumentException("Parcel at (" + x + ", " + y + ") already exists");
+            }
+            parcel = parcelIds.getAsLong();
+            parcels.add(new ParcelRow(parcel, x, y));
+            // Refuses coordinates that would stretch the garden too far
+            grid.put(x, y, parcel);
+            parcelCount++;
+        }
+
+        @Override
+        public void plant(String species, int maturityAge, boolean isRunner, Double colonizationProbability) {
+            plants.add(new PlantRow(plantIds.getAsLong(), species, maturityAge, isRunner, colonizationProbability, parcel));
+            plantCount++;
+        }
+
+        @Override
+        public void insect(String species, String sex, double mobility, double insecticideResistance) {
+            insects.add(new InsectRow(insectIds.getAsLong(), species, sex, mobility, insecticideResistance, parcel));
+            insectCount++;
+        }
+
+        @Override
+        public void device(int radius) {
+            device = deviceIds.getAsLong();
+            devices.add(new DeviceRow(device, radius, parcel));
+            deviceCount++;
+        }
+
+        @Override
+        public void program(int startTime, int duration, TreatmentType type) {
+            programs.add(new ProgramRow(programIds.getAsLong(), startTime, duration, type, device));
+            programCount++;
+        }
+
+        @Override
+        public void endParcel() {
+            parcel = NONE;
+            device = NONE;
+        }
+
+        @Override
+        public void elementRead(long elements) {
+            this.elements = elements;
+            if (parcels.size() + plants.size() + insects.size() + devices.size() + programs.size() >= BATCH_ROWS) {
+                flush();
+            }
+            progress.update(elements, rows);
+        }
+
+        // Parents first, so every foreign key points at a row already written
+        void flush() {
+            int buffered = parcels.size() + plants.size() + insects.size() + devices.size() + programs.size();
+            insert("INSERT INTO parcels (id, garden_id, xcoordinate, ycoordinate, humidity_level) VALUES (?, ?, ?, ?, ?)",
+                    parcels, (ps, row) -> {
+                        ps.setLong(1, row.id());
+                        ps.setLong(2, gardenId);
+                        ps.setInt(3, row.x());
+                        ps.setInt(4, row.y());
+                        ps.setDouble(5, 50.0);
+                    });
+            insert("INSERT INTO treatment_devices (id, garden_id, radius, parcel_id) VALUES (?, ?, ?, ?)",
+                    devices, (ps, row) -> {
+                        ps.setLong(1, row.id());
+                        ps.setLong(2, gardenId);
+                        ps.setInt(3, row.radius());
+                        ps.setLong(4, row.parcelId());
+                    });
+            insert("INSERT INTO treatment_programs (id, start_time, duration, type, device_id) VALUES (?, ?, ?, ?, ?)",
+                    programs, (ps, row) -> {
+                        ps.setLong(1, row.id());
+                        ps.setInt(2, row.startTime());
+                        ps.setInt(3, row.duration());
+                        ps.setString(4, row.type().name());
+                        ps.setLong(5, row.deviceId());
+                    });
+            insert("INSERT INTO plants (id, garden_id, species, current_age, maturity_age, is_runner, colonization_probability, parcel_id) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    plants, (ps, row) -> {
+                        ps.setLong(1, row.id());
+                        ps.setLong(2, gardenId);
+                        ps.setString(3, row.species());
+                        ps.setInt(4, 0);
+                        ps.setInt(5, row.maturityAge());
+                        ps.setBoolean(6, row.isRunner());
+                        if (row.colonizationProbability() != null) {
+                            ps.setDouble(7, row.colonizationProbability());
+                        } else {
+                            ps.setNull(7, Types.DOUBLE);
+                        }
+                        ps.setLong(8, row.parcelId());
+                    });
+            insert("INSERT INTO insects (id, garden_id, species, sex, health_index, mobility, insecticide_resistance, steps_without_food, parcel_id) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    insects, (ps, row) -> {
+                        ps.setLong(1, row.id());
+                        ps.setLong(2, gardenId);
+                        ps.setString(3, row.species());
+                        ps.setString(4, row.sex());
+                        ps.setInt(5, 10);
+                        ps.setDouble(6, row.mobility());
+                        ps.setDouble(7, row.insecticideResistance());
+                        ps.setInt(8, 0);
+                        ps.setLong(9, row.parcelId());
+                    });
+            rows += buffered;
+            progress.update(elements, rows);
+        }
+    }
+
+    private <T> void insert(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows, BATCH_ROWS, setter);
+            rows.clear();
+        }
+    }
+
+    private record ParcelRow(long id, int x, int y) {
+    }
+
+    private record PlantRow(long id, String species, int maturityAge, boolean isRunner, Double colonizationProbability, long parcelId) {
+    }
+
+    private record InsectRow(long id, String species, String sex, double mobility, double insecticideResistance, long parcelId) {
+    }
+
+    private record DeviceRow(long id, int radius, long parcelId) {
+    }
+
+    private record ProgramRow(long id, int startTime, int duration, TreatmentType type, long deviceId) {
+    }
+}
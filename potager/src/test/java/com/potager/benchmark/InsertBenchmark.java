@@ -0,0 +1,116 @@
+package com.potager.benchmark;
+
+import com.potager.models.Insect;
+import com.potager.models.Parcel;
+import com.potager.models.Plant;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Inserts a 100 000 entity garden twice and logs the throughput: once one statement per row, as
+ * with IDENTITY ids, then with the configured JDBC batches. The rows go to a scratch garden that is
+ * deleted afterwards.
+ *
+ * Needs the PostgreSQL database of application.properties, so it only runs when asked for:
+ * {@code mvn test -Dtest=InsertBenchmark -Dpotager.benchmark=true}. SQL and binder logging are
+ * turned off here, or the timings mostly measure the log.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=OFF",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=OFF"})
+@EnabledIfSystemProperty(named = "potager.benchmark", matches = "true")
+class InsertBenchmark {
+
+    private static final long SCRATCH_GARDEN_ID = -1L;
+    // Each parcel brings two plants and two insects: 100 000 entities in all
+    private static final int PARCELS = 20_000;
+    private static final int GRID_WIDTH = 200;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchedInsertsOutrunOneStatementPerRow() {
+        double unbatched = measure(1);
+        double batched = measure(null);
+        log.info("Insert benchmark: {} entities/s one row per statement, {} entities/s batched ({}x)",
+                Math.round(unbatched), Math.round(batched), String.format("%.1f", batched / unbatched));
+        assertThat(batched).isGreaterThan(unbatched);
+    }
+
+    @AfterEach
+    void deleteRows() {
+        deleteScratchGarden();
+    }
+
+    private double measure(Integer batchSize) {
+        deleteScratchGarden();
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            // null falls back to hibernate.jdbc.batch_size
+            session.setJdbcBatchSize(batchSize);
+            for (int i = 0; i < PARCELS; i++) {
+                entityManager.persist(buildParcel(i));
+                if ((i + 1) % 1_000 == 0) {
+                    // Keeps the persistence context, and the dirty checking at commit, small
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double throughput = PARCELS * 5 / seconds;
+        log.info("Inserted {} entities with batch size {} in {} s", PARCELS * 5,
+                batchSize == null ? "default" : batchSize, String.format("%.2f", seconds));
+        return throughput;
+    }
+
+    private Parcel buildParcel(int index) {
+        Parcel parcel = Parcel.builder()
+                .gardenId(SCRATCH_GARDEN_ID)
+                .xCoordinate(index % GRID_WIDTH)
+                .yCoordinate(index / GRID_WIDTH)
+                .build();
+        for (int i = 0; i < 2; i++) {
+            parcel.getPlants().add(Plant.builder()
+                    .gardenId(SCRATCH_GARDEN_ID)
+                    .species("Tomato")
+                    .maturityAge(60)
+                    .parcel(parcel)
+                    .build());
+            parcel.getInsects().add(Insect.builder()
+                    .gardenId(SCRATCH_GARDEN_ID)
+                    .species("Aphid")
+                    .sex(i == 0 ? "FEMALE" : "MALE")
+                    .healthIndex(10)
+                    .mobility(0.2)
+                    .insecticideResistance(0.1)
+                    .parcel(parcel)
+                    .build());
+        }
+        return parcel;
+    }
+
+    private void deleteScratchGarden() {
+        jdbcTemplate.update("DELETE FROM insects WHERE garden_id = ?", SCRATCH_GARDEN_ID);
+        jdbcTemplate.update("DELETE FROM plants WHERE garden_id = ?", SCRATCH_GARDEN_ID);
+        jdbcTemplate.update("DELETE FROM parcels WHERE garden_id = ?", SCRATCH_GARDEN_ID);
+    }
+}
@@ -0,0 +1,94 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.HeapColumnFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoverageMapTest {
+
+    private static final int WIDTH = 50;
+    private static final int HEIGHT = 30;
+
+    @Test
+    void coverageMatchesRadiusScan() {
+        ParcelStore parcels = garden();
+        List<WorldDevice> devices = devices(parcels, 60);
+        CoverageMap coverage = new CoverageMap(parcels, devices);
+
+        coverage.computeCoverage();
+
+        int[] expected = scan(parcels, devices);
+        for (int parcel = 0; parcel < parcels.size(); parcel++) {
+            assertThat(parcels.getCoverage(parcel)).as("parcel %d", parcel).isEqualTo(expected[parcel]);
+        }
+    }
+
+    @Test
+    void smallAndLargeLayersMatchRadiusScan() {
+        ParcelStore parcels = garden();
+        for (int count : new int[]{1, 3, 60, 200}) {
+            List<WorldDevice> devices = devices(parcels, count);
+            CoverageMap.Layer layer = new CoverageMap(parcels, devices).getWatered();
+            devices.forEach(layer::add);
+
+            int[] applied = new int[parcels.size()];
+            layer.apply((parcel, times) -> applied[parcel] += times);
+
+            assertThat(applied).as("%d devices", count).isEqualTo(scan(parcels, devices));
+            assertThat(layer.isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    void coveredParcelsMatchRadiusScan() {
+        ParcelStore parcels = garden();
+        List<WorldDevice> devices = devices(parcels, 20);
+        CoverageMap coverage = new CoverageMap(parcels, devices);
+
+        for (WorldDevice device : devices) {
+            List<Integer> covered = new ArrayList<>();
+            coverage.forEachCovered(device, covered::add);
+            List<Integer> inRadius = new ArrayList<>();
+            parcels.forEachInRadius(device.getParcel(), device.getRadius(), inRadius::add);
+
+            assertThat(covered).containsExactlyInAnyOrderElementsOf(inRadius);
+        }
+    }
+
+    // Off the origin and with about one cell in four left empty, so squares are clipped and have holes
+    private static ParcelStore garden() {
+        Random random = new Random(5);
+        ParcelStore parcels = new ParcelStore(new HeapColumnFactory());
+        for (int y = 7; y < 7 + HEIGHT; y++) {
+            for (int x = -20; x < -20 + WIDTH; x++) {
+                if (random.nextInt(4) != 0) {
+                    parcels.add(parcels.size() + 1L, x, y, 50);
+                }
+            }
+        }
+        parcels.buildGrid();
+        return parcels;
+    }
+
+    private static List<WorldDevice> devices(ParcelStore parcels, int count) {
+        Random random = new Random(count);
+        List<WorldDevice> devices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            devices.add(new WorldDevice(i + 1L, random.nextInt(7), random.nextInt(parcels.size())));
+        }
+        return devices;
+    }
+
+    private static int[] scan(ParcelStore parcels, List<WorldDevice> devices) {
+        int[] covered = new int[parcels.size()];
+        for (WorldDevice device : devices) {
+            parcels.forEachInRadius(device.getParcel(), device.getRadius(), parcel -> covered[parcel]++);
+        }
+        return covered;
+    }
+}
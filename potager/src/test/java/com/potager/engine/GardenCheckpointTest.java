@@ -0,0 +1,86 @@
+package com.potager.engine;
+
+import com.potager.engine.columns.HeapColumnFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GardenCheckpointTest {
+
+    private static final int SIZE = 40;
+    private static final int STEPS = 30;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final WorldStepper stepper = new WorldStepper(pool, 16);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void readBackTheWorldThatWasWritten() throws IOException {
+        GardenWorld world = stepped();
+        Path path = directory.resolve("checkpoint");
+        GardenCheckpoint.write(path, new GardenCheckpoint(1, STEPS, 7, 2.0, 123, 456, world));
+
+        GardenCheckpoint checkpoint = GardenCheckpoint.read(path, new HeapColumnFactory());
+
+        assertThat(checkpoint.getGardenId()).isEqualTo(1);
+        assertThat(checkpoint.getStep()).isEqualTo(STEPS);
+        assertThat(checkpoint.getSeed()).isEqualTo(7);
+        assertThat(checkpoint.getSpeedMultiplier()).isEqualTo(2.0);
+        assertThat(checkpoint.getJournalOffset()).isEqualTo(123);
+        assertThat(checkpoint.getCreatedAt()).isEqualTo(456);
+        assertThat(TestGardens.fingerprint(checkpoint.getWorld())).isEqualTo(TestGardens.fingerprint(world));
+        assertThat(GardenCheckpoint.readHeader(path).getStep()).isEqualTo(STEPS);
+    }
+
+    @Test
+    void restoredWorldStepsOnLikeTheSavedOne() throws IOException {
+        GardenWorld world = stepped();
+        Path path = directory.resolve("checkpoint");
+        GardenCheckpoint.write(path, new GardenCheckpoint(1, STEPS, 7, 1.0, -1, 0, world));
+        GardenWorld restored = GardenCheckpoint.read(path, new HeapColumnFactory()).getWorld();
+
+        RandomStreams random = new RandomStreams(7);
+        for (int step = STEPS + 1; step <= 2 * STEPS; step++) {
+            stepper.step(world, step, random);
+            stepper.step(restored, step, random);
+        }
+
+        assertThat(TestGardens.fingerprint(restored)).isEqualTo(TestGardens.fingerprint(world));
+    }
+
+    @Test
+    void corruptCheckpointIsRejected() throws IOException {
+        Path path = directory.resolve("checkpoint");
+        GardenCheckpoint.write(path, new GardenCheckpoint(1, STEPS, 7, 1.0, -1, 0, stepped()));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> GardenCheckpoint.read(path, new HeapColumnFactory()))
+                .isInstanceOf(IOException.class);
+    }
+
+    private GardenWorld stepped() {
+        GardenWorld world = TestGardens.build(SIZE);
+        RandomStreams random = new RandomStreams(7);
+        for (int step = 1; step <= STEPS; step++) {
+            stepper.step(world, step, random);
+        }
+        return world;
+    }
+}
@@ -0,0 +1,84 @@
+package com.potager.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalReplayerTest {
+
+    private static final int SIZE = 40;
+    private static final int STEPS = 60;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void replayedJournalMatchesSteppedWorld() throws IOException {
+        GardenWorld world = TestGardens.build(SIZE);
+        GardenWorld replayed = world.copy();
+        Path path = journal(world);
+
+        JournalReplayer replayer = new JournalReplayer(replayed);
+        int[] frames = {0};
+        StepJournal.read(path, (kind, step, events) -> {
+            replayer.replayStep(step, events);
+            frames[0]++;
+        });
+
+        assertThat(frames[0]).isEqualTo(STEPS);
+        assertThat(replayed.getCurrentStep()).isEqualTo(world.getCurrentStep());
+        assertThat(replayed.getLastSyntheticKey()).isEqualTo(world.getLastSyntheticKey());
+        assertThat(TestGardens.fingerprint(replayed)).isEqualTo(TestGardens.fingerprint(world));
+    }
+
+    @Test
+    void tornTailIsIgnoredAndCutOffOnReopen() throws IOException {
+        Path path = journal(TestGardens.build(SIZE));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{9, 9, 9, 0, 0, 1}), channel.size());
+        }
+
+        int[] frames = {0};
+        StepJournal.read(path, (kind, step, events) -> frames[0]++);
+        assertThat(frames[0]).isEqualTo(STEPS);
+
+        try (StepJournal reopened = new StepJournal(path, 1 << 20)) {
+            assertThat(reopened.getLastCommittedStep()).isEqualTo(STEPS);
+        }
+    }
+
+    // Steps the world with a journal attached and returns the committed journal's path
+    private Path journal(GardenWorld world) throws IOException {
+        Path path = directory.resolve("garden.journal");
+        RandomStreams random = new RandomStreams(7);
+        WorldStepper stepper = new WorldStepper(pool, 16);
+        try (StepJournal journal = new StepJournal(path, 1 << 20)) {
+            world.setJournal(journal);
+            for (int step = 1; step <= STEPS; step++) {
+                stepper.step(world, step, random);
+                if (step % 5 == 0) {
+                    journal.commit();
+                }
+            }
+            journal.commit();
+        }
+        world.setJournal(null);
+        return path;
+    }
+}
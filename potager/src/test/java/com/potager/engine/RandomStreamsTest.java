@@ -0,0 +1,64 @@
+package com.potager.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RandomStreamsTest {
+
+    @Test
+    void sameSeedSameDraws() {
+        RandomStreams first = new RandomStreams(7);
+        RandomStreams second = new RandomStreams(7);
+
+        assertThat(draws(first.forStep(12))).isEqualTo(draws(second.forStep(12)));
+        assertThat(draws(first.forParcel(12, -3, 40))).isEqualTo(draws(second.forParcel(12, -3, 40)));
+        assertThat(draws(first.forEntity(12, RandomStreams.INSECT, 99))).isEqualTo(draws(second.forEntity(12, RandomStreams.INSECT, 99)));
+        assertThat(draws(first.forTreatment(12, 5, 99))).isEqualTo(draws(second.forTreatment(12, 5, 99)));
+    }
+
+    @Test
+    void everyInputGivesItsOwnStream() {
+        RandomStreams streams = new RandomStreams(7);
+        Set<Long> firstDraws = new HashSet<>();
+        firstDraws.add(streams.forEntity(12, RandomStreams.PLANT, 99).nextLong());
+        firstDraws.add(new RandomStreams(8).forEntity(12, RandomStreams.PLANT, 99).nextLong());
+        firstDraws.add(streams.forEntity(13, RandomStreams.PLANT, 99).nextLong());
+        firstDraws.add(streams.forEntity(12, RandomStreams.INSECT, 99).nextLong());
+        firstDraws.add(streams.forEntity(12, RandomStreams.PLANT, 100).nextLong());
+        firstDraws.add(streams.forParcel(12, 4, 5).nextLong());
+        firstDraws.add(streams.forParcel(12, 5, 4).nextLong());
+        firstDraws.add(streams.forTreatment(12, 1, 99).nextLong());
+        firstDraws.add(streams.forTreatment(12, 2, 99).nextLong());
+
+        assertThat(firstDraws).hasSize(9);
+    }
+
+    @Test
+    void drawsDoNotDependOnThreadOrOrder() {
+        RandomStreams streams = new RandomStreams(7);
+        long[] serial = LongStream.range(0, 10_000)
+                .map(key -> streams.forEntity(3, RandomStreams.INSECT, key).nextLong())
+                .toArray();
+        long[] parallel = LongStream.range(0, 10_000).parallel()
+                .map(key -> streams.forEntity(3, RandomStreams.INSECT, key).nextLong())
+                .toArray();
+        long[] reversed = LongStream.range(0, 10_000)
+                .map(i -> streams.forEntity(3, RandomStreams.INSECT, 9_999 - i).nextLong())
+                .toArray();
+
+        assertThat(parallel).isEqualTo(serial);
+        for (int i = 0; i < serial.length; i++) {
+            assertThat(reversed[serial.length - 1 - i]).isEqualTo(serial[i]);
+        }
+    }
+
+    private static long[] draws(SplittableRandom random) {
+        return LongStream.generate(random::nextLong).limit(16).toArray();
+    }
+}
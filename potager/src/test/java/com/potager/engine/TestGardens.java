@@ -0,0 +1,89 @@
+package com.potager.engine;
+
+import com.potager.Utils.enums.TreatmentType;
+import com.potager.engine.columns.HeapColumnFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded square gardens for the engine tests, and a fingerprint of everything a step changes.
+ */
+public final class TestGardens {
+
+    private TestGardens() {
+    }
+
+    /**
+     * A size x size garden with plants on about one parcel in five, insects on one in three and a
+     * few treatment devices, the same for a given size every time.
+     */
+    public static GardenWorld build(int size) {
+        Random random = new Random(42);
+        ParcelStore parcels = new ParcelStore(new HeapColumnFactory());
+        List<int[]> plants = new ArrayList<>();
+        List<Integer> insects = new ArrayList<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int parcel = parcels.add(parcels.size() + 1L, x, y, 30 + random.nextInt(50));
+                if (random.nextInt(5) == 0) {
+                    plants.add(new int[]{parcel, random.nextBoolean() ? 1 : 0});
+                }
+                if (random.nextInt(3) == 0) {
+                    insects.add(parcel);
+                }
+            }
+        }
+        List<WorldDevice> devices = new ArrayList<>();
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            int parcel = random.nextInt(parcels.size());
+            if (used.add(parcel)) {
+                WorldDevice device = new WorldDevice(i + 1L, 3, parcel);
+                device.getPrograms().add(new WorldProgram(i + 1L, random.nextInt(20), 10,
+                        TreatmentType.values()[random.nextInt(TreatmentType.values().length)]));
+                devices.add(device);
+            }
+        }
+        GardenWorld world = new GardenWorld(parcels, devices);
+        long plantId = 1;
+        for (int[] plant : plants) {
+            world.getPlants().add(plant[0], plantId, plantId, "Tomato", 0, 30, plant[1] == 1, 0.3);
+            plantId++;
+        }
+        long insectId = 1;
+        for (int parcel : insects) {
+            world.getInsects().add(parcel, insectId++, "Aphid", "M", 10, 0.5, 0.3, 0);
+        }
+        world.markLoaded();
+        return world;
+    }
+
+    /**
+     * Each parcel's humidity, plants and insects, in parcel order. Slots are left out, so two worlds
+     * holding the same garden in different slots have the same fingerprint.
+     */
+    public static String fingerprint(GardenWorld world) {
+        ParcelStore parcels = world.getParcels();
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+        StringBuilder fingerprint = new StringBuilder();
+        for (int parcel = 0; parcel < parcels.size(); parcel++) {
+            List<String> onParcel = new ArrayList<>();
+            for (int slot = plants.first(parcel); slot != SlotStore.NONE; slot = plants.next(slot)) {
+                onParcel.add("plant " + plants.getKey(slot) + ":" + plants.getCurrentAge(slot));
+            }
+            for (int slot = insects.first(parcel); slot != SlotStore.NONE; slot = insects.next(slot)) {
+                onParcel.add("insect " + insects.getId(slot) + ":" + insects.getHealthIndex(slot)
+                        + ":" + insects.getStepsWithoutFood(slot));
+            }
+            Collections.sort(onParcel);
+            fingerprint.append(parcels.getHumidityLevel(parcel)).append(' ').append(onParcel).append('\n');
+        }
+        return fingerprint.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.potager.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorldStepperTest {
+
+    private static final int SIZE = 60;
+    private static final int STEPS = 80;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void tiledStepsMatchSerialSteps() {
+        String serial = run(new WorldStepper());
+
+        assertThat(run(new WorldStepper(pool, 16))).isEqualTo(serial);
+        assertThat(run(new WorldStepper(pool, 64))).isEqualTo(serial);
+    }
+
+    @Test
+    void sameSeedSameGarden() {
+        assertThat(run(new WorldStepper(pool, 16))).isEqualTo(run(new WorldStepper(pool, 16)));
+    }
+
+    private static String run(WorldStepper stepper) {
+        GardenWorld world = TestGardens.build(SIZE);
+        RandomStreams random = new RandomStreams(7);
+        for (int step = 1; step <= STEPS; step++) {
+            stepper.step(world, step, random);
+        }
+        return TestGardens.fingerprint(world) + world.getRemovedInsectIds().size();
+    }
+}
@@ -0,0 +1,159 @@
+package com.potager.services;
+
+import com.potager.Utils.enums.EngineMode;
+import com.potager.Utils.mappers.WorldMapper;
+import com.potager.Utils.mappers.interfaces.GardenMapper;
+import com.potager.config.SimulationProperties;
+import com.potager.dtos.ParcelPageDTO;
+import com.potager.engine.GardenWorld;
+import com.potager.engine.ParcelStore;
+import com.potager.engine.columns.HeapColumnFactory;
+import com.potager.models.Parcel;
+import com.potager.repositories.InsectRepository;
+import com.potager.repositories.ParcelRepository;
+import com.potager.repositories.PlantRepository;
+import com.potager.repositories.TreatmentDeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Follows the keyset cursor from the first page of a window to the last, from the world and from the
+ * tables, and checks the pages add up to every parcel of the window once, in row-major order.
+ */
+class ParcelViewportServiceTest {
+
+    private static final long GARDEN_ID = 1L;
+    // minX, maxX, minY, maxY: around the garden, inside it, one row, one column, beside it
+    private static final int[][] WINDOWS = {
+            {-10, 40, -3, 30}, {0, 10, 5, 12}, {-5, 24, 7, 7}, {3, 3, 0, 19}, {100, 120, 0, 5}};
+    private static final int[] LIMITS = {1, 7, 64, 5000};
+
+    private final GardenWorld world = garden();
+    private final List<Parcel> rows = rows(world.getParcels());
+
+    @Test
+    void worldPagesCoverTheWindowOnce() {
+        checkPages(service(EngineMode.MEMORY));
+    }
+
+    @Test
+    void tablePagesCoverTheWindowOnce() {
+        checkPages(service(EngineMode.SQL));
+    }
+
+    private void checkPages(ParcelViewportService service) {
+        for (int[] window : WINDOWS) {
+            List<String> expected = rows.stream()
+                    .filter(parcel -> inWindow(parcel, window[0], window[1], window[2], window[3]))
+                    .map(ParcelViewportServiceTest::coordinates)
+                    .toList();
+            for (int limit : LIMITS) {
+                assertThat(walk(service, window, limit))
+                        .as("window %d..%d x %d..%d by %d", window[0], window[1], window[2], window[3], limit)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    private static List<String> walk(ParcelViewportService service, int[] window, int limit) {
+        List<String> seen = new ArrayList<>();
+        Integer afterX = null;
+        Integer afterY = null;
+        int pages = 0;
+        do {
+            ParcelPageDTO page = service.getViewport(GARDEN_ID, window[0], window[1], window[2], window[3],
+                    afterX, afterY, limit, null);
+            assertThat(page.getParcels().size()).isLessThanOrEqualTo(limit);
+            page.getParcels().forEach(parcel -> seen.add(parcel.getXCoordinate() + "," + parcel.getYCoordinate()));
+            afterX = page.getNextAfterX();
+            afterY = page.getNextAfterY();
+            assertThat(++pages).as("pages").isLessThan(10_000);
+        } while (afterX != null);
+        return seen;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ParcelViewportService service(EngineMode engine) {
+        SimulationProperties simulationProperties = new SimulationProperties();
+        simulationProperties.setEngine(engine);
+
+        GardenWorldService gardenWorldService = mock(GardenWorldService.class);
+        when(gardenWorldService.read(eq(GARDEN_ID), any())).thenAnswer(invocation ->
+                ((Function<GardenWorld, Object>) invocation.getArgument(1)).apply(world));
+
+        // Same filter and order as the query
+        ParcelRepository parcelRepository = mock(ParcelRepository.class);
+        when(parcelRepository.findInRows(eq(GARDEN_ID), anyCollection(), anyInt(), anyInt(), anyInt(), anyInt(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Integer> inRows = invocation.getArgument(1);
+                    int minX = invocation.getArgument(2);
+                    int maxX = invocation.getArgument(3);
+                    int firstRow = invocation.getArgument(4);
+                    int fromX = invocation.getArgument(5);
+                    Pageable pageable = invocation.getArgument(6);
+                    return rows.stream()
+                            .filter(parcel -> inRows.contains(parcel.getYCoordinate()))
+                            .filter(parcel -> parcel.getXCoordinate() >= minX && parcel.getXCoordinate() <= maxX)
+                            .filter(parcel -> parcel.getYCoordinate() > firstRow || parcel.getXCoordinate() >= fromX)
+                            .limit(pageable.getPageSize())
+                            .toList();
+                });
+
+        return new ParcelViewportService(simulationProperties, gardenWorldService, new WorldMapper(),
+                mock(GardenMapper.class), parcelRepository, mock(PlantRepository.class),
+                mock(InsectRepository.class), mock(TreatmentDeviceRepository.class));
+    }
+
+    // 30 x 20 parcels from (-5, 0), about one cell in three empty so pages end on holes too
+    private static GardenWorld garden() {
+        Random random = new Random(3);
+        ParcelStore parcels = new ParcelStore(new HeapColumnFactory());
+        for (int y = 0; y < 20; y++) {
+            for (int x = -5; x < 25; x++) {
+                if (random.nextInt(3) != 0) {
+                    parcels.add(parcels.size() + 1L, x, y, 50);
+                }
+            }
+        }
+        return new GardenWorld(parcels, List.of());
+    }
+
+    // The world's parcels as table rows, in the order of the query
+    private static List<Parcel> rows(ParcelStore parcels) {
+        List<Parcel> rows = new ArrayList<>();
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            Parcel parcel = new Parcel();
+            parcel.setId(parcels.getId(ordinal));
+            parcel.setXCoordinate(parcels.getX(ordinal));
+            parcel.setYCoordinate(parcels.getY(ordinal));
+            parcel.setHumidityLevel(parcels.getHumidityLevel(ordinal));
+            rows.add(parcel);
+        }
+        rows.sort(Comparator.comparing(Parcel::getYCoordinate).thenComparing(Parcel::getXCoordinate));
+        return rows;
+    }
+
+    private static boolean inWindow(Parcel parcel, int minX, int maxX, int minY, int maxY) {
+        return parcel.getXCoordinate() >= minX && parcel.getXCoordinate() <= maxX
+                && parcel.getYCoordinate() >= minY && parcel.getYCoordinate() <= maxY;
+    }
+
+    private static String coordinates(Parcel parcel) {
+        return parcel.getXCoordinate() + "," + parcel.getYCoordinate();
+    }
+}
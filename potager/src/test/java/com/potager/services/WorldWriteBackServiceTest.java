@@ -0,0 +1,146 @@
+package com.potager.services;
+
+import com.potager.engine.GardenWorld;
+import com.potager.engine.InsectStore;
+import com.potager.engine.ParcelStore;
+import com.potager.engine.PlantStore;
+import com.potager.engine.RandomStreams;
+import com.potager.engine.SlotStore;
+import com.potager.engine.TestGardens;
+import com.potager.engine.WorldStepper;
+import com.potager.models.Parcel;
+import com.potager.models.Plant;
+import com.potager.repositories.InsectRepository;
+import com.potager.repositories.ParcelRepository;
+import com.potager.repositories.PlantRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Flushes a stepped world through the dirty write-back into tables kept in maps, and checks they
+ * always hold what a full write-back of the world would.
+ */
+class WorldWriteBackServiceTest {
+
+    private static final long GARDEN_ID = 1L;
+    private static final Pattern UPDATE = Pattern.compile("UPDATE (\\w+) SET (.+) WHERE id = \\?");
+
+    private final Map<String, Map<Long, Map<String, Object>>> tables = new HashMap<>();
+    private long nextPlantId = 1_000_000;
+
+    @Test
+    void dirtyWriteBackMatchesFullWriteBack() {
+        GardenWorld world = TestGardens.build(40);
+        tables.putAll(fullWriteBack(world));
+        WorldWriteBackService writeBack = service();
+        WorldStepper stepper = new WorldStepper();
+        RandomStreams random = new RandomStreams(11);
+
+        int step = 0;
+        for (int steps : new int[]{1, 7, 0, 13, 40}) {
+            for (int i = 0; i < steps; i++) {
+                stepper.step(world, ++step, random);
+            }
+            writeBack.writeBack(GARDEN_ID, world);
+            world.markFlushed();
+
+            assertThat(tables).as("tables after step %d", step).isEqualTo(fullWriteBack(world));
+        }
+    }
+
+    private WorldWriteBackService service() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            update(invocation.getArgument(0), rows);
+            return new int[rows.size()];
+        });
+
+        ParcelRepository parcelRepository = mock(ParcelRepository.class);
+        when(parcelRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            Parcel parcel = new Parcel();
+            parcel.setId(invocation.getArgument(0));
+            return parcel;
+        });
+
+        PlantRepository plantRepository = mock(PlantRepository.class);
+        when(plantRepository.ageAll(eq(GARDEN_ID), anyInt())).thenAnswer(invocation -> {
+            int steps = invocation.getArgument(1);
+            Map<Long, Map<String, Object>> plants = tables.get("plants");
+            plants.values().forEach(row -> row.put("current_age", (Integer) row.get("current_age") + steps));
+            return plants.size();
+        });
+        when(plantRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Plant> plants = invocation.getArgument(0);
+            for (Plant plant : plants) {
+                plant.setId(nextPlantId++);
+                tables.get("plants").put(plant.getId(), new HashMap<>(Map.of("current_age", plant.getCurrentAge())));
+            }
+            return plants;
+        });
+
+        InsectRepository insectRepository = mock(InsectRepository.class);
+        doAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            ids.forEach(tables.get("insects")::remove);
+            return null;
+        }).when(insectRepository).deleteAllByIdInBatch(anyList());
+
+        return new WorldWriteBackService(jdbcTemplate, parcelRepository, plantRepository, insectRepository,
+                new SimpleMeterRegistry());
+    }
+
+    private void update(String sql, List<Object[]> rows) {
+        Matcher matcher = UPDATE.matcher(sql);
+        assertThat(matcher.matches()).as(sql).isTrue();
+        String[] columns = matcher.group(2).replace(" = ?", "").split(", ");
+        Map<Long, Map<String, Object>> table = tables.get(matcher.group(1));
+        for (Object[] row : rows) {
+            Map<String, Object> stored = table.get((Long) row[columns.length]);
+            assertThat(stored).as("row %s of %s", row[columns.length], matcher.group(1)).isNotNull();
+            for (int i = 0; i < columns.length; i++) {
+                stored.put(columns[i], row[i]);
+            }
+        }
+    }
+
+    // Every row of the world, as a write-back of everything would leave the tables
+    private static Map<String, Map<Long, Map<String, Object>>> fullWriteBack(GardenWorld world) {
+        ParcelStore parcels = world.getParcels();
+        PlantStore plants = world.getPlants();
+        InsectStore insects = world.getInsects();
+        Map<Long, Map<String, Object>> parcelRows = new HashMap<>();
+        Map<Long, Map<String, Object>> plantRows = new HashMap<>();
+        Map<Long, Map<String, Object>> insectRows = new HashMap<>();
+        for (int ordinal = 0; ordinal < parcels.size(); ordinal++) {
+            parcelRows.put(parcels.getId(ordinal), new HashMap<>(Map.of("humidity_level", parcels.getHumidityLevel(ordinal))));
+            for (int slot = plants.first(ordinal); slot != SlotStore.NONE; slot = plants.next(slot)) {
+                plantRows.put(plants.getId(slot), new HashMap<>(Map.of("current_age", plants.getCurrentAge(slot))));
+            }
+            for (int slot = insects.first(ordinal); slot != SlotStore.NONE; slot = insects.next(slot)) {
+                insectRows.put(insects.getId(slot), new HashMap<>(Map.of(
+                        "health_index", insects.getHealthIndex(slot),
+                        "steps_without_food", insects.getStepsWithoutFood(slot),
+                        "parcel_id", parcels.getId(ordinal))));
+            }
+        }
+        return new HashMap<>(Map.of("parcels", parcelRows, "plants", plantRows, "insects", insectRows));
+    }
+}
@@ -1,9 +1,9 @@
 
-import type { Parcel, SimulationState } from '../models/types';
+import type { GridFrame, ImportJob, Parcel, SimulationState } from '../models/types';
 import apiClient from './axiosConfig';
 
 
-const transformParcel = (data: any): Parcel => ({
+export const transformParcel = (data: any): Parcel => ({
     id: data.id,
     xCoordinate: data.xcoordinate || data.xCoordinate, // Handles both cases
     yCoordinate: data.ycoordinate || data.yCoordinate, // Handles both cases
@@ -23,6 +23,51 @@ export const getParcels = async (): Promise<Parcel[]> => {
     }
 };
 
+const GRID_FRAME_MAGIC = 0x50475244;
+
+// The browser inflates the gzipped frame by itself
+export const getGridFrame = async (): Promise<GridFrame> => {
+    const response = await apiClient.get('/parcels/frame', { responseType: 'arraybuffer' });
+    const buffer: ArrayBuffer = response.data;
+    const view = new DataView(buffer);
+    if (view.getInt32(0) !== GRID_FRAME_MAGIC) {
+        throw new Error('Not a grid frame');
+    }
+    const gardenId = Number(view.getBigInt64(6));
+    const step = view.getInt32(14);
+    const minX = view.getInt32(18);
+    const minY = view.getInt32(22);
+    const width = view.getInt32(26);
+    const height = view.getInt32(30);
+    const speciesCount = view.getInt16(34);
+    let offset = 36;
+    const insectSpecies: string[] = [];
+    const decoder = new TextDecoder();
+    for (let i = 0; i < speciesCount; i++) {
+        const length = view.getInt16(offset);
+        insectSpecies.push(decoder.decode(new Uint8Array(buffer, offset + 2, length)));
+        offset += 2 + length;
+    }
+    const cells = width * height;
+    const column = () => {
+        const values = new Uint8Array(buffer, offset, cells);
+        offset += cells;
+        return values;
+    };
+    const humidity = column();
+    const plants = column();
+    const devices = column();
+    const insects = insectSpecies.map(() => {
+        const values = new Uint16Array(cells);
+        for (let cell = 0; cell < cells; cell++) {
+            values[cell] = view.getUint16(offset + 2 * cell);
+        }
+        offset += 2 * cells;
+        return values;
+    });
+    return { gardenId, step, minX, minY, width, height, insectSpecies, humidity, plants, devices, insects };
+};
+
 export const startSimulation = async (): Promise<void> => {
     await apiClient.post('/simulation/start');
 };
@@ -50,23 +95,45 @@ export const getSimulationStatus = async (): Promise<SimulationState> => {
     return response.data;
 };
 
-// Add to gardenApi.ts
-export const loadGardenFromXml = async (xmlContent: string): Promise<void> => {
-    await apiClient.post('/garden-setup/load-xml', xmlContent, {
+const IMPORT_POLL_INTERVAL = 500;
+
+// Imports run in the background: poll the job until it is over, and fail like the request used to
+const awaitImport = async (job: ImportJob, onProgress?: (job: ImportJob) => void): Promise<ImportJob> => {
+    while (job.status === 'QUEUED' || job.status === 'RUNNING') {
+        onProgress?.(job);
+        await new Promise(resolve => setTimeout(resolve, IMPORT_POLL_INTERVAL));
+        const response = await apiClient.get(`/garden-setup/imports/${job.jobId}`);
+        job = response.data;
+    }
+    if (job.status !== 'COMPLETED') {
+        throw new Error(job.message ?? `Import ${job.status.toLowerCase()}`);
+    }
+    return job;
+};
+
+export const loadGardenFromXml = async (xmlContent: string, onProgress?: (job: ImportJob) => void): Promise<ImportJob> => {
+    const response = await apiClient.post('/garden-setup/load-xml', xmlContent, {
         headers: {
             'Content-Type': 'application/xml',
         },
     });
+    return awaitImport(response.data, onProgress);
 };
 
-export const uploadGardenXmlFile = async (file: File): Promise<void> => {
+export const uploadGardenXmlFile = async (file: File, onProgress?: (job: ImportJob) => void): Promise<ImportJob> => {
     const formData = new FormData();
     formData.append('file', file);
-    await apiClient.post('/garden-setup/upload-xml', formData, {
+    const response = await apiClient.post('/garden-setup/upload-xml', formData, {
         headers: {
             'Content-Type': 'multipart/form-data',
         },
     });
+    return awaitImport(response.data, onProgress);
+};
+
+export const cancelImport = async (jobId: string): Promise<ImportJob> => {
+    const response = await apiClient.delete(`/garden-setup/imports/${jobId}`);
+    return response.data;
 };
 
 export const loadPresetGarden = async (presetName: string): Promise<void> => {
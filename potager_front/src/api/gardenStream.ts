@@ -0,0 +1,143 @@
+import type { GardenDelta, GardenSnapshot, Parcel, SimulationState } from '../models/types';
+import apiClient from './axiosConfig';
+import { getParcels, getSimulationStatus, transformParcel } from './gardenApi';
+
+// Garden as last pushed by the server, shared by every component on the page
+export interface GardenStreamState {
+    step: number | null;
+    parcels: Parcel[] | null;
+    status: SimulationState | null;
+}
+
+type Listener = (state: GardenStreamState) => void;
+
+const POLL_INTERVAL = 2000;
+
+const listeners = new Set<Listener>();
+let state: GardenStreamState = { step: null, parcels: null, status: null };
+let source: EventSource | null = null;
+let pollTimer: ReturnType<typeof setInterval> | null = null;
+
+const publish = (next: GardenStreamState) => {
+    state = next;
+    listeners.forEach(listener => listener(state));
+};
+
+// Garden without an in-memory world, or a stream that cannot be opened: fetch the whole grid
+const refetch = async () => {
+    try {
+        const [parcels, status] = await Promise.all([getParcels(), getSimulationStatus()]);
+        publish({ step: status.currentStep, parcels, status });
+    } catch (error) {
+        console.error('Error fetching garden:', error);
+    }
+};
+
+const applySnapshot = (snapshot: GardenSnapshot) => {
+    if (snapshot.resync) {
+        state = { ...state, step: snapshot.step, status: snapshot.status ?? state.status };
+        refetch();
+        return;
+    }
+    publish({
+        step: snapshot.step,
+        parcels: (snapshot.parcels ?? []).map(transformParcel),
+        status: snapshot.status ? { ...snapshot.status, currentStep: snapshot.step } : state.status,
+    });
+};
+
+const applyDelta = (delta: GardenDelta) => {
+    const status = state.status ? { ...state.status, currentStep: delta.step } : null;
+    if (delta.resync) {
+        state = { ...state, step: delta.step, status };
+        refetch();
+        return;
+    }
+    if (state.parcels === null || state.step !== delta.fromStep) {
+        // Out of sequence: the server follows up with a snapshot
+        return;
+    }
+    const changed = new Map<number, Parcel>();
+    (delta.parcels ?? []).forEach(data => {
+        const parcel = transformParcel(data);
+        changed.set(parcel.id, parcel);
+    });
+    const aged = delta.plantsAged ?? 0;
+    const decay = delta.humidityDecay ?? 1;
+    publish({
+        step: delta.step,
+        status,
+        parcels: state.parcels.map(parcel => changed.get(parcel.id) ?? {
+            ...parcel,
+            humidityLevel: parcel.humidityLevel * decay,
+            plants: aged === 0 ? parcel.plants : parcel.plants.map(plant => ({
+                ...plant,
+                currentAge: plant.currentAge + aged,
+            })),
+        }),
+    });
+};
+
+const startPolling = () => {
+    if (pollTimer === null) {
+        refetch();
+        pollTimer = setInterval(refetch, POLL_INTERVAL);
+    }
+};
+
+const open = () => {
+    if (typeof EventSource === 'undefined') {
+        startPolling();
+        return;
+    }
+    source = new EventSource(`${apiClient.defaults.baseURL}/simulation/stream`);
+    source.addEventListener('snapshot', event => applySnapshot(JSON.parse((event as MessageEvent).data)));
+    source.addEventListener('delta', event => applyDelta(JSON.parse((event as MessageEvent).data)));
+    source.addEventListener('status', event => {
+        const status: SimulationState = JSON.parse((event as MessageEvent).data);
+        publish({ ...state, status });
+    });
+    source.onerror = () => {
+        // The browser reconnects by itself, and the server starts over with a snapshot; a stream
+        // that was refused for good is replaced by polling
+        if (source?.readyState === EventSource.CLOSED) {
+            source = null;
+            startPolling();
+        }
+    };
+};
+
+const close = () => {
+    source?.close();
+    source = null;
+    if (pollTimer !== null) {
+        clearInterval(pollTimer);
+        pollTimer = null;
+    }
+    state = { step: null, parcels: null, status: null };
+};
+
+/**
+ * Calls the listener with the garden now and on every update pushed by the server. One connection
+ * is shared by every listener and closed with the last one.
+ */
+export const subscribeToGarden = (listener: Listener): (() => void) => {
+    listeners.add(listener);
+    if (source === null && pollTimer === null) {
+        open();
+    } else if (state.parcels !== null || state.status !== null) {
+        listener(state);
+    }
+    return () => {
+        listeners.delete(listener);
+        if (listeners.size === 0) {
+            close();
+        }
+    };
+};
+
+// Status right away, e.g. after a control button, without waiting for the next push
+export const refreshGardenStatus = async () => {
+    const status = await getSimulationStatus();
+    publish({ ...state, status });
+};
@@ -30,7 +30,15 @@ const GardenSetupPanel: React.FC<{ onSuccess?: () => void }> = ({ onSuccess }) =
         setMessage({ text: '', variant: 'success' });
 
         try {
-            await uploadGardenXmlFile(selectedFile);
+            await uploadGardenXmlFile(selectedFile, job => {
+                const percent = job.bytesTotal > 0 ? Math.round(100 * job.bytesRead / job.bytesTotal) : 0;
+                setMessage({
+                    text: job.status === 'QUEUED'
+                        ? 'Import queued...'
+                        : `Importing: ${percent}% (${job.elementsParsed} elements, ${Math.round(job.rowsPerSecond)} rows/s)`,
+                    variant: 'info',
+                });
+            });
             setMessage({ text: 'Garden configuration loaded successfully', variant: 'success' });
             if (onSuccess) onSuccess();
         } catch (error) {
@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from 'react';
-import { getParcels } from '../api/gardenApi';
+import { subscribeToGarden } from '../api/gardenStream';
 import type { Parcel } from '../models/types';
 
 const ParcelGrid: React.FC = () => {
@@ -7,22 +7,13 @@ const ParcelGrid: React.FC = () => {
     const [loading, setLoading] = useState(true);
 
     useEffect(() => {
-        const fetchParcels = async () => {
-            try {
-                console.log('Fetching parcels...');
-                const data = await getParcels();
-                console.log('Received parcels:', data);
-                setParcels(data);
-                setLoading(false);
-            } catch (error) {
-                console.error('Error fetching parcels:', error);
+        // Pushed by the server after every step, only the changed parcels travel
+        return subscribeToGarden(garden => {
+            if (garden.parcels !== null) {
+                setParcels(garden.parcels);
                 setLoading(false);
             }
-        };
-
-        fetchParcels();
-        const interval = setInterval(fetchParcels, 2000);
-        return () => clearInterval(interval);
+        });
     }, []);
 
     // Safely calculate grid dimensions with fallback values
@@ -50,3 +50,59 @@ export interface SimulationState {
     speedMultiplier: number;
 }
 
+
+export interface GardenSnapshot {
+    gardenId: number;
+    step: number;
+    status: SimulationState | null;
+    parcels: Parcel[] | null;
+    resync: boolean;
+}
+
+export interface GardenDelta {
+    gardenId: number;
+    fromStep: number;
+    step: number;
+    parcels: Parcel[] | null;
+    plantsAged: number | null;
+    humidityDecay: number | null;
+    resync: boolean;
+}
+
+// Whole grid as packed columns, one cell per (x, y) in row-major order; see GET /parcels/frame
+export interface GridFrame {
+    gardenId: number;
+    step: number;
+    minX: number;
+    minY: number;
+    width: number;
+    height: number;
+    insectSpecies: string[];
+    // Level x 2.5, or 255 where there is no parcel
+    humidity: Uint8Array;
+    plants: Uint8Array;
+    // 1 = device, 2 << program type ordinal for each program it runs
+    devices: Uint8Array;
+    // One column per species
+    insects: Uint16Array[];
+}
+
+// Background garden import; see POST /garden-setup/upload-xml
+export interface ImportJob {
+    jobId: string;
+    status: 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'CANCELLED' | 'FAILED';
+    source: string;
+    bytesTotal: number;
+    bytesRead: number;
+    elementsParsed: number;
+    rowsWritten: number;
+    elementsPerSecond: number;
+    rowsPerSecond: number;
+    elapsedMillis: number;
+    parcels: number | null;
+    plants: number | null;
+    insects: number | null;
+    devices: number | null;
+    programs: number | null;
+    message: string | null;
+}
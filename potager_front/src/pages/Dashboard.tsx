@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import ParcelGrid from '../components/ParcelGrid';
-import { getSimulationStatus } from '../api/gardenApi';
+import { refreshGardenStatus, subscribeToGarden } from '../api/gardenStream';
 import SimulationControl from "./SimulationControl";
 import GardenSetupPanel from "../components/GardenSetupPanel";
 
@@ -14,8 +14,7 @@ const Dashboard: React.FC = () => {
 
     const refreshStatus = async () => {
         try {
-            const status = await getSimulationStatus();
-            setSimulationState(status);
+            await refreshGardenStatus();
         } catch (error) {
             console.error('Error fetching simulation status:', error);
         }
@@ -26,9 +25,12 @@ const Dashboard: React.FC = () => {
     };
 
     useEffect(() => {
-        refreshStatus();
-        const interval = setInterval(refreshStatus, 1000);
-        return () => clearInterval(interval);
+        // Status and step are pushed by the server, no polling
+        return subscribeToGarden(garden => {
+            if (garden.status !== null) {
+                setSimulationState(garden.status);
+            }
+        });
     }, [refreshTrigger]); // Add refreshTrigger as dependency
 
     return (